@@ -3,20 +3,22 @@ package dungeon;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 /**
  * An abstract class which shows the common functionalities of locations.
  */
 public class AbstractLocation implements Location {
+  private static final Direction[] DISPLAY_ORDER = {Direction.NORTH, Direction.SOUTH,
+      Direction.WEST, Direction.EAST};
+
   private final int rowDim;
   private final int colDim;
-  private boolean up;
-  private boolean down;
-  private boolean right;
-  private boolean left;
+  private int wallBits;
   protected int numOfArrowsPresent;
   private int smellLevel;
+  private ItemIndex itemIndex;
 
   /**
    * to build an abstract location object with row and col.
@@ -46,20 +48,40 @@ public class AbstractLocation implements Location {
     }
     this.rowDim = rowDim;
     this.colDim = colDim;
-    this.up = up;
-    this.down = down;
-    this.right = right;
-    this.left = left;
+    this.wallBits = (up ? WallBits.UP : 0) | (down ? WallBits.DOWN : 0)
+            | (right ? WallBits.RIGHT : 0) | (left ? WallBits.LEFT : 0);
     this.numOfArrowsPresent = 0;
   }
 
+  /**
+   * Return the walls of this cell, see {@link WallBits}.
+   *
+   * @return the wall bits
+   */
+  public int getWallBits() {
+    return wallBits;
+  }
+
+  /**
+   * Replace the walls of this cell, see {@link WallBits}.
+   *
+   * @param wallBits the wall bits
+   */
+  protected void setWallBits(int wallBits) {
+    this.wallBits = wallBits;
+  }
+
+  private void setWallBit(int bit, boolean isPresent) {
+    setWallBits(isPresent ? getWallBits() | bit : getWallBits() & ~bit);
+  }
+
   /**
    * Return whether this cell's north wall exists.
    *
    * @return true if and only if the north wall exists
    */
   public boolean hasWallUpSide() {
-    return up;
+    return (getWallBits() & WallBits.UP) != 0;
   }
 
   /**
@@ -68,7 +90,7 @@ public class AbstractLocation implements Location {
    * @param up true if wall exists; false otherwise
    */
   public void setUp(boolean up) {
-    this.up = up;
+    setWallBit(WallBits.UP, up);
   }
 
   /**
@@ -77,7 +99,7 @@ public class AbstractLocation implements Location {
    * @return true if and only if the south wall exists
    */
   public boolean hasWallDownSide() {
-    return down;
+    return (getWallBits() & WallBits.DOWN) != 0;
   }
 
   /**
@@ -86,7 +108,7 @@ public class AbstractLocation implements Location {
    * @param down true if wall exists; false otherwise
    */
   public void setDown(boolean down) {
-    this.down = down;
+    setWallBit(WallBits.DOWN, down);
   }
 
   /**
@@ -95,7 +117,7 @@ public class AbstractLocation implements Location {
    * @return true if and only if the west wall exists
    */
   public boolean hasWallRightSide() {
-    return right;
+    return (getWallBits() & WallBits.RIGHT) != 0;
   }
 
   /**
@@ -104,7 +126,7 @@ public class AbstractLocation implements Location {
    * @param right true if wall exists; false otherwise
    */
   public void setRight(boolean right) {
-    this.right = right;
+    setWallBit(WallBits.RIGHT, right);
   }
 
   /**
@@ -114,7 +136,7 @@ public class AbstractLocation implements Location {
    */
   public boolean hasWallLeftSide() {
 
-    return left;
+    return (getWallBits() & WallBits.LEFT) != 0;
   }
 
   /**
@@ -124,7 +146,7 @@ public class AbstractLocation implements Location {
    */
   public void setLeft(boolean left) {
 
-    this.left = left;
+    setWallBit(WallBits.LEFT, left);
   }
 
   /**
@@ -153,40 +175,61 @@ public class AbstractLocation implements Location {
    * @return the entrances.
    */
   public int getNumberOfEntrance() {
-    int result = 0;
-    if (!hasWallUpSide()) {
-      result++;
-    }
-    if (!hasWallDownSide()) {
-      result++;
-    }
-    if (!hasWallLeftSide()) {
-      result++;
-    }
-    if (!hasWallRightSide()) {
-      result++;
+    return exitCount();
+  }
+
+  /**
+   * return the directions that can be taken out of the location as a mask of
+   * {@link Direction#getBit()}.
+   *
+   * @return the mask of exits.
+   */
+  public int getExits() {
+    return ~getWallBits() & WallBits.ALL;
+  }
+
+  /**
+   * return if the location can be left in a direction.
+   *
+   * @param direction the direction.
+   * @return true if no wall blocks the direction.
+   */
+  public boolean canMove(Direction direction) {
+    return (getExits() & direction.getBit()) != 0;
+  }
+
+  /**
+   * return the number of exits of the location.
+   *
+   * @return the number of exits.
+   */
+  public int exitCount() {
+    return Integer.bitCount(getExits());
+  }
+
+  /**
+   * to perform an action for every exit, in the order of the directions, without allocating.
+   *
+   * @param action the action.
+   */
+  public void forEachExit(Consumer<Direction> action) {
+    for (int exits = getExits(); exits != 0; exits &= exits - 1) {
+      action.accept(Direction.lowestOf(exits));
     }
-    return result;
   }
 
   /**
-   * the possible moves of the location.
+   * the possible moves of the location, in the order they are shown to the player.
    *
    * @return the list of directions.
    */
   public List<Direction> getPossibleMoves() {
-    List<Direction> res = new ArrayList<>();
-    if (!hasWallUpSide()) {
-      res.add(Direction.NORTH);
-    }
-    if (!hasWallDownSide()) {
-      res.add(Direction.SOUTH);
-    }
-    if (!hasWallLeftSide()) {
-      res.add(Direction.WEST);
-    }
-    if (!hasWallRightSide()) {
-      res.add(Direction.EAST);
+    final int exits = getExits();
+    List<Direction> res = new ArrayList<>(Integer.bitCount(exits));
+    for (Direction direction : DISPLAY_ORDER) {
+      if ((exits & direction.getBit()) != 0) {
+        res.add(direction);
+      }
     }
     return res;
   }
@@ -206,6 +249,7 @@ public class AbstractLocation implements Location {
    */
   public void addArrows() {
     numOfArrowsPresent++;
+    notifyItemsChanged();
   }
 
   /**
@@ -222,6 +266,35 @@ public class AbstractLocation implements Location {
    */
   public void removeArrow() {
     numOfArrowsPresent--;
+    notifyItemsChanged();
+  }
+
+  /**
+   * to get the index to keep up to date with the items of the location.
+   *
+   * @return the index, null if the items of the location are not indexed.
+   */
+  ItemIndex getItemIndex() {
+    return itemIndex;
+  }
+
+  /**
+   * to set the index to keep up to date with the items of the location.
+   *
+   * @param itemIndex the index, null to stop indexing the location.
+   */
+  void setItemIndex(ItemIndex itemIndex) {
+    this.itemIndex = itemIndex;
+  }
+
+  /**
+   * to tell the index of the items, if any, that the items of the location have changed.
+   */
+  protected final void notifyItemsChanged() {
+    final ItemIndex index = getItemIndex();
+    if (index != null) {
+      index.update(this);
+    }
   }
 
   /**
@@ -276,6 +349,7 @@ public class AbstractLocation implements Location {
   }
 
   protected String getSmellInfoAsString() {
+    final int smellLevel = getSmellLevel();
     if (smellLevel > 1) {
       return "You smell something terribly nearby.\n";
     } else if (smellLevel == 1) {
@@ -286,6 +360,7 @@ public class AbstractLocation implements Location {
   }
 
   protected String getArrowsCountAsString() {
+    final int numOfArrowsPresent = getNumOfArrowsPresent();
     if (numOfArrowsPresent > 0) {
       return String.format("You can find %s arrows here.\n", numOfArrowsPresent);
     } else {
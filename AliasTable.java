@@ -0,0 +1,106 @@
+package dungeon;
+
+import java.util.Random;
+
+/**
+ * A discrete distribution over the outcomes 0 to size - 1, drawn from in constant time with
+ * Walker's alias method. Every outcome owns a column of equal chance, split between the
+ * outcome itself, up to its threshold, and an alias outcome for the rest. A draw picks a column
+ * and then tosses a coin against its threshold, and the toss is skipped for columns with no
+ * alias.
+ */
+public final class AliasTable {
+  private static final int PRECISION = 1 << 30;
+
+  private final int[] thresholds;
+  private final int[] aliases;
+
+  /**
+   * to build the table of the given weights with Vose's method, in time linear in the number of
+   * outcomes.
+   *
+   * @param weights the weights of the outcomes, not negative and not all zero.
+   * @throws IllegalArgumentException if the weights are invalid.
+   */
+  public AliasTable(double[] weights) throws IllegalArgumentException {
+    if (weights == null || weights.length == 0) {
+      throw new IllegalArgumentException("Weights cannot be empty");
+    }
+    final int size = weights.length;
+    double total = 0;
+    for (double weight : weights) {
+      if (!(weight >= 0) || Double.isInfinite(weight)) {
+        throw new IllegalArgumentException("Weights must be finite and not negative");
+      }
+      total += weight;
+    }
+    if (total <= 0) {
+      throw new IllegalArgumentException("Weights cannot all be zero");
+    }
+    final double[] shares = new double[size];
+    final int[] small = new int[size];
+    final int[] large = new int[size];
+    int numberOfSmall = 0;
+    int numberOfLarge = 0;
+    for (int i = 0; i < size; i++) {
+      shares[i] = weights[i] * size / total;
+      if (shares[i] < 1) {
+        small[numberOfSmall++] = i;
+      } else {
+        large[numberOfLarge++] = i;
+      }
+    }
+    thresholds = new int[size];
+    aliases = new int[size];
+    while (numberOfSmall > 0 && numberOfLarge > 0) {
+      final int less = small[--numberOfSmall];
+      final int more = large[--numberOfLarge];
+      thresholds[less] = (int) Math.round(shares[less] * PRECISION);
+      aliases[less] = more;
+      shares[more] += shares[less] - 1;
+      if (shares[more] < 1) {
+        small[numberOfSmall++] = more;
+      } else {
+        large[numberOfLarge++] = more;
+      }
+    }
+    // what is left over is only off by rounding, so it keeps its whole column
+    while (numberOfLarge > 0) {
+      final int outcome = large[--numberOfLarge];
+      thresholds[outcome] = PRECISION;
+      aliases[outcome] = outcome;
+    }
+    while (numberOfSmall > 0) {
+      final int outcome = small[--numberOfSmall];
+      thresholds[outcome] = PRECISION;
+      aliases[outcome] = outcome;
+    }
+  }
+
+  /**
+   * to get the number of outcomes.
+   *
+   * @return the number of outcomes.
+   */
+  public int size() {
+    return thresholds.length;
+  }
+
+  /**
+   * to draw an outcome.
+   *
+   * @param rand the random generator.
+   * @return the outcome, from 0 to size - 1.
+   */
+  public int sample(Random rand) {
+    if (thresholds.length == 1) {
+      return 0;
+    }
+    final int column = rand.nextInt(thresholds.length);
+    final int threshold = thresholds[column];
+    if (threshold >= PRECISION || rand.nextInt(PRECISION) < threshold) {
+      return column;
+    }
+    return aliases[column];
+  }
+}
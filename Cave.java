@@ -26,6 +26,17 @@ public class Cave extends AbstractLocation {
     this.treasureMap = new HashMap<>();
   }
 
+  /**
+   * build a cave object for a location whose state is kept outside of the object.
+   *
+   * @param rowDim the row of the cave.
+   * @param colDim the col of the cave.
+   */
+  protected Cave(int rowDim, int colDim) {
+    super(rowDim, colDim);
+    this.treasureMap = new HashMap<>();
+  }
+
   /**
    * adds a new treasure to the player.
    */
@@ -35,10 +46,11 @@ public class Cave extends AbstractLocation {
     }
     if (treasureMap.containsKey(treasure)) {
       Integer val = treasureMap.get(treasure);
-      treasureMap.put(treasure, val++);
+      treasureMap.put(treasure, val + 1);
     } else {
       treasureMap.put(treasure, 1);
     }
+    notifyItemsChanged();
   }
 
   /**
@@ -57,6 +69,7 @@ public class Cave extends AbstractLocation {
       int val = treasureMap.get(treasure);
       treasureMap.put(treasure, val - 1);
     }
+    notifyItemsChanged();
   }
 
   /**
@@ -68,6 +81,16 @@ public class Cave extends AbstractLocation {
     return new HashMap<>(treasureMap);
   }
 
+  /**
+   * return the count of a treasure in the cave.
+   *
+   * @param treasure the treasure.
+   * @return the count of the treasure.
+   */
+  public int getTreasureCount(Treasure treasure) {
+    return treasureMap.getOrDefault(treasure, 0);
+  }
+
   /**
    * adds a new Otyugh to the Cave.
    */
@@ -93,7 +116,8 @@ public class Cave extends AbstractLocation {
    * @return flag value.
    */
   public Boolean hasOtyugh() {
-    return (otyugh != null && !otyugh.isSlayed());
+    final Otyugh monster = getMonster();
+    return (monster != null && !monster.isSlayed());
   }
 
   @Override
@@ -114,9 +138,9 @@ public class Cave extends AbstractLocation {
     StringBuilder str = new StringBuilder();
     str.append("You are in a Cave\n");
     str.append(getSmellInfoAsString());
-    final int rubiesCount = treasureMap.getOrDefault(Treasure.RUBIES, 0);
-    final int diamondCount = treasureMap.getOrDefault(Treasure.DIAMOND, 0);
-    final int sapphiresCount = treasureMap.getOrDefault(Treasure.SAPPHIRES, 0);
+    final int rubiesCount = getTreasureCount(Treasure.RUBIES);
+    final int diamondCount = getTreasureCount(Treasure.DIAMOND);
+    final int sapphiresCount = getTreasureCount(Treasure.SAPPHIRES);
     if (rubiesCount > 0) {
       str.append(String.format("You can find %s rubies here.\n", rubiesCount));
     }
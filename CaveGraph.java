@@ -0,0 +1,251 @@
+package dungeon;
+
+import java.util.Arrays;
+
+/**
+ * The graph of the caves of a dungeon, where every chain of tunnels between two caves is
+ * contracted to a single edge. A cave has an edge for every direction it can be left in,
+ * recording the cave the chain leads to, the direction it is entered in and the tunnels passed
+ * through. Arrows follow these edges, so the flight of an arrow takes time in the number of
+ * caves it crosses rather than the number of locations.
+ *
+ * <p>Arrows follow the tunnels wherever they turn, keep going straight through a cave if the
+ * cave can be left in the same direction, and are lost against the wall of a cave that cannot.
+ * Only the caves entered count towards the distance of a shot.
+ */
+public final class CaveGraph {
+  private static final int NO_CAVE = -1;
+  private static final int NUM_DIRECTIONS = GridTopology.NUM_DIRECTIONS;
+
+  private final int[] caveIds;
+  private final int[] caveIndices;
+  private final int[] targets;
+  private final byte[] arrivals;
+  private final int[] cellOffsets;
+  private final int[] cells;
+  private final byte[] steps;
+  private final int[] tunnelEdges;
+  private final int[] tunnelPositions;
+
+  private CaveGraph(int[] caveIds, int[] caveIndices, int[] targets, byte[] arrivals,
+                    int[] cellOffsets, int[] cells, byte[] steps, int[] tunnelEdges,
+                    int[] tunnelPositions) {
+    this.caveIds = caveIds;
+    this.caveIndices = caveIndices;
+    this.targets = targets;
+    this.arrivals = arrivals;
+    this.cellOffsets = cellOffsets;
+    this.cells = cells;
+    this.steps = steps;
+    this.tunnelEdges = tunnelEdges;
+    this.tunnelPositions = tunnelPositions;
+  }
+
+  /**
+   * to contract the tunnels of a dungeon graph.
+   *
+   * @param graph the graph of the moves between the locations.
+   * @return the cave graph.
+   */
+  public static CaveGraph of(DungeonGraph graph) {
+    if (graph == null) {
+      throw new IllegalArgumentException("Graph cannot be null");
+    }
+    final int numLocations = graph.size();
+    final int[] caveIndices = new int[numLocations];
+    int numberOfCaves = 0;
+    for (int id = 0; id < numLocations; id++) {
+      caveIndices[id] = graph.isCave(id) ? numberOfCaves++ : NO_CAVE;
+    }
+    final int[] caveIds = new int[numberOfCaves];
+    for (int id = 0; id < numLocations; id++) {
+      if (caveIndices[id] != NO_CAVE) {
+        caveIds[caveIndices[id]] = id;
+      }
+    }
+
+    final int numEdges = numberOfCaves * NUM_DIRECTIONS;
+    final int[] targets = new int[numEdges];
+    final byte[] arrivals = new byte[numEdges];
+    final int[] cellOffsets = new int[numEdges + 1];
+    final int[] tunnelEdges = new int[numLocations];
+    final int[] tunnelPositions = new int[numLocations];
+    Arrays.fill(targets, NO_CAVE);
+    Arrays.fill(tunnelEdges, NO_CAVE);
+    int[] cells = new int[16];
+    byte[] steps = new byte[16];
+    int numCells = 0;
+
+    for (int caveIndex = 0; caveIndex < numberOfCaves; caveIndex++) {
+      final int caveId = caveIds[caveIndex];
+      for (int direction = 0; direction < NUM_DIRECTIONS; direction++) {
+        final int edge = caveIndex * NUM_DIRECTIONS + direction;
+        cellOffsets[edge] = numCells;
+        int heading = direction;
+        int id = graph.getNeighbor(caveId, Direction.byOrdinal(heading));
+        if (id < 0) {
+          cellOffsets[edge + 1] = numCells;
+          continue;
+        }
+        // a chain is at most as long as the dungeon, longer means a loop of tunnels
+        int length = 0;
+        while (id >= 0 && graph.isTunnel(id) && length < numLocations) {
+          final int nextHeading = turn(graph, id, heading);
+          if (numCells == cells.length) {
+            cells = Arrays.copyOf(cells, 2 * cells.length);
+            steps = Arrays.copyOf(steps, 2 * steps.length);
+          }
+          if (tunnelEdges[id] == NO_CAVE) {
+            tunnelEdges[id] = edge;
+            tunnelPositions[id] = length;
+          }
+          cells[numCells] = id;
+          steps[numCells++] = (byte) nextHeading;
+          length++;
+          heading = nextHeading;
+          id = graph.getNeighbor(id, Direction.byOrdinal(heading));
+        }
+        if (id >= 0 && caveIndices[id] != NO_CAVE) {
+          targets[edge] = id;
+          arrivals[edge] = (byte) heading;
+        }
+        cellOffsets[edge + 1] = numCells;
+      }
+    }
+    return new CaveGraph(caveIds, caveIndices, targets, arrivals, cellOffsets,
+            Arrays.copyOf(cells, numCells), Arrays.copyOf(steps, numCells), tunnelEdges,
+            tunnelPositions);
+  }
+
+  /**
+   * the heading out of a tunnel entered with a heading, which is the exit that does not lead
+   * back.
+   */
+  private static int turn(DungeonGraph graph, int tunnelId, int heading) {
+    final int back = Direction.byOrdinal(heading).getOpposite().ordinal();
+    for (int edge = graph.getFirstEdge(tunnelId); edge < graph.getEdgeEnd(tunnelId); edge++) {
+      final int direction = graph.getDirection(edge).ordinal();
+      if (direction != back) {
+        return direction;
+      }
+    }
+    return back;
+  }
+
+  /**
+   * to get the number of caves.
+   *
+   * @return the number of caves.
+   */
+  public int getNumberOfCaves() {
+    return caveIds.length;
+  }
+
+  /**
+   * to get the id of the location of a cave.
+   *
+   * @param caveIndex the index of the cave, in the order of the location ids.
+   * @return the id of the location.
+   */
+  public int getCaveId(int caveIndex) {
+    return caveIds[caveIndex];
+  }
+
+  /**
+   * to get the index of the cave in a location.
+   *
+   * @param id the id of the location.
+   * @return the index of the cave, -1 if the location is not a cave.
+   */
+  public int getCaveIndex(int id) {
+    return caveIndices[id];
+  }
+
+  /**
+   * to get the cave reached by leaving a cave in a direction and following the tunnels.
+   *
+   * @param caveIndex the index of the cave left.
+   * @param direction the direction the cave is left in.
+   * @return the id of the cave reached, -1 if the cave cannot be left in the direction.
+   */
+  public int getTarget(int caveIndex, Direction direction) {
+    return targets[caveIndex * NUM_DIRECTIONS + direction.ordinal()];
+  }
+
+  /**
+   * to get the direction the cave at the end of an edge is entered in.
+   *
+   * @param caveIndex the index of the cave left.
+   * @param direction the direction the cave is left in.
+   * @return the direction of the last move, null if the cave cannot be left in the direction.
+   */
+  public Direction getArrival(int caveIndex, Direction direction) {
+    final int edge = caveIndex * NUM_DIRECTIONS + direction.ordinal();
+    return targets[edge] == NO_CAVE ? null : Direction.byOrdinal(arrivals[edge]);
+  }
+
+  /**
+   * to get the tunnels passed through by leaving a cave in a direction, in order.
+   *
+   * @param caveIndex the index of the cave left.
+   * @param direction the direction the cave is left in.
+   * @return the ids of the tunnels.
+   */
+  public int[] getCells(int caveIndex, Direction direction) {
+    final int edge = caveIndex * NUM_DIRECTIONS + direction.ordinal();
+    return Arrays.copyOfRange(cells, cellOffsets[edge], cellOffsets[edge + 1]);
+  }
+
+  /**
+   * to get the cave an arrow lands in.
+   *
+   * @param id        the id of the location the arrow is shot from.
+   * @param direction the direction of the shot.
+   * @param distance  the number of caves the arrow flies, at least one.
+   * @return the id of the cave the arrow lands in, -1 if it is lost against a wall.
+   */
+  public int getArrowTarget(int id, Direction direction, int distance) {
+    if (distance < 1) {
+      throw new IllegalArgumentException("Distance of an arrow must be positive");
+    }
+    int cave;
+    int heading = direction.ordinal();
+    if (caveIndices[id] != NO_CAVE) {
+      final int edge = caveIndices[id] * NUM_DIRECTIONS + heading;
+      cave = targets[edge];
+      heading = arrivals[edge];
+    } else {
+      // a tunnel lies on an edge, forward leads to its target and backward to the cave it
+      // leaves from
+      final int edge = tunnelEdges[id];
+      if (edge == NO_CAVE) {
+        return NO_CAVE;
+      }
+      final int cell = cellOffsets[edge] + tunnelPositions[id];
+      if (steps[cell] == heading) {
+        cave = targets[edge];
+        heading = arrivals[edge];
+      } else if (heading == backwards(edge, cell)) {
+        cave = caveIds[edge / NUM_DIRECTIONS];
+        heading = Direction.byOrdinal(edge % NUM_DIRECTIONS).getOpposite().ordinal();
+      } else {
+        return NO_CAVE;
+      }
+    }
+    while (cave != NO_CAVE && --distance > 0) {
+      final int edge = caveIndices[cave] * NUM_DIRECTIONS + heading;
+      cave = targets[edge];
+      heading = arrivals[edge];
+    }
+    return cave;
+  }
+
+  /**
+   * the heading going back along an edge from one of its tunnels, which is the opposite of the
+   * heading the tunnel was entered with.
+   */
+  private int backwards(int edge, int cell) {
+    final int entered = cell == cellOffsets[edge] ? edge % NUM_DIRECTIONS : steps[cell - 1];
+    return Direction.byOrdinal(entered).getOpposite().ordinal();
+  }
+}
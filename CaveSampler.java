@@ -0,0 +1,144 @@
+package dungeon;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Random;
+
+/**
+ * Sampling of distinct caves or locations without rejection. Every sampler draws exactly once
+ * per pick, so the time taken is bounded by the number of candidates and picks, however few
+ * candidates remain.
+ */
+final class CaveSampler {
+
+  private CaveSampler() {
+  }
+
+  /**
+   * to pick distinct candidates uniformly with a partial Fisher-Yates shuffle. The picks are
+   * moved to the front of the candidates, so only the first picks are shuffled.
+   *
+   * @param candidates the candidates, reordered in place.
+   * @param from       the first candidate of the range to pick from.
+   * @param to         the index after the last candidate of the range.
+   * @param count      the number of picks, at most the size of the range.
+   * @param rand       the random generator.
+   */
+  static void shuffleFront(int[] candidates, int from, int to, int count, Random rand) {
+    if (count >= to - from) {
+      return;
+    }
+    for (int i = from; i < from + count; i++) {
+      final int j = i + rand.nextInt(to - i);
+      final int candidate = candidates[j];
+      candidates[j] = candidates[i];
+      candidates[i] = candidate;
+    }
+  }
+
+  /**
+   * to pick distinct indices from 0 to size - 1 uniformly with Floyd's algorithm, which draws
+   * once per pick and needs no array of candidates, only a bit per index.
+   *
+   * @param size  the number of indices.
+   * @param count the number of picks, at most the size.
+   * @param rand  the random generator.
+   * @return the picked indices.
+   */
+  static int[] sampleDistinct(int size, int count, Random rand) {
+    final int[] picks = new int[count];
+    if (count >= size) {
+      for (int i = 0; i < count; i++) {
+        picks[i] = i;
+      }
+      return picks;
+    }
+    final BitSet picked = new BitSet(size);
+    int numberOfPicks = 0;
+    for (int last = size - count; last < size; last++) {
+      int pick = rand.nextInt(last + 1);
+      if (picked.get(pick)) {
+        pick = last;
+      }
+      picked.set(pick);
+      picks[numberOfPicks++] = pick;
+    }
+    return picks;
+  }
+
+  /**
+   * to pick distinct candidates, each with a chance in proportion to its weight among the
+   * candidates not yet picked. The weights are kept in a Fenwick tree, so every pick takes time
+   * logarithmic in the number of candidates. Candidates of no weight are never picked.
+   *
+   * @param candidates the candidates.
+   * @param weights    the weights of the candidates, not negative.
+   * @param count      the number of picks.
+   * @param rand       the random generator.
+   * @return the picked candidates, fewer than the count if the weights run out.
+   */
+  static int[] sampleWeighted(int[] candidates, long[] weights, int count, Random rand) {
+    final int size = candidates.length;
+    final long[] tree = new long[size + 1];
+    long total = 0;
+    for (int i = 0; i < size; i++) {
+      total += weights[i];
+      tree[i + 1] += weights[i];
+      final int parent = (i + 1) + ((i + 1) & -(i + 1));
+      if (parent <= size) {
+        tree[parent] += tree[i + 1];
+      }
+    }
+    final int highestBit = size == 0 ? 0 : Integer.highestOneBit(size);
+    final int[] picks = new int[Math.min(count, size)];
+    int numberOfPicks = 0;
+    while (numberOfPicks < picks.length && total > 0) {
+      long target = Math.min(total - 1, (long) (rand.nextDouble() * total));
+      int node = 0;
+      for (int step = highestBit; step > 0; step >>>= 1) {
+        if (node + step <= size && tree[node + step] <= target) {
+          node += step;
+          target -= tree[node];
+        }
+      }
+      picks[numberOfPicks++] = candidates[node];
+      total -= weights[node];
+      for (int i = node + 1; i <= size; i += i & -i) {
+        tree[i] -= weights[node];
+      }
+    }
+    if (numberOfPicks < picks.length) {
+      final int[] fewerPicks = new int[numberOfPicks];
+      System.arraycopy(picks, 0, fewerPicks, 0, numberOfPicks);
+      return fewerPicks;
+    }
+    return picks;
+  }
+
+  /**
+   * to split a number of picks between groups in proportion to their sizes, the picks left
+   * over going to the groups with the largest remainders.
+   *
+   * @param sizes the sizes of the groups.
+   * @param total the sum of the sizes.
+   * @param count the number of picks, at most the total.
+   * @return the number of picks of every group.
+   */
+  static int[] splitQuotas(int[] sizes, int total, int count) {
+    final int[] quotas = new int[sizes.length];
+    final long[] remainders = new long[sizes.length];
+    int left = count;
+    for (int i = 0; i < sizes.length; i++) {
+      final long share = (long) sizes[i] * count;
+      quotas[i] = (int) (share / total);
+      // the remainder is below the total, so it fits above the index of the group
+      remainders[i] = (share % total) << 32 | (Integer.MAX_VALUE - i);
+      left -= quotas[i];
+    }
+    Arrays.sort(remainders);
+    for (int i = remainders.length - 1; left > 0; i--, left--) {
+      quotas[Integer.MAX_VALUE - (int) remainders[i]]++;
+    }
+    return quotas;
+  }
+}
@@ -0,0 +1,53 @@
+package dungeon;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * A row sink writing every row of wall bits to a channel, one byte per location.
+ */
+public class ChannelRowSink implements DungeonRowSink {
+  private final WritableByteChannel channel;
+  private final ByteBuffer buffer;
+
+  /**
+   * to construct a sink for rows of the given size.
+   *
+   * @param channel the channel to write to.
+   * @param colSize the number of locations in a row.
+   * @throws IllegalArgumentException for a null channel or invalid size.
+   */
+  public ChannelRowSink(WritableByteChannel channel, int colSize)
+          throws IllegalArgumentException {
+    if (channel == null || colSize < 1) {
+      throw new IllegalArgumentException("invalid channel or column size");
+    }
+    this.channel = channel;
+    this.buffer = ByteBuffer.allocateDirect(colSize);
+  }
+
+  /**
+   * to write a row to the channel.
+   *
+   * @param row      the index of the row.
+   * @param wallBits the wall bits of every location in the row, see {@link WallBits}.
+   * @throws IOException              if the row cannot be written.
+   * @throws IllegalArgumentException if the row has more locations than the sink was built for.
+   */
+  @Override
+  public void acceptRow(int row, byte[] wallBits) throws IOException {
+    if (wallBits.length > buffer.capacity()) {
+      throw new IllegalArgumentException(String.format(
+              "row of %d locations is longer than the %d columns of the sink",
+              wallBits.length, buffer.capacity()));
+    }
+    buffer.clear();
+    buffer.put(wallBits);
+    buffer.flip();
+    while (buffer.hasRemaining()) {
+      channel.write(buffer);
+    }
+  }
+
+}
@@ -0,0 +1,206 @@
+package dungeon;
+
+import java.util.Arrays;
+
+/**
+ * A grid keeping the state of the dungeon in primitive arrays on the heap. A tunnel takes five
+ * bytes: a byte of wall bits, and a short each for the smell level and the arrows. Caves also
+ * keep their id, treasure counts and monster health.
+ */
+public class CompactGrid extends PackedGrid {
+  private final byte[] walls;
+  private final short[] smellLevels;
+  private final short[] arrows;
+  private final int[] caveIds;
+  private final short[] treasures;
+  private final byte[] monsterHealth;
+  private final int numTunnels;
+
+  /**
+   * to build the grid from the wall bits of every location in row major order.
+   *
+   * @param wallBits the wall bits, see {@link WallBits}.
+   * @param rowSize  the rows of the grid.
+   * @param colSize  the columns of the grid.
+   * @throws IllegalArgumentException if the wall bits do not match the size.
+   */
+  public CompactGrid(byte[] wallBits, int rowSize, int colSize) throws IllegalArgumentException {
+    super(rowSize, colSize);
+    if (wallBits == null || wallBits.length != rowSize * colSize) {
+      throw new IllegalArgumentException("wall bits do not match the grid size");
+    }
+    this.walls = wallBits;
+    this.smellLevels = new short[wallBits.length];
+    this.arrows = new short[wallBits.length];
+    final int[] counts = countCavesAndTunnels(wallBits);
+    this.numTunnels = counts[1];
+    this.caveIds = new int[counts[0]];
+    int index = 0;
+    for (int id = 0; id < wallBits.length; id++) {
+      final int entrances = WallBits.getNumberOfEntrance(wallBits[id]);
+      if (entrances != 2 && entrances > 0) {
+        caveIds[index++] = id;
+      }
+    }
+    this.treasures = new short[caveIds.length * TREASURES.length];
+    this.monsterHealth = new byte[caveIds.length];
+    Arrays.fill(monsterHealth, (byte) NO_MONSTER);
+  }
+
+  /**
+   * to build the grid over arrays already holding its state, such as arrays read from a file.
+   * The arrays are kept by the grid and not copied.
+   *
+   * @param wallBits      the wall bits of every location.
+   * @param smellLevels   the smell level of every location.
+   * @param arrows        the arrows of every location.
+   * @param caveIds       the ids of the caves in increasing order.
+   * @param treasures     the treasure counts of every cave.
+   * @param monsterHealth the monster health of every cave.
+   * @param rowSize       the rows of the grid.
+   * @param colSize       the columns of the grid.
+   * @throws IllegalArgumentException if the arrays do not match the size or the caves.
+   */
+  CompactGrid(byte[] wallBits, short[] smellLevels, short[] arrows, int[] caveIds,
+              short[] treasures, byte[] monsterHealth, int rowSize, int colSize)
+          throws IllegalArgumentException {
+    super(rowSize, colSize);
+    final int numLocations = rowSize * colSize;
+    if (wallBits.length != numLocations || smellLevels.length != numLocations
+            || arrows.length != numLocations
+            || treasures.length != caveIds.length * TREASURES.length
+            || monsterHealth.length != caveIds.length) {
+      throw new IllegalArgumentException("arrays do not match the grid size");
+    }
+    final int[] counts = countCavesAndTunnels(wallBits);
+    if (counts[0] != caveIds.length) {
+      throw new IllegalArgumentException("cave ids do not match the wall bits");
+    }
+    for (int i = 0; i < caveIds.length; i++) {
+      final int id = caveIds[i];
+      if (id < 0 || id >= numLocations || (i > 0 && caveIds[i - 1] >= id)) {
+        throw new IllegalArgumentException("cave ids do not match the wall bits");
+      }
+      final int entrances = WallBits.getNumberOfEntrance(wallBits[id]);
+      if (entrances == 2 || entrances == 0) {
+        throw new IllegalArgumentException("cave ids do not match the wall bits");
+      }
+    }
+    this.walls = wallBits;
+    this.smellLevels = smellLevels;
+    this.arrows = arrows;
+    this.caveIds = caveIds;
+    this.treasures = treasures;
+    this.monsterHealth = monsterHealth;
+    this.numTunnels = counts[1];
+  }
+
+  /**
+   * to build the grid from a grid of locations, copying their walls, smell levels, arrows,
+   * treasures and monsters.
+   *
+   * @param locations the locations grid.
+   * @return the compact grid.
+   */
+  public static CompactGrid fromLocations(AbstractLocation[][] locations) {
+    final int rowSize = locations.length;
+    final int colSize = locations[0].length;
+    final byte[] wallBits = new byte[rowSize * colSize];
+    for (int i = 0; i < rowSize; i++) {
+      for (int j = 0; j < colSize; j++) {
+        wallBits[i * colSize + j] = (byte) locations[i][j].getWallBits();
+      }
+    }
+    final CompactGrid grid = new CompactGrid(wallBits, rowSize, colSize);
+    for (int i = 0; i < rowSize; i++) {
+      for (int j = 0; j < colSize; j++) {
+        final AbstractLocation location = locations[i][j];
+        final int id = i * colSize + j;
+        grid.setSmellLevel(id, location.getSmellLevel());
+        grid.setArrows(id, location.getNumOfArrowsPresent());
+        if (location instanceof Cave) {
+          final Cave cave = (Cave) location;
+          final int caveIndex = grid.getCaveIndex(id);
+          for (Treasure treasure : TREASURES) {
+            grid.setTreasureCount(caveIndex, treasure, cave.getTreasureCount(treasure));
+          }
+          if (cave.getMonster() != null) {
+            grid.setMonsterHealth(caveIndex, cave.getMonster().getHealth());
+          }
+        }
+      }
+    }
+    return grid;
+  }
+
+  @Override
+  public int getNumberOfCaves() {
+    return caveIds.length;
+  }
+
+  @Override
+  public int getNumberOfTunnels() {
+    return numTunnels;
+  }
+
+  @Override
+  public int getCaveIndex(int id) {
+    return Arrays.binarySearch(caveIds, id);
+  }
+
+  @Override
+  public int getWallBits(int id) {
+    return walls[id];
+  }
+
+  @Override
+  protected void setWallBits(int id, int wallBits) {
+    walls[id] = (byte) wallBits;
+  }
+
+  @Override
+  public int getArrows(int id) {
+    return arrows[id];
+  }
+
+  @Override
+  protected void setArrows(int id, int arrows) {
+    this.arrows[id] = toShort(arrows);
+  }
+
+  @Override
+  public int getSmellLevel(int id) {
+    return smellLevels[id];
+  }
+
+  @Override
+  protected void setSmellLevel(int id, int smellLevel) {
+    smellLevels[id] = toShort(smellLevel);
+  }
+
+  @Override
+  public int getCaveId(int caveIndex) {
+    return caveIds[caveIndex];
+  }
+
+  @Override
+  public int getTreasureCount(int caveIndex, Treasure treasure) {
+    return treasures[caveIndex * TREASURES.length + treasure.ordinal()];
+  }
+
+  @Override
+  protected void setTreasureCount(int caveIndex, Treasure treasure, int count) {
+    treasures[caveIndex * TREASURES.length + treasure.ordinal()] = toShort(count);
+  }
+
+  @Override
+  public int getMonsterHealth(int caveIndex) {
+    return monsterHealth[caveIndex];
+  }
+
+  @Override
+  protected void setMonsterHealth(int caveIndex, int health) {
+    monsterHealth[caveIndex] = toByte(health);
+  }
+
+}
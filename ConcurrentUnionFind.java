@@ -0,0 +1,138 @@
+package dungeon;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * the class to represent a union find that can be shared between threads without locks.
+ */
+public class ConcurrentUnionFind {
+
+  /**
+   * The union-find data structure. A negative value marks a set name and holds its rank as
+   * {@code -(rank + 1)}, any other value is the parent of the element.
+   */
+  private final AtomicIntegerArray data;
+
+  /**
+   * The number of disjoint subsets, updated on every successful union.
+   */
+  private final AtomicInteger numSubsets;
+
+  /**
+   * Constructor that takes in a location.
+   *
+   * @param n n the size of the data structure
+   * @throws IllegalArgumentException for invalid values.
+   */
+  public ConcurrentUnionFind(int n) throws IllegalArgumentException {
+    if (n <= 0) {
+      throw new IllegalArgumentException("size of the union find must be positive");
+    }
+    this.data = new AtomicIntegerArray(n);
+    for (int i = 0; i < n; i++) {
+      this.data.set(i, -1);
+    }
+    this.numSubsets = new AtomicInteger(n);
+  }
+
+  /**
+   * Determine the name of the set containing the specified element. Every element on the way
+   * is pointed to its grandparent, so the path is halved without recursion.
+   *
+   * @param i the element whose set we wish to find
+   * @return the name of the set containing i
+   */
+  public int find(int i) {
+    int current = i;
+    while (true) {
+      final int parent = data.get(current);
+      if (parent < 0) {
+        return current;
+      }
+      final int grandParent = data.get(parent);
+      if (grandParent < 0) {
+        return parent;
+      }
+      data.compareAndSet(current, parent, grandParent);
+      current = grandParent;
+    }
+  }
+
+  /**
+   * Determine whether two elements are in the same set.
+   *
+   * @param a an item in the first set
+   * @param b an item in the second set
+   * @return true if both items are in the same set
+   */
+  public boolean isSameSet(int a, int b) {
+    while (true) {
+      final int rootA = find(a);
+      final int rootB = find(b);
+      if (rootA == rootB) {
+        return true;
+      }
+      if (data.get(rootA) < 0) {
+        return false;
+      }
+    }
+  }
+
+  /**
+   * Merge two sets if they are not already the same set. The root of lower rank is linked
+   * under the other one, ties are broken by the element index.
+   *
+   * @param a an item in the first set to be merged (need not be set name)
+   * @param b an item in the second set to be merged (need not be set name)
+   * @return true if this call merged the two sets, false if they already were the same set
+   */
+  public boolean union(int a, int b) {
+    while (true) {
+      int rootA = find(a);
+      int rootB = find(b);
+      if (rootA == rootB) {
+        return false;
+      }
+      int valueA = data.get(rootA);
+      int valueB = data.get(rootB);
+      if (valueA >= 0 || valueB >= 0) {
+        continue;
+      }
+      // a larger rank is a more negative value
+      if (valueA < valueB || (valueA == valueB && rootA > rootB)) {
+        final int temp = rootA;
+        rootA = rootB;
+        rootB = temp;
+        final int tempValue = valueA;
+        valueA = valueB;
+        valueB = tempValue;
+      }
+      if (data.compareAndSet(rootA, valueA, rootB)) {
+        if (valueA == valueB) {
+          data.compareAndSet(rootB, valueB, valueB - 1);
+        }
+        numSubsets.decrementAndGet();
+        return true;
+      }
+    }
+  }
+
+  /**
+   * Returns the number of subsets in the data structure.
+   *
+   * @return the number of subsets in the data structure
+   */
+  public int getNumSubsets() {
+    return numSubsets.get();
+  }
+
+  /**
+   * Returns the number of elements in the data structure.
+   *
+   * @return the number of elements
+   */
+  public int size() {
+    return data.length();
+  }
+}
@@ -6,10 +6,34 @@ package dungeon;
 public enum Direction {
   NORTH("N"), SOUTH("S"), EAST("E"), WEST("W");
 
+  /**
+   * the bit of the north direction in a mask of exits.
+   */
+  public static final int NORTH_BIT = 1;
+
+  /**
+   * the bit of the south direction in a mask of exits.
+   */
+  public static final int SOUTH_BIT = 1 << 1;
+
+  /**
+   * the bit of the east direction in a mask of exits.
+   */
+  public static final int EAST_BIT = 1 << 2;
+
+  /**
+   * the bit of the west direction in a mask of exits.
+   */
+  public static final int WEST_BIT = 1 << 3;
+
+  private static final Direction[] VALUES = values();
+
   private final String shortcode;
+  private final int bit;
 
   Direction(String shortcode) {
     this.shortcode = shortcode;
+    this.bit = 1 << ordinal();
   }
 
   /**
@@ -21,4 +45,70 @@ public enum Direction {
     return shortcode;
   }
 
+  /**
+   * return the bit of the direction in a mask of exits, which is one shifted by its ordinal.
+   *
+   * @return the bit.
+   */
+  public int getBit() {
+    return bit;
+  }
+
+  /**
+   * return the opposite direction.
+   *
+   * @return the direction pointing the other way.
+   */
+  public Direction getOpposite() {
+    switch (this) {
+      case NORTH:
+        return SOUTH;
+      case SOUTH:
+        return NORTH;
+      case EAST:
+        return WEST;
+      default:
+        return EAST;
+    }
+  }
+
+  /**
+   * return the direction of an ordinal, without copying the values.
+   *
+   * @param ordinal the ordinal.
+   * @return the direction.
+   */
+  public static Direction byOrdinal(int ordinal) {
+    return VALUES[ordinal];
+  }
+
+  /**
+   * return the direction of the lowest bit set in a mask of exits. Masks can be walked without
+   * allocating by clearing the lowest bit with {@code exits &= exits - 1}.
+   *
+   * @param exits the mask of exits, not empty.
+   * @return the direction.
+   */
+  public static Direction lowestOf(int exits) {
+    if (exits == 0) {
+      throw new IllegalArgumentException("mask of exits is empty");
+    }
+    return VALUES[Integer.numberOfTrailingZeros(exits)];
+  }
+
+  /**
+   * return the direction of a code, ignoring its case.
+   *
+   * @param shortcode the code.
+   * @return the direction, null if the code is not a direction.
+   */
+  public static Direction byShortCode(String shortcode) {
+    for (Direction direction : VALUES) {
+      if (direction.shortcode.equalsIgnoreCase(shortcode)) {
+        return direction;
+      }
+    }
+    return null;
+  }
+
 }
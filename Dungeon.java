@@ -1,28 +1,38 @@
 package dungeon;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.List;
 import java.util.Random;
-import java.util.Stack;
-import java.util.stream.Collectors;
 
 /**
  * A class to create a dungeon with a player.
  */
 public class Dungeon implements DungeonInterface {
+
+  /**
+   * the minimum number of moves between the start and the end used by {@link #addEnd()}.
+   */
+  public static final int DEFAULT_MINIMUM_END_DISTANCE = 5;
   private final Random rand;
 
-  private final AbstractLocation[][] locations;
+  private final DungeonGrid grid;
+  private final GridTopology topology;
+  private volatile DungeonGraph graph;
+  private volatile CaveGraph caveGraph;
+  private volatile PathFinder pathFinder;
+  private volatile ItemIndex itemIndex;
+  private SmellField smellField;
   private final int rowSize;
   private final int colSize;
   private final int interconnectivity;
   private final boolean isWrapping;
   private final int treasurePercent;
   private final int difficulty;
-  private final List<Cave> caves;
-  private final List<Tunnel> tunnels;
   private Cave start;
   private Cave end;
+  private int[] distancesFromStart;
   private Player player;
   private final List<Monster> monsters;
 
@@ -53,42 +63,206 @@ public class Dungeon implements DungeonInterface {
    */
   public Dungeon(int rows, int cols, int interconnectivity, boolean isWrapping,
                  int treasurePercent, int difficulty, Random rand) throws IllegalArgumentException {
-    if (rows < 1 || cols < 1 || interconnectivity < 0 || treasurePercent < 0
+    this(rows, cols, interconnectivity, isWrapping, treasurePercent, difficulty, rand,
+            GenerationMode.RANDOM_SAMPLING);
+  }
+
+  /**
+   * A dungeon class to represent the dungeon, carved with the given generation mode.
+   *
+   * @param rows              the rows of the dungeon.
+   * @param cols              the columns of the dungeon.
+   * @param interconnectivity the interconnectivity of the dungeon.
+   * @param isWrapping        if the dungeon is wrapping or non-wrapping.
+   * @param treasurePercent   percent of treasure in the dungeon.
+   * @param difficulty        the number of monsters in the dungeon.
+   * @param rand              the random generator used to build the dungeon.
+   * @param mode              the way the walls are visited while carving.
+   * @throws IllegalArgumentException for invalid values.
+   */
+  public Dungeon(int rows, int cols, int interconnectivity, boolean isWrapping,
+                 int treasurePercent, int difficulty, Random rand, GenerationMode mode)
+          throws IllegalArgumentException {
+    this(rows, cols, interconnectivity, isWrapping, treasurePercent, difficulty, rand, mode,
+            GridStorage.OBJECTS);
+  }
+
+  /**
+   * A dungeon class to represent the dungeon, carved with the given generation mode and kept
+   * in the given storage.
+   *
+   * @param rows              the rows of the dungeon.
+   * @param cols              the columns of the dungeon.
+   * @param interconnectivity the interconnectivity of the dungeon.
+   * @param isWrapping        if the dungeon is wrapping or non-wrapping.
+   * @param treasurePercent   percent of treasure in the dungeon.
+   * @param difficulty        the number of monsters in the dungeon.
+   * @param rand              the random generator used to build the dungeon.
+   * @param mode              the way the walls are visited while carving.
+   * @param storage           the way the locations are stored.
+   * @throws IllegalArgumentException for invalid values.
+   */
+  public Dungeon(int rows, int cols, int interconnectivity, boolean isWrapping,
+                 int treasurePercent, int difficulty, Random rand, GenerationMode mode,
+                 GridStorage storage) throws IllegalArgumentException {
+    this(buildGrid(rows, cols, interconnectivity, isWrapping, treasurePercent, rand, mode,
+            storage), interconnectivity, isWrapping, treasurePercent, difficulty, rand);
+  }
+
+  /**
+   * A dungeon class to represent the dungeon over an already built grid.
+   *
+   * @param grid              the locations of the dungeon.
+   * @param interconnectivity the interconnectivity of the dungeon.
+   * @param isWrapping        if the dungeon is wrapping or non-wrapping.
+   * @param treasurePercent   percent of treasure in the dungeon.
+   * @param difficulty        the number of monsters in the dungeon.
+   * @param rand              the random generator used to populate the dungeon.
+   * @throws IllegalArgumentException for invalid values.
+   */
+  public Dungeon(DungeonGrid grid, int interconnectivity, boolean isWrapping,
+                 int treasurePercent, int difficulty, Random rand)
+          throws IllegalArgumentException {
+    if (grid == null || rand == null || interconnectivity < 0 || treasurePercent < 0
             || treasurePercent > 100) {
       throw new IllegalArgumentException("invalid arguments to create a dungeon");
     }
-    this.rowSize = rows;
-    this.colSize = cols;
+    this.grid = grid;
+    this.rowSize = grid.getRowSize();
+    this.colSize = grid.getColSize();
     this.isWrapping = isWrapping;
+    this.topology = new GridTopology(rowSize, colSize, isWrapping);
     this.interconnectivity = interconnectivity;
     this.rand = rand;
-
-    final DungeonHelper dungeonHelper = new DungeonHelper();
-    this.locations = dungeonHelper.buildAbstractLocationsWithConnectivity(rows, cols, isWrapping,
-            interconnectivity, rand);
-
-    this.caves = new ArrayList<>();
-    this.tunnels = new ArrayList<>();
-    dungeonHelper.setLocationsByType(locations, caves, tunnels);
-
     this.treasurePercent = treasurePercent;
     this.difficulty = difficulty;
     this.monsters = new ArrayList<>();
   }
 
   /**
-   * assign treasure and arrows to the caves.
+   * to get a dungeon over a mapped grid, restoring the start, the end and the monsters kept in
+   * the file. The grid stays open and is closed by the caller.
+   *
+   * @param grid the mapped grid of the dungeon.
+   * @param rand the random generator used to populate the dungeon.
+   * @return the dungeon.
+   * @throws IllegalArgumentException for invalid values.
+   */
+  public static Dungeon fromMappedGrid(MappedGrid grid, Random rand)
+          throws IllegalArgumentException {
+    if (grid == null) {
+      throw new IllegalArgumentException("invalid arguments to create a dungeon");
+    }
+    final Dungeon dungeon = new Dungeon(grid, grid.getInterconnectivity(), grid.isWrapping(),
+            grid.getTreasurePercent(), grid.getDifficulty(), rand);
+    final int[] monsterCaveIndices = grid.getMonsterCaveIndices();
+    final int[] monsterIds = new int[monsterCaveIndices.length];
+    for (int i = 0; i < monsterIds.length; i++) {
+      monsterIds[i] = grid.getCaveId(monsterCaveIndices[i]);
+    }
+    dungeon.restore(grid.getStartId(), grid.getEndId(), monsterIds, null);
+    return dungeon;
+  }
+
+  /**
+   * to restore the state of a dungeon kept outside of it, such as in a file.
+   *
+   * @param startId    the id of the start cave, negative if there is no start.
+   * @param endId      the id of the end cave, negative if there is no end.
+   * @param monsterIds the ids of the caves holding the monsters, in the order they were added.
+   * @param player     the player with its location, null if there is no player.
+   * @throws IllegalStateException if an id is not a cave of the dungeon.
+   */
+  void restore(int startId, int endId, int[] monsterIds, Player player)
+          throws IllegalStateException {
+    this.start = getCaveById(startId);
+    this.distancesFromStart = null;
+    this.end = getCaveById(endId);
+    for (int id : monsterIds) {
+      final Otyugh monster = getCaveById(id).getMonster();
+      if (monster == null) {
+        throw new IllegalStateException("No monster is present in the restored cave");
+      }
+      this.monsters.add(monster);
+    }
+    this.player = player;
+    if (player != null) {
+      explore(player);
+    }
+  }
+
+  private Cave getCaveById(int id) {
+    if (id < 0) {
+      return null;
+    }
+    final AbstractLocation location = grid.getLocation(id / colSize, id % colSize);
+    if (!(location instanceof Cave)) {
+      throw new IllegalStateException("Restored dungeon refers to a location that is not a cave");
+    }
+    return (Cave) location;
+  }
+
+  private void persistStartAndEnd() {
+    if (grid instanceof MappedGrid) {
+      final MappedGrid mappedGrid = (MappedGrid) grid;
+      if (start != null) {
+        mappedGrid.setStartId(start.getRowDim() * colSize + start.getColDim());
+      }
+      if (end != null) {
+        mappedGrid.setEndId(end.getRowDim() * colSize + end.getColDim());
+      }
+    }
+  }
+
+  private static DungeonGrid buildGrid(int rows, int cols, int interconnectivity,
+                                       boolean isWrapping, int treasurePercent, Random rand,
+                                       GenerationMode mode, GridStorage storage) {
+    if (rows < 1 || cols < 1 || interconnectivity < 0 || treasurePercent < 0
+            || treasurePercent > 100 || storage == null) {
+      throw new IllegalArgumentException("invalid arguments to create a dungeon");
+    }
+    final DungeonHelper dungeonHelper = new DungeonHelper();
+    if (storage == GridStorage.COMPACT) {
+      return new CompactGrid(dungeonHelper.buildWallBits(rows, cols, isWrapping,
+              interconnectivity, rand, mode), rows, cols);
+    }
+    return new ObjectGrid(dungeonHelper.buildAbstractLocationsWithConnectivity(rows, cols,
+            isWrapping, interconnectivity, rand, mode));
+  }
+
+  /**
+   * assign treasures and arrows to the caves and locations.
    */
   public void assignTreasuresAndArrows() {
-    int numberOfCavesWithTreasuresAndArrows = Math.min(caves.size(),
-            (caves.size() * this.treasurePercent / 100) + 1);
-    for (int i = 0; i < numberOfCavesWithTreasuresAndArrows; i++) {
-      caves.get(i).addTreasures(getRandomTreasure());
+    assignTreasuresAndArrows(LootTable.DEFAULT);
+  }
+
+  /**
+   * to assign treasures to distinct random caves and arrows to distinct random locations, as
+   * many as the treasure percent of the caves, drawing what is left from the loot table.
+   *
+   * @param lootTable the weights of the treasures and arrows.
+   */
+  public void assignTreasuresAndArrows(LootTable lootTable) {
+    if (lootTable == null) {
+      throw new IllegalArgumentException("Loot table cannot be null");
+    }
+    final int numberOfCaves = grid.getNumberOfCaves();
+    final int numberOfCavesWithTreasuresAndArrows = (int) Math.min(numberOfCaves,
+            (long) numberOfCaves * this.treasurePercent / 100 + 1);
+    for (int caveIndex : CaveSampler.sampleDistinct(numberOfCaves,
+            numberOfCavesWithTreasuresAndArrows, rand)) {
+      grid.getCave(caveIndex).addTreasures(lootTable.rollTreasure(rand));
     }
-    for (int i = 0; i < numberOfCavesWithTreasuresAndArrows; i++) {
-      final int x = this.rand.nextInt(rowSize);
-      final int y = this.rand.nextInt(colSize);
-      locations[x][y].addArrows();
+    final int numberOfCells = lootTable.isArrowsInCavesOnly() ? numberOfCaves
+            : rowSize * colSize;
+    for (int cell : CaveSampler.sampleDistinct(numberOfCells,
+            numberOfCavesWithTreasuresAndArrows, rand)) {
+      final AbstractLocation location = lootTable.isArrowsInCavesOnly() ? grid.getCave(cell)
+              : grid.getLocation(cell / colSize, cell % colSize);
+      for (int arrows = lootTable.rollArrows(rand); arrows > 0; arrows--) {
+        location.addArrows();
+      }
     }
   }
 
@@ -96,29 +270,113 @@ public class Dungeon implements DungeonInterface {
    * assign monsters to the caves.
    */
   public void assignMonsters() {
-    end.addMonster();
-    monsters.add(end.getMonster());
-    int i = Math.min(caves.size() - 1, difficulty) - 1;
-    while (i > 0) {
-      Cave randomCave = caves.get(this.rand.nextInt(caves.size()));
-      if (!randomCave.hasOtyugh() && !randomCave.equals(start)) {
-        randomCave.addMonster();
-        monsters.add(randomCave.getMonster());
-        i--;
+    assignMonsters(PlacementPolicy.UNIFORM);
+  }
+
+  /**
+   * to assign monsters to the caves, one in the end cave and the others in distinct caves
+   * picked by the policy. The start cave and the caves already holding a monster are left out
+   * before any cave is picked, so the placement takes a bounded number of draws however many
+   * monsters there are.
+   *
+   * @param policy how the caves of the monsters besides the end are picked.
+   * @throws IllegalStateException if the dungeon has no start or end.
+   */
+  public void assignMonsters(PlacementPolicy policy) throws IllegalStateException {
+    if (policy == null) {
+      throw new IllegalArgumentException("Placement policy cannot be null");
+    } else if (start == null || end == null) {
+      throw new IllegalStateException("Dungeon is not yet assigned a start and an end location");
+    }
+    final int numberOfCaves = grid.getNumberOfCaves();
+    final int startId = start.getIdByColSize(colSize);
+    final int endId = end.getIdByColSize(colSize);
+    final int[] candidates = new int[numberOfCaves];
+    int numberOfCandidates = 0;
+    for (int i = 0; i < numberOfCaves; i++) {
+      final Cave cave = grid.getCave(i);
+      final int id = cave.getIdByColSize(colSize);
+      if (id != startId && id != endId && !cave.hasOtyugh()) {
+        candidates[numberOfCandidates++] = i;
       }
     }
+    if (!end.hasOtyugh()) {
+      end.addMonster();
+      monsters.add(end.getMonster());
+    }
+    final int count = Math.min(numberOfCandidates,
+            Math.min(numberOfCaves - 1, difficulty) - 1);
+    if (count <= 0) {
+      return;
+    }
+    final int[] picks;
+    switch (policy) {
+      case DISTANCE_WEIGHTED:
+        picks = pickByDistance(Arrays.copyOf(candidates, numberOfCandidates), count);
+        break;
+      case REGION_QUOTA:
+        picks = pickByRegion(Arrays.copyOf(candidates, numberOfCandidates), count);
+        break;
+      default:
+        CaveSampler.shuffleFront(candidates, 0, numberOfCandidates, count, rand);
+        picks = Arrays.copyOf(candidates, count);
+        break;
+    }
+    for (int caveIndex : picks) {
+      final Cave cave = grid.getCave(caveIndex);
+      cave.addMonster();
+      monsters.add(cave.getMonster());
+    }
   }
 
-  private Treasure getRandomTreasure() {
-    int randTreasure = this.rand.nextInt(4);
-    switch (randTreasure) {
-      case 1:
-        return Treasure.DIAMOND;
-      case 2:
-        return Treasure.RUBIES;
-      default:
-        return Treasure.SAPPHIRES;
+  /**
+   * to pick caves with a chance in proportion to their distance from the start.
+   */
+  private int[] pickByDistance(int[] candidates, int count) {
+    final int[] distances = getDistanceField();
+    final long[] weights = new long[candidates.length];
+    for (int i = 0; i < candidates.length; i++) {
+      weights[i] = Math.max(0, distances[grid.getCave(candidates[i]).getIdByColSize(colSize)]);
+    }
+    return CaveSampler.sampleWeighted(candidates, weights, count, rand);
+  }
+
+  /**
+   * to pick caves region by region, sorting the candidates by region so every region is a
+   * range of them that is shuffled on its own.
+   */
+  private int[] pickByRegion(int[] candidates, int count) {
+    final int side = (int) Math.ceil(Math.sqrt(count));
+    final int regionRows = Math.min(rowSize, side);
+    final int regionCols = Math.min(colSize, side);
+    final int numberOfRegions = regionRows * regionCols;
+    final int[] regions = new int[candidates.length];
+    final int[] sizes = new int[numberOfRegions];
+    for (int i = 0; i < candidates.length; i++) {
+      final Cave cave = grid.getCave(candidates[i]);
+      regions[i] = cave.getRowDim() * regionRows / rowSize * regionCols
+              + cave.getColDim() * regionCols / colSize;
+      sizes[regions[i]]++;
+    }
+    final int[] offsets = new int[numberOfRegions + 1];
+    for (int region = 0; region < numberOfRegions; region++) {
+      offsets[region + 1] = offsets[region] + sizes[region];
     }
+    final int[] sorted = new int[candidates.length];
+    final int[] next = Arrays.copyOf(offsets, numberOfRegions);
+    for (int i = 0; i < candidates.length; i++) {
+      sorted[next[regions[i]]++] = candidates[i];
+    }
+    final int[] quotas = CaveSampler.splitQuotas(sizes, candidates.length, count);
+    final int[] picks = new int[count];
+    int numberOfPicks = 0;
+    for (int region = 0; region < numberOfRegions; region++) {
+      CaveSampler.shuffleFront(sorted, offsets[region], offsets[region + 1], quotas[region],
+              rand);
+      System.arraycopy(sorted, offsets[region], picks, numberOfPicks, quotas[region]);
+      numberOfPicks += quotas[region];
+    }
+    return picks;
   }
 
   /**
@@ -127,7 +385,7 @@ public class Dungeon implements DungeonInterface {
    * @return the list of caves.
    */
   public List<Cave> getCaves() {
-    return new ArrayList<>(caves);
+    return grid.getCaves();
   }
 
   /**
@@ -136,7 +394,7 @@ public class Dungeon implements DungeonInterface {
    * @return list of tunnels.
    */
   public List<Tunnel> getTunnels() {
-    return new ArrayList<>(tunnels);
+    return grid.getTunnels();
   }
 
   /**
@@ -154,6 +412,33 @@ public class Dungeon implements DungeonInterface {
     } else {
       this.player = player;
       player.setCurrLocation(start);
+      explore(player);
+    }
+  }
+
+  /**
+   * to mark the location of the player as visited and its neighbors as seen, starting a new
+   * exploration map if the player has none for this dungeon. The neighbors are found from the
+   * walls of the location, without building the graph of the dungeon, so a player in a mapped
+   * dungeon keeps it off the heap. A location has at most four neighbors, so this takes
+   * constant time.
+   */
+  void explore(Player player) {
+    ExplorationMap explorationMap = player.getExplorationMap();
+    if (explorationMap == null || explorationMap.getRowSize() != rowSize
+            || explorationMap.getColSize() != colSize) {
+      explorationMap = new ExplorationMap(rowSize, colSize);
+      player.setExplorationMap(explorationMap);
+    }
+    final AbstractLocation location = player.getCurrLocation();
+    final int id = location.getIdByColSize(colSize);
+    final int wallBits = location.getWallBits();
+    explorationMap.visit(id);
+    for (int direction = 0; direction < GridTopology.NUM_DIRECTIONS; direction++) {
+      final int neighbor = topology.getNeighbor(id, wallBits, direction);
+      if (neighbor >= 0) {
+        explorationMap.see(neighbor);
+      }
     }
   }
 
@@ -164,71 +449,115 @@ public class Dungeon implements DungeonInterface {
     if (this.start != null) {
       throw new IllegalStateException("Dungeon already assigned with a start location");
     } else {
-      this.start = this.caves.get(this.rand.nextInt(caves.size()));
+      this.start = grid.getCave(this.rand.nextInt(grid.getNumberOfCaves()));
+      persistStartAndEnd();
     }
   }
 
   /**
-   * add the end location to dungeon.
+   * add the end location to dungeon, at least {@link #DEFAULT_MINIMUM_END_DISTANCE} moves away
+   * from the start.
    */
   public void addEnd() {
+    addEnd(DEFAULT_MINIMUM_END_DISTANCE);
+  }
+
+  /**
+   * add the end location to dungeon, chosen at random among the caves whose shortest path from
+   * the start is at least the given number of moves.
+   *
+   * @param minimumDistance the minimum number of moves between the start and the end.
+   */
+  public void addEnd(int minimumDistance) {
     if (this.start == null) {
       throw new IllegalStateException("Dungeon is not yet assigned a start location");
     } else if (this.end != null) {
       throw new IllegalStateException("Dungeon is already assigned an end location");
+    } else if (minimumDistance < 1) {
+      throw new IllegalArgumentException("Minimum distance of the end must be positive");
     }
-    AbstractLocation location = start;
-    Stack<AbstractLocation> bfsStack = new Stack<>();
-    List<Cave> res = new ArrayList<>();
-    List<AbstractLocation> processedLocations = new ArrayList<>();
-    bfsStack.add(location);
-    int minimumPath = 5;
-    while (!bfsStack.isEmpty() && (minimumPath > 0
-            || !res.isEmpty() || !processedLocations.containsAll(caves))) {
-      AbstractLocation currLoc = bfsStack.pop();
-      if (processedLocations.contains(currLoc)) {
-        continue;
-      }
-      processedLocations.add(currLoc);
-      final List<AbstractLocation> unProcessedNeighbors = getUnprocessedNeighbors(currLoc,
-              processedLocations);
-      bfsStack.addAll(unProcessedNeighbors);
-      minimumPath--;
-      if (minimumPath <= 0) {
-        List<Cave> newCaveList = unProcessedNeighbors.stream()
-                .filter(e -> e instanceof Cave)
-                .map(e -> (Cave) e)
-                .collect(Collectors.toList());
-        if (!newCaveList.isEmpty()) {
-          res.addAll(newCaveList);
-        }
+    final int[] distances = getDistanceField();
+    final int numberOfCaves = grid.getNumberOfCaves();
+    final int[] candidates = new int[numberOfCaves];
+    int numberOfCandidates = 0;
+    for (int i = 0; i < numberOfCaves; i++) {
+      final Cave cave = grid.getCave(i);
+      if (distances[cave.getIdByColSize(colSize)] >= minimumDistance) {
+        candidates[numberOfCandidates++] = i;
       }
     }
-    if (!res.isEmpty()) {
-      this.end = res.get(0);
-    } else {
-      throw new IllegalStateException("No end cave can be assigned with 5 as minimum path");
+    if (numberOfCandidates == 0) {
+      throw new IllegalStateException(String.format(
+              "No end cave can be assigned with %d as minimum path", minimumDistance));
     }
+    this.end = grid.getCave(candidates[this.rand.nextInt(numberOfCandidates)]);
+    persistStartAndEnd();
   }
 
   /**
-   * to get the minimum paths.
+   * to get the length of the shortest path from the start to every location, indexed by the id
+   * of the location. Locations that cannot be reached have a distance of -1.
    *
-   * @param location1 the location of the start.
-   * @param location2 the end location.
-   * @return the minimum paths.
+   * @return a copy of the distances from the start.
+   * @throws IllegalStateException if the dungeon has no start.
    */
-  private int getMinimumPathBetweenLocations(Location location1,
-                                             Location location2) {
-    final int rowDistance = Math.abs(location1.getRowDim() - location2.getRowDim());
-    final int colDistance = Math.abs(location1.getColDim() - location2.getColDim());
-    if (!this.isWrapping) {
-      return rowDistance + colDistance;
-    } else {
-      final int wrappingRowDistance = Math.min(rowDistance, rowSize - rowDistance);
-      final int wrappingColDistance = Math.min(colDistance, colSize - colDistance);
-      return wrappingRowDistance + wrappingColDistance;
+  public int[] getDistancesFromStart() throws IllegalStateException {
+    return getDistanceField().clone();
+  }
+
+  /**
+   * to get the length of the shortest path from the start to a location.
+   *
+   * @param location the location.
+   * @return the number of moves, -1 if the location cannot be reached.
+   * @throws IllegalStateException if the dungeon has no start.
+   */
+  public int getDistanceFromStart(Location location) throws IllegalStateException {
+    if (location == null) {
+      throw new IllegalArgumentException("Location cannot be null");
+    }
+    return getDistanceField()[location.getRowDim() * colSize + location.getColDim()];
+  }
+
+  private int[] getDistanceField() {
+    if (this.start == null) {
+      throw new IllegalStateException("Dungeon is not yet assigned a start location");
+    }
+    if (this.distancesFromStart == null) {
+      this.distancesFromStart = buildDistanceField(start.getIdByColSize(colSize));
+    }
+    return this.distancesFromStart;
+  }
+
+  /**
+   * a breadth first search from the source over the graph of the dungeon. Every location is
+   * queued once, so the search takes time linear in the size of the dungeon.
+   */
+  private int[] buildDistanceField(int sourceId) {
+    final int numLocations = rowSize * colSize;
+    final int[] distances = new int[numLocations];
+    Arrays.fill(distances, -1);
+    final int[] queue = new int[numLocations];
+    final BitSet visited = new BitSet(numLocations);
+    int head = 0;
+    int tail = 0;
+    queue[tail++] = sourceId;
+    visited.set(sourceId);
+    distances[sourceId] = 0;
+    final DungeonGraph dungeonGraph = getGraph();
+    while (head < tail) {
+      final int id = queue[head++];
+      for (int edge = dungeonGraph.getFirstEdge(id); edge < dungeonGraph.getEdgeEnd(id);
+           edge++) {
+        final int nextId = dungeonGraph.getTarget(edge);
+        if (!visited.get(nextId)) {
+          visited.set(nextId);
+          distances[nextId] = distances[id] + 1;
+          queue[tail++] = nextId;
+        }
+      }
     }
+    return distances;
   }
 
   /**
@@ -255,7 +584,185 @@ public class Dungeon implements DungeonInterface {
    * @return the locations of the dungeon.
    */
   public AbstractLocation[][] getLocations() {
-    return locations;
+    return grid.getLocations();
+  }
+
+  /**
+   * to check if the dungeon is wrapping.
+   *
+   * @return true if the dungeon is wrapping.
+   */
+  public boolean isWrapping() {
+    return isWrapping;
+  }
+
+  /**
+   * to get the interconnectivity of the dungeon.
+   *
+   * @return the interconnectivity.
+   */
+  public int getInterconnectivity() {
+    return interconnectivity;
+  }
+
+  /**
+   * to get the treasure percent of the dungeon.
+   *
+   * @return the treasure percent.
+   */
+  public int getTreasurePercent() {
+    return treasurePercent;
+  }
+
+  /**
+   * to get the difficulty of the dungeon.
+   *
+   * @return the number of monsters.
+   */
+  public int getDifficulty() {
+    return difficulty;
+  }
+
+  /**
+   * to get the graph of the moves between the locations, built on first use. The walls of the
+   * dungeon never change once it is built, so the graph is built once, by the first of the
+   * threads sharing the dungeon to ask for it.
+   *
+   * @return the graph of the dungeon.
+   */
+  public DungeonGraph getGraph() {
+    if (graph == null) {
+      synchronized (this) {
+        if (graph == null) {
+          graph = DungeonGraph.of(grid, isWrapping);
+        }
+      }
+    }
+    return graph;
+  }
+
+  /**
+   * to get the graph of the caves, where the tunnels between caves are contracted, built on
+   * first use.
+   *
+   * @return the cave graph of the dungeon.
+   */
+  public CaveGraph getCaveGraph() {
+    if (caveGraph == null) {
+      synchronized (this) {
+        if (caveGraph == null) {
+          caveGraph = CaveGraph.of(getGraph());
+        }
+      }
+    }
+    return caveGraph;
+  }
+
+  /**
+   * to get the cave an arrow shot from a location lands in. The arrow flies over the cave graph,
+   * except on a {@link MappedGrid} whose cave graph is not built, where it follows the walls of
+   * the locations it passes instead, so a shot never builds a graph as large as the grid.
+   *
+   * @param location  the location the arrow is shot from.
+   * @param direction the direction of the shot.
+   * @param distance  the number of caves the arrow flies, at least one.
+   * @return the id of the cave the arrow lands in, -1 if it is lost against a wall.
+   */
+  public int getArrowTarget(AbstractLocation location, Direction direction, int distance) {
+    final int id = location.getIdByColSize(colSize);
+    if (caveGraph != null || !(grid instanceof MappedGrid)) {
+      return getCaveGraph().getArrowTarget(id, direction, distance);
+    }
+    if (distance < 1) {
+      throw new IllegalArgumentException("Distance of an arrow must be positive");
+    }
+    int heading = direction.ordinal();
+    int next = topology.getNeighbor(id, location.getWallBits(), heading);
+    while (next >= 0) {
+      // the arrow follows the tunnels wherever they turn, a longer chain than the dungeon is a
+      // loop of tunnels
+      int wallBits = GridTopology.getWallBits(grid, next);
+      for (int length = 0; getDegree(next, wallBits) == 2; length++) {
+        if (length == topology.size()) {
+          return -1;
+        }
+        heading = turn(next, wallBits, heading);
+        next = topology.getNeighbor(next, wallBits, heading);
+        wallBits = GridTopology.getWallBits(grid, next);
+      }
+      if (--distance == 0) {
+        return next;
+      }
+      // and keeps going straight through the caves it does not land in
+      next = topology.getNeighbor(next, wallBits, heading);
+    }
+    return -1;
+  }
+
+  private int getDegree(int id, int wallBits) {
+    int degree = 0;
+    for (int direction = 0; direction < GridTopology.NUM_DIRECTIONS; direction++) {
+      if (topology.getNeighbor(id, wallBits, direction) >= 0) {
+        degree++;
+      }
+    }
+    return degree;
+  }
+
+  /**
+   * the heading out of a tunnel entered with a heading, which is the exit that does not lead
+   * back.
+   */
+  private int turn(int tunnelId, int wallBits, int heading) {
+    final int back = Direction.byOrdinal(heading).getOpposite().ordinal();
+    for (int direction = 0; direction < GridTopology.NUM_DIRECTIONS; direction++) {
+      if (direction != back && topology.getNeighbor(tunnelId, wallBits, direction) >= 0) {
+        return direction;
+      }
+    }
+    return back;
+  }
+
+  /**
+   * to get the shortest path search over the moves between the locations, built on first use.
+   *
+   * @return the path finder of the dungeon.
+   */
+  public PathFinder getPathFinder() {
+    if (pathFinder == null) {
+      synchronized (this) {
+        if (pathFinder == null) {
+          pathFinder = new PathFinder(getGraph(), topology);
+        }
+      }
+    }
+    return pathFinder;
+  }
+
+  /**
+   * to get the index of the locations holding items, built on first use and kept up to date as
+   * items are picked up and dropped.
+   *
+   * @return the item index of the dungeon.
+   */
+  public ItemIndex getItemIndex() {
+    if (itemIndex == null) {
+      synchronized (this) {
+        if (itemIndex == null) {
+          itemIndex = ItemIndex.attach(grid, topology, getPathFinder());
+        }
+      }
+    }
+    return itemIndex;
+  }
+
+  /**
+   * to get the storage of the locations.
+   *
+   * @return the grid of the dungeon.
+   */
+  public DungeonGrid getGrid() {
+    return grid;
   }
 
   /**
@@ -301,7 +808,7 @@ public class Dungeon implements DungeonInterface {
       default:
         throw new IllegalStateException("Unexpected value: " + direction);
     }
-    return locations[row][column];
+    return grid.getLocation(row, column);
   }
 
   /**
@@ -310,94 +817,51 @@ public class Dungeon implements DungeonInterface {
    * @param directionCode the direction code for the next move.
    */
   public void movePlayer(String directionCode) throws IllegalArgumentException {
-    Direction direction;
-    switch (directionCode.toUpperCase()) {
-      case "N":
-        direction = Direction.NORTH;
-        break;
-      case "S":
-        direction = Direction.SOUTH;
-        break;
-      case "W":
-        direction = Direction.WEST;
-        break;
-      case "E":
-        direction = Direction.EAST;
-        break;
-      default:
-        throw new IllegalArgumentException("Invalid Direction code");
-    }
-    AbstractLocation playerCurrLocation = this.player.getCurrLocation();
-    if (!playerCurrLocation.getPossibleMoves().contains(direction)) {
+    movePlayer(this.player, Direction.byShortCode(directionCode));
+  }
+
+  /**
+   * to move a player to the next location in a direction.
+   *
+   * @param player    the player to move.
+   * @param direction the direction, null if the code of the direction was invalid.
+   * @throws IllegalArgumentException if the player cannot move in the direction.
+   */
+  void movePlayer(Player player, Direction direction) throws IllegalArgumentException {
+    final AbstractLocation playerCurrLocation = player.getCurrLocation();
+    if (direction == null || !playerCurrLocation.canMove(direction)) {
       throw new IllegalArgumentException("Invalid Direction code");
     }
-    this.player.setCurrLocation(getNextLocationByDirection(playerCurrLocation, direction));
+    player.setCurrLocation(getNextLocationByDirection(playerCurrLocation, direction));
+    explore(player);
   }
 
+
   /**
-   * to set the location smell level.
+   * to add or remove the smell of a monster in a location, only updating the locations within
+   * the reach of its smell.
    *
-   * @param location        the location to set
-   * @param isIncrementFlag the increment flag.
+   * @param location        the location of the monster.
+   * @param isIncrementFlag true to add the smell, false to remove it when the monster is slayed.
    */
   public void setLocationSmellLevel(AbstractLocation location, boolean isIncrementFlag) {
-    int smellLevel = 3;
-    List<AbstractLocation> processedLocations = new ArrayList<>();
-    Stack<AbstractLocation> bfsStack = new Stack<>();
-    bfsStack.add(location);
-    while (!bfsStack.isEmpty() && smellLevel > 0) {
-      AbstractLocation currLoc = bfsStack.pop();
-      if (processedLocations.contains(currLoc)) {
-        continue;
-      }
-      if (isIncrementFlag) {
-        currLoc.incrementSmellLevel(smellLevel);
-      } else {
-        currLoc.decrementSmellLevel(smellLevel);
-      }
-      processedLocations.add(currLoc);
-      smellLevel--;
-      final List<AbstractLocation> unProcessedNeighbors = getUnprocessedNeighbors(location,
-              processedLocations);
-      List<AbstractLocation> caves = unProcessedNeighbors.stream()
-              .filter(e -> e instanceof Cave).collect(Collectors.toList());
-      List<AbstractLocation> tunnels = unProcessedNeighbors.stream()
-              .filter(e -> e instanceof Tunnel).collect(Collectors.toList());
-      bfsStack.addAll(caves);
-      final int tunnelSmellLevel = smellLevel;
-      tunnels.forEach(t -> setSmellLevelByDfsForTunnels(t, tunnelSmellLevel, bfsStack,
-              processedLocations, isIncrementFlag));
-    }
-  }
-
-  private void setSmellLevelByDfsForTunnels(AbstractLocation tunnelLocation, int smellLevel,
-                                            Stack<AbstractLocation> bfsStack,
-                                            List<AbstractLocation> processedLocations,
-                                            boolean isIncrementFlag) {
     if (isIncrementFlag) {
-      tunnelLocation.incrementSmellLevel(smellLevel);
+      getSmellField().addMonster(location);
     } else {
-      tunnelLocation.decrementSmellLevel(smellLevel);
+      getSmellField().removeMonster(location);
     }
-    processedLocations.add(tunnelLocation);
-    List<AbstractLocation> unProcessedNeighbors = getUnprocessedNeighbors(tunnelLocation,
-            processedLocations);
-    List<AbstractLocation> caves = unProcessedNeighbors.stream()
-            .filter(e -> e instanceof Cave).collect(Collectors.toList());
-    bfsStack.addAll(caves);
-    List<AbstractLocation> tunnels = unProcessedNeighbors.stream()
-            .filter(e -> e instanceof Tunnel).collect(Collectors.toList());
-    tunnels.forEach(t -> setSmellLevelByDfsForTunnels(t, smellLevel, bfsStack,
-            processedLocations, isIncrementFlag));
   }
 
-  private List<AbstractLocation> getUnprocessedNeighbors(AbstractLocation
-                                                                 location, List<AbstractLocation>
-                                                                 processedLocations) {
-    return location.getPossibleMoves().stream()
-            .map(direction -> getNextLocationByDirection(location, direction))
-            .filter(e -> !processedLocations.contains(e))
-            .collect(Collectors.toList());
+  /**
+   * to get the smell of the monsters over the locations, built on first use.
+   *
+   * @return the smell field of the dungeon.
+   */
+  SmellField getSmellField() {
+    if (smellField == null) {
+      smellField = new SmellField(grid, topology);
+    }
+    return smellField;
   }
 
   /**
@@ -409,6 +873,25 @@ public class Dungeon implements DungeonInterface {
     return new Player(this.player);
   }
 
+  /**
+   * to get the player of the dungeon itself, not a copy, so the changes made to it are the ones
+   * saved with the dungeon.
+   *
+   * @return the player, null if there is none.
+   */
+  Player getPlayerInDungeon() {
+    return this.player;
+  }
+
+  /**
+   * to check if a player was added to the dungeon.
+   *
+   * @return true if the dungeon has a player.
+   */
+  public boolean hasPlayer() {
+    return this.player != null;
+  }
+
   /**
    * to get the monsters.
    *
@@ -433,7 +916,17 @@ public class Dungeon implements DungeonInterface {
    * @return the boolean value
    */
   public Boolean hasPlayerWon() {
-    return (player.getCurrLocation().equals(end) && !isPlayerEatenByMonster());
+    return hasWon(player);
+  }
+
+  /**
+   * to check if a player has reached the end alive.
+   *
+   * @param player the player.
+   * @return true if the player has won.
+   */
+  boolean hasWon(Player player) {
+    return player.getCurrLocation().equals(end) && !isEatenByMonster(player);
   }
 
   /**
@@ -442,6 +935,17 @@ public class Dungeon implements DungeonInterface {
    * @return the boolean value.
    */
   public Boolean isPlayerEatenByMonster() {
+    return isEatenByMonster(player);
+  }
+
+  /**
+   * to check if a player is eaten by the monster of its cave, which happens if the monster is
+   * unhurt, or hurt and the player has no arrows left.
+   *
+   * @param player the player.
+   * @return true if the player is eaten.
+   */
+  boolean isEatenByMonster(Player player) {
     AbstractLocation playerCurrLocation = player.getCurrLocation();
     if (playerCurrLocation instanceof Cave && ((Cave) playerCurrLocation).hasOtyugh()) {
       int monsterHealth = ((Cave) playerCurrLocation).getMonster().getHealth();
@@ -457,9 +961,10 @@ public class Dungeon implements DungeonInterface {
     StringBuilder s;
     s = new StringBuilder();
     s.append(rowSize).append("*").append(colSize).append(" ").append(wrapName)
-            .append(" dungeon is created with ").append(caves.size()).append(" caves & ")
-            .append(tunnels.size()).append(" tunnels with interconnectivity ")
-            .append(interconnectivity).append(" and difficulty ").append(difficulty)
+            .append(" dungeon is created with ").append(grid.getNumberOfCaves())
+            .append(" caves & ").append(grid.getNumberOfTunnels())
+            .append(" tunnels with interconnectivity ").append(interconnectivity)
+            .append(" and difficulty ").append(difficulty)
             .append(". \n").append("Start position is: ")
             .append(start.getRowDim()).append(", ").append(start.getColDim()).append("\n")
             .append("End position is: ").append(end.getRowDim()).append(", ")
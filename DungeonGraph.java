@@ -0,0 +1,185 @@
+package dungeon;
+
+/**
+ * The moves between the locations of a dungeon as an immutable graph in compressed sparse row
+ * form. The edges leaving a location are stored together, from {@link #getFirstEdge(int)} up to
+ * {@link #getEdgeEnd(int)}, in the order of the directions, each with the location it leads to
+ * and its direction. Traversals over the graph only read primitive arrays, so they allocate
+ * nothing per step.
+ */
+public final class DungeonGraph {
+  private static final Direction[] DIRECTIONS = Direction.values();
+
+  private final int colSize;
+  private final int[] offsets;
+  private final int[] targets;
+  private final byte[] directions;
+
+  private DungeonGraph(int colSize, int[] offsets, int[] targets, byte[] directions) {
+    this.colSize = colSize;
+    this.offsets = offsets;
+    this.targets = targets;
+    this.directions = directions;
+  }
+
+  /**
+   * to build the graph of the locations of a grid, following their walls.
+   *
+   * @param grid       the locations of the dungeon.
+   * @param isWrapping if the dungeon is wrapping or non-wrapping.
+   * @return the graph.
+   */
+  public static DungeonGraph of(DungeonGrid grid, boolean isWrapping) {
+    if (grid == null) {
+      throw new IllegalArgumentException("Grid cannot be null");
+    }
+    final int rowSize = grid.getRowSize();
+    final int colSize = grid.getColSize();
+    final GridTopology topology = new GridTopology(rowSize, colSize, isWrapping);
+    final int numLocations = topology.size();
+    final byte[] wallBits = new byte[numLocations];
+    for (int id = 0; id < numLocations; id++) {
+      wallBits[id] = (byte) GridTopology.getWallBits(grid, id);
+    }
+
+    final int[] offsets = new int[numLocations + 1];
+    for (int id = 0; id < numLocations; id++) {
+      int degree = 0;
+      for (int direction = 0; direction < GridTopology.NUM_DIRECTIONS; direction++) {
+        if (topology.getNeighbor(id, wallBits[id], direction) >= 0) {
+          degree++;
+        }
+      }
+      offsets[id + 1] = offsets[id] + degree;
+    }
+    final int[] targets = new int[offsets[numLocations]];
+    final byte[] directions = new byte[targets.length];
+    for (int id = 0; id < numLocations; id++) {
+      int edge = offsets[id];
+      for (int direction = 0; direction < GridTopology.NUM_DIRECTIONS; direction++) {
+        final int target = topology.getNeighbor(id, wallBits[id], direction);
+        if (target >= 0) {
+          targets[edge] = target;
+          directions[edge++] = (byte) direction;
+        }
+      }
+    }
+    return new DungeonGraph(colSize, offsets, targets, directions);
+  }
+
+  /**
+   * to get the number of locations of the graph.
+   *
+   * @return the number of locations.
+   */
+  public int size() {
+    return offsets.length - 1;
+  }
+
+  /**
+   * to get the number of edges of the graph, every passage counting once in each direction.
+   *
+   * @return the number of edges.
+   */
+  public int getNumberOfEdges() {
+    return targets.length;
+  }
+
+  /**
+   * to get the id of a location.
+   *
+   * @param location the location.
+   * @return the id.
+   */
+  public int getId(Location location) {
+    return location.getRowDim() * colSize + location.getColDim();
+  }
+
+  /**
+   * to get the first edge leaving a location.
+   *
+   * @param id the id of the location.
+   * @return the index of the edge.
+   */
+  public int getFirstEdge(int id) {
+    return offsets[id];
+  }
+
+  /**
+   * to get the index after the last edge leaving a location.
+   *
+   * @param id the id of the location.
+   * @return the index after the last edge.
+   */
+  public int getEdgeEnd(int id) {
+    return offsets[id + 1];
+  }
+
+  /**
+   * to get the number of moves out of a location.
+   *
+   * @param id the id of the location.
+   * @return the number of edges leaving the location.
+   */
+  public int getDegree(int id) {
+    return offsets[id + 1] - offsets[id];
+  }
+
+  /**
+   * to get the location an edge leads to.
+   *
+   * @param edge the index of the edge.
+   * @return the id of the location.
+   */
+  public int getTarget(int edge) {
+    return targets[edge];
+  }
+
+  /**
+   * to get the direction of an edge.
+   *
+   * @param edge the index of the edge.
+   * @return the direction.
+   */
+  public Direction getDirection(int edge) {
+    return DIRECTIONS[directions[edge]];
+  }
+
+  /**
+   * to get the location reached by moving from a location in a direction.
+   *
+   * @param id        the id of the location.
+   * @param direction the direction of the move.
+   * @return the id of the location reached, -1 if the move is not possible.
+   */
+  public int getNeighbor(int id, Direction direction) {
+    final int ordinal = direction.ordinal();
+    for (int edge = offsets[id]; edge < offsets[id + 1]; edge++) {
+      if (directions[edge] == ordinal) {
+        return targets[edge];
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * to check if a location is a cave, having one, three or four entrances.
+   *
+   * @param id the id of the location.
+   * @return true if the location is a cave.
+   */
+  public boolean isCave(int id) {
+    final int degree = getDegree(id);
+    return degree > 0 && degree != 2;
+  }
+
+  /**
+   * to check if a location is a tunnel, having two entrances.
+   *
+   * @param id the id of the location.
+   * @return true if the location is a tunnel.
+   */
+  public boolean isTunnel(int id) {
+    return getDegree(id) == 2;
+  }
+}
@@ -0,0 +1,77 @@
+package dungeon;
+
+import java.util.List;
+
+/**
+ * An interface for the storage of the locations of a dungeon.
+ */
+public interface DungeonGrid {
+
+  /**
+   * to get the number of rows.
+   *
+   * @return the rows of the grid.
+   */
+  int getRowSize();
+
+  /**
+   * to get the number of columns.
+   *
+   * @return the columns of the grid.
+   */
+  int getColSize();
+
+  /**
+   * to get the location at a row and column.
+   *
+   * @param row the row of the location.
+   * @param col the col of the location.
+   * @return the location.
+   * @throws ArrayIndexOutOfBoundsException if the location is outside the grid.
+   */
+  AbstractLocation getLocation(int row, int col);
+
+  /**
+   * to get the locations as a grid.
+   *
+   * @return the locations grid.
+   */
+  AbstractLocation[][] getLocations();
+
+  /**
+   * to get the number of caves.
+   *
+   * @return the number of caves.
+   */
+  int getNumberOfCaves();
+
+  /**
+   * to get a cave by its index, caves are ordered by row and then column.
+   *
+   * @param index the index of the cave.
+   * @return the cave.
+   */
+  Cave getCave(int index);
+
+  /**
+   * to get the number of tunnels.
+   *
+   * @return the number of tunnels.
+   */
+  int getNumberOfTunnels();
+
+  /**
+   * to get the list of caves.
+   *
+   * @return the caves.
+   */
+  List<Cave> getCaves();
+
+  /**
+   * to get the list of tunnels.
+   *
+   * @return the tunnels.
+   */
+  List<Tunnel> getTunnels();
+
+}
@@ -1,11 +1,8 @@
 package dungeon;
 
 import java.util.Arrays;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Random;
-import java.util.Set;
-import java.util.stream.Collectors;
 
 /**
  * A helper class for building the dungeon.
@@ -26,130 +23,121 @@ public class DungeonHelper {
                                                                      boolean isWrapping,
                                                                      int interconnectivity,
                                                                      Random rand) {
-    final int numWalls;
-    if (isWrapping) {
-      numWalls = 2 * rowSize * colSize;
-    } else {
-      numWalls = 2 * rowSize * colSize - rowSize - colSize;
-    }
-    final Wall[] walls = new Wall[numWalls];
-    final AbstractLocation[][] locations = new AbstractLocation[rowSize][colSize];
-    setAbstractLocations(locations, isWrapping, walls);
-    generateInterConnectivityForLocations(locations, walls, interconnectivity, rand);
-    return locations;
+    return buildAbstractLocationsWithConnectivity(rowSize, colSize, isWrapping,
+            interconnectivity, rand, GenerationMode.RANDOM_SAMPLING);
   }
 
-  private void setAbstractLocations(AbstractLocation[][] locations, boolean isWrapping,
-                                    Wall[] walls) {
-    final int rowSize = locations.length;
-    final int colSize = locations[0].length;
+  /**
+   * build locations with connectivity using the given generation mode.
+   *
+   * @param rowSize           the row of the dungeon.
+   * @param colSize           the col of the dungeon.
+   * @param isWrapping        wrapping flag.
+   * @param interconnectivity interconnectivity of the the dungeon.
+   * @param rand              random value.
+   * @param mode              the way the walls are visited while carving.
+   * @return the locations grid.
+   */
+  public AbstractLocation[][] buildAbstractLocationsWithConnectivity(int rowSize, int colSize,
+                                                                     boolean isWrapping,
+                                                                     int interconnectivity,
+                                                                     Random rand,
+                                                                     GenerationMode mode) {
+    return WallBits.toLocations(buildWallBits(rowSize, colSize, isWrapping, interconnectivity,
+            rand, mode), rowSize, colSize);
+  }
 
-    int num = 0;
-    for (int i = 0; i < rowSize; i++) {
-      for (int j = 0; j < colSize; j++) {
-        locations[i][j] = new AbstractLocation(i, j);
-        if (isWrapping) {
-          walls[num++] = new Wall(i, j, Orientation.VERTICAL);
-          walls[num++] = new Wall(i, j, Orientation.HORIZONTAL);
-        } else {
-          if (i < rowSize - 1) {
-            walls[num++] = new Wall(i, j, Orientation.VERTICAL);
-          }
-          if (j < colSize - 1) {
-            walls[num++] = new Wall(i, j, Orientation.HORIZONTAL);
-          }
-        }
-      }
+  /**
+   * build the wall bits of every location in row major order, see {@link WallBits}. The walls
+   * are carved straight into the wall bits, so no location objects are made.
+   *
+   * @param rowSize           the row of the dungeon.
+   * @param colSize           the col of the dungeon.
+   * @param isWrapping        wrapping flag.
+   * @param interconnectivity interconnectivity of the the dungeon.
+   * @param rand              random value.
+   * @param mode              the way the walls are visited while carving.
+   * @return the wall bits.
+   */
+  public byte[] buildWallBits(int rowSize, int colSize, boolean isWrapping,
+                              int interconnectivity, Random rand, GenerationMode mode) {
+    if (mode == null) {
+      throw new IllegalArgumentException("Generation mode cannot be null");
+    }
+    if (mode == GenerationMode.PARALLEL_TILED) {
+      return new ParallelDungeonHelper().buildWallBits(rowSize, colSize, isWrapping,
+              interconnectivity, rand.nextLong());
     }
+    final PackedWalls walls = new PackedWalls(rowSize, colSize, isWrapping);
+    final byte[] wallBits = new byte[rowSize * colSize];
+    Arrays.fill(wallBits, (byte) WallBits.ALL);
+    if (mode == GenerationMode.SHUFFLED_PASS) {
+      generateInterConnectivityByShuffledPass(wallBits, walls, rand);
+    } else {
+      generateInterConnectivityForLocations(wallBits, walls, rand);
+    }
+    breakLeftOverWalls(wallBits, walls, interconnectivity);
+    return wallBits;
   }
 
-  private void generateInterConnectivityForLocations(AbstractLocation[][] locations, Wall[] walls,
-                                                     int interconnectivity, Random rand) {
-    final int rowSize = locations.length;
-    final int colSize = locations[0].length;
+  private void generateInterConnectivityForLocations(byte[] wallBits, PackedWalls walls,
+                                                     Random rand) {
     // number of locations in the maze
-    int numLocations = rowSize * colSize;
+    int numLocations = wallBits.length;
     UnionFind unions = new UnionFind(numLocations);
-    Set<Wall> brokenWalls = new HashSet<>();
     while (unions.getNumSubsets() > 1) {
-      final Wall randWall = walls[rand.nextInt(walls.length)];
-
-      final int aRow = randWall.getRow();
-      final int aCol = randWall.getCol();
-      final int aLocation = aRow * colSize + aCol;
+      final int randWall = walls.getWall(rand.nextInt(walls.size()));
+      breakWallIfDisjoint(wallBits, walls, unions, randWall);
+    }
+  }
 
-      final int bLocation;
-      if (randWall.getOrientation() == Orientation.VERTICAL) {
-        if (aRow != rowSize - 1) {
-          bLocation = (aRow + 1) * colSize + aCol;
-        } else {
-          bLocation = aCol;
-        }
-        /* If there is no path between the cells, knock down a wall. */
-        if (unions.find(aLocation) != unions.find(bLocation)) {
-          locations[aRow][aCol].setDown(false);
-          if (aRow != rowSize - 1) {
-            locations[aRow + 1][aCol].setUp(false);
-          } else {
-            locations[0][aCol].setUp(false);
-          }
-          brokenWalls.add(randWall);
-          unions.union(aLocation, bLocation);
-        }
-      } else {
-        if (aCol != colSize - 1) {
-          bLocation = aRow * colSize + (aCol + 1);
-        } else {
-          bLocation = aRow * colSize;
-        }
-        /* If there is no path between the cells, knock down a wall. */
-        if (unions.find(aLocation) != unions.find(bLocation)) {
-          locations[aRow][aCol].setRight(false);
-          if (aCol != colSize - 1) {
-            locations[aRow][aCol + 1].setLeft(false);
-          } else {
-            locations[aRow][0].setLeft(false);
-          }
-          unions.union(aLocation, bLocation);
-          brokenWalls.add(randWall);
-        }
-      }
+  private void generateInterConnectivityByShuffledPass(byte[] wallBits, PackedWalls walls,
+                                                       Random rand) {
+    final int numLocations = wallBits.length;
+    // Fisher-Yates shuffle so that every wall is visited exactly once
+    for (int i = walls.size() - 1; i > 0; i--) {
+      walls.swap(i, rand.nextInt(i + 1));
     }
-    Set<Wall> newWalls = Arrays.stream(walls).collect(Collectors.toSet());
-    newWalls.removeAll(brokenWalls);
+    UnionFind unions = new UnionFind(numLocations);
+    for (int i = 0; i < walls.size() && unions.getNumSubsets() > 1; i++) {
+      breakWallIfDisjoint(wallBits, walls, unions, walls.getWall(i));
+    }
+  }
 
-    final Object[] leftOverWalls = newWalls.toArray();
-    if (interconnectivity > leftOverWalls.length) {
+  private void breakLeftOverWalls(byte[] wallBits, PackedWalls walls, int interconnectivity) {
+    if (interconnectivity > walls.getNumLeftOver()) {
       throw new IllegalArgumentException("interconnectivity is exceeding the maximum");
     }
-    // add interconnectivity degree
-    for (int i = 0; i < interconnectivity; i++) {
-      Wall newWall = (Wall) leftOverWalls[i];
-      breakWall(locations, newWall);
+    // add interconnectivity degree, the left over walls are taken in the order they are stored
+    int remaining = interconnectivity;
+    for (int i = 0; i < walls.size() && remaining > 0; i++) {
+      final int wall = walls.getWall(i);
+      if (!walls.isBroken(wall)) {
+        breakWall(wallBits, walls, wall);
+        remaining--;
+      }
     }
   }
 
-  private void breakWall(AbstractLocation[][] locations, Wall wall) {
-    final int rowSize = locations.length;
-    final int colSize = locations[0].length;
+  private void breakWallIfDisjoint(byte[] wallBits, PackedWalls walls, UnionFind unions,
+                                   int wall) {
+    /* If there is no path between the cells, knock down a wall. */
+    if (unions.union(walls.getLocationId(wall), walls.getNeighborId(wall))) {
+      breakWall(wallBits, walls, wall);
+    }
+  }
 
-    final int wallRow = wall.getRow();
-    final int wallCol = wall.getCol();
-    if (wall.getOrientation() == Orientation.VERTICAL) {
-      locations[wallRow][wallCol].setDown(false);
-      if (wallRow != rowSize - 1) {
-        locations[wallRow + 1][wallCol].setUp(false);
-      } else {
-        locations[0][wallCol].setDown(false);
-      }
+  private void breakWall(byte[] wallBits, PackedWalls walls, int wall) {
+    final int id = walls.getLocationId(wall);
+    final int neighborId = walls.getNeighborId(wall);
+    if (walls.getOrientation(wall) == Orientation.VERTICAL) {
+      wallBits[id] &= ~WallBits.DOWN;
+      wallBits[neighborId] &= ~WallBits.UP;
     } else {
-      locations[wallRow][wallCol].setRight(false);
-      if (wallCol != colSize - 1) {
-        locations[wallRow][wallCol + 1].setLeft(false);
-      } else {
-        locations[wallRow][0].setLeft(false);
-      }
+      wallBits[id] &= ~WallBits.RIGHT;
+      wallBits[neighborId] &= ~WallBits.LEFT;
     }
+    walls.markBroken(wall);
   }
 
   /**
@@ -167,13 +155,12 @@ public class DungeonHelper {
     for (int i = 0; i < rowSize; i++) {
       for (int j = 0; j < colSize; j++) {
         final AbstractLocation thisLocation = locations[i][j];
-        if (thisLocation.getNumberOfEntrance() == 2) {
+        final int exitCount = thisLocation.exitCount();
+        if (exitCount == 2) {
           Tunnel newTunnel = new Tunnel(thisLocation);
           locations[i][j] = newTunnel;
           tunnels.add(newTunnel);
-        } else if (thisLocation.getNumberOfEntrance() == 1
-                || thisLocation.getNumberOfEntrance() == 3
-                || thisLocation.getNumberOfEntrance() == 4) {
+        } else if (exitCount == 1 || exitCount == 3 || exitCount == 4) {
           Cave newCave = new Cave(thisLocation);
           locations[i][j] = newCave;
           caves.add(newCave);
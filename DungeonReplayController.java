@@ -0,0 +1,97 @@
+package dungeon;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+
+/**
+ * A controller replaying the recorded input of a game, such as the lines typed to
+ * {@link DungeonConsoleController}, as fast as it can. The lines are read by a
+ * {@link FastLineReader} and played on a {@link GameSession}; the text of a line is gathered in
+ * one buffer, used again for every line, and written to the output at once. Without rendering
+ * no text is made at all, and only the state of the dungeon and the player tell the outcome.
+ *
+ * <p>Unlike the console controller, the replay ends quietly when the input ends before the game
+ * is over.
+ */
+public class DungeonReplayController implements DungeonController {
+  private final FastLineReader lines;
+  private final Appendable out;
+  private final boolean isRendering;
+  private final StringBuilder turn;
+  private long linesPlayed;
+
+  /**
+   * to construct a replay of the lines of a reader.
+   *
+   * @param in          the input.
+   * @param out         the output, may be null without rendering.
+   * @param isRendering false to make no text at all.
+   */
+  public DungeonReplayController(Reader in, Appendable out, boolean isRendering) {
+    this(in == null ? null : new FastLineReader(in), out, isRendering);
+  }
+
+  /**
+   * to construct a replay of the lines of bytes in memory.
+   *
+   * @param in          the input, read as UTF-8 from its position to its limit.
+   * @param out         the output, may be null without rendering.
+   * @param isRendering false to make no text at all.
+   */
+  public DungeonReplayController(ByteBuffer in, Appendable out, boolean isRendering) {
+    this(in == null ? null : new FastLineReader(in), out, isRendering);
+  }
+
+  private DungeonReplayController(FastLineReader lines, Appendable out, boolean isRendering) {
+    if (lines == null || (out == null && isRendering)) {
+      throw new IllegalArgumentException("Input and output can't be null");
+    }
+    this.lines = lines;
+    this.out = out;
+    this.isRendering = isRendering;
+    this.turn = new StringBuilder();
+  }
+
+  /**
+   * Replay the lines of a game until the game is over or the input ends.
+   *
+   * @param dungeon a non-null Dungeon Model
+   * @param player  the player, already in the dungeon
+   */
+  @Override
+  public void playGame(Dungeon dungeon, Player player) {
+    if (dungeon == null || player == null) {
+      throw new IllegalArgumentException("Given model is null.");
+    }
+    try {
+      final GameSession session = new GameSession(dungeon, player, turn, isRendering);
+      session.start();
+      flush();
+      String line;
+      while (!session.isOver() && (line = lines.readLine()) != null) {
+        session.accept(line);
+        linesPlayed++;
+        flush();
+      }
+    } catch (IOException ioException) {
+      ioException.printStackTrace();
+    }
+  }
+
+  /**
+   * to get the number of lines played.
+   *
+   * @return the number of lines.
+   */
+  public long getLinesPlayed() {
+    return linesPlayed;
+  }
+
+  private void flush() throws IOException {
+    if (turn.length() > 0) {
+      out.append(turn);
+      turn.setLength(0);
+    }
+  }
+}
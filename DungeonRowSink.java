@@ -0,0 +1,20 @@
+package dungeon;
+
+import java.io.IOException;
+
+/**
+ * An interface for receiving the rows of a dungeon as they are generated.
+ */
+public interface DungeonRowSink {
+
+  /**
+   * to accept a finished row of the dungeon. The array is reused for the next row, so it has to
+   * be copied if it is kept.
+   *
+   * @param row      the index of the row.
+   * @param wallBits the wall bits of every location in the row, see {@link WallBits}.
+   * @throws IOException if the row cannot be written.
+   */
+  void acceptRow(int row, byte[] wallBits) throws IOException;
+
+}
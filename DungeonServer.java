@@ -0,0 +1,431 @@
+package dungeon;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * A server playing the text game over TCP, one game per connection. A client sends the same
+ * lines it would type to {@link DungeonConsoleController} and reads back the same text.
+ *
+ * <p>Connections are served by a fixed number of event loops, each a thread with a selector of
+ * its own. The first loop accepts the connections and hands them out to the loops in turn, and
+ * a connection stays on its loop for its whole life, so its game is a {@link GameSession} played
+ * by a single thread without locks. The dungeon of a new connection is built by a pool of
+ * builder threads, as many as the loops, and the connection is handed to its loop only once its
+ * dungeon is ready, so a large dungeon does not hold up the connections already open.
+ *
+ * <p>Every connection reads its lines into a direct buffer of {@link #MAX_LINE_LENGTH} bytes,
+ * and writes its text through a direct buffer of its own. A connection that does not read its
+ * text is not read from until it does, so it cannot make the server hold more than the text of
+ * the lines already read.
+ *
+ * <p>When the game of a connection is over, its text is written and the server shuts down its
+ * side of the connection, then drops what the client still sends until the client closes its
+ * side too. A connection sending a line longer than the input buffer is closed at once.
+ */
+public final class DungeonServer implements Closeable {
+  /**
+   * the most bytes of a line, its line separator included.
+   */
+  public static final int MAX_LINE_LENGTH = 256;
+
+  private static final int OUTPUT_CAPACITY = 4096;
+  private static final int BACKLOG = 1024;
+
+  private final ServerSocketChannel server;
+  private final Supplier<Dungeon> dungeons;
+  private final EventLoop[] loops;
+  private final ExecutorService builders;
+  private final AtomicInteger connectionCount;
+  private volatile boolean isClosing;
+
+  /**
+   * to construct a server and start its event loops.
+   *
+   * @param address        the address to listen on, with port 0 for any free port.
+   * @param numberOfLoops  the number of event loops.
+   * @param dungeons       the supplier of the dungeon of every new connection, with its start,
+   *                       end and monsters assigned. It is called by the builder threads,
+   *                       from several of them at once if there are several loops.
+   * @throws IOException if the address cannot be listened on.
+   */
+  public DungeonServer(InetSocketAddress address, int numberOfLoops, Supplier<Dungeon> dungeons)
+      throws IOException {
+    if (address == null || dungeons == null || numberOfLoops < 1) {
+      throw new IllegalArgumentException("Invalid address, dungeons or number of loops");
+    }
+    this.dungeons = dungeons;
+    this.connectionCount = new AtomicInteger();
+    this.server = ServerSocketChannel.open();
+    this.loops = new EventLoop[numberOfLoops];
+    final AtomicInteger builderCount = new AtomicInteger();
+    this.builders = Executors.newFixedThreadPool(numberOfLoops, runnable -> {
+      final Thread builder = new Thread(runnable,
+          "dungeon-server-builder-" + builderCount.getAndIncrement());
+      builder.setDaemon(true);
+      return builder;
+    });
+    try {
+      server.bind(address, BACKLOG);
+      server.configureBlocking(false);
+      for (int i = 0; i < numberOfLoops; i++) {
+        loops[i] = new EventLoop(i);
+      }
+      server.register(loops[0].selector, SelectionKey.OP_ACCEPT);
+    } catch (IOException e) {
+      builders.shutdown();
+      server.close();
+      for (EventLoop loop : loops) {
+        if (loop != null) {
+          loop.selector.close();
+        }
+      }
+      throw e;
+    }
+    for (EventLoop loop : loops) {
+      loop.thread.start();
+    }
+  }
+
+  /**
+   * to get the address the server listens on.
+   *
+   * @return the address.
+   * @throws IOException if the server is closed.
+   */
+  public InetSocketAddress getAddress() throws IOException {
+    return (InetSocketAddress) server.getLocalAddress();
+  }
+
+  /**
+   * to get the number of connections open.
+   *
+   * @return the number of connections.
+   */
+  public int getConnectionCount() {
+    return connectionCount.get();
+  }
+
+  /**
+   * to stop listening, close every connection and wait for the event loops to end.
+   */
+  @Override
+  public void close() throws IOException {
+    isClosing = true;
+    for (Runnable build : builders.shutdownNow()) {
+      closeQuietly(((Build) build).channel);
+    }
+    boolean isInterrupted = false;
+    while (!builders.isTerminated()) {
+      try {
+        builders.awaitTermination(1, TimeUnit.MINUTES);
+      } catch (InterruptedException e) {
+        isInterrupted = true;
+      }
+    }
+    for (EventLoop loop : loops) {
+      loop.selector.wakeup();
+    }
+    for (EventLoop loop : loops) {
+      while (loop.thread.isAlive()) {
+        try {
+          loop.thread.join();
+        } catch (InterruptedException e) {
+          isInterrupted = true;
+        }
+      }
+    }
+    server.close();
+    // a connection handed to a loop that had already ended
+    for (EventLoop loop : loops) {
+      for (Connection connection = loop.accepted.poll(); connection != null;
+           connection = loop.accepted.poll()) {
+        closeQuietly(connection.channel);
+      }
+    }
+    if (isInterrupted) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * a thread with a selector, serving the connections registered with it.
+   */
+  private final class EventLoop implements Runnable {
+    private final Thread thread;
+    private final Selector selector;
+    private final Queue<Connection> accepted;
+    private final byte[] line;
+    private int nextLoop;
+
+    private EventLoop(int index) throws IOException {
+      this.selector = Selector.open();
+      this.accepted = new ConcurrentLinkedQueue<>();
+      this.line = new byte[MAX_LINE_LENGTH];
+      this.thread = new Thread(this, "dungeon-server-loop-" + index);
+      this.thread.setDaemon(true);
+    }
+
+    @Override
+    public void run() {
+      try {
+        while (!isClosing) {
+          selector.select();
+          for (Connection connection = accepted.poll(); connection != null;
+               connection = accepted.poll()) {
+            register(connection);
+          }
+          final Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+          while (keys.hasNext()) {
+            final SelectionKey key = keys.next();
+            keys.remove();
+            if (!key.isValid()) {
+              continue;
+            }
+            if (key.isAcceptable()) {
+              accept();
+            } else {
+              serve((Connection) key.attachment());
+            }
+          }
+        }
+      } catch (IOException e) {
+        thread.getUncaughtExceptionHandler().uncaughtException(thread, e);
+      } finally {
+        for (SelectionKey key : selector.keys()) {
+          if (key.attachment() != null) {
+            ((Connection) key.attachment()).close();
+          }
+        }
+        for (Connection connection = accepted.poll(); connection != null;
+             connection = accepted.poll()) {
+          closeQuietly(connection.channel);
+        }
+        closeQuietly(selector);
+      }
+    }
+
+    private void accept() throws IOException {
+      for (SocketChannel channel = server.accept(); channel != null;
+           channel = server.accept()) {
+        final EventLoop loop = loops[nextLoop];
+        nextLoop = (nextLoop + 1) % loops.length;
+        try {
+          builders.execute(new Build(channel, loop));
+        } catch (RejectedExecutionException e) {
+          // the server is closing
+          closeQuietly(channel);
+        }
+      }
+    }
+
+    private void register(Connection connection) {
+      try {
+        connection.channel.configureBlocking(false);
+        connection.channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+        connection.key = connection.channel.register(selector, SelectionKey.OP_READ, connection);
+        connectionCount.incrementAndGet();
+        connection.session.start();
+        connection.flush();
+      } catch (IOException | RuntimeException e) {
+        if (connection.key != null) {
+          connection.close();
+        } else {
+          closeQuietly(connection.channel);
+        }
+        if (e instanceof RuntimeException) {
+          thread.getUncaughtExceptionHandler().uncaughtException(thread, e);
+        }
+      }
+    }
+
+    private void serve(Connection connection) {
+      try {
+        if (connection.key.isWritable()) {
+          connection.flush();
+        }
+        if (connection.key.isValid() && connection.key.isReadable()) {
+          connection.read(line);
+        }
+      } catch (IOException e) {
+        connection.close();
+      } catch (RuntimeException e) {
+        connection.close();
+        thread.getUncaughtExceptionHandler().uncaughtException(thread, e);
+      }
+    }
+  }
+
+  /**
+   * the building of the dungeon of a new connection, handing the connection to its loop once
+   * done.
+   */
+  private final class Build implements Runnable {
+    private final SocketChannel channel;
+    private final EventLoop loop;
+
+    private Build(SocketChannel channel, EventLoop loop) {
+      this.channel = channel;
+      this.loop = loop;
+    }
+
+    @Override
+    public void run() {
+      final Connection connection;
+      try {
+        final Dungeon dungeon = dungeons.get();
+        final Player player = new Player(1);
+        dungeon.addPlayer(player);
+        connection = new Connection(channel, dungeon, player);
+      } catch (RuntimeException e) {
+        closeQuietly(channel);
+        throw e;
+      }
+      loop.accepted.offer(connection);
+      loop.selector.wakeup();
+    }
+  }
+
+  /**
+   * a connection with its game and buffers.
+   */
+  private final class Connection {
+    private final SocketChannel channel;
+    private final GameSession session;
+    private final ByteBuffer input;
+    private final ByteBuffer output;
+    private final StringBuilder text;
+    private final CharsetEncoder encoder;
+    private SelectionKey key;
+    private int textPosition;
+    private boolean isInputClosed;
+
+    private Connection(SocketChannel channel, Dungeon dungeon, Player player) {
+      this.channel = channel;
+      this.text = new StringBuilder();
+      this.session = new GameSession(dungeon, player, text);
+      this.input = ByteBuffer.allocateDirect(MAX_LINE_LENGTH);
+      this.output = ByteBuffer.allocateDirect(OUTPUT_CAPACITY);
+      this.encoder = StandardCharsets.UTF_8.newEncoder();
+    }
+
+    /**
+     * to read what has arrived and play every whole line of it.
+     *
+     * @param line a scratch array for the bytes of a line.
+     */
+    private void read(byte[] line) throws IOException {
+      if (channel.read(input) < 0) {
+        isInputClosed = true;
+      }
+      if (session.isOver()) {
+        // the text is written and the output shut down, what the client still sends is dropped
+        input.clear();
+        if (isInputClosed) {
+          close();
+        }
+        return;
+      }
+      input.flip();
+      int start = input.position();
+      for (int i = start; i < input.limit() && !session.isOver(); i++) {
+        if (input.get(i) != '\n') {
+          continue;
+        }
+        int end = i;
+        if (end > start && input.get(end - 1) == '\r') {
+          end--;
+        }
+        play(line, start, end);
+        start = i + 1;
+      }
+      if (isInputClosed && start < input.limit() && !session.isOver()) {
+        // the last line may end without a line separator
+        play(line, start, input.limit());
+        start = input.limit();
+      }
+      input.position(session.isOver() ? input.limit() : start);
+      input.compact();
+      if (!input.hasRemaining()) {
+        // a line longer than the buffer
+        close();
+        return;
+      }
+      flush();
+    }
+
+    private void play(byte[] line, int start, int end) throws IOException {
+      input.position(start);
+      input.get(line, 0, end - start);
+      session.accept(new String(line, 0, end - start, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * to write as much of the text as the socket takes, then wait for the socket to take more
+     * if some is left, or else go back to reading.
+     */
+    private void flush() throws IOException {
+      do {
+        if (textPosition < text.length()) {
+          final CharBuffer chars = CharBuffer.wrap(text, textPosition, text.length());
+          encoder.reset();
+          encoder.encode(chars, output, true);
+          textPosition = chars.position();
+        }
+        output.flip();
+        channel.write(output);
+        final boolean isFull = output.hasRemaining();
+        output.compact();
+        if (isFull) {
+          key.interestOps(SelectionKey.OP_WRITE);
+          return;
+        }
+      } while (textPosition < text.length());
+      text.setLength(0);
+      textPosition = 0;
+      if (isInputClosed) {
+        close();
+        return;
+      }
+      if (session.isOver()) {
+        channel.shutdownOutput();
+      }
+      key.interestOps(SelectionKey.OP_READ);
+    }
+
+    private void close() {
+      if (key.isValid()) {
+        key.cancel();
+        connectionCount.decrementAndGet();
+      }
+      closeQuietly(channel);
+    }
+  }
+
+  private static void closeQuietly(Closeable closeable) {
+    try {
+      closeable.close();
+    } catch (IOException e) {
+      // nothing left to do with it
+    }
+  }
+}
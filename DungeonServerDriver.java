@@ -0,0 +1,57 @@
+package dungeon;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * driver for the dungeon server, playing a new dungeon on every connection.
+ */
+public class DungeonServerDriver {
+
+  /**
+   * the main class for the dungeon server.
+   *
+   * @param args the port, the number of event loops, and the 6 arguments of the game.
+   * @throws IOException          if the port cannot be listened on.
+   * @throws InterruptedException if the main thread is interrupted.
+   */
+  public static void main(String[] args) throws IOException, InterruptedException {
+    if (args.length != 8) {
+      throw new IllegalArgumentException(
+          "Requires the port, the number of loops and 6 command value arguments for the Game");
+    }
+    final int port = Integer.parseInt(args[0]);
+    final int numberOfLoops = Integer.parseInt(args[1]);
+    final int rows = Integer.parseInt(args[2]);
+    final int cols = Integer.parseInt(args[3]);
+    final int interConnectivity = Integer.parseInt(args[4]);
+    final boolean isWrapping = Boolean.parseBoolean(args[5]);
+    final int treasurePercent = Integer.parseInt(args[6]);
+    final int difficulty = Integer.parseInt(args[7]);
+
+    final DungeonServer server = new DungeonServer(new InetSocketAddress(port), numberOfLoops,
+        () -> {
+          final Dungeon dungeon = new Dungeon(rows, cols, interConnectivity, isWrapping,
+                  treasurePercent, difficulty);
+          dungeon.assignTreasuresAndArrows();
+          dungeon.addStart();
+          dungeon.addEnd();
+          dungeon.assignMonsters();
+          dungeon.getMonsters()
+                  .forEach(monster -> dungeon.setLocationSmellLevel(monster.getLocation(), true));
+          return dungeon;
+        });
+    System.out.println("Listening on " + server.getAddress());
+    Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+      try {
+        server.close();
+      } catch (IOException e) {
+        e.printStackTrace();
+      }
+    }));
+    // the event loops are daemon threads, so serve until the JVM is stopped
+    new CountDownLatch(1).await();
+  }
+
+}
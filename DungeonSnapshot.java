@@ -0,0 +1,417 @@
+package dungeon;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * A class to save a dungeon with its game state to a binary snapshot and to load it back. A
+ * snapshot starts with a header holding the version, the size and parameters of the dungeon and
+ * its start and end, followed by the wall bits, smell levels and arrows of every location, the
+ * ids, treasure counts and monster health of every cave, the caves holding a monster and the
+ * player with its {@link ExplorationMap}. Values are big endian. A loaded dungeon keeps its
+ * locations in a {@link CompactGrid}, whose arrays are filled with bulk reads. Snapshots of
+ * version 1, which have no exploration map, are still read, and their player starts exploring
+ * afresh.
+ */
+public final class DungeonSnapshot {
+
+  /**
+   * the first int of every snapshot.
+   */
+  public static final int MAGIC = 0x44475353;
+
+  /**
+   * the version of the snapshot format.
+   */
+  public static final int VERSION = 2;
+
+  private static final int HEADER_SIZE = 52;
+  private static final int BUFFER_SIZE = 1 << 16;
+  private static final int WRAPPING_FLAG = 1;
+  private static final int PLAYER_FLAG = 2;
+  private static final Treasure[] TREASURES = Treasure.values();
+
+  private DungeonSnapshot() {
+  }
+
+  /**
+   * to save a dungeon to a file.
+   *
+   * @param dungeon the dungeon to save.
+   * @param file    the file to write, replaced if it exists.
+   * @throws IOException if the file cannot be written.
+   */
+  public static void save(Dungeon dungeon, Path file) throws IOException {
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+            StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+      write(dungeon, channel);
+    }
+  }
+
+  /**
+   * to load a dungeon from a file.
+   *
+   * @param file the file to read.
+   * @param rand the random generator used by the loaded dungeon.
+   * @return the dungeon.
+   * @throws IOException if the file cannot be read or is not a snapshot.
+   */
+  public static Dungeon load(Path file, Random rand) throws IOException {
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      return read(channel, rand);
+    }
+  }
+
+  /**
+   * to write a snapshot of a dungeon to a channel, location by location through a fixed buffer.
+   *
+   * @param dungeon the dungeon to write.
+   * @param channel the channel to write to, left open.
+   * @throws IOException if the snapshot cannot be written.
+   * @throws IllegalArgumentException if a level or a count of the dungeon does not fit a short.
+   */
+  public static void write(Dungeon dungeon, WritableByteChannel channel) throws IOException {
+    if (dungeon == null || channel == null) {
+      throw new IllegalArgumentException("invalid arguments to write a snapshot");
+    }
+    final Writer writer = new Writer(channel);
+    final DungeonGrid grid = dungeon.getGrid();
+    final int rowSize = grid.getRowSize();
+    final int colSize = grid.getColSize();
+    final Player player = dungeon.hasPlayer() ? dungeon.getPlayer() : null;
+    final List<Monster> monsters = dungeon.getMonsters();
+
+    writer.putInt(MAGIC);
+    writer.putInt(VERSION);
+    writer.putInt(rowSize);
+    writer.putInt(colSize);
+    writer.putInt((dungeon.isWrapping() ? WRAPPING_FLAG : 0) | (player != null ? PLAYER_FLAG : 0));
+    writer.putInt(dungeon.getInterconnectivity());
+    writer.putInt(dungeon.getTreasurePercent());
+    writer.putInt(dungeon.getDifficulty());
+    writer.putInt(grid.getNumberOfCaves());
+    writer.putInt(grid.getNumberOfTunnels());
+    writer.putInt(idOf(dungeon.getStart(), colSize));
+    writer.putInt(idOf(dungeon.getEnd(), colSize));
+    writer.putInt(monsters.size());
+
+    if (grid instanceof PackedGrid) {
+      writePackedGrid((PackedGrid) grid, writer);
+    } else {
+      writeLocations(grid, writer);
+    }
+
+    for (Monster monster : monsters) {
+      writer.putInt(idOf(monster.getLocation(), colSize));
+    }
+    if (player != null) {
+      final List<Treasure> treasures = player.getTreasures();
+      writer.putInt(player.getPlayerId());
+      writer.putInt(idOf(player.getCurrLocation(), colSize));
+      writer.putInt(player.getNumberOfArrows());
+      writer.putInt(treasures.size());
+      for (Treasure treasure : treasures) {
+        writer.putByte(treasure.ordinal());
+      }
+      final ExplorationMap explorationMap = player.getExplorationMap();
+      final byte[] map = explorationMap == null ? new byte[0] : explorationMap.toByteArray();
+      writer.putInt(map.length);
+      writer.putBytes(map);
+    }
+    writer.flush();
+  }
+
+  private static void writePackedGrid(PackedGrid grid, Writer writer) throws IOException {
+    final int numLocations = grid.getRowSize() * grid.getColSize();
+    final int numberOfCaves = grid.getNumberOfCaves();
+    for (int id = 0; id < numLocations; id++) {
+      writer.putByte(grid.getWallBits(id));
+    }
+    for (int id = 0; id < numLocations; id++) {
+      writer.putShort(grid.getSmellLevel(id));
+    }
+    for (int id = 0; id < numLocations; id++) {
+      writer.putShort(grid.getArrows(id));
+    }
+    for (int i = 0; i < numberOfCaves; i++) {
+      writer.putInt(grid.getCaveId(i));
+    }
+    for (int i = 0; i < numberOfCaves; i++) {
+      for (Treasure treasure : TREASURES) {
+        writer.putShort(grid.getTreasureCount(i, treasure));
+      }
+    }
+    for (int i = 0; i < numberOfCaves; i++) {
+      writer.putByte(grid.getMonsterHealth(i));
+    }
+  }
+
+  private static void writeLocations(DungeonGrid grid, Writer writer) throws IOException {
+    final AbstractLocation[][] locations = grid.getLocations();
+    for (AbstractLocation[] row : locations) {
+      for (AbstractLocation location : row) {
+        writer.putByte(location.getWallBits());
+      }
+    }
+    for (AbstractLocation[] row : locations) {
+      for (AbstractLocation location : row) {
+        writer.putShort(location.getSmellLevel());
+      }
+    }
+    for (AbstractLocation[] row : locations) {
+      for (AbstractLocation location : row) {
+        writer.putShort(location.getNumOfArrowsPresent());
+      }
+    }
+    final List<Cave> caves = grid.getCaves();
+    for (Cave cave : caves) {
+      writer.putInt(idOf(cave, grid.getColSize()));
+    }
+    for (Cave cave : caves) {
+      for (Treasure treasure : TREASURES) {
+        writer.putShort(cave.getTreasureCount(treasure));
+      }
+    }
+    for (Cave cave : caves) {
+      writer.putByte(cave.getMonster() == null ? PackedGrid.NO_MONSTER
+              : cave.getMonster().getHealth());
+    }
+  }
+
+  /**
+   * to read a dungeon from a snapshot in a channel.
+   *
+   * @param channel the channel to read from, left open.
+   * @param rand    the random generator used by the loaded dungeon.
+   * @return the dungeon.
+   * @throws IOException if the channel cannot be read or does not hold a snapshot.
+   */
+  public static Dungeon read(ReadableByteChannel channel, Random rand) throws IOException {
+    if (channel == null || rand == null) {
+      throw new IllegalArgumentException("invalid arguments to read a snapshot");
+    }
+    final ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+    readFully(channel, header);
+    final int magic = header.getInt();
+    final int version = header.getInt();
+    if (magic != MAGIC || version < 1 || version > VERSION) {
+      throw new IOException("not a dungeon snapshot of version " + VERSION);
+    }
+    final int rowSize = header.getInt();
+    final int colSize = header.getInt();
+    final int flags = header.getInt();
+    final int interconnectivity = header.getInt();
+    final int treasurePercent = header.getInt();
+    final int difficulty = header.getInt();
+    final int numberOfCaves = header.getInt();
+    final int numberOfTunnels = header.getInt();
+    final int startId = header.getInt();
+    final int endId = header.getInt();
+    final int numberOfMonsters = header.getInt();
+    if (rowSize < 1 || colSize < 1 || (long) rowSize * colSize > Integer.MAX_VALUE
+            || numberOfCaves < 0 || numberOfCaves > rowSize * colSize
+            || numberOfMonsters < 0 || numberOfMonsters > numberOfCaves) {
+      throw new IOException("corrupted dungeon snapshot header");
+    }
+
+    final int numLocations = rowSize * colSize;
+    final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    final byte[] wallBits = new byte[numLocations];
+    readFully(channel, ByteBuffer.wrap(wallBits));
+    final short[] smellLevels = readShorts(channel, buffer, numLocations);
+    final short[] arrows = readShorts(channel, buffer, numLocations);
+    final int[] caveIds = readInts(channel, buffer, numberOfCaves);
+    final short[] treasures = readShorts(channel, buffer, numberOfCaves * TREASURES.length);
+    final byte[] monsterHealth = new byte[numberOfCaves];
+    readFully(channel, ByteBuffer.wrap(monsterHealth));
+    final int[] monsterIds = readInts(channel, buffer, numberOfMonsters);
+
+    final CompactGrid grid;
+    try {
+      grid = new CompactGrid(wallBits, smellLevels, arrows, caveIds, treasures, monsterHealth,
+              rowSize, colSize);
+    } catch (IllegalArgumentException e) {
+      throw new IOException("corrupted dungeon snapshot: " + e.getMessage());
+    }
+    if (grid.getNumberOfTunnels() != numberOfTunnels) {
+      throw new IOException("corrupted dungeon snapshot: tunnels do not match the wall bits");
+    }
+
+    final Player player = (flags & PLAYER_FLAG) != 0 ? readPlayer(channel, grid, version)
+            : null;
+    final Dungeon dungeon = new Dungeon(grid, interconnectivity, (flags & WRAPPING_FLAG) != 0,
+            treasurePercent, difficulty, rand);
+    try {
+      dungeon.restore(startId, endId, monsterIds, player);
+    } catch (IllegalStateException | ArrayIndexOutOfBoundsException e) {
+      throw new IOException("corrupted dungeon snapshot: " + e.getMessage());
+    }
+    return dungeon;
+  }
+
+  private static Player readPlayer(ReadableByteChannel channel, DungeonGrid grid, int version)
+          throws IOException {
+    final ByteBuffer state = ByteBuffer.allocate(16);
+    readFully(channel, state);
+    final int playerId = state.getInt();
+    final int locationId = state.getInt();
+    final int numberOfArrows = state.getInt();
+    final int numberOfTreasures = state.getInt();
+    final int colSize = grid.getColSize();
+    if (locationId < 0 || locationId >= grid.getRowSize() * colSize || numberOfTreasures < 0) {
+      throw new IOException("corrupted dungeon snapshot player");
+    }
+    final byte[] ordinals = new byte[numberOfTreasures];
+    readFully(channel, ByteBuffer.wrap(ordinals));
+    final List<Treasure> treasures = new ArrayList<>(numberOfTreasures);
+    for (byte ordinal : ordinals) {
+      if (ordinal < 0 || ordinal >= TREASURES.length) {
+        throw new IOException("corrupted dungeon snapshot player");
+      }
+      treasures.add(TREASURES[ordinal]);
+    }
+    final Player player;
+    try {
+      player = new Player(playerId, numberOfArrows, treasures);
+    } catch (IllegalArgumentException e) {
+      throw new IOException("corrupted dungeon snapshot player");
+    }
+    player.setCurrLocation(grid.getLocation(locationId / colSize, locationId % colSize));
+    if (version > 1) {
+      player.setExplorationMap(readExplorationMap(channel, grid));
+    }
+    return player;
+  }
+
+  private static ExplorationMap readExplorationMap(ReadableByteChannel channel, DungeonGrid grid)
+          throws IOException {
+    final ByteBuffer length = ByteBuffer.allocate(Integer.BYTES);
+    readFully(channel, length);
+    final int size = length.getInt();
+    final long words = ((long) grid.getRowSize() * grid.getColSize() + 63) >>> 6;
+    if (size < 0 || size > 8 + 2 * (1 + 8 * words)) {
+      throw new IOException("corrupted dungeon snapshot exploration map");
+    }
+    if (size == 0) {
+      return null;
+    }
+    final byte[] bytes = new byte[size];
+    readFully(channel, ByteBuffer.wrap(bytes));
+    final ExplorationMap explorationMap;
+    try {
+      explorationMap = ExplorationMap.fromByteArray(bytes);
+    } catch (IllegalArgumentException e) {
+      throw new IOException("corrupted dungeon snapshot exploration map: " + e.getMessage());
+    }
+    if (explorationMap.getRowSize() != grid.getRowSize()
+            || explorationMap.getColSize() != grid.getColSize()) {
+      throw new IOException("corrupted dungeon snapshot: exploration map of another size");
+    }
+    return explorationMap;
+  }
+
+  private static short[] readShorts(ReadableByteChannel channel, ByteBuffer buffer, int count)
+          throws IOException {
+    final short[] values = new short[count];
+    int read = 0;
+    while (read < count) {
+      final int chunk = Math.min(count - read, buffer.capacity() / Short.BYTES);
+      buffer.clear().limit(chunk * Short.BYTES);
+      readFully(channel, buffer);
+      buffer.asShortBuffer().get(values, read, chunk);
+      read += chunk;
+    }
+    return values;
+  }
+
+  private static int[] readInts(ReadableByteChannel channel, ByteBuffer buffer, int count)
+          throws IOException {
+    final int[] values = new int[count];
+    int read = 0;
+    while (read < count) {
+      final int chunk = Math.min(count - read, buffer.capacity() / Integer.BYTES);
+      buffer.clear().limit(chunk * Integer.BYTES);
+      readFully(channel, buffer);
+      buffer.asIntBuffer().get(values, read, chunk);
+      read += chunk;
+    }
+    return values;
+  }
+
+  private static void readFully(ReadableByteChannel channel, ByteBuffer buffer)
+          throws IOException {
+    while (buffer.hasRemaining()) {
+      if (channel.read(buffer) < 0) {
+        throw new EOFException("dungeon snapshot ended early");
+      }
+    }
+    buffer.flip();
+  }
+
+  private static int idOf(Location location, int colSize) {
+    return location == null ? -1 : location.getRowDim() * colSize + location.getColDim();
+  }
+
+  /**
+   * a writer filling a direct buffer and draining it to the channel when full.
+   */
+  private static final class Writer {
+    private final WritableByteChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+    private Writer(WritableByteChannel channel) {
+      this.channel = channel;
+    }
+
+    private void putByte(int value) throws IOException {
+      ensure(Byte.BYTES);
+      buffer.put((byte) value);
+    }
+
+    private void putShort(int value) throws IOException {
+      if (value < Short.MIN_VALUE || value > Short.MAX_VALUE) {
+        throw new IllegalArgumentException("value " + value + " does not fit in a snapshot");
+      }
+      ensure(Short.BYTES);
+      buffer.putShort((short) value);
+    }
+
+    private void putInt(int value) throws IOException {
+      ensure(Integer.BYTES);
+      buffer.putInt(value);
+    }
+
+    private void putBytes(byte[] values) throws IOException {
+      int written = 0;
+      while (written < values.length) {
+        ensure(1);
+        final int chunk = Math.min(values.length - written, buffer.remaining());
+        buffer.put(values, written, chunk);
+        written += chunk;
+      }
+    }
+
+    private void ensure(int bytes) throws IOException {
+      if (buffer.remaining() < bytes) {
+        flush();
+      }
+    }
+
+    private void flush() throws IOException {
+      buffer.flip();
+      while (buffer.hasRemaining()) {
+        channel.write(buffer);
+      }
+      buffer.clear();
+    }
+  }
+}
@@ -0,0 +1,227 @@
+package dungeon;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * A generator for non-wrapping dungeons with Eller's algorithm. Only the set of every location
+ * in the current row is kept, so the memory does not grow with the number of rows and each row
+ * is handed to a {@link DungeonRowSink} as soon as it is finished.
+ *
+ * <p>The interconnectivity is spread over the rows by knocking down walls between locations of
+ * a row that are already connected. Every row keeps the rows below it able to take what is left
+ * of it: when they could not, the row joins more of its sets, knocks down more of its walls or
+ * connects more of its locations down, so every interconnectivity the constructor accepts is
+ * reached, up to knocking down every wall of the dungeon.
+ */
+public class EllerDungeonGenerator {
+  private final int rowSize;
+  private final int colSize;
+  private final int interconnectivity;
+  private final Random rand;
+
+  /**
+   * to construct the generator.
+   *
+   * @param rowSize           the rows of the dungeon.
+   * @param colSize           the columns of the dungeon.
+   * @param interconnectivity interconnectivity of the dungeon.
+   * @param rand              random value.
+   * @throws IllegalArgumentException for invalid values.
+   */
+  public EllerDungeonGenerator(int rowSize, int colSize, int interconnectivity, Random rand)
+          throws IllegalArgumentException {
+    if (rowSize < 1 || colSize < 1 || interconnectivity < 0 || rand == null) {
+      throw new IllegalArgumentException("invalid arguments to generate a dungeon");
+    }
+    final long leftOverWalls = (2L * rowSize * colSize - rowSize - colSize)
+            - ((long) rowSize * colSize - 1);
+    if (interconnectivity > leftOverWalls) {
+      throw new IllegalArgumentException("interconnectivity is exceeding the maximum");
+    }
+    this.rowSize = rowSize;
+    this.colSize = colSize;
+    this.interconnectivity = interconnectivity;
+    this.rand = rand;
+  }
+
+  /**
+   * to generate every row of the dungeon, top to bottom.
+   *
+   * @param sink the sink receiving the rows.
+   * @throws IOException if a row cannot be written.
+   */
+  public void generate(DungeonRowSink sink) throws IOException {
+    if (sink == null) {
+      throw new IllegalArgumentException("sink cannot be null");
+    }
+    final byte[] row = new byte[colSize];
+    // set of every location, -1 for a location that is not connected to the row above
+    final int[] sets = new int[colSize];
+    final boolean[] setInUse = new boolean[colSize];
+    final int[] setMembers = new int[colSize];
+    final boolean[] setHasDown = new boolean[colSize];
+    final int[] candidates = new int[colSize];
+    Arrays.fill(sets, -1);
+    int remaining = interconnectivity;
+
+    for (int r = 0; r < rowSize; r++) {
+      final boolean isLastRow = r == rowSize - 1;
+      for (int c = 0; c < colSize; c++) {
+        row[c] = (byte) (sets[c] < 0 ? WallBits.ALL : WallBits.ALL & ~WallBits.UP);
+      }
+      assignNewSets(sets, setInUse);
+
+      // join neighbors of different sets, every neighbor on the last row
+      for (int c = 0; c < colSize - 1; c++) {
+        if (sets[c] != sets[c + 1] && (isLastRow || rand.nextBoolean())) {
+          joinRight(row, sets, c);
+        }
+      }
+      // join more neighbors while this row and the rows below could not take the remaining
+      for (int c = 0; c < colSize - 1 && remaining > getCapacity(row, sets, setInUse, r); c++) {
+        if (sets[c] != sets[c + 1]) {
+          joinRight(row, sets, c);
+        }
+      }
+
+      final int numberOfSets = countSets(sets, setInUse);
+      remaining -= breakLoopWalls(row, sets, candidates, remaining,
+              getCapacityBelow(numberOfSets, r), rowSize - r - 1);
+      if (!isLastRow) {
+        // every location left without a passage down starts a set of its own in the next row
+        connectDown(row, sets, setMembers, setHasDown,
+                getCapacityBelow(numberOfSets, r) - remaining);
+      }
+      sink.acceptRow(r, row);
+    }
+  }
+
+  /**
+   * to get the most interconnectivity this row and the rows below can take, with the row joined
+   * as it is.
+   */
+  private long getCapacity(byte[] row, int[] sets, boolean[] setInUse, int r) {
+    return countLoopWalls(row, sets) + getCapacityBelow(countSets(sets, setInUse), r);
+  }
+
+  /**
+   * to get the most interconnectivity the rows below a row of the given number of sets can take,
+   * when every location of the row connects down and every row below joins all of its sets.
+   */
+  private long getCapacityBelow(int numberOfSets, int r) {
+    if (r == rowSize - 1) {
+      return 0;
+    }
+    return (colSize - numberOfSets) + (long) (rowSize - r - 2) * (colSize - 1);
+  }
+
+  private int countLoopWalls(byte[] row, int[] sets) {
+    int count = 0;
+    for (int c = 0; c < colSize - 1; c++) {
+      if (sets[c] == sets[c + 1] && (row[c] & WallBits.RIGHT) != 0) {
+        count++;
+      }
+    }
+    return count;
+  }
+
+  private int countSets(int[] sets, boolean[] setInUse) {
+    Arrays.fill(setInUse, false);
+    int count = 0;
+    for (int set : sets) {
+      if (!setInUse[set]) {
+        setInUse[set] = true;
+        count++;
+      }
+    }
+    return count;
+  }
+
+  private void joinRight(byte[] row, int[] sets, int c) {
+    breakRightWall(row, c);
+    final int oldSet = sets[c + 1];
+    for (int k = 0; k < colSize; k++) {
+      if (sets[k] == oldSet) {
+        sets[k] = sets[c];
+      }
+    }
+  }
+
+  private void assignNewSets(int[] sets, boolean[] setInUse) {
+    Arrays.fill(setInUse, false);
+    for (int set : sets) {
+      if (set >= 0) {
+        setInUse[set] = true;
+      }
+    }
+    int nextSet = 0;
+    for (int c = 0; c < colSize; c++) {
+      if (sets[c] < 0) {
+        while (setInUse[nextSet]) {
+          nextSet++;
+        }
+        sets[c] = nextSet;
+        setInUse[nextSet] = true;
+      }
+    }
+  }
+
+  private int breakLoopWalls(byte[] row, int[] sets, int[] candidates, int remaining,
+                             long capacityBelow, int rowsLeft) {
+    if (remaining == 0) {
+      return 0;
+    }
+    int numCandidates = 0;
+    for (int c = 0; c < colSize - 1; c++) {
+      if (sets[c] == sets[c + 1] && (row[c] & WallBits.RIGHT) != 0) {
+        candidates[numCandidates++] = c;
+      }
+    }
+    final int evenShare = (remaining + rowsLeft) / (rowsLeft + 1);
+    final long mustBreak = remaining - capacityBelow;
+    final int quota = (int) Math.min(numCandidates, Math.max(evenShare, mustBreak));
+    // partial Fisher-Yates shuffle picks the walls to knock down
+    for (int i = 0; i < quota; i++) {
+      final int j = i + rand.nextInt(numCandidates - i);
+      final int temp = candidates[i];
+      candidates[i] = candidates[j];
+      candidates[j] = temp;
+      breakRightWall(row, candidates[i]);
+    }
+    return quota;
+  }
+
+  /**
+   * to connect every set of the row down at least once, leaving at most the given number of
+   * locations without a passage down.
+   */
+  private void connectDown(byte[] row, int[] sets, int[] setMembers, boolean[] setHasDown,
+                           long unconnectedLeft) {
+    Arrays.fill(setMembers, 0);
+    Arrays.fill(setHasDown, false);
+    for (int set : sets) {
+      setMembers[set]++;
+    }
+    for (int c = 0; c < colSize; c++) {
+      final int set = sets[c];
+      setMembers[set]--;
+      // the last member of a set without a passage down is always connected
+      if (rand.nextBoolean() || (setMembers[set] == 0 && !setHasDown[set])
+              || unconnectedLeft == 0) {
+        row[c] &= ~WallBits.DOWN;
+        setHasDown[set] = true;
+      } else {
+        sets[c] = -1;
+        unconnectedLeft--;
+      }
+    }
+  }
+
+  private void breakRightWall(byte[] row, int col) {
+    row[col] &= ~WallBits.RIGHT;
+    row[col + 1] &= ~WallBits.LEFT;
+  }
+
+}
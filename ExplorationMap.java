@@ -0,0 +1,310 @@
+package dungeon;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+/**
+ * The locations of a dungeon a player has explored, as two bit sets indexed by the id of the
+ * location: the locations visited, and the locations seen, which are the locations visited and
+ * their neighbors. The seen locations not yet visited are the frontier of the exploration.
+ * Every update and query of a single location takes constant time, and the counts are kept as
+ * the bits are set, so the explored share of the dungeon is never counted again.
+ */
+public final class ExplorationMap {
+  private static final byte DENSE = 0;
+  private static final byte SPARSE = 1;
+
+  private final int rowSize;
+  private final int colSize;
+  private final int size;
+  private final long[] visited;
+  private final long[] seen;
+  private int visitedCount;
+  private int seenCount;
+
+  /**
+   * to construct the map of a dungeon with nothing explored.
+   *
+   * @param rowSize the rows of the dungeon.
+   * @param colSize the columns of the dungeon.
+   * @throws IllegalArgumentException for invalid sizes, or more locations than an int can number.
+   */
+  public ExplorationMap(int rowSize, int colSize) throws IllegalArgumentException {
+    if (rowSize < 1 || colSize < 1) {
+      throw new IllegalArgumentException("row and column size must be positive");
+    }
+    final long size = (long) rowSize * colSize;
+    if (size > Integer.MAX_VALUE) {
+      throw new IllegalArgumentException("dungeon has too many locations to be explored");
+    }
+    this.rowSize = rowSize;
+    this.colSize = colSize;
+    this.size = (int) size;
+    final int words = (int) ((size + 63) >>> 6);
+    this.visited = new long[words];
+    this.seen = new long[words];
+  }
+
+  /**
+   * to get the number of rows of the dungeon.
+   *
+   * @return the rows.
+   */
+  public int getRowSize() {
+    return rowSize;
+  }
+
+  /**
+   * to get the number of columns of the dungeon.
+   *
+   * @return the columns.
+   */
+  public int getColSize() {
+    return colSize;
+  }
+
+  /**
+   * to mark a location as visited, which also makes it seen.
+   *
+   * @param id the id of the location.
+   */
+  public void visit(int id) {
+    checkId(id);
+    final long bit = 1L << id;
+    if ((visited[id >>> 6] & bit) == 0) {
+      visited[id >>> 6] |= bit;
+      visitedCount++;
+    }
+    see(id);
+  }
+
+  /**
+   * to mark a location as seen.
+   *
+   * @param id the id of the location.
+   */
+  public void see(int id) {
+    checkId(id);
+    final long bit = 1L << id;
+    if ((seen[id >>> 6] & bit) == 0) {
+      seen[id >>> 6] |= bit;
+      seenCount++;
+    }
+  }
+
+  /**
+   * to check if the player has visited a location.
+   *
+   * @param row the row of the location.
+   * @param col the column of the location.
+   * @return true if the location was visited.
+   */
+  public boolean hasExplored(int row, int col) {
+    return (visited[idOf(row, col) >>> 6] & 1L << idOf(row, col)) != 0;
+  }
+
+  /**
+   * to check if the player has seen a location, from the location or a neighbor of it.
+   *
+   * @param row the row of the location.
+   * @param col the column of the location.
+   * @return true if the location was seen.
+   */
+  public boolean hasSeen(int row, int col) {
+    return (seen[idOf(row, col) >>> 6] & 1L << idOf(row, col)) != 0;
+  }
+
+  /**
+   * to get the number of locations visited.
+   *
+   * @return the number of locations.
+   */
+  public int getVisitedCount() {
+    return visitedCount;
+  }
+
+  /**
+   * to get the number of locations seen, the visited ones included.
+   *
+   * @return the number of locations.
+   */
+  public int getSeenCount() {
+    return seenCount;
+  }
+
+  /**
+   * to get the number of locations seen but not visited.
+   *
+   * @return the number of locations of the frontier.
+   */
+  public int getFrontierCount() {
+    return seenCount - visitedCount;
+  }
+
+  /**
+   * to get the share of the locations of the dungeon visited.
+   *
+   * @return the percentage, from 0 to 100.
+   */
+  public double getExploredPercentage() {
+    return 100.0 * visitedCount / size;
+  }
+
+  /**
+   * to iterate over the ids of the locations seen but not visited, in the order of their ids.
+   * Whole words of the bit sets are skipped at a time.
+   *
+   * @return the iterator of the frontier.
+   */
+  public PrimitiveIterator.OfInt frontierIterator() {
+    return new PrimitiveIterator.OfInt() {
+      private int wordIndex = -1;
+      private long word;
+
+      {
+        advance();
+      }
+
+      private void advance() {
+        while (word == 0 && ++wordIndex < seen.length) {
+          word = seen[wordIndex] & ~visited[wordIndex];
+        }
+      }
+
+      @Override
+      public boolean hasNext() {
+        return word != 0;
+      }
+
+      @Override
+      public int nextInt() {
+        if (word == 0) {
+          throw new NoSuchElementException("No more frontier locations");
+        }
+        final int id = (wordIndex << 6) + Long.numberOfTrailingZeros(word);
+        word &= word - 1;
+        advance();
+        return id;
+      }
+    };
+  }
+
+  /**
+   * to write the map as bytes: the size of the dungeon and then each bit set, as all of its
+   * words or as only its non-zero words with their index, whichever is shorter.
+   *
+   * @return the bytes of the map.
+   */
+  public byte[] toByteArray() {
+    final ByteBuffer buffer = ByteBuffer.allocate(8 + encodedSize(visited) + encodedSize(seen));
+    buffer.putInt(rowSize).putInt(colSize);
+    encode(visited, buffer);
+    encode(seen, buffer);
+    return buffer.array();
+  }
+
+  /**
+   * to read a map written by {@link #toByteArray()}.
+   *
+   * @param bytes the bytes of the map.
+   * @return the map.
+   * @throws IllegalArgumentException if the bytes are not a valid map.
+   */
+  public static ExplorationMap fromByteArray(byte[] bytes) throws IllegalArgumentException {
+    if (bytes == null) {
+      throw new IllegalArgumentException("Bytes cannot be null");
+    }
+    final ByteBuffer buffer = ByteBuffer.wrap(bytes);
+    try {
+      final ExplorationMap map = new ExplorationMap(buffer.getInt(), buffer.getInt());
+      decode(buffer, map.visited);
+      decode(buffer, map.seen);
+      if (buffer.hasRemaining()) {
+        throw new IllegalArgumentException("Unexpected bytes after the exploration map");
+      }
+      for (int i = 0; i < map.seen.length; i++) {
+        if ((map.visited[i] & ~map.seen[i]) != 0) {
+          throw new IllegalArgumentException("Visited locations must have been seen");
+        }
+        map.visitedCount += Long.bitCount(map.visited[i]);
+        map.seenCount += Long.bitCount(map.seen[i]);
+      }
+      if ((map.size & 63) != 0 && map.seen[map.seen.length - 1] >>> (map.size & 63) != 0) {
+        throw new IllegalArgumentException("Locations outside the dungeon cannot be seen");
+      }
+      return map;
+    } catch (BufferUnderflowException e) {
+      throw new IllegalArgumentException("Exploration map is truncated");
+    }
+  }
+
+  private static int encodedSize(long[] bits) {
+    int nonZero = 0;
+    for (long word : bits) {
+      if (word != 0) {
+        nonZero++;
+      }
+    }
+    return 1 + Math.min(8 * bits.length, 4 + 12 * nonZero);
+  }
+
+  private static void encode(long[] bits, ByteBuffer buffer) {
+    int nonZero = 0;
+    for (long word : bits) {
+      if (word != 0) {
+        nonZero++;
+      }
+    }
+    if (8 * bits.length <= 4 + 12 * nonZero) {
+      buffer.put(DENSE);
+      for (long word : bits) {
+        buffer.putLong(word);
+      }
+    } else {
+      buffer.put(SPARSE).putInt(nonZero);
+      for (int i = 0; i < bits.length; i++) {
+        if (bits[i] != 0) {
+          buffer.putInt(i).putLong(bits[i]);
+        }
+      }
+    }
+  }
+
+  private static void decode(ByteBuffer buffer, long[] bits) {
+    final byte encoding = buffer.get();
+    if (encoding == DENSE) {
+      for (int i = 0; i < bits.length; i++) {
+        bits[i] = buffer.getLong();
+      }
+    } else if (encoding == SPARSE) {
+      final int nonZero = buffer.getInt();
+      if (nonZero < 0 || nonZero > bits.length) {
+        throw new IllegalArgumentException("Invalid number of words in the exploration map");
+      }
+      for (int i = 0; i < nonZero; i++) {
+        final int index = buffer.getInt();
+        if (index < 0 || index >= bits.length) {
+          throw new IllegalArgumentException("Invalid word index in the exploration map");
+        }
+        bits[index] = buffer.getLong();
+      }
+    } else {
+      throw new IllegalArgumentException("Unknown encoding of the exploration map");
+    }
+  }
+
+  private int idOf(int row, int col) {
+    if (row < 0 || row >= rowSize || col < 0 || col >= colSize) {
+      throw new IllegalArgumentException("Location must be in the dungeon");
+    }
+    return row * colSize + col;
+  }
+
+  private void checkId(int id) {
+    if (id < 0 || id >= size) {
+      throw new IllegalArgumentException("Location must be in the dungeon");
+    }
+  }
+}
@@ -0,0 +1,180 @@
+package dungeon;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * A reader of lines, over a {@link Reader} or over bytes already in memory, such as a file
+ * mapped with a channel. Lines end with "\n", "\r" or "\r\n", and the last line may end without
+ * a line separator, as with {@link java.util.Scanner#nextLine()}. Bytes are read as UTF-8.
+ *
+ * <p>The lines of a replayed game are mostly a single letter or digit, so a line of one ASCII
+ * character is returned from a table of constant strings, and no line needs more than a copy of
+ * its characters.
+ */
+public final class FastLineReader {
+  private static final int BUFFER_SIZE = 8192;
+  private static final String[] ASCII = new String[128];
+
+  static {
+    for (int i = 0; i < ASCII.length; i++) {
+      ASCII[i] = String.valueOf((char) i);
+    }
+  }
+
+  private final Reader reader;
+  private final ByteBuffer bytes;
+  private char[] chars;
+  private byte[] lineBytes;
+  private int position;
+  private int limit;
+  private boolean isEnd;
+  private long lineCount;
+
+  /**
+   * to construct a reader of the lines of a reader.
+   *
+   * @param reader the reader, read in blocks.
+   */
+  public FastLineReader(Reader reader) {
+    if (reader == null) {
+      throw new IllegalArgumentException("Reader can't be null");
+    }
+    this.reader = reader;
+    this.bytes = null;
+    this.chars = new char[BUFFER_SIZE];
+  }
+
+  /**
+   * to construct a reader of the lines of bytes, from their position to their limit. The
+   * position of the bytes moves past every line read.
+   *
+   * @param bytes the bytes.
+   */
+  public FastLineReader(ByteBuffer bytes) {
+    if (bytes == null) {
+      throw new IllegalArgumentException("Bytes can't be null");
+    }
+    this.reader = null;
+    this.bytes = bytes;
+    this.lineBytes = new byte[64];
+  }
+
+  /**
+   * to read the next line.
+   *
+   * @return the line without its line separator, null at the end of the input.
+   * @throws IOException if the reader fails.
+   */
+  public String readLine() throws IOException {
+    final String line = reader == null ? readByteLine() : readCharLine();
+    if (line != null) {
+      lineCount++;
+    }
+    return line;
+  }
+
+  /**
+   * to get the number of lines read.
+   *
+   * @return the number of lines.
+   */
+  public long getLineCount() {
+    return lineCount;
+  }
+
+  private String readCharLine() throws IOException {
+    int scan = position;
+    while (true) {
+      for (; scan < limit; scan++) {
+        final char c = chars[scan];
+        if (c != '\n' && c != '\r') {
+          continue;
+        }
+        if (c == '\r' && scan + 1 == limit && !isEnd) {
+          // a "\n" may follow in the next block
+          break;
+        }
+        final String line = toLine(position, scan);
+        position = scan + 1;
+        if (c == '\r' && position < limit && chars[position] == '\n') {
+          position++;
+        }
+        return line;
+      }
+      if (isEnd) {
+        if (position == limit) {
+          return null;
+        }
+        final String line = toLine(position, limit);
+        position = limit;
+        return line;
+      }
+      // keep the start of the line and read the next block after it
+      System.arraycopy(chars, position, chars, 0, limit - position);
+      scan -= position;
+      limit -= position;
+      position = 0;
+      if (limit == chars.length) {
+        chars = Arrays.copyOf(chars, chars.length * 2);
+      }
+      final int count = reader.read(chars, limit, chars.length - limit);
+      if (count < 0) {
+        isEnd = true;
+      } else {
+        limit += count;
+      }
+    }
+  }
+
+  private String toLine(int start, int end) {
+    if (end - start == 1 && chars[start] < ASCII.length) {
+      return ASCII[chars[start]];
+    }
+    return new String(chars, start, end - start);
+  }
+
+  private String readByteLine() {
+    final int start = bytes.position();
+    final int end = bytes.limit();
+    if (start == end) {
+      return null;
+    }
+    boolean isAscii = true;
+    int scan = start;
+    while (scan < end) {
+      final byte b = bytes.get(scan);
+      if (b == '\n' || b == '\r') {
+        break;
+      }
+      isAscii &= b >= 0;
+      scan++;
+    }
+    final int length = scan - start;
+    final String line;
+    if (length == 1 && isAscii) {
+      line = ASCII[bytes.get(start)];
+    } else {
+      if (length > lineBytes.length) {
+        lineBytes = new byte[Math.max(length, lineBytes.length * 2)];
+      }
+      bytes.get(lineBytes, 0, length);
+      line = new String(lineBytes, 0, length,
+          isAscii ? StandardCharsets.ISO_8859_1 : StandardCharsets.UTF_8);
+    }
+    int next = scan;
+    if (next < end && bytes.get(next) == '\r') {
+      next++;
+      if (next < end && bytes.get(next) == '\n') {
+        next++;
+      }
+    } else if (next < end) {
+      next++;
+    }
+    bytes.position(next);
+    return line;
+  }
+}
@@ -0,0 +1,458 @@
+package dungeon;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32;
+
+/**
+ * An append-only journal of games, many games to a file. Every game starts with its
+ * {@link GameSetup}, followed by the moves, pick ups and shots of its player with their
+ * outcomes, the monsters slain, snapshots of the whole game and its end, so the games can be
+ * rebuilt by {@link GameJournalReplayer} after a crash.
+ *
+ * <p>The file starts with {@link #MAGIC} and {@link #VERSION}, followed by the records. A record
+ * is the length of its body, the body, which is the type of the record, the id of the game and
+ * the values of the record, and the CRC32 of the body. Values are big endian, and a snapshot is
+ * a {@link DungeonSnapshot}. A record torn by a crash fails its check and ends the journal; it is
+ * cut off when the journal is opened again.
+ *
+ * <p>Records are added to a buffer in memory, which is cheap and never waits for the disk. A
+ * flusher thread writes the records gathered over the flush interval with one write and one
+ * force of the channel, a group commit shared by every game of the journal. A game needing its
+ * records on disk waits for them with {@link #awaitCommit(long)}, which starts the next commit
+ * at once.
+ */
+public final class GameJournal implements Closeable {
+  /**
+   * the first int of every journal.
+   */
+  public static final int MAGIC = 0x44474A4C;
+
+  /**
+   * the version of the journal format.
+   */
+  public static final int VERSION = 1;
+
+  static final int HEADER_SIZE = 8;
+  static final int GENESIS = 1;
+  static final int MOVE = 2;
+  static final int PICKUP = 3;
+  static final int SHOOT = 4;
+  static final int SLAY = 5;
+  static final int SNAPSHOT = 6;
+  static final int END = 7;
+  static final String[] PICKUP_OBJECTS = {"arrow", "diamond", "ruby", "sapphire"};
+
+  private static final int RECORD_OVERHEAD = 4 + 1 + 4 + 4;
+  private static final int BUFFER_SIZE = 1 << 16;
+
+  private final FileChannel channel;
+  private final long flushIntervalNanos;
+  private final int snapshotInterval;
+  private final ReentrantLock lock;
+  private final Condition flushWanted;
+  private final Condition flushed;
+  private final CRC32 crc;
+  private final Thread flusher;
+  private ByteBuffer pending;
+  private ByteBuffer writing;
+  private int recordStart;
+  private long appendedPosition;
+  private long durablePosition;
+  private boolean isFlushRequested;
+  private boolean isClosing;
+  private IOException failure;
+
+  /**
+   * to open a journal, creating it if it does not exist, and start its flusher.
+   *
+   * @param file                the file of the journal.
+   * @param flushIntervalMillis the most time a record waits in memory before its group commit.
+   * @param snapshotInterval    the number of records of a game between its snapshots, 0 for no
+   *                            snapshots.
+   * @throws IOException if the file cannot be opened or is not a journal.
+   */
+  public GameJournal(Path file, long flushIntervalMillis, int snapshotInterval)
+      throws IOException {
+    if (file == null || flushIntervalMillis < 0 || snapshotInterval < 0) {
+      throw new IllegalArgumentException("Invalid file, flush interval or snapshot interval");
+    }
+    this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalMillis);
+    this.snapshotInterval = snapshotInterval;
+    this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+        StandardOpenOption.WRITE);
+    try {
+      if (channel.size() == 0) {
+        final ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(MAGIC).putInt(VERSION).flip();
+        while (header.hasRemaining()) {
+          channel.write(header);
+        }
+        channel.force(true);
+      }
+      // a record torn by a crash is cut off, so new records follow the last whole one
+      final long end = GameJournalReplayer.scan(channel).getEnd();
+      if (end < channel.size()) {
+        channel.truncate(end);
+      }
+      channel.position(end);
+      this.appendedPosition = end;
+      this.durablePosition = end;
+    } catch (IOException | RuntimeException e) {
+      channel.close();
+      throw e;
+    }
+    this.lock = new ReentrantLock();
+    this.flushWanted = lock.newCondition();
+    this.flushed = lock.newCondition();
+    this.crc = new CRC32();
+    this.pending = ByteBuffer.allocate(BUFFER_SIZE);
+    this.writing = ByteBuffer.allocate(BUFFER_SIZE);
+    this.flusher = new Thread(this::flushLoop, "game-journal-flusher");
+    this.flusher.setDaemon(true);
+    this.flusher.start();
+  }
+
+  /**
+   * to get the number of records of a game between its snapshots.
+   *
+   * @return the number of records, 0 for no snapshots.
+   */
+  public int getSnapshotInterval() {
+    return snapshotInterval;
+  }
+
+  /**
+   * to record the start of a game.
+   *
+   * @param gameId the id of the game, unique in the journal.
+   * @param setup  the setup the game is generated from.
+   * @return the position of the journal after the record.
+   * @throws IOException if the journal has failed to write.
+   */
+  public long recordGenesis(int gameId, GameSetup setup) throws IOException {
+    lock.lock();
+    try {
+      final ByteBuffer out = begin(GENESIS, gameId, 8 + 4 * 6 + 3);
+      out.putLong(setup.getSeed());
+      out.putInt(setup.getRows());
+      out.putInt(setup.getCols());
+      out.putInt(setup.getInterconnectivity());
+      out.put((byte) (setup.isWrapping() ? 1 : 0));
+      out.putInt(setup.getTreasurePercent());
+      out.putInt(setup.getDifficulty());
+      out.put((byte) setup.getMode().ordinal());
+      out.put((byte) setup.getStorage().ordinal());
+      out.putInt(setup.getPlayerId());
+      return end();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * to record a move of the player of a game.
+   *
+   * @param gameId    the id of the game.
+   * @param direction the direction of the move.
+   * @return the position of the journal after the record.
+   * @throws IOException if the journal has failed to write.
+   */
+  public long recordMove(int gameId, Direction direction) throws IOException {
+    lock.lock();
+    try {
+      begin(MOVE, gameId, 1).put((byte) direction.ordinal());
+      return end();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * to record a pick up of the player of a game.
+   *
+   * @param gameId          the id of the game.
+   * @param objectShortCode the object picked up, such as arrow or ruby.
+   * @return the position of the journal after the record.
+   * @throws IOException if the journal has failed to write.
+   */
+  public long recordPickup(int gameId, String objectShortCode) throws IOException {
+    int code = PICKUP_OBJECTS.length - 1;
+    while (code >= 0 && !PICKUP_OBJECTS[code].equals(objectShortCode)) {
+      code--;
+    }
+    if (code < 0) {
+      throw new IllegalArgumentException("Invalid pickUp Object.");
+    }
+    lock.lock();
+    try {
+      begin(PICKUP, gameId, 1).put((byte) code);
+      return end();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * to record a shot of the player of a game.
+   *
+   * @param gameId    the id of the game.
+   * @param direction the direction of the shot.
+   * @param distance  the number of caves the arrow flies.
+   * @param isHit     true if the arrow hit a monster.
+   * @return the position of the journal after the record.
+   * @throws IOException if the journal has failed to write.
+   */
+  public long recordShoot(int gameId, Direction direction, int distance, boolean isHit)
+      throws IOException {
+    lock.lock();
+    try {
+      final ByteBuffer out = begin(SHOOT, gameId, 3);
+      out.put((byte) direction.ordinal());
+      out.put((byte) distance);
+      out.put((byte) (isHit ? 1 : 0));
+      return end();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * to record a monster slain in a game.
+   *
+   * @param gameId     the id of the game.
+   * @param locationId the id of the cave of the monster.
+   * @return the position of the journal after the record.
+   * @throws IOException if the journal has failed to write.
+   */
+  public long recordSlay(int gameId, int locationId) throws IOException {
+    lock.lock();
+    try {
+      begin(SLAY, gameId, 4).putInt(locationId);
+      return end();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * to record a snapshot of a game, from which it is rebuilt without replaying the records
+   * before it. The dungeon is read by the calling thread, which must be the one playing it.
+   *
+   * @param gameId  the id of the game.
+   * @param dungeon the dungeon with its player.
+   * @return the position of the journal after the record.
+   * @throws IOException if the journal has failed to write.
+   */
+  public long recordSnapshot(int gameId, Dungeon dungeon) throws IOException {
+    final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    DungeonSnapshot.write(dungeon, Channels.newChannel(bytes));
+    lock.lock();
+    try {
+      begin(SNAPSHOT, gameId, bytes.size()).put(bytes.toByteArray());
+      return end();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * to record the end of a game, whose records are not needed any more.
+   *
+   * @param gameId the id of the game.
+   * @return the position of the journal after the record.
+   * @throws IOException if the journal has failed to write.
+   */
+  public long recordEnd(int gameId) throws IOException {
+    lock.lock();
+    try {
+      begin(END, gameId, 0);
+      return end();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * to wait for the records up to a position to be on disk.
+   *
+   * @param position the position returned for the last record waited for.
+   * @throws IOException if the journal has failed to write, or the wait is interrupted.
+   */
+  public void awaitCommit(long position) throws IOException {
+    lock.lock();
+    try {
+      while (durablePosition < position) {
+        if (failure != null) {
+          throw new IOException("Journal failed to write", failure);
+        } else if (isClosing && !flusher.isAlive()) {
+          throw new IllegalStateException("Journal is closed");
+        }
+        isFlushRequested = true;
+        flushWanted.signal();
+        try {
+          flushed.await();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          throw new InterruptedIOException("Interrupted waiting for the journal");
+        }
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * to get the position of the journal up to which the records are on disk.
+   *
+   * @return the position.
+   */
+  public long getDurablePosition() {
+    lock.lock();
+    try {
+      return durablePosition;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * to write the records left, stop the flusher and close the file.
+   *
+   * @throws IOException if the journal has failed to write.
+   */
+  @Override
+  public void close() throws IOException {
+    lock.lock();
+    try {
+      isClosing = true;
+      flushWanted.signal();
+    } finally {
+      lock.unlock();
+    }
+    boolean isInterrupted = false;
+    while (flusher.isAlive()) {
+      try {
+        flusher.join();
+      } catch (InterruptedException e) {
+        isInterrupted = true;
+      }
+    }
+    channel.close();
+    if (isInterrupted) {
+      Thread.currentThread().interrupt();
+    }
+    if (failure != null) {
+      throw new IOException("Journal failed to write", failure);
+    }
+  }
+
+  /**
+   * to start a record in the buffer, holding the lock.
+   *
+   * @return the buffer, to put the values of the record in.
+   */
+  private ByteBuffer begin(int type, int gameId, int size) throws IOException {
+    if (failure != null) {
+      throw new IOException("Journal failed to write", failure);
+    } else if (isClosing) {
+      throw new IllegalStateException("Journal is closed");
+    }
+    final int recordSize = RECORD_OVERHEAD + size;
+    if (pending.remaining() < recordSize) {
+      final ByteBuffer larger = ByteBuffer.allocate(
+          Math.max(pending.capacity() * 2, pending.position() + recordSize));
+      pending.flip();
+      larger.put(pending);
+      pending = larger;
+    }
+    recordStart = pending.position();
+    pending.putInt(1 + 4 + size);
+    pending.put((byte) type);
+    pending.putInt(gameId);
+    return pending;
+  }
+
+  /**
+   * to end the record started last with the check of its body, holding the lock.
+   *
+   * @return the position of the journal after the record.
+   */
+  private long end() {
+    final int bodyStart = recordStart + 4;
+    crc.reset();
+    crc.update(pending.array(), bodyStart, pending.position() - bodyStart);
+    pending.putInt((int) crc.getValue());
+    appendedPosition += pending.position() - recordStart;
+    if (recordStart == 0) {
+      // the first record since the last commit starts the interval of the next one
+      flushWanted.signal();
+    }
+    return appendedPosition;
+  }
+
+  private void flushLoop() {
+    while (true) {
+      final long target;
+      lock.lock();
+      try {
+        while (pending.position() == 0 && !isClosing) {
+          flushWanted.awaitUninterruptibly();
+        }
+        if (pending.position() == 0) {
+          return;
+        }
+        // gather the records of the games over the interval, unless one is waited for
+        long remaining = flushIntervalNanos;
+        while (remaining > 0 && !isFlushRequested && !isClosing) {
+          try {
+            remaining = flushWanted.awaitNanos(remaining);
+          } catch (InterruptedException e) {
+            remaining = 0;
+          }
+        }
+        final ByteBuffer full = pending;
+        pending = writing;
+        writing = full;
+        target = appendedPosition;
+        isFlushRequested = false;
+      } finally {
+        lock.unlock();
+      }
+      try {
+        writing.flip();
+        while (writing.hasRemaining()) {
+          channel.write(writing);
+        }
+        channel.force(false);
+        writing.clear();
+      } catch (IOException e) {
+        lock.lock();
+        try {
+          failure = e;
+          flushed.signalAll();
+        } finally {
+          lock.unlock();
+        }
+        return;
+      }
+      lock.lock();
+      try {
+        durablePosition = target;
+        flushed.signalAll();
+      } finally {
+        lock.unlock();
+      }
+    }
+  }
+}
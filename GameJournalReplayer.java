@@ -0,0 +1,280 @@
+package dungeon;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.zip.CRC32;
+
+/**
+ * A class to rebuild the games of a {@link GameJournal}. The journal is read twice. The first
+ * pass only checks the records and finds, for every game, its last snapshot, or its setup if it
+ * has none; it stops at the first record that fails its check, as a record torn by a crash does.
+ * The second pass rebuilds every game from that record and replays the records of the game
+ * after it, checking the outcome of every shot and every monster slain against the recorded
+ * one. So the work of a recovery is bounded by the snapshot interval of the journal, not by the
+ * length of the games.
+ */
+public final class GameJournalReplayer {
+  private static final Direction[] DIRECTIONS = Direction.values();
+  private static final GenerationMode[] MODES = GenerationMode.values();
+  private static final GridStorage[] STORAGES = GridStorage.values();
+
+  private GameJournalReplayer() {
+  }
+
+  /**
+   * a game rebuilt from a journal.
+   */
+  public static final class RecoveredGame {
+    private final int gameId;
+    private Dungeon dungeon;
+    private Player player;
+    private boolean isFromSnapshot;
+    private boolean isEnded;
+    private int replayedCount;
+
+    private RecoveredGame(int gameId) {
+      this.gameId = gameId;
+    }
+
+    /**
+     * to get the id of the game.
+     *
+     * @return the id.
+     */
+    public int getGameId() {
+      return gameId;
+    }
+
+    /**
+     * to get the dungeon of the game.
+     *
+     * @return the dungeon.
+     */
+    public Dungeon getDungeon() {
+      return dungeon;
+    }
+
+    /**
+     * to get the player of the game, whose changes are saved with the dungeon.
+     *
+     * @return the player.
+     */
+    public Player getPlayer() {
+      return player;
+    }
+
+    /**
+     * to check if the game was rebuilt from a snapshot rather than from its setup.
+     *
+     * @return true if rebuilt from a snapshot.
+     */
+    public boolean isFromSnapshot() {
+      return isFromSnapshot;
+    }
+
+    /**
+     * to check if the end of the game is recorded.
+     *
+     * @return true if the game has ended.
+     */
+    public boolean isEnded() {
+      return isEnded;
+    }
+
+    /**
+     * to get the number of records replayed after the snapshot or setup of the game.
+     *
+     * @return the number of records.
+     */
+    public int getReplayedCount() {
+      return replayedCount;
+    }
+  }
+
+  /**
+   * to rebuild the games of a journal.
+   *
+   * @param file the file of the journal.
+   * @return the games by their ids, in the order their snapshot or setup is recorded.
+   * @throws IOException if the file is not a journal or its games do not replay.
+   */
+  public static Map<Integer, RecoveredGame> replay(Path file) throws IOException {
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      final ByteBuffer journal = map(channel);
+      final Scan scan = scan(journal);
+      final Map<Integer, RecoveredGame> games = new LinkedHashMap<>();
+      int offset = scan.from;
+      while (offset < scan.end) {
+        final int length = journal.getInt(offset);
+        final int type = journal.get(offset + 4);
+        final int gameId = journal.getInt(offset + 5);
+        final Long start = scan.starts.get(gameId);
+        if (start != null && offset >= start) {
+          journal.limit(offset + 4 + length).position(offset + 9);
+          try {
+            apply(games, gameId, type, journal.slice());
+          } catch (IllegalArgumentException | IllegalStateException e) {
+            throw new IOException("journal does not replay at " + offset + ": " + e.getMessage());
+          }
+          journal.limit(journal.capacity());
+        }
+        offset += 4 + length + 4;
+      }
+      return games;
+    }
+  }
+
+  /**
+   * to check the records of a journal in a channel.
+   *
+   * @param channel the channel of the journal.
+   * @return the result of the check.
+   * @throws IOException if the channel is not a journal.
+   */
+  static Scan scan(FileChannel channel) throws IOException {
+    return scan(map(channel));
+  }
+
+  private static ByteBuffer map(FileChannel channel) throws IOException {
+    final long size = channel.size();
+    if (size > Integer.MAX_VALUE) {
+      throw new IOException("journal is too large to map");
+    }
+    return channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+  }
+
+  private static Scan scan(ByteBuffer journal) throws IOException {
+    if (journal.capacity() < GameJournal.HEADER_SIZE || journal.getInt(0) != GameJournal.MAGIC
+        || journal.getInt(4) != GameJournal.VERSION) {
+      throw new IOException("not a game journal of version " + GameJournal.VERSION);
+    }
+    final Scan scan = new Scan();
+    final CRC32 crc = new CRC32();
+    final int size = journal.capacity();
+    int offset = GameJournal.HEADER_SIZE;
+    while (size - offset >= 4) {
+      final int length = journal.getInt(offset);
+      if (length < 5 || length > size - offset - 8) {
+        break;
+      }
+      journal.limit(offset + 4 + length).position(offset + 4);
+      crc.reset();
+      crc.update(journal);
+      journal.limit(size);
+      if ((int) crc.getValue() != journal.getInt(offset + 4 + length)) {
+        break;
+      }
+      final int type = journal.get(offset + 4);
+      final int gameId = journal.getInt(offset + 5);
+      if (type == GameJournal.GENESIS || type == GameJournal.SNAPSHOT) {
+        scan.starts.put(gameId, (long) offset);
+      } else if (type < GameJournal.GENESIS || type > GameJournal.END) {
+        break;
+      }
+      offset += 4 + length + 4;
+    }
+    scan.end = offset;
+    scan.from = offset;
+    for (long start : scan.starts.values()) {
+      scan.from = (int) Math.min(scan.from, start);
+    }
+    return scan;
+  }
+
+  private static void apply(Map<Integer, RecoveredGame> games, int gameId, int type,
+                            ByteBuffer values) throws IOException {
+    RecoveredGame game = games.get(gameId);
+    if (type == GameJournal.GENESIS || type == GameJournal.SNAPSHOT) {
+      if (game == null) {
+        game = new RecoveredGame(gameId);
+        games.put(gameId, game);
+      }
+      game.dungeon = type == GameJournal.GENESIS ? readSetup(values).create()
+          : readSnapshot(values);
+      game.player = game.dungeon.getPlayerInDungeon();
+      game.isFromSnapshot = type == GameJournal.SNAPSHOT;
+      game.replayedCount = 0;
+      return;
+    }
+    game.replayedCount++;
+    final Dungeon dungeon = game.dungeon;
+    final Player player = game.player;
+    switch (type) {
+      case GameJournal.MOVE:
+        dungeon.movePlayer(player, DIRECTIONS[values.get(0)]);
+        break;
+      case GameJournal.PICKUP:
+        player.pickupObject(GameJournal.PICKUP_OBJECTS[values.get(0)]);
+        break;
+      case GameJournal.SHOOT:
+        final boolean isHit = player.shoot(dungeon, DIRECTIONS[values.get(0)], values.get(1));
+        if (isHit != (values.get(2) != 0)) {
+          throw new IllegalStateException("the shot does not have its recorded outcome");
+        }
+        break;
+      case GameJournal.SLAY:
+        final int locationId = values.getInt(0);
+        final int colSize = dungeon.getGrid().getColSize();
+        final AbstractLocation location = dungeon.getGrid().getLocation(locationId / colSize,
+            locationId % colSize);
+        if (!(location instanceof Cave) || ((Cave) location).getMonster() == null
+            || !((Cave) location).getMonster().isSlayed()) {
+          throw new IllegalStateException("the monster recorded slain is not slain");
+        }
+        break;
+      default:
+        game.isEnded = true;
+        break;
+    }
+  }
+
+  private static GameSetup readSetup(ByteBuffer values) {
+    final long seed = values.getLong();
+    final int rows = values.getInt();
+    final int cols = values.getInt();
+    final int interconnectivity = values.getInt();
+    final boolean isWrapping = values.get() != 0;
+    final int treasurePercent = values.getInt();
+    final int difficulty = values.getInt();
+    final GenerationMode mode = MODES[values.get()];
+    final GridStorage storage = STORAGES[values.get()];
+    final int playerId = values.getInt();
+    return new GameSetup(seed, rows, cols, interconnectivity, isWrapping, treasurePercent,
+        difficulty, mode, storage, playerId);
+  }
+
+  private static Dungeon readSnapshot(ByteBuffer values) throws IOException {
+    final byte[] bytes = new byte[values.remaining()];
+    values.get(bytes);
+    // the random generator of a dungeon is only used to set it up, which a snapshot has done
+    return DungeonSnapshot.read(Channels.newChannel(new ByteArrayInputStream(bytes)),
+        new Random(0));
+  }
+
+  /**
+   * the result of checking the records of a journal.
+   */
+  static final class Scan {
+    private final Map<Integer, Long> starts = new HashMap<>();
+    private int from;
+    private int end;
+
+    /**
+     * to get the position after the last whole record.
+     *
+     * @return the position.
+     */
+    long getEnd() {
+      return end;
+    }
+  }
+}
@@ -0,0 +1,295 @@
+package dungeon;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * A game of a player in a dungeon played one line of input at a time. The session keeps the
+ * question the player was last asked as its state, so it never waits for input itself: it is
+ * started once, and then every line of input is handed to it as it arrives. The text written is
+ * the same as the one written by {@link DungeonConsoleController} for the same input.
+ *
+ * <p>A session is not thread-safe, it must be driven by one thread at a time.
+ */
+public final class GameSession {
+
+  /**
+   * the question the player was last asked.
+   */
+  private enum State {
+    ACTION, MOVE_DIRECTION, PICKUP_OBJECT, SHOOT_DISTANCE, SHOOT_DIRECTION, OVER
+  }
+
+  private final Dungeon dungeon;
+  private final Player player;
+  private final Appendable out;
+  private final boolean isRendering;
+  private State state;
+  private GameJournal journal;
+  private int gameId;
+  private int recordsSinceSnapshot;
+  private int shootDistance;
+  private List<String> possiblePickUpObjects;
+
+  /**
+   * to construct the session of a player in a dungeon.
+   *
+   * @param dungeon the dungeon.
+   * @param player  the player, already in the dungeon.
+   * @param out     where the text of the game is written.
+   */
+  public GameSession(Dungeon dungeon, Player player, Appendable out) {
+    this(dungeon, player, out, true);
+  }
+
+  /**
+   * to construct the session of a player in a dungeon, which may play without writing any text,
+   * to replay the input of a game only for its outcome.
+   *
+   * @param dungeon     the dungeon.
+   * @param player      the player, already in the dungeon.
+   * @param out         where the text of the game is written.
+   * @param isRendering false to write no text at all.
+   */
+  public GameSession(Dungeon dungeon, Player player, Appendable out, boolean isRendering) {
+    if (dungeon == null || player == null || out == null) {
+      throw new IllegalArgumentException("Dungeon, player and output can't be null");
+    }
+    this.dungeon = dungeon;
+    this.player = player;
+    this.out = out;
+    this.isRendering = isRendering;
+  }
+
+  /**
+   * to record the changes the game makes from now on in a journal, with a snapshot of the game
+   * every {@link GameJournal#getSnapshotInterval()} records and a record of its end. The player
+   * must be the one of the dungeon itself, as made by {@link GameSetup#create()}, so the
+   * snapshots hold its changes.
+   *
+   * @param journal the journal.
+   * @param gameId  the id of the game in the journal.
+   */
+  public void setJournal(GameJournal journal, int gameId) {
+    if (journal == null || dungeon.getPlayerInDungeon() != player) {
+      throw new IllegalArgumentException("Journal is null or player is not the dungeon's own");
+    }
+    this.journal = journal;
+    this.gameId = gameId;
+    this.recordsSinceSnapshot = 0;
+  }
+
+  /**
+   * to start the game, describing the player and asking for the first action, or ending the
+   * game at once if it is already over.
+   *
+   * @throws IOException           if the text cannot be written.
+   * @throws IllegalStateException if the session is already started.
+   */
+  public void start() throws IOException, IllegalStateException {
+    if (state != null) {
+      throw new IllegalStateException("Session is already started");
+    }
+    nextTurn();
+  }
+
+  /**
+   * to check if the game is over.
+   *
+   * @return true if the player is eaten or has won.
+   */
+  public boolean isOver() {
+    return state == State.OVER;
+  }
+
+  /**
+   * to play a line of input, answering the question the player was last asked.
+   *
+   * @param line the line of input, without its line separator.
+   * @throws IOException           if the text cannot be written.
+   * @throws IllegalStateException if the session is not started or the game is over.
+   */
+  public void accept(String line) throws IOException, IllegalStateException {
+    if (state == null || state == State.OVER) {
+      throw new IllegalStateException("Session is not waiting for input");
+    }
+    switch (state) {
+      case MOVE_DIRECTION:
+        acceptMoveDirection(line);
+        break;
+      case PICKUP_OBJECT:
+        acceptPickupObject(line);
+        break;
+      case SHOOT_DISTANCE:
+        acceptShootDistance(line);
+        break;
+      case SHOOT_DIRECTION:
+        acceptShootDirection(line);
+        break;
+      default:
+        acceptAction(line);
+        break;
+    }
+  }
+
+  private void acceptAction(String line) throws IOException {
+    final String action = line.trim();
+    switch (action.length() == 1 ? Character.toUpperCase(action.charAt(0)) : 0) {
+      case 'M':
+        print("Where to?\n");
+        state = State.MOVE_DIRECTION;
+        break;
+      case 'P':
+        possiblePickUpObjects = player.getCurrLocation().getPossiblePickupObjects();
+        if (possiblePickUpObjects.size() == 0) {
+          print("Invalid option. There is no item to pick up in current location.\n");
+          askAction();
+          break;
+        }
+        print("What?\n");
+        state = State.PICKUP_OBJECT;
+        break;
+      case 'S':
+        if (player.getNumberOfArrows() < 1) {
+          print("Invalid choice. No arrow available to shoot.\n");
+          askAction();
+          break;
+        }
+        print("No. of caves (1-5)?");
+        state = State.SHOOT_DISTANCE;
+        break;
+      default:
+        print("Invalid choice: ", line, "\n");
+        askAction();
+        break;
+    }
+  }
+
+  private void acceptMoveDirection(String line) throws IOException {
+    final Direction direction = Direction.byShortCode(line);
+    if (direction == null || !player.getCurrLocation().canMove(direction)) {
+      print("Invalid move: ", line, "\n");
+      return;
+    }
+    dungeon.movePlayer(player, direction);
+    if (journal != null) {
+      journal.recordMove(gameId, direction);
+      recorded();
+    }
+    endTurn();
+  }
+
+  private void acceptPickupObject(String line) throws IOException {
+    if (!possiblePickUpObjects.contains(line.toLowerCase())) {
+      print("Invalid pick up object: ", line, "\n");
+      return;
+    }
+    player.pickupObject(line.toLowerCase());
+    if (journal != null) {
+      journal.recordPickup(gameId, line.toLowerCase());
+      recorded();
+    }
+    print("You pick up a ", line, "\n");
+    possiblePickUpObjects = null;
+    endTurn();
+  }
+
+  private void acceptShootDistance(String line) throws IOException {
+    int distance;
+    try {
+      distance = Integer.parseInt(line);
+    } catch (NumberFormatException e) {
+      distance = 0;
+    }
+    if (distance < 1 || distance > 5) {
+      print("Invalid input for shoot distance.\n");
+      return;
+    }
+    shootDistance = distance;
+    print("Where to?\n");
+    state = State.SHOOT_DIRECTION;
+  }
+
+  private void acceptShootDirection(String line) throws IOException {
+    final Direction direction = Direction.byShortCode(line);
+    if (direction == null) {
+      print("Invalid input for shoot direction.\n");
+      return;
+    }
+    final int targetId = journal == null ? -1
+        : dungeon.getArrowTarget(player.getCurrLocation(), direction, shootDistance);
+    final boolean isHit = player.shoot(dungeon, direction, shootDistance);
+    if (isHit) {
+      print("You hear a great howl in the distance\n");
+    } else {
+      print("You shoot an arrow into the darkness\n");
+    }
+    if (journal != null) {
+      journal.recordShoot(gameId, direction, shootDistance, isHit);
+      if (isHit && isSlain(targetId)) {
+        journal.recordSlay(gameId, targetId);
+      }
+      recorded();
+    }
+    endTurn();
+  }
+
+  private void print(CharSequence text) throws IOException {
+    if (isRendering) {
+      out.append(text);
+    }
+  }
+
+  private void print(CharSequence text, CharSequence line, CharSequence end) throws IOException {
+    if (isRendering) {
+      out.append(text).append(line).append(end);
+    }
+  }
+
+  private boolean isSlain(int locationId) {
+    final int colSize = dungeon.getGrid().getColSize();
+    final AbstractLocation location = dungeon.getGrid().getLocation(locationId / colSize,
+        locationId % colSize);
+    return location instanceof Cave && ((Cave) location).getMonster() != null
+        && ((Cave) location).getMonster().isSlayed();
+  }
+
+  private void recorded() throws IOException {
+    if (journal.getSnapshotInterval() > 0
+        && ++recordsSinceSnapshot >= journal.getSnapshotInterval()) {
+      journal.recordSnapshot(gameId, dungeon);
+      recordsSinceSnapshot = 0;
+    }
+  }
+
+  private void askAction() throws IOException {
+    print("\n\nMove, Pickup, or Shoot (M-P-S)?\n");
+    state = State.ACTION;
+  }
+
+  private void endTurn() throws IOException {
+    print("\n\n");
+    nextTurn();
+  }
+
+  private void nextTurn() throws IOException {
+    if (dungeon.isEatenByMonster(player) || dungeon.hasWon(player)) {
+      if (dungeon.isEatenByMonster(player)) {
+        print("Chomp, chomp, chomp, you are eaten by an Otyugh!\n");
+        print("Better luck next time\n");
+      }
+      if (dungeon.hasWon(player)) {
+        print("Yay! You won!\n");
+      }
+      state = State.OVER;
+      if (journal != null) {
+        journal.recordEnd(gameId);
+      }
+      return;
+    }
+    if (isRendering) {
+      print(player.toString());
+    }
+    askAction();
+  }
+}
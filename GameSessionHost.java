@@ -0,0 +1,259 @@
+package dungeon;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * A host running many games, each a {@link GameSession} of its own dungeon and player, on a
+ * fixed number of worker threads. Every session is owned by one worker, picked from its id when
+ * it is opened, and is only ever touched by that worker, so the games need no locks at all.
+ * Lines of input are handed to the worker through its mailbox, a lock-free queue any thread can
+ * post to; the worker plays them in the order they are posted and parks when it runs out.
+ *
+ * <p>The text a session writes for a line is handed to the output of the session by its worker,
+ * so the output must return quickly and must not block on other sessions.
+ */
+public final class GameSessionHost implements Closeable {
+
+  private final Worker[] workers;
+  private final AtomicLong nextSessionId;
+  private final AtomicInteger sessionCount;
+
+  /**
+   * to construct a host and start its workers.
+   *
+   * @param numberOfWorkers the number of worker threads.
+   */
+  public GameSessionHost(int numberOfWorkers) {
+    if (numberOfWorkers < 1) {
+      throw new IllegalArgumentException("Number of workers must be at least 1");
+    }
+    this.nextSessionId = new AtomicLong();
+    this.sessionCount = new AtomicInteger();
+    this.workers = new Worker[numberOfWorkers];
+    for (int i = 0; i < numberOfWorkers; i++) {
+      workers[i] = new Worker(i);
+    }
+    for (Worker worker : workers) {
+      worker.thread.start();
+    }
+  }
+
+  /**
+   * to open a session. The dungeon and the player belong to the host afterwards and must not be
+   * used by the caller. The session starts on its worker, which writes the first prompt.
+   *
+   * @param dungeon the dungeon.
+   * @param player  the player, already in the dungeon.
+   * @param output  the consumer of the text written by the session.
+   * @return the id of the session.
+   * @throws IllegalStateException if the host is closed.
+   */
+  public long open(Dungeon dungeon, Player player, Consumer<String> output)
+      throws IllegalStateException {
+    if (dungeon == null || player == null || output == null) {
+      throw new IllegalArgumentException("Dungeon, player and output can't be null");
+    }
+    final long sessionId = nextSessionId.getAndIncrement();
+    final Worker worker = getWorker(sessionId);
+    sessionCount.incrementAndGet();
+    worker.post(() -> worker.start(sessionId, dungeon, player, output));
+    return sessionId;
+  }
+
+  /**
+   * to post a line of input to a session. Lines posted to a session that is over or closed are
+   * dropped.
+   *
+   * @param sessionId the id of the session.
+   * @param line      the line, without its line separator.
+   * @throws IllegalStateException if the host is closed.
+   */
+  public void submit(long sessionId, String line) throws IllegalStateException {
+    if (line == null) {
+      throw new IllegalArgumentException("Line can't be null");
+    }
+    final Worker worker = getWorker(sessionId);
+    worker.post(() -> worker.accept(sessionId, line));
+  }
+
+  /**
+   * to close a session before its game is over.
+   *
+   * @param sessionId the id of the session.
+   * @throws IllegalStateException if the host is closed.
+   */
+  public void close(long sessionId) throws IllegalStateException {
+    final Worker worker = getWorker(sessionId);
+    worker.post(() -> worker.remove(sessionId));
+  }
+
+  /**
+   * to get the number of sessions open, counting those whose opening is still in a mailbox.
+   *
+   * @return the number of sessions.
+   */
+  public int getSessionCount() {
+    return sessionCount.get();
+  }
+
+  /**
+   * to get the number of worker threads.
+   *
+   * @return the number of workers.
+   */
+  public int getNumberOfWorkers() {
+    return workers.length;
+  }
+
+  /**
+   * to stop the workers once they have played every line already posted, and wait for them.
+   * Sessions still open are dropped.
+   */
+  @Override
+  public void close() {
+    for (Worker worker : workers) {
+      if (!worker.isClosing) {
+        worker.post(() -> worker.isRunning = false);
+        worker.isClosing = true;
+      }
+    }
+    boolean isInterrupted = false;
+    for (Worker worker : workers) {
+      while (worker.thread.isAlive()) {
+        try {
+          worker.thread.join();
+        } catch (InterruptedException e) {
+          isInterrupted = true;
+        }
+      }
+    }
+    sessionCount.set(0);
+    if (isInterrupted) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private Worker getWorker(long sessionId) {
+    return workers[(int) Long.remainderUnsigned(sessionId, workers.length)];
+  }
+
+  /**
+   * a worker thread with its mailbox and the sessions it owns.
+   */
+  private final class Worker implements Runnable {
+    private final Thread thread;
+    private final Queue<Runnable> mailbox;
+    private final Map<Long, Session> sessions;
+    private final StringBuilder text;
+    private volatile boolean isParked;
+    private volatile boolean isClosing;
+    private boolean isRunning;
+
+    private Worker(int index) {
+      this.mailbox = new ConcurrentLinkedQueue<>();
+      this.sessions = new HashMap<>();
+      this.text = new StringBuilder();
+      this.isRunning = true;
+      this.thread = new Thread(this, "game-session-worker-" + index);
+      this.thread.setDaemon(true);
+    }
+
+    private void post(Runnable task) {
+      if (isClosing) {
+        throw new IllegalStateException("Host is closed");
+      }
+      mailbox.offer(task);
+      // the worker marks itself parked before its last look at the mailbox, so either it sees
+      // the task or the task sees it parked
+      if (isParked) {
+        LockSupport.unpark(thread);
+      }
+    }
+
+    @Override
+    public void run() {
+      while (isRunning) {
+        final Runnable task = mailbox.poll();
+        if (task == null) {
+          isParked = true;
+          if (mailbox.isEmpty()) {
+            LockSupport.park(this);
+          }
+          isParked = false;
+          continue;
+        }
+        try {
+          task.run();
+        } catch (RuntimeException e) {
+          thread.getUncaughtExceptionHandler().uncaughtException(thread, e);
+        }
+      }
+      sessions.clear();
+    }
+
+    private void start(long sessionId, Dungeon dungeon, Player player, Consumer<String> output) {
+      final Session session = new Session(new GameSession(dungeon, player, text), output);
+      sessions.put(sessionId, session);
+      play(sessionId, session, null);
+    }
+
+    private void accept(long sessionId, String line) {
+      final Session session = sessions.get(sessionId);
+      if (session != null) {
+        play(sessionId, session, line);
+      }
+    }
+
+    /**
+     * to start a session when the line is null, or else play the line, and hand out the text.
+     */
+    private void play(long sessionId, Session session, String line) {
+      text.setLength(0);
+      try {
+        if (line == null) {
+          session.game.start();
+        } else {
+          session.game.accept(line);
+        }
+      } catch (IOException e) {
+        // appending to a string builder never fails
+        throw new IllegalStateException(e);
+      } catch (RuntimeException e) {
+        remove(sessionId);
+        throw e;
+      }
+      if (session.game.isOver()) {
+        remove(sessionId);
+      }
+      session.output.accept(text.toString());
+    }
+
+    private void remove(long sessionId) {
+      if (sessions.remove(sessionId) != null) {
+        sessionCount.decrementAndGet();
+      }
+    }
+  }
+
+  /**
+   * a game with the consumer of its text.
+   */
+  private static final class Session {
+    private final GameSession game;
+    private final Consumer<String> output;
+
+    private Session(GameSession game, Consumer<String> output) {
+      this.game = game;
+      this.output = output;
+    }
+  }
+}
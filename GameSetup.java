@@ -0,0 +1,173 @@
+package dungeon;
+
+import java.util.Random;
+
+/**
+ * The seed and parameters a game is generated from. The same setup always makes the same
+ * dungeon, with the same treasures, arrows, start, end and monsters, so a game is told in full
+ * by its setup and the actions of its player.
+ */
+public final class GameSetup {
+  private final long seed;
+  private final int rows;
+  private final int cols;
+  private final int interconnectivity;
+  private final boolean isWrapping;
+  private final int treasurePercent;
+  private final int difficulty;
+  private final GenerationMode mode;
+  private final GridStorage storage;
+  private final int playerId;
+
+  /**
+   * to construct a setup.
+   *
+   * @param seed              the seed of the random generator of the dungeon.
+   * @param rows              the number of rows.
+   * @param cols              the number of columns.
+   * @param interconnectivity the interconnectivity.
+   * @param isWrapping        true for a wrapping dungeon.
+   * @param treasurePercent   the percentage of caves with treasure.
+   * @param difficulty        the number of monsters.
+   * @param mode              how the walls are carved.
+   * @param storage           how the locations are stored.
+   * @param playerId          the id of the player.
+   */
+  public GameSetup(long seed, int rows, int cols, int interconnectivity, boolean isWrapping,
+                   int treasurePercent, int difficulty, GenerationMode mode, GridStorage storage,
+                   int playerId) {
+    if (mode == null || storage == null) {
+      throw new IllegalArgumentException("Generation mode and storage can't be null");
+    }
+    this.seed = seed;
+    this.rows = rows;
+    this.cols = cols;
+    this.interconnectivity = interconnectivity;
+    this.isWrapping = isWrapping;
+    this.treasurePercent = treasurePercent;
+    this.difficulty = difficulty;
+    this.mode = mode;
+    this.storage = storage;
+    this.playerId = playerId;
+  }
+
+  /**
+   * to generate the dungeon of the setup, set up as {@link DungeonDriver} does, with its player
+   * on the start.
+   *
+   * @return the dungeon.
+   */
+  public Dungeon create() {
+    final Dungeon dungeon = new Dungeon(rows, cols, interconnectivity, isWrapping,
+        treasurePercent, difficulty, new Random(seed), mode, storage);
+    dungeon.assignTreasuresAndArrows();
+    dungeon.addStart();
+    dungeon.addEnd();
+    dungeon.assignMonsters();
+    dungeon.getMonsters()
+        .forEach(monster -> dungeon.setLocationSmellLevel(monster.getLocation(), true));
+    dungeon.addPlayer(new Player(playerId));
+    return dungeon;
+  }
+
+  /**
+   * to get the player of a dungeon made by {@link #create()}, whose changes are saved with the
+   * dungeon.
+   *
+   * @param dungeon the dungeon.
+   * @return the player.
+   */
+  public static Player getPlayer(Dungeon dungeon) {
+    return dungeon.getPlayerInDungeon();
+  }
+
+  /**
+   * to get the seed.
+   *
+   * @return the seed.
+   */
+  public long getSeed() {
+    return seed;
+  }
+
+  /**
+   * to get the number of rows.
+   *
+   * @return the number of rows.
+   */
+  public int getRows() {
+    return rows;
+  }
+
+  /**
+   * to get the number of columns.
+   *
+   * @return the number of columns.
+   */
+  public int getCols() {
+    return cols;
+  }
+
+  /**
+   * to get the interconnectivity.
+   *
+   * @return the interconnectivity.
+   */
+  public int getInterconnectivity() {
+    return interconnectivity;
+  }
+
+  /**
+   * to check if the dungeon wraps.
+   *
+   * @return true for a wrapping dungeon.
+   */
+  public boolean isWrapping() {
+    return isWrapping;
+  }
+
+  /**
+   * to get the percentage of caves with treasure.
+   *
+   * @return the percentage.
+   */
+  public int getTreasurePercent() {
+    return treasurePercent;
+  }
+
+  /**
+   * to get the number of monsters.
+   *
+   * @return the difficulty.
+   */
+  public int getDifficulty() {
+    return difficulty;
+  }
+
+  /**
+   * to get how the walls are carved.
+   *
+   * @return the generation mode.
+   */
+  public GenerationMode getMode() {
+    return mode;
+  }
+
+  /**
+   * to get how the locations are stored.
+   *
+   * @return the storage.
+   */
+  public GridStorage getStorage() {
+    return storage;
+  }
+
+  /**
+   * to get the id of the player.
+   *
+   * @return the id.
+   */
+  public int getPlayerId() {
+    return playerId;
+  }
+}
@@ -0,0 +1,20 @@
+package dungeon;
+
+/**
+ * An enum to indicate how the walls of the dungeon are carved.
+ */
+public enum GenerationMode {
+  /**
+   * picks a random wall on every step, the walls can be picked again.
+   */
+  RANDOM_SAMPLING,
+  /**
+   * shuffles the walls once and visits every wall a single time.
+   */
+  SHUFFLED_PASS,
+  /**
+   * carves tiles of the grid concurrently and stitches them together, see
+   * {@link ParallelDungeonHelper}.
+   */
+  PARALLEL_TILED
+}
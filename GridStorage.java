@@ -0,0 +1,15 @@
+package dungeon;
+
+/**
+ * An enum to indicate how the locations of the dungeon are stored.
+ */
+public enum GridStorage {
+  /**
+   * every location is kept as an object, see {@link ObjectGrid}.
+   */
+  OBJECTS,
+  /**
+   * the locations are kept in primitive arrays, see {@link CompactGrid}.
+   */
+  COMPACT
+}
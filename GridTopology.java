@@ -0,0 +1,110 @@
+package dungeon;
+
+/**
+ * The moves between the locations of a grid, by location id. Directions are indexed by their
+ * ordinal, which matches the order of the wall bits in {@link WallBits}.
+ */
+final class GridTopology {
+  private static final int[] WALLS = {WallBits.UP, WallBits.DOWN, WallBits.RIGHT,
+      WallBits.LEFT};
+  private static final int[] ROW_STEPS = {-1, 1, 0, 0};
+  private static final int[] COL_STEPS = {0, 0, 1, -1};
+
+  /**
+   * the number of directions of a location.
+   */
+  static final int NUM_DIRECTIONS = WALLS.length;
+
+  private final int rowSize;
+  private final int colSize;
+  private final boolean isWrapping;
+
+  /**
+   * to construct the moves of a grid.
+   *
+   * @param rowSize    the rows of the grid.
+   * @param colSize    the columns of the grid.
+   * @param isWrapping if moves across the edges wrap around.
+   */
+  GridTopology(int rowSize, int colSize, boolean isWrapping) {
+    this.rowSize = rowSize;
+    this.colSize = colSize;
+    this.isWrapping = isWrapping;
+  }
+
+  /**
+   * to get the location reached by moving from a location in a direction.
+   *
+   * @param id        the id of the location.
+   * @param wallBits  the wall bits of the location.
+   * @param direction the ordinal of the direction.
+   * @return the id of the location reached, -1 if a wall or the edge blocks the move.
+   */
+  int getNeighbor(int id, int wallBits, int direction) {
+    if ((wallBits & WALLS[direction]) != 0) {
+      return -1;
+    }
+    int row = id / colSize + ROW_STEPS[direction];
+    int col = id % colSize + COL_STEPS[direction];
+    if (row < 0 || row >= rowSize || col < 0 || col >= colSize) {
+      if (!isWrapping) {
+        return -1;
+      }
+      row = Math.floorMod(row, rowSize);
+      col = Math.floorMod(col, colSize);
+    }
+    return row * colSize + col;
+  }
+
+  /**
+   * to get the wall bits of a location of a grid, read from the grid itself when it is packed
+   * rather than from a view of the location.
+   *
+   * @param grid the locations of the dungeon.
+   * @param id   the id of the location.
+   * @return the wall bits, see {@link WallBits}.
+   */
+  static int getWallBits(DungeonGrid grid, int id) {
+    if (grid instanceof PackedGrid) {
+      return ((PackedGrid) grid).getWallBits(id);
+    }
+    final int colSize = grid.getColSize();
+    return grid.getLocation(id / colSize, id % colSize).getWallBits();
+  }
+
+  /**
+   * to get the least number of moves between two locations when no walls stand in between,
+   * going across the edges of the grid if it wraps.
+   *
+   * @param id1 the id of the first location.
+   * @param id2 the id of the second location.
+   * @return the number of moves.
+   */
+  int getManhattanDistance(int id1, int id2) {
+    final int rowDistance = Math.abs(id1 / colSize - id2 / colSize);
+    final int colDistance = Math.abs(id1 % colSize - id2 % colSize);
+    if (!isWrapping) {
+      return rowDistance + colDistance;
+    }
+    return Math.min(rowDistance, rowSize - rowDistance)
+            + Math.min(colDistance, colSize - colDistance);
+  }
+
+  /**
+   * to check if moves across the edges of the grid wrap around.
+   *
+   * @return true if the grid wraps.
+   */
+  boolean isWrapping() {
+    return isWrapping;
+  }
+
+  /**
+   * to get the number of locations of the grid.
+   *
+   * @return the number of locations.
+   */
+  int size() {
+    return rowSize * colSize;
+  }
+}
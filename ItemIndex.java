@@ -0,0 +1,298 @@
+package dungeon;
+
+import java.util.Arrays;
+
+/**
+ * An index of the locations holding items, by type of item and by region of the grid. Every
+ * type keeps a bit per location holding it, and a count of such locations per square region
+ * of {@link #REGION_SIZE} rows and columns. The locations of the grid tell the index whenever
+ * their items change, so it stays up to date as items are picked up and dropped.
+ *
+ * <p>The nearest locations by grid distance are found region by region, in the order of the
+ * least distance to a region, skipping the empty regions and stopping once no region left can
+ * hold a nearer location. The nearest locations by number of moves are found with a breadth
+ * first search that stops once enough locations are found.
+ *
+ * <p>Updates and queries are synchronized, so players acting concurrently in a
+ * {@link SharedDungeon} keep the index consistent. Items change rarely next to moves, so the
+ * index is not striped.
+ */
+public final class ItemIndex {
+  /**
+   * the number of rows and columns of a region.
+   */
+  public static final int REGION_SIZE = 16;
+
+  private static final ItemType[] TYPES = ItemType.values();
+
+  private final int rowSize;
+  private final int colSize;
+  private final int regionCols;
+  private final GridTopology topology;
+  private final PathFinder pathFinder;
+  private final long[][] holders;
+  private final int[][] regionCounts;
+  private final int[] counts;
+
+  private ItemIndex(GridTopology topology, PathFinder pathFinder, int rowSize, int colSize) {
+    this.rowSize = rowSize;
+    this.colSize = colSize;
+    this.topology = topology;
+    this.pathFinder = pathFinder;
+    final int regionRows = (rowSize + REGION_SIZE - 1) / REGION_SIZE;
+    this.regionCols = (colSize + REGION_SIZE - 1) / REGION_SIZE;
+    this.holders = new long[TYPES.length][(rowSize * colSize + 63) >>> 6];
+    this.regionCounts = new int[TYPES.length][regionRows * regionCols];
+    this.counts = new int[TYPES.length];
+  }
+
+  /**
+   * to build the index of the items of a grid with a single pass over its locations, and to
+   * attach it to the grid so later changes to the items reach the index.
+   *
+   * @param grid       the locations of the dungeon.
+   * @param topology   the moves of the grid, for the grid distance.
+   * @param pathFinder the path finder of the dungeon, for the number of moves.
+   * @return the index.
+   */
+  static ItemIndex attach(DungeonGrid grid, GridTopology topology, PathFinder pathFinder) {
+    final ItemIndex index = new ItemIndex(topology, pathFinder, grid.getRowSize(),
+        grid.getColSize());
+    if (grid instanceof PackedGrid) {
+      final PackedGrid packedGrid = (PackedGrid) grid;
+      for (int id = 0; id < index.rowSize * index.colSize; id++) {
+        index.set(ItemType.ARROW, id, packedGrid.getArrows(id) > 0);
+      }
+      for (int i = 0; i < packedGrid.getNumberOfCaves(); i++) {
+        final int id = packedGrid.getCaveId(i);
+        for (ItemType type : TYPES) {
+          if (type.getTreasure() != null) {
+            index.set(type, id, packedGrid.getTreasureCount(i, type.getTreasure()) > 0);
+          }
+        }
+      }
+      packedGrid.setItemIndex(index);
+    } else {
+      for (AbstractLocation[] row : grid.getLocations()) {
+        for (AbstractLocation location : row) {
+          index.update(location);
+          location.setItemIndex(index);
+        }
+      }
+    }
+    return index;
+  }
+
+  /**
+   * to update the index with the items of a location.
+   *
+   * @param location the location whose items changed.
+   */
+  synchronized void update(AbstractLocation location) {
+    final int id = location.getRowDim() * colSize + location.getColDim();
+    set(ItemType.ARROW, id, location.getNumOfArrowsPresent() > 0);
+    if (location instanceof Cave) {
+      final Cave cave = (Cave) location;
+      for (ItemType type : TYPES) {
+        if (type.getTreasure() != null) {
+          set(type, id, cave.getTreasureCount(type.getTreasure()) > 0);
+        }
+      }
+    }
+  }
+
+  private void set(ItemType type, int id, boolean isHeld) {
+    final int ordinal = type.ordinal();
+    final long bit = 1L << id;
+    final boolean wasHeld = (holders[ordinal][id >>> 6] & bit) != 0;
+    if (isHeld == wasHeld) {
+      return;
+    }
+    final int delta = isHeld ? 1 : -1;
+    holders[ordinal][id >>> 6] ^= bit;
+    regionCounts[ordinal][getRegion(id)] += delta;
+    counts[ordinal] += delta;
+  }
+
+  private int getRegion(int id) {
+    return id / colSize / REGION_SIZE * regionCols + id % colSize / REGION_SIZE;
+  }
+
+  /**
+   * to get the number of locations holding an item.
+   *
+   * @param type the item.
+   * @return the number of locations.
+   */
+  public synchronized int getCount(ItemType type) {
+    return counts[type.ordinal()];
+  }
+
+  /**
+   * to check if a location holds an item.
+   *
+   * @param type the item.
+   * @param id   the id of the location.
+   * @return true if the location holds the item.
+   */
+  public synchronized boolean contains(ItemType type, int id) {
+    return (holders[type.ordinal()][id >>> 6] & 1L << id) != 0;
+  }
+
+  /**
+   * to find the locations holding an item nearest to a location by the least number of moves
+   * across the grid, as if there were no walls, going across the edges if the grid wraps. Ties
+   * are broken by the lower id.
+   *
+   * @param sourceId the id of the location to search from.
+   * @param type     the item.
+   * @param k        the number of locations to find.
+   * @return the ids of up to k locations, nearest first.
+   */
+  public synchronized int[] findNearestByGrid(int sourceId, ItemType type, int k) {
+    checkQuery(sourceId, type, k);
+    final int ordinal = type.ordinal();
+    final int[] regions = regionCounts[ordinal];
+    final int sourceRow = sourceId / colSize;
+    final int sourceCol = sourceId % colSize;
+    int numberOfRegions = 0;
+    final long[] candidates = new long[regions.length];
+    for (int region = 0; region < regions.length; region++) {
+      if (regions[region] > 0) {
+        candidates[numberOfRegions++] = (long) getRegionDistance(sourceRow, sourceCol, region)
+            << 32 | region;
+      }
+    }
+    Arrays.sort(candidates, 0, numberOfRegions);
+    // a max heap of the nearest locations so far, by distance and then id
+    final long[] nearest = new long[Math.min(k, counts[ordinal])];
+    int size = 0;
+    for (int i = 0; i < numberOfRegions; i++) {
+      final int regionDistance = (int) (candidates[i] >>> 32);
+      if (size == nearest.length && regionDistance > (int) (nearest[0] >>> 32)) {
+        break;
+      }
+      final int region = (int) candidates[i];
+      final int firstRow = region / regionCols * REGION_SIZE;
+      final int firstCol = region % regionCols * REGION_SIZE;
+      final int lastCol = Math.min(colSize, firstCol + REGION_SIZE);
+      for (int row = firstRow; row < Math.min(rowSize, firstRow + REGION_SIZE); row++) {
+        for (int col = nextHolder(ordinal, row, firstCol, lastCol); col < lastCol;
+             col = nextHolder(ordinal, row, col + 1, lastCol)) {
+          final int id = row * colSize + col;
+          final long entry = (long) topology.getManhattanDistance(sourceId, id) << 32 | id;
+          if (size < nearest.length) {
+            siftUp(nearest, size++, entry);
+          } else if (entry < nearest[0]) {
+            siftDown(nearest, size, entry);
+          }
+        }
+      }
+    }
+    Arrays.sort(nearest, 0, size);
+    final int[] ids = new int[size];
+    for (int i = 0; i < size; i++) {
+      ids[i] = (int) nearest[i];
+    }
+    return ids;
+  }
+
+  /**
+   * to find the locations holding an item nearest to a location by the number of moves through
+   * the dungeon.
+   *
+   * @param sourceId the id of the location to search from.
+   * @param type     the item.
+   * @param k        the number of locations to find.
+   * @return the ids of up to k locations, nearest first.
+   */
+  public synchronized int[] findNearestByPath(int sourceId, ItemType type, int k) {
+    checkQuery(sourceId, type, k);
+    final long[] typeHolders = holders[type.ordinal()];
+    final int[] nearest = new int[Math.min(k, counts[type.ordinal()])];
+    final int found = pathFinder.findNearest(sourceId,
+        id -> (typeHolders[id >>> 6] & 1L << id) != 0, nearest);
+    return found == nearest.length ? nearest : Arrays.copyOf(nearest, found);
+  }
+
+  private void checkQuery(int sourceId, ItemType type, int k) {
+    if (sourceId < 0 || sourceId >= rowSize * colSize) {
+      throw new IllegalArgumentException("Location must be in the dungeon");
+    } else if (type == null) {
+      throw new IllegalArgumentException("Item cannot be null");
+    } else if (k < 0) {
+      throw new IllegalArgumentException("Number of locations cannot be negative");
+    }
+  }
+
+  /**
+   * to get the column of the next location of a row holding an item, from a column up to
+   * before the last column.
+   */
+  private int nextHolder(int ordinal, int row, int fromCol, int lastCol) {
+    final long[] bits = holders[ordinal];
+    final int rowStart = row * colSize;
+    int id = rowStart + fromCol;
+    final int end = rowStart + lastCol;
+    while (id < end) {
+      final long word = bits[id >>> 6] & -1L << id;
+      if (word != 0) {
+        return Math.min(lastCol, (id & ~63) + Long.numberOfTrailingZeros(word) - rowStart);
+      }
+      id = (id | 63) + 1;
+    }
+    return lastCol;
+  }
+
+  /**
+   * the least grid distance from a location to any location of a region, the distance along
+   * each axis being to the nearer edge of the region unless the location is within its span.
+   */
+  private int getRegionDistance(int row, int col, int region) {
+    final int firstRow = region / regionCols * REGION_SIZE;
+    final int firstCol = region % regionCols * REGION_SIZE;
+    final int lastRow = Math.min(rowSize, firstRow + REGION_SIZE) - 1;
+    final int lastCol = Math.min(colSize, firstCol + REGION_SIZE) - 1;
+    final int rowDistance = row >= firstRow && row <= lastRow ? 0
+        : Math.min(axisDistance(row, firstRow, rowSize), axisDistance(row, lastRow, rowSize));
+    final int colDistance = col >= firstCol && col <= lastCol ? 0
+        : Math.min(axisDistance(col, firstCol, colSize), axisDistance(col, lastCol, colSize));
+    return rowDistance + colDistance;
+  }
+
+  private int axisDistance(int from, int to, int size) {
+    final int distance = Math.abs(from - to);
+    return topology.isWrapping() ? Math.min(distance, size - distance) : distance;
+  }
+
+  private static void siftUp(long[] heap, int i, long entry) {
+    while (i > 0) {
+      final int parent = (i - 1) >>> 1;
+      if (heap[parent] >= entry) {
+        break;
+      }
+      heap[i] = heap[parent];
+      i = parent;
+    }
+    heap[i] = entry;
+  }
+
+  private static void siftDown(long[] heap, int size, long entry) {
+    int i = 0;
+    while (true) {
+      int child = 2 * i + 1;
+      if (child >= size) {
+        break;
+      }
+      if (child + 1 < size && heap[child + 1] > heap[child]) {
+        child++;
+      }
+      if (heap[child] <= entry) {
+        break;
+      }
+      heap[i] = heap[child];
+      i = child;
+    }
+    heap[i] = entry;
+  }
+}
@@ -0,0 +1,37 @@
+package dungeon;
+
+/**
+ * An enum of the items that can be picked up in a dungeon, see {@link ItemIndex}.
+ */
+public enum ItemType {
+  ARROW(null), DIAMOND(Treasure.DIAMOND), RUBIES(Treasure.RUBIES),
+  SAPPHIRES(Treasure.SAPPHIRES);
+
+  private final Treasure treasure;
+
+  ItemType(Treasure treasure) {
+    this.treasure = treasure;
+  }
+
+  /**
+   * to get the treasure of the item.
+   *
+   * @return the treasure, null for arrows.
+   */
+  public Treasure getTreasure() {
+    return treasure;
+  }
+
+  /**
+   * to get the item of a treasure.
+   *
+   * @param treasure the treasure.
+   * @return the item.
+   */
+  public static ItemType of(Treasure treasure) {
+    if (treasure == null) {
+      throw new IllegalArgumentException("Treasure cannot be null");
+    }
+    return valueOf(treasure.name());
+  }
+}
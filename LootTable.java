@@ -0,0 +1,87 @@
+package dungeon;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * The weights of the loot left in a dungeon: how likely every kind of treasure is in a cave
+ * with treasure, and how many arrows are left in a location with arrows. Both are drawn from
+ * {@link AliasTable}s, so a roll takes constant time however large the dungeon.
+ */
+public final class LootTable {
+  private static final Treasure[] TREASURES = Treasure.values();
+
+  /**
+   * every treasure equally likely and a single arrow in every location with arrows, which may
+   * be any location of the dungeon.
+   */
+  public static final LootTable DEFAULT = new LootTable(equalWeights(), new double[]{1}, false);
+
+  private final AliasTable treasureTable;
+  private final AliasTable arrowTable;
+  private final boolean isArrowsInCavesOnly;
+
+  /**
+   * to construct a loot table.
+   *
+   * @param treasureWeights     the weight of every treasure, a treasure left out having none.
+   * @param arrowWeights        the weights of the number of arrows in a location with arrows,
+   *                            the first being the weight of a single arrow.
+   * @param isArrowsInCavesOnly if arrows are only left in caves rather than any location.
+   * @throws IllegalArgumentException if the weights are invalid.
+   */
+  public LootTable(Map<Treasure, Double> treasureWeights, double[] arrowWeights,
+                   boolean isArrowsInCavesOnly) throws IllegalArgumentException {
+    if (treasureWeights == null) {
+      throw new IllegalArgumentException("Treasure weights cannot be null");
+    }
+    final double[] weights = new double[TREASURES.length];
+    for (Map.Entry<Treasure, Double> entry : treasureWeights.entrySet()) {
+      if (entry.getKey() == null || entry.getValue() == null) {
+        throw new IllegalArgumentException("Treasure weights cannot hold null");
+      }
+      weights[entry.getKey().ordinal()] = entry.getValue();
+    }
+    this.treasureTable = new AliasTable(weights);
+    this.arrowTable = new AliasTable(arrowWeights);
+    this.isArrowsInCavesOnly = isArrowsInCavesOnly;
+  }
+
+  private static Map<Treasure, Double> equalWeights() {
+    final Map<Treasure, Double> weights = new EnumMap<>(Treasure.class);
+    for (Treasure treasure : Treasure.values()) {
+      weights.put(treasure, 1.0);
+    }
+    return weights;
+  }
+
+  /**
+   * to draw the treasure of a cave.
+   *
+   * @param rand the random generator.
+   * @return the treasure.
+   */
+  public Treasure rollTreasure(Random rand) {
+    return TREASURES[treasureTable.sample(rand)];
+  }
+
+  /**
+   * to draw the number of arrows of a location.
+   *
+   * @param rand the random generator.
+   * @return the number of arrows, at least one.
+   */
+  public int rollArrows(Random rand) {
+    return arrowTable.sample(rand) + 1;
+  }
+
+  /**
+   * to check if arrows are only left in caves.
+   *
+   * @return true if arrows are only left in caves, false if in any location.
+   */
+  public boolean isArrowsInCavesOnly() {
+    return isArrowsInCavesOnly;
+  }
+}
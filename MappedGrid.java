@@ -0,0 +1,428 @@
+package dungeon;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A grid keeping the state of the dungeon in a memory-mapped file, so the dungeon can be larger
+ * than the heap and can be opened again without regenerating it. The file starts with a header
+ * holding the size and parameters of the dungeon along with its start and end, followed by the
+ * regions of wall bits, smell levels, arrows, cave ids, treasure counts, monster health and the
+ * caves holding a monster. Opening a file only maps these regions, the pages are read by the
+ * operating system as the locations are visited.
+ */
+public class MappedGrid extends PackedGrid implements Closeable {
+
+  /**
+   * the first int of every mapped dungeon file.
+   */
+  public static final int MAGIC = 0x44474d50;
+
+  /**
+   * the version of the file layout.
+   */
+  public static final int VERSION = 1;
+
+  private static final int HEADER_SIZE = 64;
+  private static final int ROWS = 8;
+  private static final int COLS = 12;
+  private static final int FLAGS = 16;
+  private static final int INTERCONNECTIVITY = 20;
+  private static final int TREASURE_PERCENT = 24;
+  private static final int DIFFICULTY = 28;
+  private static final int CAVES = 32;
+  private static final int TUNNELS = 36;
+  private static final int START = 40;
+  private static final int END = 44;
+  private static final int MONSTERS = 48;
+  private static final int WRAPPING_FLAG = 1;
+
+  private final FileChannel channel;
+  private final MappedByteBuffer header;
+  private final int numCaves;
+  private final int numTunnels;
+  private final MappedRegion walls;
+  private final MappedRegion smellLevels;
+  private final MappedRegion arrows;
+  private final MappedRegion caveIds;
+  private final MappedRegion treasures;
+  private final MappedRegion monsterHealth;
+  private final MappedRegion monsterCaves;
+
+  /**
+   * An interface for writing the wall bits of a new mapped grid row by row, such as
+   * {@link EllerDungeonGenerator#generate(DungeonRowSink)}.
+   */
+  public interface RowProducer {
+
+    /**
+     * to write every row of the grid to the sink, top to bottom.
+     *
+     * @param sink the sink receiving the rows.
+     * @throws IOException if a row cannot be written.
+     */
+    void generate(DungeonRowSink sink) throws IOException;
+  }
+
+  private MappedGrid(FileChannel channel, MappedByteBuffer header, int rowSize, int colSize,
+                     int numCaves, int numTunnels) throws IOException {
+    super(rowSize, colSize);
+    this.channel = channel;
+    this.header = header;
+    this.numCaves = numCaves;
+    this.numTunnels = numTunnels;
+    final long numLocations = (long) rowSize * colSize;
+    this.walls = new MappedRegion(channel, HEADER_SIZE, numLocations);
+    this.smellLevels = new MappedRegion(channel, walls.getEnd(), 2 * numLocations);
+    this.arrows = new MappedRegion(channel, smellLevels.getEnd(), 2 * numLocations);
+    this.caveIds = new MappedRegion(channel, arrows.getEnd(), 4L * numCaves);
+    this.treasures = new MappedRegion(channel, caveIds.getEnd(),
+            2L * numCaves * TREASURES.length);
+    this.monsterHealth = new MappedRegion(channel, treasures.getEnd(), numCaves);
+    this.monsterCaves = new MappedRegion(channel, monsterHealth.getEnd(), 4L * numCaves);
+  }
+
+  /**
+   * to create a mapped grid file from the wall bits of every location in row major order.
+   *
+   * @param file              the file to create, replaced if it exists.
+   * @param wallBits          the wall bits, see {@link WallBits}.
+   * @param rowSize           the rows of the grid.
+   * @param colSize           the columns of the grid.
+   * @param isWrapping        if the dungeon is wrapping or non-wrapping.
+   * @param interconnectivity the interconnectivity of the dungeon.
+   * @param treasurePercent   percent of treasure in the dungeon.
+   * @param difficulty        the number of monsters in the dungeon.
+   * @return the mapped grid.
+   * @throws IOException if the file cannot be written.
+   */
+  public static MappedGrid create(Path file, byte[] wallBits, int rowSize, int colSize,
+                                  boolean isWrapping, int interconnectivity,
+                                  int treasurePercent, int difficulty) throws IOException {
+    if (wallBits == null || wallBits.length != (long) rowSize * colSize) {
+      throw new IllegalArgumentException("wall bits do not match the grid size");
+    }
+    return create(file, rowSize, colSize, isWrapping, interconnectivity, treasurePercent,
+            difficulty, sink -> {
+              final byte[] row = new byte[colSize];
+              for (int i = 0; i < rowSize; i++) {
+                System.arraycopy(wallBits, i * colSize, row, 0, colSize);
+                sink.acceptRow(i, row);
+              }
+            });
+  }
+
+  /**
+   * to create a mapped grid file whose wall bits are written row by row, so the wall bits never
+   * have to fit in the heap.
+   *
+   * @param file              the file to create, replaced if it exists.
+   * @param rowSize           the rows of the grid.
+   * @param colSize           the columns of the grid.
+   * @param isWrapping        if the dungeon is wrapping or non-wrapping.
+   * @param interconnectivity the interconnectivity of the dungeon.
+   * @param treasurePercent   percent of treasure in the dungeon.
+   * @param difficulty        the number of monsters in the dungeon.
+   * @param producer          the producer writing the rows of wall bits.
+   * @return the mapped grid.
+   * @throws IOException if the file cannot be written.
+   */
+  public static MappedGrid create(Path file, int rowSize, int colSize, boolean isWrapping,
+                                  int interconnectivity, int treasurePercent, int difficulty,
+                                  RowProducer producer) throws IOException {
+    if (file == null || producer == null || rowSize < 1 || colSize < 1) {
+      throw new IllegalArgumentException("invalid arguments to create a mapped grid");
+    }
+    if ((long) rowSize * colSize > Integer.MAX_VALUE) {
+      throw new IllegalArgumentException("a mapped grid holds at most " + Integer.MAX_VALUE
+              + " locations");
+    }
+    final FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+            StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ,
+            StandardOpenOption.WRITE);
+    try {
+      final MappedRegion walls = new MappedRegion(channel, HEADER_SIZE,
+              (long) rowSize * colSize);
+      final int[] counts = new int[2];
+      producer.generate((row, wallBits) -> {
+        final long offset = (long) row * colSize;
+        for (int j = 0; j < colSize; j++) {
+          walls.putByte(offset + j, wallBits[j]);
+          final int entrances = WallBits.getNumberOfEntrance(wallBits[j]);
+          if (entrances == 2) {
+            counts[1]++;
+          } else if (entrances > 0) {
+            counts[0]++;
+          }
+        }
+      });
+
+      final MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_WRITE, 0,
+              HEADER_SIZE);
+      header.putInt(0, MAGIC);
+      header.putInt(4, VERSION);
+      header.putInt(ROWS, rowSize);
+      header.putInt(COLS, colSize);
+      header.putInt(FLAGS, isWrapping ? WRAPPING_FLAG : 0);
+      header.putInt(INTERCONNECTIVITY, interconnectivity);
+      header.putInt(TREASURE_PERCENT, treasurePercent);
+      header.putInt(DIFFICULTY, difficulty);
+      header.putInt(CAVES, counts[0]);
+      header.putInt(TUNNELS, counts[1]);
+      header.putInt(START, -1);
+      header.putInt(END, -1);
+      header.putInt(MONSTERS, 0);
+
+      final MappedGrid grid = new MappedGrid(channel, header, rowSize, colSize, counts[0],
+              counts[1]);
+      int caveIndex = 0;
+      for (long id = 0; id < (long) rowSize * colSize; id++) {
+        final int entrances = WallBits.getNumberOfEntrance(grid.walls.getByte(id));
+        if (entrances != 2 && entrances > 0) {
+          grid.caveIds.putInt(caveIndex, (int) id);
+          grid.monsterHealth.putByte(caveIndex, (byte) NO_MONSTER);
+          caveIndex++;
+        }
+      }
+      return grid;
+    } catch (IOException | RuntimeException e) {
+      channel.close();
+      throw e;
+    }
+  }
+
+  /**
+   * to open an existing mapped grid file, without reading its locations.
+   *
+   * @param file the file to open.
+   * @return the mapped grid.
+   * @throws IOException if the file cannot be opened or is not a mapped grid file.
+   */
+  public static MappedGrid open(Path file) throws IOException {
+    final FileChannel channel = FileChannel.open(file, StandardOpenOption.READ,
+            StandardOpenOption.WRITE);
+    try {
+      if (channel.size() < HEADER_SIZE) {
+        throw new IOException("file is too small to be a mapped dungeon");
+      }
+      final MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_WRITE, 0,
+              HEADER_SIZE);
+      if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION) {
+        throw new IOException("file is not a mapped dungeon of version " + VERSION);
+      }
+      final int rowSize = header.getInt(ROWS);
+      final int colSize = header.getInt(COLS);
+      final int numCaves = header.getInt(CAVES);
+      final int numTunnels = header.getInt(TUNNELS);
+      final long numLocations = (long) rowSize * colSize;
+      if (rowSize < 1 || colSize < 1 || numLocations > Integer.MAX_VALUE || numCaves < 0
+              || numTunnels < 0 || (long) numCaves + numTunnels > numLocations) {
+        throw new IOException("invalid header of a mapped dungeon");
+      }
+      // mapping the regions read-write would silently grow a truncated file with zeros
+      if (channel.size() < getFileSize(numLocations, numCaves)) {
+        throw new IOException("mapped dungeon file is truncated");
+      }
+      return new MappedGrid(channel, header, rowSize, colSize, numCaves, numTunnels);
+    } catch (IOException | RuntimeException e) {
+      channel.close();
+      throw e;
+    }
+  }
+
+  /**
+   * to get the size of a file holding the given locations and caves, as laid out by the
+   * constructor, each region starting at an offset aligned to eight bytes.
+   */
+  private static long getFileSize(long numLocations, long numCaves) {
+    final long[] regionSizes = {numLocations, 2 * numLocations, 2 * numLocations,
+        4 * numCaves, 2 * numCaves * TREASURES.length, numCaves, 4 * numCaves};
+    long end = HEADER_SIZE;
+    for (long regionSize : regionSizes) {
+      end = ((end + 7) & ~7L) + regionSize;
+    }
+    return end;
+  }
+
+  /**
+   * to check if the dungeon is wrapping.
+   *
+   * @return true if the dungeon is wrapping.
+   */
+  public boolean isWrapping() {
+    return (header.getInt(FLAGS) & WRAPPING_FLAG) != 0;
+  }
+
+  /**
+   * to get the interconnectivity of the dungeon.
+   *
+   * @return the interconnectivity.
+   */
+  public int getInterconnectivity() {
+    return header.getInt(INTERCONNECTIVITY);
+  }
+
+  /**
+   * to get the treasure percent of the dungeon.
+   *
+   * @return the treasure percent.
+   */
+  public int getTreasurePercent() {
+    return header.getInt(TREASURE_PERCENT);
+  }
+
+  /**
+   * to get the difficulty of the dungeon.
+   *
+   * @return the difficulty.
+   */
+  public int getDifficulty() {
+    return header.getInt(DIFFICULTY);
+  }
+
+  /**
+   * to get the id of the start location.
+   *
+   * @return the id, -1 if no start is assigned.
+   */
+  public int getStartId() {
+    return header.getInt(START);
+  }
+
+  /**
+   * to set the id of the start location.
+   *
+   * @param id the id of the location.
+   */
+  public void setStartId(int id) {
+    header.putInt(START, id);
+  }
+
+  /**
+   * to get the id of the end location.
+   *
+   * @return the id, -1 if no end is assigned.
+   */
+  public int getEndId() {
+    return header.getInt(END);
+  }
+
+  /**
+   * to set the id of the end location.
+   *
+   * @param id the id of the location.
+   */
+  public void setEndId(int id) {
+    header.putInt(END, id);
+  }
+
+  /**
+   * to get the indices of the caves that were given a monster, in the order they were given.
+   *
+   * @return the cave indices.
+   */
+  public int[] getMonsterCaveIndices() {
+    final int[] indices = new int[header.getInt(MONSTERS)];
+    for (int i = 0; i < indices.length; i++) {
+      indices[i] = monsterCaves.getInt(i);
+    }
+    return indices;
+  }
+
+  /**
+   * to write every change made to the grid to the file.
+   */
+  public void force() {
+    header.force();
+    walls.force();
+    smellLevels.force();
+    arrows.force();
+    caveIds.force();
+    treasures.force();
+    monsterHealth.force();
+    monsterCaves.force();
+  }
+
+  @Override
+  public void close() throws IOException {
+    force();
+    channel.close();
+  }
+
+  @Override
+  public int getNumberOfCaves() {
+    return numCaves;
+  }
+
+  @Override
+  public int getNumberOfTunnels() {
+    return numTunnels;
+  }
+
+  @Override
+  public int getWallBits(int id) {
+    return walls.getByte(id);
+  }
+
+  @Override
+  protected void setWallBits(int id, int wallBits) {
+    walls.putByte(id, (byte) wallBits);
+  }
+
+  @Override
+  public int getArrows(int id) {
+    return arrows.getShort(id);
+  }
+
+  @Override
+  protected void setArrows(int id, int arrows) {
+    this.arrows.putShort(id, toShort(arrows));
+  }
+
+  @Override
+  public int getSmellLevel(int id) {
+    return smellLevels.getShort(id);
+  }
+
+  @Override
+  protected void setSmellLevel(int id, int smellLevel) {
+    smellLevels.putShort(id, toShort(smellLevel));
+  }
+
+  @Override
+  public int getCaveId(int caveIndex) {
+    return caveIds.getInt(caveIndex);
+  }
+
+  @Override
+  public int getTreasureCount(int caveIndex, Treasure treasure) {
+    return treasures.getShort((long) caveIndex * TREASURES.length + treasure.ordinal());
+  }
+
+  @Override
+  protected void setTreasureCount(int caveIndex, Treasure treasure, int count) {
+    treasures.putShort((long) caveIndex * TREASURES.length + treasure.ordinal(),
+            toShort(count));
+  }
+
+  @Override
+  public int getMonsterHealth(int caveIndex) {
+    return monsterHealth.getByte(caveIndex);
+  }
+
+  @Override
+  protected void setMonsterHealth(int caveIndex, int health) {
+    final byte value = toByte(health);
+    if (monsterHealth.getByte(caveIndex) == NO_MONSTER && health != NO_MONSTER) {
+      final int numMonsters = header.getInt(MONSTERS);
+      monsterCaves.putInt(numMonsters, caveIndex);
+      header.putInt(MONSTERS, numMonsters + 1);
+    }
+    monsterHealth.putByte(caveIndex, value);
+  }
+
+}
@@ -0,0 +1,84 @@
+package dungeon;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * A region of a file mapped into memory in chunks, so the region can be larger than a single
+ * buffer. Values are addressed by their index and never cross a chunk.
+ */
+class MappedRegion {
+  private static final int CHUNK_BITS = 30;
+  private static final long CHUNK_MASK = (1L << CHUNK_BITS) - 1;
+
+  private final long offset;
+  private final long size;
+  private final MappedByteBuffer[] chunks;
+
+  /**
+   * to map a region of the file, the file grows if it is too small.
+   *
+   * @param channel the channel of the file.
+   * @param offset  the position of the region in the file.
+   * @param size    the size of the region in bytes.
+   * @throws IOException if the region cannot be mapped.
+   */
+  MappedRegion(FileChannel channel, long offset, long size) throws IOException {
+    this.offset = offset;
+    this.size = size;
+    this.chunks = new MappedByteBuffer[(int) ((size + CHUNK_MASK) >>> CHUNK_BITS)];
+    for (int i = 0; i < chunks.length; i++) {
+      final long chunkStart = (long) i << CHUNK_BITS;
+      chunks[i] = channel.map(FileChannel.MapMode.READ_WRITE, offset + chunkStart,
+              Math.min(size - chunkStart, 1L << CHUNK_BITS));
+    }
+  }
+
+  /**
+   * to get the position in the file right after the region, aligned to eight bytes.
+   *
+   * @return the end of the region.
+   */
+  long getEnd() {
+    return (offset + size + 7) & ~7L;
+  }
+
+  byte getByte(long index) {
+    return chunks[(int) (index >>> CHUNK_BITS)].get((int) (index & CHUNK_MASK));
+  }
+
+  void putByte(long index, byte value) {
+    chunks[(int) (index >>> CHUNK_BITS)].put((int) (index & CHUNK_MASK), value);
+  }
+
+  short getShort(long index) {
+    final long position = index << 1;
+    return chunks[(int) (position >>> CHUNK_BITS)].getShort((int) (position & CHUNK_MASK));
+  }
+
+  void putShort(long index, short value) {
+    final long position = index << 1;
+    chunks[(int) (position >>> CHUNK_BITS)].putShort((int) (position & CHUNK_MASK), value);
+  }
+
+  int getInt(long index) {
+    final long position = index << 2;
+    return chunks[(int) (position >>> CHUNK_BITS)].getInt((int) (position & CHUNK_MASK));
+  }
+
+  void putInt(long index, int value) {
+    final long position = index << 2;
+    chunks[(int) (position >>> CHUNK_BITS)].putInt((int) (position & CHUNK_MASK), value);
+  }
+
+  /**
+   * to write the changes of the region to the file.
+   */
+  void force() {
+    for (MappedByteBuffer chunk : chunks) {
+      chunk.force();
+    }
+  }
+
+}
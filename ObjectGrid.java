@@ -0,0 +1,75 @@
+package dungeon;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A grid keeping every location of the dungeon as an object.
+ */
+public class ObjectGrid implements DungeonGrid {
+  private final AbstractLocation[][] locations;
+  private final List<Cave> caves;
+  private final List<Tunnel> tunnels;
+
+  /**
+   * to build the grid from locations, which are turned into caves and tunnels.
+   *
+   * @param locations the locations grid.
+   * @throws IllegalArgumentException for an empty grid.
+   */
+  public ObjectGrid(AbstractLocation[][] locations) throws IllegalArgumentException {
+    if (locations == null || locations.length == 0 || locations[0].length == 0) {
+      throw new IllegalArgumentException("locations cannot be empty");
+    }
+    this.locations = locations;
+    this.caves = new ArrayList<>();
+    this.tunnels = new ArrayList<>();
+    new DungeonHelper().setLocationsByType(locations, caves, tunnels);
+  }
+
+  @Override
+  public int getRowSize() {
+    return locations.length;
+  }
+
+  @Override
+  public int getColSize() {
+    return locations[0].length;
+  }
+
+  @Override
+  public AbstractLocation getLocation(int row, int col) {
+    return locations[row][col];
+  }
+
+  @Override
+  public AbstractLocation[][] getLocations() {
+    return locations;
+  }
+
+  @Override
+  public int getNumberOfCaves() {
+    return caves.size();
+  }
+
+  @Override
+  public Cave getCave(int index) {
+    return caves.get(index);
+  }
+
+  @Override
+  public int getNumberOfTunnels() {
+    return tunnels.size();
+  }
+
+  @Override
+  public List<Cave> getCaves() {
+    return new ArrayList<>(caves);
+  }
+
+  @Override
+  public List<Tunnel> getTunnels() {
+    return new ArrayList<>(tunnels);
+  }
+
+}
@@ -0,0 +1,569 @@
+package dungeon;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A grid keeping the state of the dungeon as primitive values indexed by location id, leaving
+ * to its subclasses where the values are stored. Caves are numbered in the order of their ids
+ * and keep their treasure counts and monster health by that number. Locations handed out by the
+ * grid are light views over the stored values, so they are created on every call and any change
+ * made through them is written back to the grid.
+ */
+public abstract class PackedGrid implements DungeonGrid {
+
+  /**
+   * the treasures in the order their counts are stored for a cave.
+   */
+  protected static final Treasure[] TREASURES = Treasure.values();
+
+  /**
+   * the monster health stored for a cave without a monster.
+   */
+  protected static final int NO_MONSTER = -1;
+
+  private final int rowSize;
+  private final int colSize;
+  private ItemIndex itemIndex;
+
+  /**
+   * to build the grid with its size.
+   *
+   * @param rowSize the rows of the grid.
+   * @param colSize the columns of the grid.
+   * @throws IllegalArgumentException for invalid sizes.
+   */
+  protected PackedGrid(int rowSize, int colSize) throws IllegalArgumentException {
+    if (rowSize < 1 || colSize < 1) {
+      throw new IllegalArgumentException("row and column size must be positive");
+    }
+    this.rowSize = rowSize;
+    this.colSize = colSize;
+  }
+
+  /**
+   * to get the wall bits of a location.
+   *
+   * @param id the id of the location.
+   * @return the wall bits, see {@link WallBits}.
+   */
+  public abstract int getWallBits(int id);
+
+  /**
+   * to set the wall bits of a location.
+   *
+   * @param id       the id of the location.
+   * @param wallBits the wall bits, see {@link WallBits}.
+   */
+  protected abstract void setWallBits(int id, int wallBits);
+
+  /**
+   * to get the arrows of a location.
+   *
+   * @param id the id of the location.
+   * @return the number of arrows.
+   */
+  public abstract int getArrows(int id);
+
+  /**
+   * to set the arrows of a location.
+   *
+   * @param id     the id of the location.
+   * @param arrows the number of arrows.
+   * @throws IllegalArgumentException if the grid cannot hold the number.
+   */
+  protected abstract void setArrows(int id, int arrows);
+
+  /**
+   * to get the smell level of a location.
+   *
+   * @param id the id of the location.
+   * @return the smell level.
+   */
+  public abstract int getSmellLevel(int id);
+
+  /**
+   * to set the smell level of a location.
+   *
+   * @param id         the id of the location.
+   * @param smellLevel the smell level.
+   * @throws IllegalArgumentException if the grid cannot hold the level.
+   */
+  protected abstract void setSmellLevel(int id, int smellLevel);
+
+  /**
+   * to get the id of a cave.
+   *
+   * @param caveIndex the index of the cave.
+   * @return the id of the location.
+   */
+  public abstract int getCaveId(int caveIndex);
+
+  /**
+   * to get the count of a treasure in a cave.
+   *
+   * @param caveIndex the index of the cave.
+   * @param treasure  the treasure.
+   * @return the count of the treasure.
+   */
+  public abstract int getTreasureCount(int caveIndex, Treasure treasure);
+
+  /**
+   * to set the count of a treasure in a cave.
+   *
+   * @param caveIndex the index of the cave.
+   * @param treasure  the treasure.
+   * @param count     the count of the treasure.
+   * @throws IllegalArgumentException if the grid cannot hold the count.
+   */
+  protected abstract void setTreasureCount(int caveIndex, Treasure treasure, int count);
+
+  /**
+   * to get the health of the monster in a cave.
+   *
+   * @param caveIndex the index of the cave.
+   * @return the health, {@link #NO_MONSTER} if the cave never had a monster.
+   */
+  public abstract int getMonsterHealth(int caveIndex);
+
+  /**
+   * to set the health of the monster in a cave.
+   *
+   * @param caveIndex the index of the cave.
+   * @param health    the health.
+   * @throws IllegalArgumentException if the grid cannot hold the health.
+   */
+  protected abstract void setMonsterHealth(int caveIndex, int health);
+
+  /**
+   * to narrow a value to the short it is stored as.
+   *
+   * @param value the value.
+   * @return the short.
+   * @throws IllegalArgumentException if the value is out of the range of a short.
+   */
+  protected static short toShort(int value) throws IllegalArgumentException {
+    if (value < Short.MIN_VALUE || value > Short.MAX_VALUE) {
+      throw new IllegalArgumentException("value " + value + " does not fit in a short");
+    }
+    return (short) value;
+  }
+
+  /**
+   * to narrow a value to the byte it is stored as.
+   *
+   * @param value the value.
+   * @return the byte.
+   * @throws IllegalArgumentException if the value is out of the range of a byte.
+   */
+  protected static byte toByte(int value) throws IllegalArgumentException {
+    if (value < Byte.MIN_VALUE || value > Byte.MAX_VALUE) {
+      throw new IllegalArgumentException("value " + value + " does not fit in a byte");
+    }
+    return (byte) value;
+  }
+
+  @Override
+  public int getRowSize() {
+    return rowSize;
+  }
+
+  @Override
+  public int getColSize() {
+    return colSize;
+  }
+
+  @Override
+  public AbstractLocation getLocation(int row, int col) {
+    if (row < 0 || row >= rowSize || col < 0 || col >= colSize) {
+      throw new ArrayIndexOutOfBoundsException("location is outside the grid");
+    }
+    final int id = row * colSize + col;
+    final int entrances = WallBits.getNumberOfEntrance(getWallBits(id));
+    if (entrances == 2) {
+      return new PackedTunnel(row, col);
+    } else if (entrances > 0) {
+      return new PackedCave(row, col, getCaveIndex(id));
+    }
+    return new PackedLocation(row, col);
+  }
+
+  @Override
+  public AbstractLocation[][] getLocations() {
+    final AbstractLocation[][] locations = new AbstractLocation[rowSize][colSize];
+    for (int i = 0; i < rowSize; i++) {
+      for (int j = 0; j < colSize; j++) {
+        locations[i][j] = getLocation(i, j);
+      }
+    }
+    return locations;
+  }
+
+  @Override
+  public Cave getCave(int index) {
+    final int id = getCaveId(index);
+    return new PackedCave(id / colSize, id % colSize, index);
+  }
+
+  @Override
+  public List<Cave> getCaves() {
+    final int numberOfCaves = getNumberOfCaves();
+    final List<Cave> caves = new ArrayList<>(numberOfCaves);
+    for (int i = 0; i < numberOfCaves; i++) {
+      caves.add(getCave(i));
+    }
+    return caves;
+  }
+
+  @Override
+  public List<Tunnel> getTunnels() {
+    final List<Tunnel> tunnels = new ArrayList<>(getNumberOfTunnels());
+    for (int id = 0; id < rowSize * colSize; id++) {
+      if (WallBits.getNumberOfEntrance(getWallBits(id)) == 2) {
+        tunnels.add(new PackedTunnel(id / colSize, id % colSize));
+      }
+    }
+    return tunnels;
+  }
+
+  /**
+   * to get the index of a cave among the caves.
+   *
+   * @param id the id of the location.
+   * @return the index of the cave, negative if the location is not a cave.
+   */
+  public int getCaveIndex(int id) {
+    int low = 0;
+    int high = getNumberOfCaves() - 1;
+    while (low <= high) {
+      final int mid = (low + high) >>> 1;
+      final int midId = getCaveId(mid);
+      if (midId < id) {
+        low = mid + 1;
+      } else if (midId > id) {
+        high = mid - 1;
+      } else {
+        return mid;
+      }
+    }
+    return -(low + 1);
+  }
+
+  /**
+   * to count the caves and tunnels of the wall bits of a grid.
+   *
+   * @param wallBits the wall bits of every location.
+   * @return the number of caves and the number of tunnels.
+   */
+  protected static int[] countCavesAndTunnels(byte[] wallBits) {
+    final int[] counts = new int[2];
+    for (byte bits : wallBits) {
+      final int entrances = WallBits.getNumberOfEntrance(bits);
+      if (entrances == 2) {
+        counts[1]++;
+      } else if (entrances > 0) {
+        counts[0]++;
+      }
+    }
+    return counts;
+  }
+
+  /**
+   * to set the index to keep up to date with the items of every location of the grid.
+   *
+   * @param itemIndex the index, null to stop indexing the grid.
+   */
+  void setItemIndex(ItemIndex itemIndex) {
+    this.itemIndex = itemIndex;
+  }
+
+  /**
+   * the state of a location kept in the grid, shared by the views of every kind of location.
+   * The views are made on demand and keep no item index of their own, the state keeps the item
+   * index of the grid up to date instead.
+   */
+  private final class LocationState {
+    private final AbstractLocation location;
+    private final int id;
+
+    private LocationState(AbstractLocation location) {
+      this.location = location;
+      this.id = location.getRowDim() * colSize + location.getColDim();
+    }
+
+    private int getWallBits() {
+      return PackedGrid.this.getWallBits(id);
+    }
+
+    private void setWallBits(int wallBits) {
+      PackedGrid.this.setWallBits(id, wallBits);
+    }
+
+    private int getArrows() {
+      return PackedGrid.this.getArrows(id);
+    }
+
+    private void addArrows(int count) {
+      setArrows(id, getArrows() + count);
+      notifyItemsChanged();
+    }
+
+    private int getSmellLevel() {
+      return PackedGrid.this.getSmellLevel(id);
+    }
+
+    private void addSmellLevel(int val) {
+      setSmellLevel(id, getSmellLevel() + val);
+    }
+
+    private void notifyItemsChanged() {
+      if (itemIndex != null) {
+        itemIndex.update(location);
+      }
+    }
+  }
+
+  /**
+   * a location with no entrance.
+   */
+  private final class PackedLocation extends AbstractLocation {
+    private final LocationState state;
+
+    private PackedLocation(int rowDim, int colDim) {
+      super(rowDim, colDim);
+      this.state = new LocationState(this);
+    }
+
+    @Override
+    public int getWallBits() {
+      return state.getWallBits();
+    }
+
+    @Override
+    protected void setWallBits(int wallBits) {
+      state.setWallBits(wallBits);
+    }
+
+    @Override
+    public void addArrows() {
+      state.addArrows(1);
+    }
+
+    @Override
+    public int getNumOfArrowsPresent() {
+      return state.getArrows();
+    }
+
+    @Override
+    public void removeArrow() {
+      state.addArrows(-1);
+    }
+
+    @Override
+    public void incrementSmellLevel(int val) {
+      state.addSmellLevel(val);
+    }
+
+    @Override
+    public void decrementSmellLevel(int val) {
+      state.addSmellLevel(-val);
+    }
+
+    @Override
+    public int getSmellLevel() {
+      return state.getSmellLevel();
+    }
+  }
+
+  /**
+   * a tunnel view over the grid.
+   */
+  private final class PackedTunnel extends Tunnel {
+    private final LocationState state;
+
+    private PackedTunnel(int rowDim, int colDim) {
+      super(rowDim, colDim);
+      this.state = new LocationState(this);
+    }
+
+    @Override
+    public int getWallBits() {
+      return state.getWallBits();
+    }
+
+    @Override
+    protected void setWallBits(int wallBits) {
+      state.setWallBits(wallBits);
+    }
+
+    @Override
+    public void addArrows() {
+      state.addArrows(1);
+    }
+
+    @Override
+    public int getNumOfArrowsPresent() {
+      return state.getArrows();
+    }
+
+    @Override
+    public void removeArrow() {
+      state.addArrows(-1);
+    }
+
+    @Override
+    public void incrementSmellLevel(int val) {
+      state.addSmellLevel(val);
+    }
+
+    @Override
+    public void decrementSmellLevel(int val) {
+      state.addSmellLevel(-val);
+    }
+
+    @Override
+    public int getSmellLevel() {
+      return state.getSmellLevel();
+    }
+  }
+
+  /**
+   * a cave view over the grid.
+   */
+  private final class PackedCave extends Cave {
+    private final LocationState state;
+    private final int caveIndex;
+
+    private PackedCave(int rowDim, int colDim, int caveIndex) {
+      super(rowDim, colDim);
+      this.state = new LocationState(this);
+      this.caveIndex = caveIndex;
+    }
+
+    @Override
+    public int getWallBits() {
+      return state.getWallBits();
+    }
+
+    @Override
+    protected void setWallBits(int wallBits) {
+      state.setWallBits(wallBits);
+    }
+
+    @Override
+    public void addArrows() {
+      state.addArrows(1);
+    }
+
+    @Override
+    public int getNumOfArrowsPresent() {
+      return state.getArrows();
+    }
+
+    @Override
+    public void removeArrow() {
+      state.addArrows(-1);
+    }
+
+    @Override
+    public void incrementSmellLevel(int val) {
+      state.addSmellLevel(val);
+    }
+
+    @Override
+    public void decrementSmellLevel(int val) {
+      state.addSmellLevel(-val);
+    }
+
+    @Override
+    public int getSmellLevel() {
+      return state.getSmellLevel();
+    }
+
+    @Override
+    public void addTreasures(Treasure treasure) {
+      if (treasure == null) {
+        throw new IllegalArgumentException("Treasure is invalid to be assigned to a cave");
+      }
+      setTreasureCount(caveIndex, treasure, getTreasureCount(treasure) + 1);
+      state.notifyItemsChanged();
+    }
+
+    @Override
+    public void removeTreasure(Treasure treasure) throws IllegalArgumentException {
+      if (treasure == null) {
+        throw new IllegalArgumentException("Treasure is invalid to be removed from a cave");
+      }
+      if (getTreasureCount(treasure) <= 0) {
+        throw new IllegalArgumentException("Cannot pick a treasure that is not available");
+      }
+      setTreasureCount(caveIndex, treasure, getTreasureCount(treasure) - 1);
+      state.notifyItemsChanged();
+    }
+
+    @Override
+    public int getTreasureCount(Treasure treasure) {
+      return PackedGrid.this.getTreasureCount(caveIndex, treasure);
+    }
+
+    @Override
+    public Map<Treasure, Integer> getTreasures() {
+      final Map<Treasure, Integer> treasureMap = new EnumMap<>(Treasure.class);
+      for (Treasure treasure : TREASURES) {
+        final int count = getTreasureCount(treasure);
+        if (count > 0) {
+          treasureMap.put(treasure, count);
+        }
+      }
+      return treasureMap;
+    }
+
+    @Override
+    public void addMonster() {
+      if (hasOtyugh()) {
+        throw new IllegalStateException("Otyugh already present in the cave");
+      }
+      setMonsterHealth(caveIndex, 100);
+    }
+
+    @Override
+    public Otyugh getMonster() {
+      return getMonsterHealth(caveIndex) == NO_MONSTER ? null
+              : new PackedOtyugh(this, caveIndex);
+    }
+  }
+
+  /**
+   * an otyugh view over the grid.
+   */
+  private final class PackedOtyugh extends Otyugh {
+    private final int caveIndex;
+
+    private PackedOtyugh(AbstractLocation location, int caveIndex) {
+      super(location);
+      this.caveIndex = caveIndex;
+    }
+
+    @Override
+    public int getHealth() {
+      return getMonsterHealth(caveIndex);
+    }
+
+    @Override
+    public void setHealthAfterHit() {
+      if (!isSlayed()) {
+        setMonsterHealth(caveIndex, Math.max(0, getHealth() - 50));
+      } else {
+        throw new IllegalStateException("Monster already slayed cannot get hit");
+      }
+    }
+
+    @Override
+    public Boolean isSlayed() {
+      return getHealth() == 0;
+    }
+  }
+
+}
@@ -0,0 +1,201 @@
+package dungeon;
+
+import java.util.BitSet;
+
+/**
+ * A class to represent the walls of a maze as packed int values instead of wall objects. A wall
+ * is packed as the id of the location preceding it shifted left by one, with the lowest bit
+ * holding the orientation (0 for vertical, 1 for horizontal).
+ */
+public class PackedWalls {
+
+  /**
+   * The number of rows of the maze.
+   */
+  private final int rowSize;
+
+  /**
+   * The number of columns of the maze.
+   */
+  private final int colSize;
+
+  /**
+   * The packed walls in the order they are visited.
+   */
+  private final int[] walls;
+
+  /**
+   * The walls that are knocked down, indexed by the packed wall.
+   */
+  private final BitSet brokenWalls;
+
+  /**
+   * The number of walls that are knocked down.
+   */
+  private int numBroken;
+
+  /**
+   * A constructor for all the walls of a maze.
+   *
+   * @param rowSize    the rows of the maze
+   * @param colSize    the columns of the maze
+   * @param isWrapping if the maze wraps around its borders
+   * @throws IllegalArgumentException for invalid row and column sizes
+   */
+  public PackedWalls(int rowSize, int colSize, boolean isWrapping)
+          throws IllegalArgumentException {
+    if (rowSize < 1 || colSize < 1) {
+      throw new IllegalArgumentException("row and column size must be positive");
+    }
+    this.rowSize = rowSize;
+    this.colSize = colSize;
+    if (isWrapping) {
+      this.walls = new int[2 * rowSize * colSize];
+    } else {
+      this.walls = new int[2 * rowSize * colSize - rowSize - colSize];
+    }
+    this.brokenWalls = new BitSet(2 * rowSize * colSize);
+
+    int num = 0;
+    for (int i = 0; i < rowSize; i++) {
+      for (int j = 0; j < colSize; j++) {
+        if (isWrapping || i < rowSize - 1) {
+          walls[num++] = pack(i, j, Orientation.VERTICAL);
+        }
+        if (isWrapping || j < colSize - 1) {
+          walls[num++] = pack(i, j, Orientation.HORIZONTAL);
+        }
+      }
+    }
+  }
+
+  /**
+   * Packs a wall into an int.
+   *
+   * @param row         the row preceding the wall
+   * @param col         the column preceding the wall
+   * @param orientation the orientation of the wall
+   * @return the packed wall
+   */
+  public int pack(int row, int col, Orientation orientation) {
+    return ((row * colSize + col) << 1) | (orientation == Orientation.HORIZONTAL ? 1 : 0);
+  }
+
+  /**
+   * Returns the number of walls.
+   *
+   * @return the number of walls
+   */
+  public int size() {
+    return walls.length;
+  }
+
+  /**
+   * Returns the packed wall at the given position.
+   *
+   * @param index the position of the wall
+   * @return the packed wall
+   */
+  public int getWall(int index) {
+    return walls[index];
+  }
+
+  /**
+   * Swaps the walls at two positions, used to shuffle the walls.
+   *
+   * @param i the first position
+   * @param j the second position
+   */
+  public void swap(int i, int j) {
+    final int temp = walls[i];
+    walls[i] = walls[j];
+    walls[j] = temp;
+  }
+
+  /**
+   * Returns the row of a packed wall.
+   *
+   * @param wall the packed wall
+   * @return the row preceding the wall
+   */
+  public int getRow(int wall) {
+    return (wall >>> 1) / colSize;
+  }
+
+  /**
+   * Returns the column of a packed wall.
+   *
+   * @param wall the packed wall
+   * @return the column preceding the wall
+   */
+  public int getCol(int wall) {
+    return (wall >>> 1) % colSize;
+  }
+
+  /**
+   * Returns the orientation of a packed wall.
+   *
+   * @param wall the packed wall
+   * @return the orientation of the wall
+   */
+  public Orientation getOrientation(int wall) {
+    return (wall & 1) == 0 ? Orientation.VERTICAL : Orientation.HORIZONTAL;
+  }
+
+  /**
+   * Returns the id of the location preceding the wall.
+   *
+   * @param wall the packed wall
+   * @return the location id
+   */
+  public int getLocationId(int wall) {
+    return wall >>> 1;
+  }
+
+  /**
+   * Returns the id of the location following the wall, wrapping around the borders.
+   *
+   * @param wall the packed wall
+   * @return the location id
+   */
+  public int getNeighborId(int wall) {
+    final int row = getRow(wall);
+    final int col = getCol(wall);
+    if ((wall & 1) == 0) {
+      return (row == rowSize - 1 ? 0 : row + 1) * colSize + col;
+    }
+    return row * colSize + (col == colSize - 1 ? 0 : col + 1);
+  }
+
+  /**
+   * Marks a wall as knocked down.
+   *
+   * @param wall the packed wall
+   */
+  public void markBroken(int wall) {
+    if (!brokenWalls.get(wall)) {
+      brokenWalls.set(wall);
+      numBroken++;
+    }
+  }
+
+  /**
+   * Returns whether a wall is knocked down.
+   *
+   * @param wall the packed wall
+   * @return true if the wall is knocked down
+   */
+  public boolean isBroken(int wall) {
+    return brokenWalls.get(wall);
+  }
+
+  /**
+   * Returns the number of walls that are still standing.
+   *
+   * @return the number of left over walls
+   */
+  public int getNumLeftOver() {
+    return walls.length - numBroken;
+  }
+
+}
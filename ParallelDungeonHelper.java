@@ -0,0 +1,269 @@
+package dungeon;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * A helper class for building very large dungeons on several cores. The grid is split into
+ * square tiles whose spanning trees are carved concurrently, then the tiles are stitched along
+ * their borders with a final union find pass over the tiles. The tiles do not depend on the
+ * number of threads, so the same seed builds the same dungeon for any pool size.
+ */
+public class ParallelDungeonHelper {
+
+  /**
+   * the default number of rows and columns of a tile.
+   */
+  public static final int DEFAULT_TILE_SIZE = 256;
+
+  private final ForkJoinPool pool;
+  private final int tileSize;
+
+  /**
+   * to build a helper running on the common pool with the default tile size.
+   */
+  public ParallelDungeonHelper() {
+    this(ForkJoinPool.commonPool(), DEFAULT_TILE_SIZE);
+  }
+
+  /**
+   * to build a helper running on the given pool.
+   *
+   * @param pool     the pool carving the tiles.
+   * @param tileSize the number of rows and columns of a tile.
+   * @throws IllegalArgumentException for a null pool or a tile size less than one.
+   */
+  public ParallelDungeonHelper(ForkJoinPool pool, int tileSize) throws IllegalArgumentException {
+    if (pool == null || tileSize < 1) {
+      throw new IllegalArgumentException("invalid pool or tile size");
+    }
+    this.pool = pool;
+    this.tileSize = tileSize;
+  }
+
+  /**
+   * build locations with connectivity.
+   *
+   * @param rowSize           the row of the dungeon.
+   * @param colSize           the col of the dungeon.
+   * @param isWrapping        wrapping flag.
+   * @param interconnectivity interconnectivity of the the dungeon.
+   * @param seed              the seed of the dungeon.
+   * @return the locations grid.
+   */
+  public AbstractLocation[][] buildAbstractLocationsWithConnectivity(int rowSize, int colSize,
+                                                                     boolean isWrapping,
+                                                                     int interconnectivity,
+                                                                     long seed) {
+    return WallBits.toLocations(buildWallBits(rowSize, colSize, isWrapping, interconnectivity,
+            seed), rowSize, colSize);
+  }
+
+  /**
+   * build the wall bits of every location in row major order, see {@link WallBits}.
+   *
+   * @param rowSize           the row of the dungeon.
+   * @param colSize           the col of the dungeon.
+   * @param isWrapping        wrapping flag.
+   * @param interconnectivity interconnectivity of the the dungeon.
+   * @param seed              the seed of the dungeon.
+   * @return the wall bits.
+   * @throws IllegalArgumentException for invalid sizes or interconnectivity.
+   */
+  public byte[] buildWallBits(int rowSize, int colSize, boolean isWrapping,
+                              int interconnectivity, long seed) throws IllegalArgumentException {
+    if (rowSize < 1 || colSize < 1 || interconnectivity < 0
+            || 2L * rowSize * colSize > Integer.MAX_VALUE) {
+      throw new IllegalArgumentException("invalid arguments to build the dungeon");
+    }
+    final long numWalls = isWrapping ? 2L * rowSize * colSize
+            : 2L * rowSize * colSize - rowSize - colSize;
+    if (interconnectivity > numWalls - ((long) rowSize * colSize - 1)) {
+      throw new IllegalArgumentException("interconnectivity is exceeding the maximum");
+    }
+    final Grid grid = new Grid(rowSize, colSize, isWrapping, tileSize);
+    pool.invoke(new CarveTiles(grid, seed, 0, grid.numTiles));
+    final Random rand = new Random(seed);
+    stitchTiles(grid, rand);
+    breakLeftOverWalls(grid, interconnectivity, rand);
+    return grid.bits;
+  }
+
+  private void stitchTiles(Grid grid, Random rand) {
+    final int[] borderWalls = grid.getBorderWalls();
+    for (int i = borderWalls.length - 1; i > 0; i--) {
+      final int j = rand.nextInt(i + 1);
+      final int temp = borderWalls[i];
+      borderWalls[i] = borderWalls[j];
+      borderWalls[j] = temp;
+    }
+    final UnionFind tiles = new UnionFind(grid.numTiles);
+    for (int i = 0; i < borderWalls.length && tiles.getNumSubsets() > 1; i++) {
+      final int wall = borderWalls[i];
+      final int location = wall >>> 1;
+      if (tiles.union(grid.getTile(location), grid.getTile(grid.getNeighbor(wall)))) {
+        grid.breakWall(wall);
+      }
+    }
+  }
+
+  private void breakLeftOverWalls(Grid grid, int interconnectivity, Random rand) {
+    final int numLocations = grid.rowSize * grid.colSize;
+    int remaining = interconnectivity;
+    while (remaining > 0) {
+      final int wall = (rand.nextInt(numLocations) << 1) | (rand.nextBoolean() ? 1 : 0);
+      if (grid.isStanding(wall)) {
+        grid.breakWall(wall);
+        remaining--;
+      }
+    }
+  }
+
+  /**
+   * the wall bits of the grid along with its tiles.
+   */
+  private static final class Grid {
+    private final int rowSize;
+    private final int colSize;
+    private final boolean isWrapping;
+    private final int tileSize;
+    private final int tileRows;
+    private final int tileCols;
+    private final int numTiles;
+    private final byte[] bits;
+
+    private Grid(int rowSize, int colSize, boolean isWrapping, int tileSize) {
+      this.rowSize = rowSize;
+      this.colSize = colSize;
+      this.isWrapping = isWrapping;
+      this.tileSize = tileSize;
+      this.tileRows = (rowSize + tileSize - 1) / tileSize;
+      this.tileCols = (colSize + tileSize - 1) / tileSize;
+      this.numTiles = tileRows * tileCols;
+      this.bits = new byte[rowSize * colSize];
+      Arrays.fill(bits, (byte) WallBits.ALL);
+    }
+
+    private int getTile(int location) {
+      return (location / colSize / tileSize) * tileCols + (location % colSize) / tileSize;
+    }
+
+    private int getNeighbor(int wall) {
+      final int location = wall >>> 1;
+      final int row = location / colSize;
+      final int col = location % colSize;
+      if ((wall & 1) == 0) {
+        return (row == rowSize - 1 ? 0 : row + 1) * colSize + col;
+      }
+      return row * colSize + (col == colSize - 1 ? 0 : col + 1);
+    }
+
+    private boolean isStanding(int wall) {
+      final int location = wall >>> 1;
+      if ((wall & 1) == 0) {
+        return (isWrapping || location / colSize < rowSize - 1)
+                && (bits[location] & WallBits.DOWN) != 0;
+      }
+      return (isWrapping || location % colSize < colSize - 1)
+              && (bits[location] & WallBits.RIGHT) != 0;
+    }
+
+    private void breakWall(int wall) {
+      final int location = wall >>> 1;
+      final int neighbor = getNeighbor(wall);
+      if ((wall & 1) == 0) {
+        bits[location] &= ~WallBits.DOWN;
+        bits[neighbor] &= ~WallBits.UP;
+      } else {
+        bits[location] &= ~WallBits.RIGHT;
+        bits[neighbor] &= ~WallBits.LEFT;
+      }
+    }
+
+    private int[] getBorderWalls() {
+      final int verticalBorders = isWrapping ? tileRows : tileRows - 1;
+      final int horizontalBorders = isWrapping ? tileCols : tileCols - 1;
+      final int[] walls = new int[verticalBorders * colSize + horizontalBorders * rowSize];
+      int num = 0;
+      for (int t = 0; t < verticalBorders; t++) {
+        final int row = Math.min((t + 1) * tileSize, rowSize) - 1;
+        for (int col = 0; col < colSize; col++) {
+          walls[num++] = (row * colSize + col) << 1;
+        }
+      }
+      for (int t = 0; t < horizontalBorders; t++) {
+        final int col = Math.min((t + 1) * tileSize, colSize) - 1;
+        for (int row = 0; row < rowSize; row++) {
+          walls[num++] = ((row * colSize + col) << 1) | 1;
+        }
+      }
+      return walls;
+    }
+
+    private void carveTile(int tile, long seed) {
+      final int rowStart = (tile / tileCols) * tileSize;
+      final int colStart = (tile % tileCols) * tileSize;
+      final int height = Math.min(tileSize, rowSize - rowStart);
+      final int width = Math.min(tileSize, colSize - colStart);
+      final int[] walls = new int[(height - 1) * width + height * (width - 1)];
+      int num = 0;
+      for (int i = 0; i < height; i++) {
+        for (int j = 0; j < width; j++) {
+          if (i < height - 1) {
+            walls[num++] = (i * width + j) << 1;
+          }
+          if (j < width - 1) {
+            walls[num++] = ((i * width + j) << 1) | 1;
+          }
+        }
+      }
+      final Random rand = new Random(seed ^ (0x9E3779B97F4A7C15L * (tile + 1)));
+      for (int i = walls.length - 1; i > 0; i--) {
+        final int j = rand.nextInt(i + 1);
+        final int temp = walls[i];
+        walls[i] = walls[j];
+        walls[j] = temp;
+      }
+      final UnionFind unions = new UnionFind(height * width);
+      for (int i = 0; i < walls.length && unions.getNumSubsets() > 1; i++) {
+        final int local = walls[i] >>> 1;
+        final int localNeighbor = (walls[i] & 1) == 0 ? local + width : local + 1;
+        if (unions.union(local, localNeighbor)) {
+          final int location = (rowStart + local / width) * colSize + colStart + local % width;
+          breakWall((location << 1) | (walls[i] & 1));
+        }
+      }
+    }
+  }
+
+  /**
+   * the task carving a range of tiles, split in halves until a single tile is left.
+   */
+  private static final class CarveTiles extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+    private final transient Grid grid;
+    private final long seed;
+    private final int from;
+    private final int to;
+
+    private CarveTiles(Grid grid, long seed, int from, int to) {
+      this.grid = grid;
+      this.seed = seed;
+      this.from = from;
+      this.to = to;
+    }
+
+    @Override
+    protected void compute() {
+      if (to - from == 1) {
+        grid.carveTile(from, seed);
+      } else {
+        final int mid = (from + to) >>> 1;
+        invokeAll(new CarveTiles(grid, seed, from, mid), new CarveTiles(grid, seed, mid, to));
+      }
+    }
+  }
+
+}
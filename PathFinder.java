@@ -0,0 +1,429 @@
+package dungeon;
+
+import java.util.Arrays;
+import java.util.function.IntPredicate;
+
+/**
+ * Shortest paths between the locations of a dungeon, over its {@link DungeonGraph}. Paths are
+ * given as the ids of the locations passed through, from the source to the target both
+ * included, and are empty if the target cannot be reached.
+ *
+ * <p>Every search may be given a predicate of the locations that must not be entered, such as
+ * the caves of living monsters. The source itself is never tested. The working arrays of the
+ * searches are kept per thread and reused, so a query only allocates the path it returns, and
+ * a query for a distance allocates nothing. A path finder may be shared between threads.
+ */
+public final class PathFinder {
+  private static final int[] NO_PATH = new int[0];
+  private static final IntPredicate NONE_BLOCKED = id -> false;
+
+  private final DungeonGraph graph;
+  private final GridTopology topology;
+  private final ThreadLocal<Scratch> scratch;
+
+  /**
+   * to construct the path finder of a graph.
+   *
+   * @param graph    the graph of the moves between the locations.
+   * @param topology the grid the graph was built from, for the distance estimates of A*.
+   */
+  PathFinder(DungeonGraph graph, GridTopology topology) {
+    if (graph.size() != topology.size()) {
+      throw new IllegalArgumentException("Graph and grid must have the same size");
+    }
+    this.graph = graph;
+    this.topology = topology;
+    this.scratch = ThreadLocal.withInitial(
+        () -> new Scratch(graph.size(), graph.getNumberOfEdges() + 1));
+  }
+
+  /**
+   * to find a shortest path with an A* search, guided by the distance between the locations
+   * when no walls stand in between.
+   *
+   * @param sourceId the id of the location the path starts at.
+   * @param targetId the id of the location the path ends at.
+   * @return the ids of the locations of the path, empty if there is none.
+   */
+  public int[] findPath(int sourceId, int targetId) {
+    return findPath(sourceId, targetId, NONE_BLOCKED);
+  }
+
+  /**
+   * to find a shortest path with an A* search that does not enter blocked locations.
+   *
+   * @param sourceId  the id of the location the path starts at.
+   * @param targetId  the id of the location the path ends at.
+   * @param isBlocked the test of the locations that cannot be entered.
+   * @return the ids of the locations of the path, empty if there is none.
+   */
+  public int[] findPath(int sourceId, int targetId, IntPredicate isBlocked) {
+    checkIds(sourceId, targetId, isBlocked);
+    if (sourceId == targetId) {
+      return new int[]{sourceId};
+    }
+    if (isBlocked.test(targetId)) {
+      return NO_PATH;
+    }
+    final Scratch s = scratch.get();
+    final int mark = s.nextMark();
+    s.visited[sourceId] = mark;
+    s.distances[sourceId] = 0;
+    s.heapSize = 0;
+    s.push(topology.getManhattanDistance(sourceId, targetId), sourceId);
+    while (s.heapSize > 0) {
+      final int id = s.pop();
+      if (s.closed[id] == mark) {
+        continue;
+      }
+      if (id == targetId) {
+        return buildPath(s.parents, targetId, s.distances[targetId]);
+      }
+      s.closed[id] = mark;
+      final int distance = s.distances[id] + 1;
+      for (int edge = graph.getFirstEdge(id); edge < graph.getEdgeEnd(id); edge++) {
+        final int nextId = graph.getTarget(edge);
+        if (s.closed[nextId] == mark
+                || s.visited[nextId] == mark && s.distances[nextId] <= distance
+                || isBlocked.test(nextId)) {
+          continue;
+        }
+        s.visited[nextId] = mark;
+        s.distances[nextId] = distance;
+        s.parents[nextId] = id;
+        s.push(distance + topology.getManhattanDistance(nextId, targetId), nextId);
+      }
+    }
+    return NO_PATH;
+  }
+
+  /**
+   * to find a shortest path with a breadth first search run from both ends at once.
+   *
+   * @param sourceId the id of the location the path starts at.
+   * @param targetId the id of the location the path ends at.
+   * @return the ids of the locations of the path, empty if there is none.
+   */
+  public int[] findPathBidirectional(int sourceId, int targetId) {
+    return findPathBidirectional(sourceId, targetId, NONE_BLOCKED);
+  }
+
+  /**
+   * to find a shortest path with a breadth first search run from both ends at once, that does
+   * not enter blocked locations.
+   *
+   * @param sourceId  the id of the location the path starts at.
+   * @param targetId  the id of the location the path ends at.
+   * @param isBlocked the test of the locations that cannot be entered.
+   * @return the ids of the locations of the path, empty if there is none.
+   */
+  public int[] findPathBidirectional(int sourceId, int targetId, IntPredicate isBlocked) {
+    final int meetId = searchBidirectional(sourceId, targetId, isBlocked);
+    if (meetId < 0) {
+      return NO_PATH;
+    }
+    final Scratch s = scratch.get();
+    final int toMeet = s.distances[meetId];
+    final int fromMeet = s.otherDistances[meetId];
+    final int[] path = new int[toMeet + fromMeet + 1];
+    fillPath(path, s.parents, meetId, toMeet);
+    int id = meetId;
+    for (int i = toMeet + 1; i < path.length; i++) {
+      id = s.otherParents[id];
+      path[i] = id;
+    }
+    return path;
+  }
+
+  /**
+   * to get the number of moves of a shortest path, found with a breadth first search run from
+   * both ends at once. No arrays are allocated.
+   *
+   * @param sourceId  the id of the location the path starts at.
+   * @param targetId  the id of the location the path ends at.
+   * @param isBlocked the test of the locations that cannot be entered.
+   * @return the number of moves, -1 if there is no path.
+   */
+  public int getDistance(int sourceId, int targetId, IntPredicate isBlocked) {
+    final int meetId = searchBidirectional(sourceId, targetId, isBlocked);
+    if (meetId < 0) {
+      return -1;
+    }
+    final Scratch s = scratch.get();
+    return s.distances[meetId] + s.otherDistances[meetId];
+  }
+
+  /**
+   * to find a shortest path to the nearest location passing a test, such as a cave with
+   * arrows, with a breadth first search.
+   *
+   * @param sourceId  the id of the location the path starts at.
+   * @param isGoal    the test of the locations the path may end at.
+   * @param isBlocked the test of the locations that cannot be entered.
+   * @return the ids of the locations of the path, empty if no goal can be reached.
+   */
+  public int[] findPathToNearest(int sourceId, IntPredicate isGoal, IntPredicate isBlocked) {
+    checkIds(sourceId, sourceId, isBlocked);
+    if (isGoal == null) {
+      throw new IllegalArgumentException("Goal cannot be null");
+    }
+    if (isGoal.test(sourceId)) {
+      return new int[]{sourceId};
+    }
+    final Scratch s = scratch.get();
+    final int mark = s.nextMark();
+    s.visited[sourceId] = mark;
+    s.distances[sourceId] = 0;
+    int head = 0;
+    int tail = 0;
+    s.queue[tail++] = sourceId;
+    while (head < tail) {
+      final int id = s.queue[head++];
+      for (int edge = graph.getFirstEdge(id); edge < graph.getEdgeEnd(id); edge++) {
+        final int nextId = graph.getTarget(edge);
+        if (s.visited[nextId] == mark || isBlocked.test(nextId)) {
+          continue;
+        }
+        s.visited[nextId] = mark;
+        s.distances[nextId] = s.distances[id] + 1;
+        s.parents[nextId] = id;
+        if (isGoal.test(nextId)) {
+          return buildPath(s.parents, nextId, s.distances[nextId]);
+        }
+        s.queue[tail++] = nextId;
+      }
+    }
+    return NO_PATH;
+  }
+
+  /**
+   * to find the nearest locations passing a test, in the order of their distance, with a
+   * breadth first search that stops as soon as the array of nearest locations is full.
+   *
+   * @param sourceId the id of the location the search starts at.
+   * @param isGoal   the test of the locations to find.
+   * @param nearest  the array filled with the ids of the nearest locations.
+   * @return the number of locations found, less than the length of the array if fewer can be
+   *         reached.
+   */
+  public int findNearest(int sourceId, IntPredicate isGoal, int[] nearest) {
+    checkIds(sourceId, sourceId, NONE_BLOCKED);
+    if (isGoal == null || nearest == null) {
+      throw new IllegalArgumentException("Goal and nearest locations cannot be null");
+    }
+    if (nearest.length == 0) {
+      return 0;
+    }
+    int found = 0;
+    if (isGoal.test(sourceId)) {
+      nearest[found++] = sourceId;
+    }
+    final Scratch s = scratch.get();
+    final int mark = s.nextMark();
+    s.visited[sourceId] = mark;
+    int head = 0;
+    int tail = 0;
+    s.queue[tail++] = sourceId;
+    while (head < tail && found < nearest.length) {
+      final int id = s.queue[head++];
+      for (int edge = graph.getFirstEdge(id); edge < graph.getEdgeEnd(id); edge++) {
+        final int nextId = graph.getTarget(edge);
+        if (s.visited[nextId] == mark) {
+          continue;
+        }
+        s.visited[nextId] = mark;
+        if (isGoal.test(nextId)) {
+          nearest[found++] = nextId;
+          if (found == nearest.length) {
+            return found;
+          }
+        }
+        s.queue[tail++] = nextId;
+      }
+    }
+    return found;
+  }
+
+  /**
+   * a breadth first search from both ends, growing the smaller frontier by a whole level at a
+   * time. Once the frontiers touch, the rest of the level is still searched, as a later
+   * location of the level may join them by a shorter path.
+   *
+   * @return the id of the location the shortest path meets at, -1 if there is no path.
+   */
+  private int searchBidirectional(int sourceId, int targetId, IntPredicate isBlocked) {
+    checkIds(sourceId, targetId, isBlocked);
+    final Scratch s = scratch.get();
+    final int mark = s.nextMark();
+    s.visited[sourceId] = mark;
+    s.distances[sourceId] = 0;
+    if (sourceId == targetId) {
+      s.otherDistances[sourceId] = 0;
+      return sourceId;
+    }
+    if (isBlocked.test(targetId)) {
+      return -1;
+    }
+    s.otherVisited[targetId] = mark;
+    s.otherDistances[targetId] = 0;
+    s.queue[0] = sourceId;
+    s.otherQueue[0] = targetId;
+    int head = 0;
+    int tail = 1;
+    int otherHead = 0;
+    int otherTail = 1;
+    while (head < tail && otherHead < otherTail) {
+      final boolean isForward = tail - head <= otherTail - otherHead;
+      final int[] queue = isForward ? s.queue : s.otherQueue;
+      final int[] visited = isForward ? s.visited : s.otherVisited;
+      final int[] distances = isForward ? s.distances : s.otherDistances;
+      final int[] parents = isForward ? s.parents : s.otherParents;
+      final int[] oppositeVisited = isForward ? s.otherVisited : s.visited;
+      final int[] oppositeDistances = isForward ? s.otherDistances : s.distances;
+      int levelHead = isForward ? head : otherHead;
+      final int levelEnd = isForward ? tail : otherTail;
+      int levelTail = levelEnd;
+      int meetId = -1;
+      int meetLength = Integer.MAX_VALUE;
+      for (; levelHead < levelEnd; levelHead++) {
+        final int id = queue[levelHead];
+        for (int edge = graph.getFirstEdge(id); edge < graph.getEdgeEnd(id); edge++) {
+          final int nextId = graph.getTarget(edge);
+          if (visited[nextId] == mark || isBlocked.test(nextId)) {
+            continue;
+          }
+          visited[nextId] = mark;
+          distances[nextId] = distances[id] + 1;
+          parents[nextId] = id;
+          queue[levelTail++] = nextId;
+          if (oppositeVisited[nextId] == mark
+                  && distances[nextId] + oppositeDistances[nextId] < meetLength) {
+            meetId = nextId;
+            meetLength = distances[nextId] + oppositeDistances[nextId];
+          }
+        }
+      }
+      if (meetId >= 0) {
+        return meetId;
+      }
+      if (isForward) {
+        head = levelHead;
+        tail = levelTail;
+      } else {
+        otherHead = levelHead;
+        otherTail = levelTail;
+      }
+    }
+    return -1;
+  }
+
+  private void checkIds(int sourceId, int targetId, IntPredicate isBlocked) {
+    if (sourceId < 0 || sourceId >= graph.size() || targetId < 0 || targetId >= graph.size()) {
+      throw new IllegalArgumentException(String.format(
+          "Locations %d and %d must be in the dungeon", sourceId, targetId));
+    }
+    if (isBlocked == null) {
+      throw new IllegalArgumentException("Blocked locations cannot be null");
+    }
+  }
+
+  /**
+   * to follow the parents back from the end of a path of the given number of moves.
+   */
+  private static int[] buildPath(int[] parents, int endId, int length) {
+    final int[] path = new int[length + 1];
+    fillPath(path, parents, endId, length);
+    return path;
+  }
+
+  private static void fillPath(int[] path, int[] parents, int endId, int endIndex) {
+    int id = endId;
+    for (int i = endIndex; i > 0; i--) {
+      path[i] = id;
+      id = parents[id];
+    }
+    path[0] = id;
+  }
+
+  /**
+   * the working arrays of the searches of one thread. A location belongs to the current
+   * search only if its mark is the mark of the search, so the arrays never need clearing.
+   */
+  private static final class Scratch {
+    private final int[] visited;
+    private final int[] closed;
+    private final int[] distances;
+    private final int[] parents;
+    private final int[] queue;
+    private final int[] otherVisited;
+    private final int[] otherDistances;
+    private final int[] otherParents;
+    private final int[] otherQueue;
+    private final long[] heap;
+    private int heapSize;
+    private int mark;
+
+    private Scratch(int numLocations, int heapCapacity) {
+      visited = new int[numLocations];
+      closed = new int[numLocations];
+      distances = new int[numLocations];
+      parents = new int[numLocations];
+      queue = new int[numLocations];
+      otherVisited = new int[numLocations];
+      otherDistances = new int[numLocations];
+      otherParents = new int[numLocations];
+      otherQueue = new int[numLocations];
+      heap = new long[heapCapacity];
+    }
+
+    private int nextMark() {
+      if (mark == Integer.MAX_VALUE) {
+        Arrays.fill(visited, 0);
+        Arrays.fill(closed, 0);
+        Arrays.fill(otherVisited, 0);
+        mark = 0;
+      }
+      return ++mark;
+    }
+
+    /**
+     * to add a location to the binary heap of the A* search. The estimate is kept in the high
+     * half of the entry, so ties are broken by the lower id.
+     */
+    private void push(int estimate, int id) {
+      final long entry = (long) estimate << 32 | id;
+      int i = heapSize++;
+      while (i > 0) {
+        final int parent = (i - 1) >>> 1;
+        if (heap[parent] <= entry) {
+          break;
+        }
+        heap[i] = heap[parent];
+        i = parent;
+      }
+      heap[i] = entry;
+    }
+
+    private int pop() {
+      final long top = heap[0];
+      final long last = heap[--heapSize];
+      int i = 0;
+      while (true) {
+        int child = 2 * i + 1;
+        if (child >= heapSize) {
+          break;
+        }
+        if (child + 1 < heapSize && heap[child + 1] < heap[child]) {
+          child++;
+        }
+        if (heap[child] >= last) {
+          break;
+        }
+        heap[i] = heap[child];
+        i = child;
+      }
+      heap[i] = last;
+      return (int) top;
+    }
+  }
+}
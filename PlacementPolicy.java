@@ -0,0 +1,22 @@
+package dungeon;
+
+/**
+ * An enum to indicate how the caves of the monsters are picked, besides the end cave which
+ * always holds one. The start cave never holds a monster.
+ */
+public enum PlacementPolicy {
+  /**
+   * every cave is equally likely to hold a monster.
+   */
+  UNIFORM,
+  /**
+   * a cave is as likely to hold a monster as it is far from the start, so the monsters gather
+   * towards the far side of the dungeon.
+   */
+  DISTANCE_WEIGHTED,
+  /**
+   * the grid is cut into about as many regions as there are monsters, and every region holds a
+   * share of the monsters in proportion to its caves, so the monsters are spread evenly.
+   */
+  REGION_QUOTA
+}
@@ -3,7 +3,6 @@ package dungeon;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
-import java.util.Optional;
 
 /**
  * A class to represent the player.
@@ -13,6 +12,7 @@ public class Player implements PlayerInterface {
   private final List<Treasure> treasures;
   private final int playerId;
   private int numberOfArrows;
+  private ExplorationMap explorationMap;
 
   /**
    * to construct a player with player id.
@@ -28,6 +28,25 @@ public class Player implements PlayerInterface {
     this.numberOfArrows = 3;
   }
 
+  /**
+   * to construct a player restored with its arrows and treasures.
+   *
+   * @param playerId       the value of the player id.
+   * @param numberOfArrows the arrows of the player.
+   * @param treasures      the treasures of the player.
+   */
+  Player(int playerId, int numberOfArrows, List<Treasure> treasures)
+          throws IllegalArgumentException {
+    this(playerId);
+    if (numberOfArrows < 0 || treasures == null) {
+      throw new IllegalArgumentException("invalid player state");
+    }
+    this.numberOfArrows = numberOfArrows;
+    for (Treasure treasure : treasures) {
+      addTreasure(treasure);
+    }
+  }
+
   /**
    * to create a copy of another Player.
    *
@@ -39,6 +58,7 @@ public class Player implements PlayerInterface {
       this.treasures = anotherPlayer.treasures;
       this.numberOfArrows = anotherPlayer.numberOfArrows;
       this.currLocation = anotherPlayer.currLocation;
+      this.explorationMap = anotherPlayer.explorationMap;
     } else {
       throw new IllegalArgumentException("Player cannot be null");
     }
@@ -74,6 +94,24 @@ public class Player implements PlayerInterface {
     numberOfArrows--;
   }
 
+  /**
+   * to get the locations the player has explored.
+   *
+   * @return the exploration map, null if the player was never added to a dungeon.
+   */
+  public ExplorationMap getExplorationMap() {
+    return explorationMap;
+  }
+
+  /**
+   * to set the locations the player has explored.
+   *
+   * @param explorationMap the exploration map.
+   */
+  void setExplorationMap(ExplorationMap explorationMap) {
+    this.explorationMap = explorationMap;
+  }
+
   /**
    * get the current location.
    *
@@ -166,27 +204,17 @@ public class Player implements PlayerInterface {
    */
   @Override
   public boolean shoot(Dungeon dungeon, Direction shootDirection, int shootDistance) {
+    if (shootDistance < 1) {
+      throw new IllegalArgumentException("Shoot distance must be positive");
+    }
     decrementArrowCount();
-    AbstractLocation currShootLocation = currLocation;
-    while (shootDistance > 0) {
-      List<Direction> possibleNextMoves = currShootLocation.getPossibleMoves();
-      if (!possibleNextMoves.contains(shootDirection)) {
-        return false;
-      }
-      currShootLocation = dungeon.getNextLocationByDirection(currShootLocation, shootDirection);
-      if (currShootLocation instanceof Cave) {
-        shootDistance--;
-      } else {
-        if (!possibleNextMoves.contains(shootDirection)) {
-          final Direction oldDirection = shootDirection;
-          final Optional<Direction> newDirection = possibleNextMoves.stream()
-                  .filter(d -> !d.equals(getOppositeDirection(oldDirection))).findFirst();
-          if (newDirection.isPresent()) {
-            shootDirection = newDirection.get();
-          }
-        }
-      }
+    final DungeonGrid grid = dungeon.getGrid();
+    final int shootId = dungeon.getArrowTarget(currLocation, shootDirection, shootDistance);
+    if (shootId < 0) {
+      return false;
     }
+    final AbstractLocation currShootLocation = grid.getLocation(shootId / grid.getColSize(),
+            shootId % grid.getColSize());
     if (currShootLocation instanceof Cave) {
       Cave shootCave = (Cave) currShootLocation;
       if (shootCave.hasOtyugh()) {
@@ -200,21 +228,6 @@ public class Player implements PlayerInterface {
     return false;
   }
 
-  private Direction getOppositeDirection(Direction direction) {
-    switch (direction) {
-      case NORTH:
-        return Direction.SOUTH;
-      case SOUTH:
-        return Direction.NORTH;
-      case EAST:
-        return Direction.WEST;
-      case WEST:
-        return Direction.EAST;
-      default:
-        throw new IllegalArgumentException("Invalid direction to get Opposite");
-    }
-  }
-
   /**
    * to set the current location of the player.
    *
@@ -255,4 +268,14 @@ public class Player implements PlayerInterface {
   public List<Treasure> getTreasures() {
     return new ArrayList<>(treasures);
   }
+
+  /**
+   * the id of the player.
+   *
+   * @return the player id.
+   */
+  @Override
+  public int getPlayerId() {
+    return playerId;
+  }
 }
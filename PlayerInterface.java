@@ -30,4 +30,6 @@ public interface PlayerInterface {
 
   List<Treasure> getTreasures();
 
+  int getPlayerId();
+
 }
@@ -0,0 +1,167 @@
+package dungeon;
+
+import java.io.Closeable;
+import java.lang.reflect.InvocationTargetException;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A launcher playing every game with {@link DungeonConsoleController} on a thread of its own,
+ * reading and writing through a {@link SessionPipe}. The threads are virtual threads where the
+ * runtime has them, so a game waiting for input holds no platform thread, and daemon platform
+ * threads otherwise. Virtual threads are looked up by reflection, so the launcher also runs on
+ * runtimes without them.
+ */
+public final class SessionLauncher implements Closeable {
+  private final ThreadFactory factory;
+  private final boolean isVirtual;
+  private final Set<Thread> threads;
+  private volatile boolean isClosing;
+
+  /**
+   * to construct a launcher.
+   *
+   * @param isVirtualPreferred true to use virtual threads when the runtime has them.
+   */
+  public SessionLauncher(boolean isVirtualPreferred) {
+    final ThreadFactory virtualFactory = isVirtualPreferred ? newVirtualThreadFactory() : null;
+    this.isVirtual = virtualFactory != null;
+    this.factory = isVirtual ? virtualFactory : runnable -> {
+      final Thread thread = new Thread(runnable, "dungeon-session");
+      thread.setDaemon(true);
+      return thread;
+    };
+    this.threads = ConcurrentHashMap.newKeySet();
+  }
+
+  /**
+   * to check if the runtime has virtual threads.
+   *
+   * @return true if virtual threads can be started.
+   */
+  public static boolean isVirtualThreadSupported() {
+    return newVirtualThreadFactory() != null;
+  }
+
+  /**
+   * to check if the games are played on virtual threads.
+   *
+   * @return true for virtual threads, false for platform threads.
+   */
+  public boolean isVirtual() {
+    return isVirtual;
+  }
+
+  /**
+   * to get the number of games being played.
+   *
+   * @return the number of games.
+   */
+  public int getSessionCount() {
+    return threads.size();
+  }
+
+  /**
+   * to start playing a game on a new thread.
+   *
+   * @param dungeon the dungeon.
+   * @param player  the player, already in the dungeon.
+   * @param pipe    the input and output of the game.
+   * @return the outcome, true when the game is over, false when the input ended first, because
+   *         the pipe was closed or timed out or the launcher was closed.
+   * @throws IllegalStateException if the launcher is closed.
+   */
+  public CompletableFuture<Boolean> launch(Dungeon dungeon, Player player, SessionPipe pipe)
+      throws IllegalStateException {
+    if (dungeon == null || player == null || pipe == null) {
+      throw new IllegalArgumentException("Dungeon, player and pipe can't be null");
+    }
+    if (isClosing) {
+      throw new IllegalStateException("Launcher is closed");
+    }
+    final CompletableFuture<Boolean> outcome = new CompletableFuture<>();
+    final Thread thread = factory.newThread(() -> {
+      try {
+        new DungeonConsoleController(pipe.getInput(), pipe.getOutput())
+            .playGame(dungeon, player);
+        pipe.flush();
+        outcome.complete(true);
+      } catch (NoSuchElementException e) {
+        pipe.flush();
+        outcome.complete(false);
+      } catch (RuntimeException | Error e) {
+        outcome.completeExceptionally(e);
+      } finally {
+        threads.remove(Thread.currentThread());
+      }
+    });
+    threads.add(thread);
+    thread.start();
+    if (isClosing) {
+      // closed while starting, the close may have missed the thread
+      thread.interrupt();
+    }
+    return outcome;
+  }
+
+  /**
+   * to interrupt every game and wait for them to end.
+   *
+   * @param timeoutMillis the most time to wait.
+   * @return true if every game has ended.
+   */
+  public boolean close(long timeoutMillis) {
+    isClosing = true;
+    for (Thread thread : threads) {
+      thread.interrupt();
+    }
+    final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+    boolean isInterrupted = false;
+    for (Thread thread : threads) {
+      final long remaining = deadline - System.nanoTime();
+      if (remaining <= 0) {
+        break;
+      }
+      try {
+        thread.join(Math.max(1, TimeUnit.NANOSECONDS.toMillis(remaining)));
+      } catch (InterruptedException e) {
+        isInterrupted = true;
+      }
+    }
+    if (isInterrupted) {
+      Thread.currentThread().interrupt();
+    }
+    return threads.isEmpty();
+  }
+
+  /**
+   * to interrupt every game and wait for them to end.
+   */
+  @Override
+  public void close() {
+    close(Long.MAX_VALUE / 2);
+  }
+
+  /**
+   * to get a factory of virtual threads, looked up by reflection.
+   *
+   * @return the factory, null if the runtime has no virtual threads.
+   */
+  private static ThreadFactory newVirtualThreadFactory() {
+    try {
+      final Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+      final Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+      final Object named = builderClass.getMethod("name", String.class, long.class)
+          .invoke(builder, "dungeon-session-", 0L);
+      return (ThreadFactory) builderClass.getMethod("factory").invoke(named);
+    } catch (NoSuchMethodException | ClassNotFoundException | IllegalAccessException
+             | InvocationTargetException e) {
+      // before virtual threads, or with them still in preview
+      return null;
+    }
+  }
+}
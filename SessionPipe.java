@@ -0,0 +1,182 @@
+package dungeon;
+
+import java.io.InterruptedIOException;
+import java.nio.CharBuffer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * The input and output of a game played by {@link DungeonConsoleController} on a thread of its
+ * own. Lines are handed to the pipe from any thread and read by the game through
+ * {@link #getInput()}, and the text of the game written to {@link #getOutput()} is handed out a
+ * turn at a time, whenever the game waits for its next line.
+ *
+ * <p>A game waiting for a line parks its thread, and neither side takes a monitor, so a game on
+ * a virtual thread never pins its carrier thread while it waits. A wait ends the input when the
+ * pipe is closed, when the idle timeout passes without a line, or when the thread of the game is
+ * interrupted; the controller then stops at its next read.
+ */
+public final class SessionPipe {
+  private final Queue<String> lines;
+  private final Consumer<String> output;
+  private final long idleTimeoutNanos;
+  private final StringBuilder text;
+  private final Readable input;
+  private final Appendable appendable;
+  private volatile Thread reader;
+  private volatile boolean isClosed;
+  private String line;
+  private int linePosition;
+
+  /**
+   * to construct a pipe.
+   *
+   * @param output            the consumer of the text of the game, called by the thread of the
+   *                          game.
+   * @param idleTimeoutMillis the most time the game waits for a line, 0 to wait without limit.
+   */
+  public SessionPipe(Consumer<String> output, long idleTimeoutMillis) {
+    if (output == null || idleTimeoutMillis < 0) {
+      throw new IllegalArgumentException("Invalid output or idle timeout");
+    }
+    this.lines = new ConcurrentLinkedQueue<>();
+    this.output = output;
+    this.idleTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(idleTimeoutMillis);
+    this.text = new StringBuilder();
+    this.input = this::read;
+    this.appendable = new Output();
+  }
+
+  /**
+   * to hand a line to the game.
+   *
+   * @param line the line, without its line separator.
+   * @throws IllegalStateException if the pipe is closed.
+   */
+  public void submit(String line) throws IllegalStateException {
+    if (line == null) {
+      throw new IllegalArgumentException("Line can't be null");
+    }
+    if (isClosed) {
+      throw new IllegalStateException("Pipe is closed");
+    }
+    lines.offer(line + "\n");
+    wakeUp();
+  }
+
+  /**
+   * to end the input once the lines already submitted are read.
+   */
+  public void close() {
+    isClosed = true;
+    wakeUp();
+  }
+
+  /**
+   * to get the input read by the game.
+   *
+   * @return the input.
+   */
+  public Readable getInput() {
+    return input;
+  }
+
+  /**
+   * to get the output written by the game.
+   *
+   * @return the output.
+   */
+  public Appendable getOutput() {
+    return appendable;
+  }
+
+  /**
+   * to hand out the text written since the last time, called by the thread of the game.
+   */
+  void flush() {
+    if (text.length() > 0) {
+      output.accept(text.toString());
+      text.setLength(0);
+    }
+  }
+
+  private void wakeUp() {
+    final Thread thread = reader;
+    if (thread != null) {
+      LockSupport.unpark(thread);
+    }
+  }
+
+  private int read(CharBuffer buffer) throws InterruptedIOException {
+    flush();
+    if (line == null || linePosition == line.length()) {
+      line = take();
+      linePosition = 0;
+      if (line == null) {
+        return -1;
+      }
+    }
+    final int length = Math.min(buffer.remaining(), line.length() - linePosition);
+    buffer.append(line, linePosition, linePosition + length);
+    linePosition += length;
+    return length;
+  }
+
+  /**
+   * to wait for the next line.
+   *
+   * @return the line, null if the pipe is closed and every line is read.
+   */
+  private String take() throws InterruptedIOException {
+    // the reader is known before its last look at the queue, so a line submitted after the look
+    // unparks it
+    reader = Thread.currentThread();
+    final long deadline = System.nanoTime() + idleTimeoutNanos;
+    while (true) {
+      final String next = lines.poll();
+      if (next != null) {
+        return next;
+      } else if (isClosed) {
+        return lines.poll();
+      } else if (Thread.currentThread().isInterrupted()) {
+        throw new InterruptedIOException("Game is interrupted");
+      }
+      if (idleTimeoutNanos == 0) {
+        LockSupport.park(this);
+      } else {
+        final long remaining = deadline - System.nanoTime();
+        if (remaining <= 0) {
+          throw new InterruptedIOException("Game timed out waiting for input");
+        }
+        LockSupport.parkNanos(this, remaining);
+      }
+    }
+  }
+
+  /**
+   * the text of the game, kept until the game waits for input.
+   */
+  private final class Output implements Appendable {
+
+    @Override
+    public Appendable append(CharSequence csq) {
+      text.append(csq);
+      return this;
+    }
+
+    @Override
+    public Appendable append(CharSequence csq, int start, int end) {
+      text.append(csq, start, end);
+      return this;
+    }
+
+    @Override
+    public Appendable append(char c) {
+      text.append(c);
+      return this;
+    }
+  }
+}
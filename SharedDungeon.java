@@ -0,0 +1,317 @@
+package dungeon;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A dungeon shared by many players acting concurrently, each registered by its id. The grid
+ * is cut into square regions of {@link #REGION_SIZE} rows and columns, and every region is
+ * guarded by one of a fixed number of locks, so players acting in regions far apart rarely
+ * wait on each other. An action locks the regions of every location it reads or changes, in
+ * the order of the locks, so actions spanning several regions cannot deadlock:
+ * <ul>
+ *   <li>a move locks the regions of the location left and the location entered.</li>
+ *   <li>a pick up locks the region of the location of the player, so the counts of arrows and
+ *   treasures of a location are taken by one player at a time.</li>
+ *   <li>a shot locks the regions within the reach of the smell around the cave hit. The flight
+ *   of the arrow only reads the walls, which never change, so it takes no lock.</li>
+ * </ul>
+ * The actions of a single player are also serialized on the player, which keeps its arrows and
+ * treasures consistent if the same player is driven from several threads.
+ */
+public final class SharedDungeon {
+  /**
+   * the number of rows and columns of a region.
+   */
+  public static final int REGION_SIZE = 16;
+
+  private static final int MAX_LOCKS = 256;
+
+  private final Dungeon dungeon;
+  private final int rowSize;
+  private final int colSize;
+  private final int regionCols;
+  private final boolean isWrapping;
+  private final ReentrantLock[] locks;
+  private final ConcurrentMap<Integer, Player> players;
+
+  /**
+   * to share a dungeon between players. The dungeon must not be changed other than through the
+   * shared dungeon afterwards.
+   *
+   * @param dungeon the dungeon, with its start assigned.
+   * @throws IllegalStateException if the dungeon has no start.
+   */
+  public SharedDungeon(Dungeon dungeon) throws IllegalStateException {
+    if (dungeon == null) {
+      throw new IllegalArgumentException("Dungeon cannot be null");
+    } else if (dungeon.getStart() == null) {
+      throw new IllegalStateException("Dungeon is not yet assigned a start location");
+    }
+    this.dungeon = dungeon;
+    this.rowSize = dungeon.getGrid().getRowSize();
+    this.colSize = dungeon.getGrid().getColSize();
+    this.isWrapping = dungeon.isWrapping();
+    final int regionRows = (rowSize + REGION_SIZE - 1) / REGION_SIZE;
+    this.regionCols = (colSize + REGION_SIZE - 1) / REGION_SIZE;
+    this.locks = new ReentrantLock[Math.min(MAX_LOCKS, regionRows * regionCols)];
+    for (int i = 0; i < locks.length; i++) {
+      locks[i] = new ReentrantLock();
+    }
+    this.players = new ConcurrentHashMap<>();
+    // the graphs, the path finder and the item index guard their creation on first use, the
+    // cave graph and the smell field are built here so no action waits on them, except the
+    // cave graph of a mapped grid, whose arrows fly over the walls without it
+    if (!(dungeon.getGrid() instanceof MappedGrid)) {
+      dungeon.getCaveGraph();
+    }
+    dungeon.getSmellField();
+  }
+
+  /**
+   * to get the dungeon being shared.
+   *
+   * @return the dungeon.
+   */
+  public Dungeon getDungeon() {
+    return dungeon;
+  }
+
+  /**
+   * to register a player by its id and put it on the start.
+   *
+   * @param player the player.
+   * @throws IllegalStateException if a player with the same id is already registered.
+   */
+  public void addPlayer(Player player) throws IllegalStateException {
+    if (player == null) {
+      throw new IllegalArgumentException("Player is not valid to be added to the dungeon");
+    }
+    // the player is put on the start before it is published, so no thread finds it registered
+    // without a location
+    synchronized (player) {
+      if (players.get(player.getPlayerId()) != player) {
+        player.setCurrLocation(dungeon.getStart());
+        dungeon.explore(player);
+      }
+      if (players.putIfAbsent(player.getPlayerId(), player) != null) {
+        throw new IllegalStateException(String.format(
+            "A player with id %d is already present in the dungeon", player.getPlayerId()));
+      }
+    }
+  }
+
+  /**
+   * to remove a player from the dungeon.
+   *
+   * @param playerId the id of the player.
+   * @return the player, null if no player has the id.
+   */
+  public Player removePlayer(int playerId) {
+    return players.remove(playerId);
+  }
+
+  /**
+   * to get a registered player.
+   *
+   * @param playerId the id of the player.
+   * @return the player.
+   * @throws IllegalArgumentException if no player has the id.
+   */
+  public Player getPlayer(int playerId) throws IllegalArgumentException {
+    final Player player = players.get(playerId);
+    if (player == null) {
+      throw new IllegalArgumentException(String.format("No player with id %d", playerId));
+    }
+    return player;
+  }
+
+  /**
+   * to get the registered players.
+   *
+   * @return a view of the players.
+   */
+  public Collection<Player> getPlayers() {
+    return Collections.unmodifiableCollection(players.values());
+  }
+
+  /**
+   * to move a player to the next location in a direction.
+   *
+   * @param playerId  the id of the player.
+   * @param direction the direction.
+   * @return true if the player is eaten by the monster of the location entered.
+   * @throws IllegalArgumentException if there is no such player or it cannot move that way.
+   */
+  public boolean movePlayer(int playerId, Direction direction) throws IllegalArgumentException {
+    final Player player = getPlayer(playerId);
+    synchronized (player) {
+      final AbstractLocation from = player.getCurrLocation();
+      if (direction == null || !from.canMove(direction)) {
+        throw new IllegalArgumentException("Invalid Direction code");
+      }
+      final AbstractLocation to = dungeon.getNextLocationByDirection(from, direction);
+      final int[] stripes = {getStripe(from.getRowDim(), from.getColDim()),
+          getStripe(to.getRowDim(), to.getColDim())};
+      final int count = lock(stripes, 2);
+      try {
+        dungeon.movePlayer(player, direction);
+        return dungeon.isEatenByMonster(player);
+      } finally {
+        unlock(stripes, count);
+      }
+    }
+  }
+
+  /**
+   * to pick up an object at the location of a player.
+   *
+   * @param playerId        the id of the player.
+   * @param objectShortCode the object, such as arrow or ruby.
+   * @throws IllegalArgumentException if there is no such player or object.
+   * @throws IllegalStateException    if the object is not at the location.
+   */
+  public void pickupObject(int playerId, String objectShortCode)
+      throws IllegalArgumentException, IllegalStateException {
+    final Player player = getPlayer(playerId);
+    synchronized (player) {
+      final AbstractLocation location = player.getCurrLocation();
+      final ReentrantLock lock = locks[getStripe(location.getRowDim(), location.getColDim())];
+      lock.lock();
+      try {
+        player.pickupObject(objectShortCode);
+      } finally {
+        lock.unlock();
+      }
+    }
+  }
+
+  /**
+   * to shoot an arrow of a player.
+   *
+   * @param playerId  the id of the player.
+   * @param direction the direction of the shot.
+   * @param distance  the number of caves the arrow flies.
+   * @return true if the arrow hits a monster.
+   * @throws IllegalArgumentException if there is no such player or the distance is invalid.
+   * @throws IllegalStateException    if the player has no arrows left.
+   */
+  public boolean shoot(int playerId, Direction direction, int distance)
+      throws IllegalArgumentException, IllegalStateException {
+    final Player player = getPlayer(playerId);
+    if (direction == null || distance < 1) {
+      throw new IllegalArgumentException("Invalid direction or distance to shoot");
+    }
+    synchronized (player) {
+      if (player.getNumberOfArrows() < 1) {
+        throw new IllegalStateException("No arrows left to shoot");
+      }
+      final int targetId = dungeon.getArrowTarget(player.getCurrLocation(), direction,
+          distance);
+      if (targetId < 0) {
+        return player.shoot(dungeon, direction, distance);
+      }
+      final int[] stripes = getSmellStripes(targetId / colSize, targetId % colSize);
+      final int count = lock(stripes, stripes.length);
+      try {
+        return player.shoot(dungeon, direction, distance);
+      } finally {
+        unlock(stripes, count);
+      }
+    }
+  }
+
+  /**
+   * to check if a player is eaten by the monster of its location.
+   *
+   * @param playerId the id of the player.
+   * @return true if the player is eaten.
+   */
+  public boolean isPlayerEatenByMonster(int playerId) {
+    final Player player = getPlayer(playerId);
+    synchronized (player) {
+      final AbstractLocation location = player.getCurrLocation();
+      final ReentrantLock lock = locks[getStripe(location.getRowDim(), location.getColDim())];
+      lock.lock();
+      try {
+        return dungeon.isEatenByMonster(player);
+      } finally {
+        lock.unlock();
+      }
+    }
+  }
+
+  /**
+   * to check if a player has reached the end alive.
+   *
+   * @param playerId the id of the player.
+   * @return true if the player has won.
+   */
+  public boolean hasPlayerWon(int playerId) {
+    final Player player = getPlayer(playerId);
+    synchronized (player) {
+      final AbstractLocation location = player.getCurrLocation();
+      final ReentrantLock lock = locks[getStripe(location.getRowDim(), location.getColDim())];
+      lock.lock();
+      try {
+        return dungeon.hasWon(player);
+      } finally {
+        lock.unlock();
+      }
+    }
+  }
+
+  /**
+   * to get the lock guarding the region of a location.
+   */
+  private int getStripe(int row, int col) {
+    return (row / REGION_SIZE * regionCols + col / REGION_SIZE) % locks.length;
+  }
+
+  /**
+   * to get the locks of the regions within the reach of the smell of a cave. The reach is
+   * shorter than a region, so the corners of the square around the cave cover every region.
+   */
+  private int[] getSmellStripes(int row, int col) {
+    final int reach = SmellField.RADIUS;
+    final int top = clampOrWrap(row - reach, rowSize);
+    final int bottom = clampOrWrap(row + reach, rowSize);
+    final int left = clampOrWrap(col - reach, colSize);
+    final int right = clampOrWrap(col + reach, colSize);
+    return new int[]{getStripe(top, left), getStripe(top, right), getStripe(bottom, left),
+        getStripe(bottom, right)};
+  }
+
+  private int clampOrWrap(int index, int size) {
+    return isWrapping ? Math.floorMod(index, size) : Math.max(0, Math.min(size - 1, index));
+  }
+
+  /**
+   * to take the locks of the stripes in ascending order, each once.
+   *
+   * @return the number of distinct stripes, which are left sorted at the front of the array.
+   */
+  private int lock(int[] stripes, int length) {
+    Arrays.sort(stripes, 0, length);
+    int count = 0;
+    for (int i = 0; i < length; i++) {
+      if (count == 0 || stripes[count - 1] != stripes[i]) {
+        stripes[count++] = stripes[i];
+      }
+    }
+    for (int i = 0; i < count; i++) {
+      locks[stripes[i]].lock();
+    }
+    return count;
+  }
+
+  private void unlock(int[] stripes, int count) {
+    for (int i = count - 1; i >= 0; i--) {
+      locks[stripes[i]].unlock();
+    }
+  }
+}
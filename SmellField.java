@@ -0,0 +1,138 @@
+package dungeon;
+
+/**
+ * The smell of the monsters over the locations of a dungeon. A monster adds a smell of three to
+ * its own location, two to the locations one move away and one to the locations two moves away,
+ * along the shortest paths through the dungeon. The smell of a location is the sum over the
+ * monsters, so it is updated by adding or subtracting a single monster, with a breadth first
+ * search that only visits the locations within its radius. The search reads the walls of the
+ * locations it visits from the grid, so it needs nothing as large as the grid, which keeps a
+ * {@link MappedGrid} out of the heap.
+ */
+public class SmellField {
+
+  /**
+   * the smell a monster leaves on its own location.
+   */
+  public static final int STRENGTH = 3;
+
+  /**
+   * the number of moves the smell of a monster reaches.
+   */
+  public static final int RADIUS = STRENGTH - 1;
+
+  // at most 1 + 4 + 8 locations are within two moves of a location
+  private static final int MAX_REACHED = 1 + 2 * RADIUS * (RADIUS + 1);
+
+  private final DungeonGrid grid;
+  private final GridTopology topology;
+  // the queue of every thread, holding the ids and then the depths of the locations reached
+  private final ThreadLocal<int[]> scratch = ThreadLocal.withInitial(
+      () -> new int[2 * MAX_REACHED]);
+
+  /**
+   * to construct the smell field of a grid.
+   *
+   * @param grid       the locations of the dungeon.
+   * @param isWrapping if the dungeon is wrapping or non-wrapping.
+   */
+  public SmellField(DungeonGrid grid, boolean isWrapping) {
+    this(grid, grid == null ? null
+        : new GridTopology(grid.getRowSize(), grid.getColSize(), isWrapping));
+  }
+
+  /**
+   * to construct the smell field of a grid whose moves are already known.
+   *
+   * @param grid     the locations of the dungeon.
+   * @param topology the moves between the locations of the grid.
+   */
+  SmellField(DungeonGrid grid, GridTopology topology) {
+    if (grid == null || topology == null) {
+      throw new IllegalArgumentException("Grid and topology cannot be null");
+    }
+    this.grid = grid;
+    this.topology = topology;
+  }
+
+  /**
+   * to add the smell of a monster in a location.
+   *
+   * @param location the location of the monster.
+   */
+  public void addMonster(Location location) {
+    spread(idOf(location), 1);
+  }
+
+  /**
+   * to remove the smell of a monster in a location, when it is slayed.
+   *
+   * @param location the location of the monster.
+   */
+  public void removeMonster(Location location) {
+    spread(idOf(location), -1);
+  }
+
+  /**
+   * to add the smell of every monster in the locations.
+   *
+   * @param locations the locations of the monsters.
+   */
+  public void addMonsters(Iterable<? extends Location> locations) {
+    for (Location location : locations) {
+      addMonster(location);
+    }
+  }
+
+  private int idOf(Location location) {
+    if (location == null) {
+      throw new IllegalArgumentException("Location cannot be null");
+    }
+    return location.getRowDim() * grid.getColSize() + location.getColDim();
+  }
+
+  /**
+   * a breadth first search bounded by the radius. The locations reached are few, so they are
+   * looked up in the queue rather than marked in a set as large as the grid. The queue is kept
+   * per thread, so monsters far apart can be added and removed concurrently.
+   */
+  private void spread(int sourceId, int sign) {
+    final int colSize = grid.getColSize();
+    final int[] queue = scratch.get();
+    int head = 0;
+    int tail = 0;
+    queue[tail] = sourceId;
+    queue[MAX_REACHED + tail++] = 0;
+    while (head < tail) {
+      final int id = queue[head];
+      final int depth = queue[MAX_REACHED + head++];
+      final AbstractLocation location = grid.getLocation(id / colSize, id % colSize);
+      final int smell = STRENGTH - depth;
+      if (sign > 0) {
+        location.incrementSmellLevel(smell);
+      } else {
+        location.decrementSmellLevel(smell);
+      }
+      if (depth == RADIUS) {
+        continue;
+      }
+      final int wallBits = location.getWallBits();
+      for (int direction = 0; direction < GridTopology.NUM_DIRECTIONS; direction++) {
+        final int next = topology.getNeighbor(id, wallBits, direction);
+        if (next >= 0 && !isQueued(queue, next, tail)) {
+          queue[tail] = next;
+          queue[MAX_REACHED + tail++] = depth + 1;
+        }
+      }
+    }
+  }
+
+  private static boolean isQueued(int[] queue, int id, int tail) {
+    for (int i = 0; i < tail; i++) {
+      if (queue[i] == id) {
+        return true;
+      }
+    }
+    return false;
+  }
+}
@@ -16,6 +16,16 @@ public class Tunnel extends AbstractLocation {
             abstractLocation.hasWallRightSide(), abstractLocation.hasWallLeftSide());
   }
 
+  /**
+   * build a tunnel object for a location whose state is kept outside of the object.
+   *
+   * @param rowDim the row of the tunnel.
+   * @param colDim the col of the tunnel.
+   */
+  protected Tunnel(int rowDim, int colDim) {
+    super(rowDim, colDim);
+  }
+
   @Override
   public String toString() {
     StringBuilder str = new StringBuilder();
@@ -10,6 +10,11 @@ public class UnionFind {
    */
   private final int[] data;
 
+  /**
+   * The number of disjoint subsets, updated on every successful union.
+   */
+  private int numSubsets;
+
   /**
    * Constructor that takes in a location.
    *
@@ -22,6 +27,7 @@ public class UnionFind {
       for (int i = 0; i < n; i++) {
         this.data[i] = -1;
       }
+      this.numSubsets = n;
     } else {
       throw new IllegalArgumentException();
     }
@@ -47,11 +53,15 @@ public class UnionFind {
    *
    * @param a an item in the first set to be merged (need not be set name)
    * @param b an item in the second set to be merged (need not be set name)
+   * @return true if the two sets were merged, false if they already were the same set
    */
-  public void union(int a, int b) {
+  public boolean union(int a, int b) {
 
     int rootA = this.find(a);
     int rootB = this.find(b);
+    if (rootA == rootB) {
+      return false;
+    }
     int sizeA = this.data[rootA];
     int sizeB = this.data[rootB];
 
@@ -62,6 +72,8 @@ public class UnionFind {
       this.data[rootB] = rootA;
       this.data[rootA] += sizeB;
     }
+    this.numSubsets--;
+    return true;
   }
 
   /**
@@ -70,12 +82,6 @@ public class UnionFind {
    * @return the number of subsets in the data structure
    */
   public int getNumSubsets() {
-    int num = 0;
-    for (int datum : this.data) {
-      if (datum < 0) {
-        num++;
-      }
-    }
-    return num;
+    return this.numSubsets;
   }
 }
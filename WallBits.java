@@ -0,0 +1,91 @@
+package dungeon;
+
+/**
+ * A class to describe the walls of a location as the lower four bits of a byte. A bit is set
+ * when the wall on that side is present. The bits follow the ordinals of {@link Direction}.
+ */
+public final class WallBits {
+
+  /**
+   * the bit of the north wall.
+   */
+  public static final int UP = 1;
+
+  /**
+   * the bit of the south wall.
+   */
+  public static final int DOWN = 1 << 1;
+
+  /**
+   * the bit of the east wall.
+   */
+  public static final int RIGHT = 1 << 2;
+
+  /**
+   * the bit of the west wall.
+   */
+  public static final int LEFT = 1 << 3;
+
+  /**
+   * all four walls present.
+   */
+  public static final int ALL = UP | DOWN | RIGHT | LEFT;
+
+  private WallBits() {
+  }
+
+  /**
+   * to get the wall bits of a location.
+   *
+   * @param location the location.
+   * @return the wall bits.
+   */
+  public static int of(AbstractLocation location) {
+    return location.getWallBits();
+  }
+
+  /**
+   * to build a location from its wall bits.
+   *
+   * @param row  the row of the location.
+   * @param col  the col of the location.
+   * @param bits the wall bits.
+   * @return the location.
+   */
+  public static AbstractLocation toLocation(int row, int col, int bits) {
+    return new AbstractLocation(row, col, (bits & UP) != 0, (bits & DOWN) != 0,
+            (bits & RIGHT) != 0, (bits & LEFT) != 0);
+  }
+
+  /**
+   * to build the locations grid from the wall bits of every location in row major order.
+   *
+   * @param bits    the wall bits.
+   * @param rowSize the rows of the grid.
+   * @param colSize the columns of the grid.
+   * @return the locations grid.
+   */
+  public static AbstractLocation[][] toLocations(byte[] bits, int rowSize, int colSize) {
+    if (bits.length != rowSize * colSize) {
+      throw new IllegalArgumentException("wall bits do not match the grid size");
+    }
+    final AbstractLocation[][] locations = new AbstractLocation[rowSize][colSize];
+    for (int i = 0; i < rowSize; i++) {
+      for (int j = 0; j < colSize; j++) {
+        locations[i][j] = toLocation(i, j, bits[i * colSize + j]);
+      }
+    }
+    return locations;
+  }
+
+  /**
+   * to get the number of entrances of a location from its wall bits.
+   *
+   * @param bits the wall bits.
+   * @return the entrances.
+   */
+  public static int getNumberOfEntrance(int bits) {
+    return 4 - Integer.bitCount(bits & ALL);
+  }
+
+}
@@ -0,0 +1,257 @@
+package bench;
+
+import dungeon.AbstractLocation;
+import dungeon.Cave;
+import dungeon.Direction;
+import dungeon.Dungeon;
+import dungeon.DungeonConsoleController;
+import dungeon.DungeonGraph;
+import dungeon.Monster;
+import dungeon.Player;
+import java.io.StringReader;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks of the traversal and gameplay paths of the dungeon, for square grids of the sizes
+ * given by {@link #size}. The game of a trial is played on by every operation, so the
+ * operations that use up the game top it up again: a shot gives the arrow back and brings back
+ * the monster it slays.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class DungeonBenchmark {
+
+  private static final long SEED = 42L;
+
+  /**
+   * the rows and columns of the grid.
+   */
+  @Param({"10", "50", "200"})
+  public int size;
+
+  private Dungeon dungeon;
+  private Player player;
+  private Random rand;
+  private int startId;
+  private int endId;
+
+  /**
+   * to build the game played by the trial.
+   */
+  @Setup(Level.Trial)
+  public void setUp() {
+    dungeon = newGame(size);
+    player = new Player(1);
+    dungeon.addPlayer(player);
+    rand = new Random(SEED);
+    startId = dungeon.getGraph().getId(dungeon.getStart());
+    endId = dungeon.getGraph().getId(dungeon.getEnd());
+  }
+
+  /**
+   * adds and removes the smell of the monster in the end cave.
+   *
+   * @return the end cave.
+   */
+  @Benchmark
+  public Object setLocationSmellLevel() {
+    dungeon.setLocationSmellLevel(dungeon.getEnd(), true);
+    dungeon.setLocationSmellLevel(dungeon.getEnd(), false);
+    return dungeon.getEnd();
+  }
+
+  /**
+   * moves the player through a random exit of its location.
+   *
+   * @return the location entered.
+   */
+  @Benchmark
+  public Object movePlayer() {
+    dungeon.movePlayer(randomExit().getShortCode());
+    return player.getCurrLocation();
+  }
+
+  /**
+   * shoots an arrow through a random exit, one to five caves away. The player never runs out of
+   * arrows, and a monster slain is brought back, so every shot is taken in a full game.
+   *
+   * @return true if the arrow hit a monster.
+   */
+  @Benchmark
+  public boolean shoot() {
+    final boolean isHit = player.shoot(dungeon, randomExit(), 1 + rand.nextInt(5));
+    player.incrementArrowCount();
+    if (isHit) {
+      reviveMonsters();
+    }
+    return isHit;
+  }
+
+  /**
+   * finds the shortest path from the start to the end.
+   *
+   * @return the path.
+   */
+  @Benchmark
+  public int[] findPath() {
+    return dungeon.getPathFinder().findPath(startId, endId);
+  }
+
+  /**
+   * finds the shortest path from the start to the end, searching from both ends.
+   *
+   * @return the path.
+   */
+  @Benchmark
+  public int[] findPathBidirectional() {
+    return dungeon.getPathFinder().findPathBidirectional(startId, endId);
+  }
+
+  /**
+   * a dungeon with a start but no end, built afresh for every operation.
+   */
+  @State(Scope.Thread)
+  public static class NoEnd {
+
+    /**
+     * the rows and columns of the grid.
+     */
+    @Param({"10", "50", "200"})
+    public int size;
+
+    private Dungeon dungeon;
+
+    /**
+     * to build the dungeon of the next operation.
+     */
+    @Setup(Level.Invocation)
+    public void setUp() {
+      dungeon = newDungeon(size);
+      dungeon.addStart();
+    }
+  }
+
+  /**
+   * picks the end cave of a new dungeon.
+   *
+   * @param state the dungeon of the operation.
+   * @return the end cave.
+   */
+  @Benchmark
+  public Object addEnd(NoEnd state) {
+    state.dungeon.addEnd();
+    return state.dungeon.getEnd();
+  }
+
+  /**
+   * a new game with a script that shoots once and then walks the shortest path from the start
+   * to the end, so the game is over before the input runs out. It is built afresh for every
+   * operation.
+   */
+  @State(Scope.Thread)
+  public static class NewGame {
+
+    /**
+     * the rows and columns of the grid.
+     */
+    @Param({"10", "50", "200"})
+    public int size;
+
+    private Dungeon dungeon;
+    private Player player;
+    private String script;
+
+    /**
+     * to build the game of the next operation.
+     */
+    @Setup(Level.Invocation)
+    public void setUp() {
+      dungeon = newGame(size);
+      player = new Player(1);
+      dungeon.addPlayer(player);
+      script = scriptToEnd(dungeon);
+    }
+  }
+
+  /**
+   * plays a game to its end with the console controller.
+   *
+   * @param state the game of the operation.
+   * @return the text of the game.
+   */
+  @Benchmark
+  public Object playGame(NewGame state) {
+    final StringBuilder out = new StringBuilder();
+    new DungeonConsoleController(new StringReader(state.script), out)
+            .playGame(state.dungeon, state.player);
+    return out;
+  }
+
+  private Direction randomExit() {
+    int exits = player.getCurrLocation().getExits();
+    for (int skip = rand.nextInt(Integer.bitCount(exits)); skip > 0; skip--) {
+      exits &= exits - 1;
+    }
+    return Direction.lowestOf(exits);
+  }
+
+  private void reviveMonsters() {
+    for (Monster monster : dungeon.getMonsters()) {
+      final Cave cave = (Cave) monster.getLocation();
+      if (!cave.hasOtyugh()) {
+        cave.addMonster();
+        dungeon.setLocationSmellLevel(cave, true);
+      }
+    }
+  }
+
+  private static Dungeon newDungeon(int size) {
+    return new Dungeon(size, size, size / 4, false, 20, Math.max(2, size / 4),
+            new Random(SEED));
+  }
+
+  private static Dungeon newGame(int size) {
+    final Dungeon dungeon = newDungeon(size);
+    dungeon.assignTreasuresAndArrows();
+    dungeon.addStart();
+    dungeon.addEnd();
+    dungeon.assignMonsters();
+    return dungeon;
+  }
+
+  private static String scriptToEnd(Dungeon dungeon) {
+    final DungeonGraph graph = dungeon.getGraph();
+    final AbstractLocation start = dungeon.getStart();
+    final int[] path = dungeon.getPathFinder().findPath(graph.getId(start),
+            graph.getId(dungeon.getEnd()));
+    final StringBuilder script = new StringBuilder();
+    script.append("S\n1\n").append(start.getPossibleMoves().get(0).getShortCode()).append("\n");
+    for (int i = 1; i < path.length; i++) {
+      for (int edge = graph.getFirstEdge(path[i - 1]); edge < graph.getEdgeEnd(path[i - 1]);
+           edge++) {
+        if (graph.getTarget(edge) == path[i]) {
+          script.append("M\n").append(graph.getDirection(edge).getShortCode()).append("\n");
+          break;
+        }
+      }
+    }
+    return script.toString();
+  }
+}
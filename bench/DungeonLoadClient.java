@@ -0,0 +1,209 @@
+package bench;
+
+import dungeon.Dungeon;
+import dungeon.DungeonServer;
+import dungeon.GenerationMode;
+import dungeon.GridStorage;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A load test of the dungeon server, opening many connections from one thread and walking the
+ * player of every connection at random. A command is a move, "M", or the direction of a move,
+ * and its latency is the time from sending it to reading the whole answer, the next prompt of
+ * the game. When a game is over the connection is opened again for a new game.
+ */
+public class DungeonLoadClient {
+
+  private static final long SEED = 42L;
+  private static final String[] DIRECTIONS = {"N", "S", "E", "W"};
+  private static final String ACTION_PROMPT = "(M-P-S)?\n";
+  private static final String MOVE_PROMPT = "Where to?\n";
+
+  /**
+   * runs the load test against a server started in this JVM, or against the given address.
+   *
+   * @param args optional number of connections, seconds, and host:port of a running server.
+   */
+  public static void main(String[] args) throws IOException {
+    final int connections = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+    final double seconds = args.length > 1 ? Double.parseDouble(args[1]) : 5;
+    DungeonServer server = null;
+    final InetSocketAddress address;
+    if (args.length > 2) {
+      final String[] hostPort = args[2].split(":");
+      address = new InetSocketAddress(hostPort[0], Integer.parseInt(hostPort[1]));
+    } else {
+      final AtomicLong seeds = new AtomicLong(SEED);
+      server = new DungeonServer(new InetSocketAddress("127.0.0.1", 0),
+          Runtime.getRuntime().availableProcessors(), () -> newDungeon(seeds.getAndIncrement()));
+      address = server.getAddress();
+    }
+    try {
+      run(address, connections, seconds);
+    } finally {
+      if (server != null) {
+        server.close();
+      }
+    }
+  }
+
+  private static void run(InetSocketAddress address, int connections, double seconds)
+      throws IOException {
+    final Random rand = new Random(SEED);
+    final Latencies latencies = new Latencies();
+    long games = 0;
+    try (Selector selector = Selector.open()) {
+      for (int i = 0; i < connections; i++) {
+        connect(selector, address);
+      }
+      final long start = System.nanoTime();
+      final long deadline = start + (long) (seconds * 1e9);
+      while (System.nanoTime() < deadline) {
+        selector.select(100);
+        final Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+        while (keys.hasNext()) {
+          final SelectionKey key = keys.next();
+          keys.remove();
+          final Client client = (Client) key.attachment();
+          if (!client.read()) {
+            if (client.sentAt != 0) {
+              latencies.add(System.nanoTime() - client.sentAt);
+            }
+            client.channel.close();
+            connect(selector, address);
+            games++;
+          } else if (client.isAnswered()) {
+            if (client.sentAt != 0) {
+              latencies.add(System.nanoTime() - client.sentAt);
+            }
+            client.send(client.isMoving ? DIRECTIONS[rand.nextInt(DIRECTIONS.length)] : "M");
+          }
+        }
+      }
+      final double elapsed = (System.nanoTime() - start) / 1e9;
+      for (SelectionKey key : selector.keys()) {
+        key.channel().close();
+      }
+      System.out.printf("connections=%d games-over=%d commands=%d commands/s=%.0f%n",
+          connections, games, latencies.size, latencies.size / elapsed);
+      System.out.printf("latency us p50=%.1f p90=%.1f p99=%.1f p99.9=%.1f max=%.1f%n",
+          latencies.percentile(0.5) / 1e3, latencies.percentile(0.9) / 1e3,
+          latencies.percentile(0.99) / 1e3, latencies.percentile(0.999) / 1e3,
+          latencies.percentile(1) / 1e3);
+    }
+  }
+
+  private static void connect(Selector selector, InetSocketAddress address) throws IOException {
+    final SocketChannel channel = SocketChannel.open(address);
+    channel.configureBlocking(false);
+    final Client client = new Client(channel);
+    channel.register(selector, SelectionKey.OP_READ, client);
+  }
+
+  private static Dungeon newDungeon(long seed) {
+    final Dungeon dungeon = new Dungeon(16, 16, 8, false, 50, 2, new Random(seed),
+            GenerationMode.SHUFFLED_PASS, GridStorage.COMPACT);
+    dungeon.assignTreasuresAndArrows();
+    dungeon.addStart();
+    dungeon.addEnd();
+    dungeon.assignMonsters();
+    return dungeon;
+  }
+
+  /**
+   * a connection with the answer read so far to its last command.
+   */
+  private static final class Client {
+    private final SocketChannel channel;
+    private final ByteBuffer buffer;
+    private final StringBuilder answer;
+    private String direction;
+    private boolean isMoving;
+    private long sentAt;
+
+    private Client(SocketChannel channel) {
+      this.channel = channel;
+      this.buffer = ByteBuffer.allocate(4096);
+      this.answer = new StringBuilder();
+    }
+
+    /**
+     * to read what has arrived of the answer.
+     *
+     * @return false if the server has ended the game.
+     */
+    private boolean read() throws IOException {
+      buffer.clear();
+      final int n = channel.read(buffer);
+      if (n < 0) {
+        return false;
+      }
+      buffer.flip();
+      answer.append(StandardCharsets.UTF_8.decode(buffer));
+      return true;
+    }
+
+    /**
+     * to check if the whole answer to the last command is read. An invalid direction is
+     * answered without a prompt, and is followed by another direction.
+     */
+    private boolean isAnswered() {
+      if (endsWith(ACTION_PROMPT)) {
+        isMoving = false;
+        return true;
+      } else if (endsWith(MOVE_PROMPT)) {
+        isMoving = true;
+        return true;
+      }
+      return direction != null && endsWith("Invalid move: " + direction + "\n");
+    }
+
+    private boolean endsWith(String suffix) {
+      final int start = answer.length() - suffix.length();
+      return start >= 0 && answer.indexOf(suffix, start) == start;
+    }
+
+    private void send(String command) throws IOException {
+      direction = isMoving ? command : null;
+      answer.setLength(0);
+      final ByteBuffer line = ByteBuffer.wrap((command + "\n").getBytes(StandardCharsets.UTF_8));
+      sentAt = System.nanoTime();
+      while (line.hasRemaining()) {
+        channel.write(line);
+      }
+    }
+  }
+
+  /**
+   * the latencies of the commands, kept whole to read exact percentiles.
+   */
+  private static final class Latencies {
+    private long[] values = new long[1 << 16];
+    private int size;
+
+    private void add(long value) {
+      if (size == values.length) {
+        values = Arrays.copyOf(values, size * 2);
+      }
+      values[size++] = value;
+    }
+
+    private double percentile(double fraction) {
+      if (size == 0) {
+        return 0;
+      }
+      Arrays.sort(values, 0, size);
+      return values[Math.max(0, Math.min(size - 1, (int) Math.ceil(fraction * size) - 1))];
+    }
+  }
+}
@@ -0,0 +1,72 @@
+package bench;
+
+import dungeon.Dungeon;
+import dungeon.GameSessionHost;
+import dungeon.GenerationMode;
+import dungeon.GridStorage;
+import dungeon.Player;
+import java.util.Random;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A benchmark of the throughput of a host running many game sessions at once. Every session is
+ * a small dungeon of its own, and one thread posts random lines of input to the sessions in turn
+ * until the time is up.
+ */
+public class GameSessionHostBenchmark {
+
+  private static final long SEED = 42L;
+  private static final String[] WORDS = {"M", "P", "S", "N", "S", "E", "W", "arrow", "ruby",
+      "1", "2", "x"};
+
+  /**
+   * runs the benchmark.
+   *
+   * @param args optional number of sessions, comma separated numbers of workers, and the seconds
+   *             per run.
+   */
+  public static void main(String[] args) {
+    final int sessions = args.length > 0 ? Integer.parseInt(args[0]) : 10000;
+    final String workerCounts = args.length > 1 ? args[1] : "1,2,4";
+    final double seconds = args.length > 2 ? Double.parseDouble(args[2]) : 2;
+    for (String value : workerCounts.split(",")) {
+      run(sessions, Integer.parseInt(value.trim()), seconds);
+    }
+  }
+
+  private static void run(int sessions, int numberOfWorkers, double seconds) {
+    final Random rand = new Random(SEED);
+    final LongAdder outputs = new LongAdder();
+    final GameSessionHost host = new GameSessionHost(numberOfWorkers);
+    final long[] ids = new long[sessions];
+    final long openStart = System.nanoTime();
+    for (int i = 0; i < sessions; i++) {
+      final Dungeon dungeon = new Dungeon(8, 8, 4, false, 50, 3, new Random(SEED + i),
+              GenerationMode.SHUFFLED_PASS, GridStorage.COMPACT);
+      dungeon.assignTreasuresAndArrows();
+      dungeon.addStart();
+      dungeon.addEnd();
+      dungeon.assignMonsters();
+      final Player player = new Player(1);
+      dungeon.addPlayer(player);
+      ids[i] = host.open(dungeon, player, text -> outputs.increment());
+    }
+    final double openSeconds = (System.nanoTime() - openStart) / 1e9;
+
+    final long deadline = System.nanoTime() + (long) (seconds * 1e9);
+    final long start = System.nanoTime();
+    long posted = 0;
+    while (System.nanoTime() < deadline) {
+      for (int i = 0; i < 1024; i++) {
+        host.submit(ids[rand.nextInt(sessions)], WORDS[rand.nextInt(WORDS.length)]);
+      }
+      posted += 1024;
+    }
+    final int open = host.getSessionCount();
+    host.close();
+    final double elapsed = (System.nanoTime() - start) / 1e9;
+    System.out.printf("sessions=%d workers=%d open %.2fs posted=%d played=%d open-at-end=%d "
+            + "lines/s=%.0f%n", sessions, numberOfWorkers, openSeconds, posted,
+        outputs.sum() - sessions, open, (outputs.sum() - sessions) / elapsed);
+  }
+}
@@ -0,0 +1,77 @@
+package bench;
+
+import dungeon.DungeonHelper;
+import dungeon.GenerationMode;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks of the generation of the dungeon, for square grids of the sizes given by
+ * {@link #size}, as location objects and as wall bits.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class GenerationBenchmark {
+
+  private static final long SEED = 42L;
+
+  /**
+   * the rows and columns of the grid.
+   */
+  @Param({"10", "50", "200"})
+  public int size;
+
+  /**
+   * if the dungeon is wrapping.
+   */
+  @Param({"false", "true"})
+  public boolean isWrapping;
+
+  /**
+   * if as many walls as the rows are knocked down after the maze is carved.
+   */
+  @Param({"false", "true"})
+  public boolean isInterconnected;
+
+  /**
+   * the way the walls are visited while carving.
+   */
+  @Param({"RANDOM_SAMPLING", "SHUFFLED_PASS", "PARALLEL_TILED"})
+  public GenerationMode mode;
+
+  /**
+   * builds the locations of a dungeon.
+   *
+   * @return the locations.
+   */
+  @Benchmark
+  public Object buildLocations() {
+    return new DungeonHelper().buildAbstractLocationsWithConnectivity(size, size, isWrapping,
+            isInterconnected ? size : 0, new Random(SEED), mode);
+  }
+
+  /**
+   * builds the wall bits of a dungeon, as stored by a compact grid.
+   *
+   * @return the wall bits.
+   */
+  @Benchmark
+  public byte[] buildWallBits() {
+    return new DungeonHelper().buildWallBits(size, size, isWrapping,
+            isInterconnected ? size : 0, new Random(SEED), mode);
+  }
+}
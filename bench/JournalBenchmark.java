@@ -0,0 +1,104 @@
+package bench;
+
+import dungeon.Direction;
+import dungeon.Dungeon;
+import dungeon.GameJournal;
+import dungeon.GameJournalReplayer;
+import dungeon.GameSession;
+import dungeon.GameSetup;
+import dungeon.GenerationMode;
+import dungeon.GridStorage;
+import dungeon.Player;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A benchmark of the group commit of a {@link GameJournal}. Every thread plays games of its own
+ * at random and waits for every move to be on disk before the next one, as a server answering
+ * a player only once the move is durable would; the records of the threads waiting at once
+ * share one write and one force of the file. The journal written is then replayed.
+ */
+public class JournalBenchmark {
+
+  private static final Direction[] DIRECTIONS = Direction.values();
+
+  /**
+   * runs the benchmark.
+   *
+   * @param args optional comma separated numbers of threads, and the seconds of every run.
+   * @throws Exception if the journal fails.
+   */
+  public static void main(String[] args) throws Exception {
+    final String[] threadCounts = (args.length > 0 ? args[0] : "1,4,16").split(",");
+    final int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 2;
+    for (String threadCount : threadCounts) {
+      run(Integer.parseInt(threadCount.trim()), seconds);
+    }
+  }
+
+  private static long play(GameJournal journal, int firstGameId, int gameIdStep, long deadline)
+      throws IOException {
+    final Random rand = new Random(firstGameId);
+    long count = 0;
+    for (int gameId = firstGameId; System.nanoTime() < deadline; gameId += gameIdStep) {
+      final GameSetup setup = new GameSetup(gameId, 16, 16, 10, true, 50, 3,
+          GenerationMode.SHUFFLED_PASS, GridStorage.OBJECTS, gameId);
+      final Dungeon dungeon = setup.create();
+      final Player player = GameSetup.getPlayer(dungeon);
+      final GameSession session = new GameSession(dungeon, player, new StringBuilder(), false);
+      session.start();
+      journal.awaitCommit(journal.recordGenesis(gameId, setup));
+      while (!session.isOver() && System.nanoTime() < deadline) {
+        final Direction direction = DIRECTIONS[rand.nextInt(DIRECTIONS.length)];
+        if (player.getCurrLocation().canMove(direction)) {
+          session.accept("M");
+          session.accept(direction.getShortCode());
+          journal.awaitCommit(journal.recordMove(gameId, direction));
+          count++;
+        }
+      }
+      if (session.isOver()) {
+        journal.awaitCommit(journal.recordEnd(gameId));
+      }
+    }
+    return count;
+  }
+
+  private static void run(int numberOfThreads, int seconds) throws Exception {
+    final Path file = Files.createTempFile("bench", ".journal");
+    Files.delete(file);
+    final AtomicLong records = new AtomicLong();
+    final long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+    try (GameJournal journal = new GameJournal(file, 10, 0)) {
+      final List<Thread> threads = new ArrayList<>();
+      for (int i = 0; i < numberOfThreads; i++) {
+        final int gameId = i;
+        threads.add(new Thread(() -> {
+          try {
+            records.addAndGet(play(journal, gameId, numberOfThreads, deadline));
+          } catch (IOException e) {
+            throw new UncheckedIOException(e);
+          }
+        }));
+      }
+      threads.forEach(Thread::start);
+      for (Thread thread : threads) {
+        thread.join();
+      }
+    }
+    final double commitsPerSecond = records.get() / (double) seconds;
+    final long size = Files.size(file);
+    final long start = System.nanoTime();
+    GameJournalReplayer.replay(file);
+    final double replaySeconds = (System.nanoTime() - start) / 1e9;
+    System.out.printf("threads=%-3d committed records/s=%.0f journal=%d bytes replay=%.3fs%n",
+        numberOfThreads, commitsPerSecond, size, replaySeconds);
+    Files.delete(file);
+  }
+}
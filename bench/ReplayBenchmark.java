@@ -0,0 +1,83 @@
+package bench;
+
+import dungeon.Dungeon;
+import dungeon.DungeonConsoleController;
+import dungeon.DungeonReplayController;
+import dungeon.GenerationMode;
+import dungeon.GridStorage;
+import dungeon.Player;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+/**
+ * A benchmark of replaying the recorded input of a game, with the console controller, with the
+ * replay controller writing its text, and with the replay controller making no text. The game
+ * has no end and no monsters, so the whole recording is played.
+ */
+public class ReplayBenchmark {
+
+  private static final long SEED = 42L;
+  private static final String[] WORDS = {"M", "N", "S", "E", "W", "M", "N", "S", "E", "W", "P",
+      "arrow", "ruby", "S", "1", "N", "x"};
+
+  /**
+   * runs the benchmark.
+   *
+   * @param args optional number of lines recorded, and the number of runs of every replay.
+   */
+  public static void main(String[] args) {
+    final int numberOfLines = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+    final int runs = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+    final Random rand = new Random(SEED);
+    final StringBuilder recording = new StringBuilder();
+    for (int i = 0; i < numberOfLines; i++) {
+      recording.append(WORDS[rand.nextInt(WORDS.length)]).append('\n');
+    }
+    final String text = recording.toString();
+    final byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+
+    for (int run = 0; run < runs; run++) {
+      final Dungeon consoleDungeon = newGame();
+      long start = System.nanoTime();
+      try {
+        new DungeonConsoleController(new StringReader(text), new StringBuilder())
+            .playGame(consoleDungeon, consoleDungeon.getPlayer());
+      } catch (NoSuchElementException e) {
+        // the recording has ended
+      }
+      report("console controller", numberOfLines, start);
+
+      final Dungeon renderedDungeon = newGame();
+      start = System.nanoTime();
+      final StringBuilder out = new StringBuilder();
+      new DungeonReplayController(new StringReader(text), out, true)
+          .playGame(renderedDungeon, renderedDungeon.getPlayer());
+      report("replay, rendering", numberOfLines, start);
+
+      final Dungeon silentDungeon = newGame();
+      start = System.nanoTime();
+      final DungeonReplayController silent =
+          new DungeonReplayController(ByteBuffer.wrap(bytes), null, false);
+      silent.playGame(silentDungeon, silentDungeon.getPlayer());
+      report("replay, no rendering", silent.getLinesPlayed(), start);
+    }
+  }
+
+  private static void report(String name, long lines, long start) {
+    final double seconds = (System.nanoTime() - start) / 1e9;
+    System.out.printf("%-22s lines=%d %.3fs lines/s=%.0f%n", name, lines, seconds,
+        lines / seconds);
+  }
+
+  private static Dungeon newGame() {
+    final Dungeon dungeon = new Dungeon(32, 32, 40, true, 60, 3, new Random(SEED),
+            GenerationMode.SHUFFLED_PASS, GridStorage.OBJECTS);
+    dungeon.assignTreasuresAndArrows();
+    dungeon.addStart();
+    dungeon.addPlayer(new Player(1));
+    return dungeon;
+  }
+}
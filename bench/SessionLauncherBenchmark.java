@@ -0,0 +1,102 @@
+package bench;
+
+import dungeon.Dungeon;
+import dungeon.GenerationMode;
+import dungeon.GridStorage;
+import dungeon.Player;
+import dungeon.SessionLauncher;
+import dungeon.SessionPipe;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A benchmark of games played by the console controller on threads of their own, on virtual
+ * threads where the runtime has them and on platform threads. It starts the games and waits for
+ * all of them to idle on their first prompt, measuring the time and the heap taken, then plays
+ * a number of random lines on every game at once.
+ */
+public class SessionLauncherBenchmark {
+
+  private static final long SEED = 42L;
+  private static final String[] WORDS = {"M", "N", "S", "E", "W", "M", "P", "x"};
+
+  /**
+   * runs the benchmark.
+   *
+   * @param args optional comma separated numbers of games, and the lines played on every game.
+   */
+  public static void main(String[] args) throws InterruptedException {
+    final String sessionCounts = args.length > 0 ? args[0] : "1000,5000";
+    final int linesPerSession = args.length > 1 ? Integer.parseInt(args[1]) : 50;
+    if (!SessionLauncher.isVirtualThreadSupported()) {
+      System.out.println("virtual threads are not supported by this runtime");
+    }
+    for (String value : sessionCounts.split(",")) {
+      final int sessions = Integer.parseInt(value.trim());
+      if (SessionLauncher.isVirtualThreadSupported()) {
+        run(true, sessions, linesPerSession);
+      }
+      run(false, sessions, linesPerSession);
+    }
+  }
+
+  private static void run(boolean isVirtual, int sessions, int linesPerSession)
+      throws InterruptedException {
+    final Runtime runtime = Runtime.getRuntime();
+    System.gc();
+    final long heapBefore = runtime.totalMemory() - runtime.freeMemory();
+    final CountDownLatch idle = new CountDownLatch(sessions);
+    final LongAdder outputs = new LongAdder();
+    final List<SessionPipe> pipes = new ArrayList<>();
+    final List<CompletableFuture<Boolean>> outcomes = new ArrayList<>();
+    try (SessionLauncher launcher = new SessionLauncher(isVirtual)) {
+      final long start = System.nanoTime();
+      for (int i = 0; i < sessions; i++) {
+        final Dungeon dungeon = new Dungeon(8, 8, 4, false, 50, 3, new Random(SEED + i),
+                GenerationMode.SHUFFLED_PASS, GridStorage.COMPACT);
+        dungeon.assignTreasuresAndArrows();
+        dungeon.addStart();
+        dungeon.addEnd();
+        dungeon.assignMonsters();
+        final Player player = new Player(1);
+        dungeon.addPlayer(player);
+        final boolean[] isStarted = new boolean[1];
+        final SessionPipe pipe = new SessionPipe(text -> {
+          if (!isStarted[0]) {
+            isStarted[0] = true;
+            idle.countDown();
+          }
+          outputs.increment();
+        }, 0);
+        pipes.add(pipe);
+        outcomes.add(launcher.launch(dungeon, player, pipe));
+      }
+      idle.await();
+      final double idleSeconds = (System.nanoTime() - start) / 1e9;
+      System.gc();
+      final long heapIdle = runtime.totalMemory() - runtime.freeMemory() - heapBefore;
+      // virtual threads are not counted, platform threads each hold a stack outside the heap
+      final int threadsIdle = Thread.activeCount();
+
+      final Random rand = new Random(SEED);
+      final long activeStart = System.nanoTime();
+      for (int line = 0; line < linesPerSession; line++) {
+        for (SessionPipe pipe : pipes) {
+          pipe.submit(WORDS[rand.nextInt(WORDS.length)]);
+        }
+      }
+      pipes.forEach(SessionPipe::close);
+      CompletableFuture.allOf(outcomes.toArray(new CompletableFuture<?>[0])).join();
+      final double activeSeconds = (System.nanoTime() - activeStart) / 1e9;
+      System.out.printf("%s sessions=%d idle after %.2fs heap=%.1fMB (%.1fKB per game) "
+              + "threads=%d active lines/s=%.0f turns=%d%n",
+          launcher.isVirtual() ? "virtual " : "platform", sessions, idleSeconds,
+          heapIdle / 1e6, heapIdle / 1e3 / sessions, threadsIdle,
+          (double) sessions * linesPerSession / activeSeconds, outputs.sum());
+    }
+  }
+}
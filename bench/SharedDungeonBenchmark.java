@@ -0,0 +1,119 @@
+package bench;
+
+import dungeon.Cave;
+import dungeon.Direction;
+import dungeon.Dungeon;
+import dungeon.DungeonGraph;
+import dungeon.GenerationMode;
+import dungeon.GridStorage;
+import dungeon.Player;
+import dungeon.SharedDungeon;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A benchmark of the throughput of players moving concurrently in a shared dungeon, for a
+ * growing number of threads. Every thread drives one player, first walked to a cave of its own
+ * region of the grid, so the players start far apart.
+ */
+public class SharedDungeonBenchmark {
+
+  private static final long SEED = 42L;
+  private static final int SIZE = 256;
+
+  /**
+   * runs the benchmark.
+   *
+   * @param args optional comma separated numbers of threads, and the seconds per run.
+   */
+  public static void main(String[] args) throws InterruptedException {
+    final String threadCounts = args.length > 0 ? args[0] : "1,2,4,8";
+    final double seconds = args.length > 1 ? Double.parseDouble(args[1]) : 2;
+    for (String value : threadCounts.split(",")) {
+      final int numberOfThreads = Integer.parseInt(value.trim());
+      run(numberOfThreads, seconds);
+    }
+  }
+
+  private static void run(int numberOfThreads, double seconds) throws InterruptedException {
+    final Dungeon dungeon = new Dungeon(SIZE, SIZE, SIZE, false, 20, 3, new Random(SEED),
+            GenerationMode.SHUFFLED_PASS, GridStorage.COMPACT);
+    dungeon.assignTreasuresAndArrows();
+    dungeon.addStart();
+    final SharedDungeon shared = new SharedDungeon(dungeon);
+    final DungeonGraph graph = dungeon.getGraph();
+    final int side = (int) Math.ceil(Math.sqrt(numberOfThreads));
+    for (int playerId = 0; playerId < numberOfThreads; playerId++) {
+      shared.addPlayer(new Player(playerId));
+      final int row = (playerId / side * 2 + 1) * SIZE / (2 * side);
+      final int col = (playerId % side * 2 + 1) * SIZE / (2 * side);
+      walkTo(shared, playerId, graph, nearestCave(dungeon, row, col));
+    }
+
+    final AtomicBoolean isRunning = new AtomicBoolean(true);
+    final LongAdder moves = new LongAdder();
+    final CountDownLatch ready = new CountDownLatch(numberOfThreads);
+    final List<Thread> threads = new ArrayList<>();
+    for (int t = 0; t < numberOfThreads; t++) {
+      final int playerId = t;
+      threads.add(new Thread(() -> {
+        final Random rand = new Random(SEED + playerId);
+        final Player player = shared.getPlayer(playerId);
+        long count = 0;
+        ready.countDown();
+        while (isRunning.get()) {
+          int exits = player.getCurrLocation().getExits();
+          for (int skip = rand.nextInt(Integer.bitCount(exits)); skip > 0; skip--) {
+            exits &= exits - 1;
+          }
+          shared.movePlayer(playerId, Direction.lowestOf(exits));
+          count++;
+        }
+        moves.add(count);
+      }));
+    }
+    threads.forEach(Thread::start);
+    ready.await();
+    final long start = System.nanoTime();
+    Thread.sleep((long) (seconds * 1000));
+    isRunning.set(false);
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    final double elapsed = (System.nanoTime() - start) / 1e9;
+    System.out.printf("SharedDungeon.movePlayer threads=%-3d %15.0f moves/s%n", numberOfThreads,
+            moves.sum() / elapsed);
+  }
+
+  private static int nearestCave(Dungeon dungeon, int row, int col) {
+    Cave nearest = null;
+    int nearestDistance = Integer.MAX_VALUE;
+    for (Cave cave : dungeon.getCaves()) {
+      final int distance = Math.abs(cave.getRowDim() - row) + Math.abs(cave.getColDim() - col);
+      if (distance < nearestDistance) {
+        nearest = cave;
+        nearestDistance = distance;
+      }
+    }
+    return nearest.getIdByColSize(SIZE);
+  }
+
+  private static void walkTo(SharedDungeon shared, int playerId, DungeonGraph graph,
+                             int targetId) {
+    final int[] path = shared.getDungeon().getPathFinder().findPath(
+            graph.getId(shared.getPlayer(playerId).getCurrLocation()), targetId);
+    for (int i = 1; i < path.length; i++) {
+      for (int edge = graph.getFirstEdge(path[i - 1]); edge < graph.getEdgeEnd(path[i - 1]);
+           edge++) {
+        if (graph.getTarget(edge) == path[i]) {
+          shared.movePlayer(playerId, graph.getDirection(edge));
+          break;
+        }
+      }
+    }
+  }
+}
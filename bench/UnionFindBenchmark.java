@@ -0,0 +1,127 @@
+package bench;
+
+import dungeon.ConcurrentUnionFind;
+import dungeon.UnionFind;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * A benchmark comparing the union find with the concurrent union find. Every operation unions
+ * twice as many random pairs as the {@link #size} elements, into a new union find, on one
+ * thread and split over every core.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class UnionFindBenchmark {
+
+  /**
+   * the number of elements.
+   */
+  @Param({"100000", "1000000"})
+  public int size;
+
+  private int[] pairs;
+  private int numThreads;
+  private ExecutorService workers;
+
+  /**
+   * to draw the pairs and start the worker threads.
+   */
+  @Setup(Level.Trial)
+  public void setUp() {
+    final Random rand = new Random(42L);
+    pairs = new int[4 * size];
+    for (int i = 0; i < pairs.length; i++) {
+      pairs[i] = rand.nextInt(size);
+    }
+    numThreads = Runtime.getRuntime().availableProcessors();
+    workers = Executors.newFixedThreadPool(numThreads);
+  }
+
+  /**
+   * to stop the worker threads.
+   */
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    workers.shutdownNow();
+  }
+
+  /**
+   * unions the pairs with the union find.
+   *
+   * @return the number of subsets left.
+   */
+  @Benchmark
+  public int unionFind() {
+    final UnionFind unions = new UnionFind(size);
+    for (int i = 0; i < pairs.length; i += 2) {
+      unions.union(pairs[i], pairs[i + 1]);
+    }
+    return unions.getNumSubsets();
+  }
+
+  /**
+   * unions the pairs with the concurrent union find on the benchmark thread.
+   *
+   * @return the union find.
+   */
+  @Benchmark
+  public Object concurrentUnionFind() {
+    final ConcurrentUnionFind unions = new ConcurrentUnionFind(size);
+    for (int i = 0; i < pairs.length; i += 2) {
+      unions.union(pairs[i], pairs[i + 1]);
+    }
+    return unions;
+  }
+
+  /**
+   * unions the pairs with the concurrent union find, split over a thread per core.
+   *
+   * @return the union find.
+   * @throws Exception if a worker fails.
+   */
+  @Benchmark
+  public Object concurrentUnionFindAllCores() throws InterruptedException, ExecutionException {
+    final ConcurrentUnionFind unions = new ConcurrentUnionFind(size);
+    final int numUnions = pairs.length / 2;
+    final List<Callable<Void>> tasks = new ArrayList<>();
+    for (int t = 0; t < numThreads; t++) {
+      final int from = numUnions * t / numThreads;
+      final int to = numUnions * (t + 1) / numThreads;
+      tasks.add(() -> {
+        for (int i = from; i < to; i++) {
+          unions.union(pairs[2 * i], pairs[2 * i + 1]);
+        }
+        return null;
+      });
+    }
+    for (Future<Void> task : workers.invokeAll(tasks)) {
+      task.get();
+    }
+    return unions;
+  }
+}
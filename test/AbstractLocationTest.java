@@ -2,9 +2,15 @@ package test;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 import dungeon.AbstractLocation;
+import dungeon.Direction;
+import dungeon.WallBits;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import org.junit.Before;
 import org.junit.Test;
 
@@ -77,5 +83,39 @@ public class AbstractLocationTest {
     assertEquals(1, locationTest.getNumberOfEntrance());
   }
 
+  @Test
+  public void exitsTest() {
+    assertEquals(0, locationTest.getExits());
+    locationTest.setLeft(false);
+    locationTest.setUp(false);
+    assertEquals(Direction.WEST_BIT | Direction.NORTH_BIT, locationTest.getExits());
+    assertEquals(2, locationTest.exitCount());
+    assertTrue(locationTest.canMove(Direction.WEST));
+    assertFalse(locationTest.canMove(Direction.EAST));
+  }
+
+  @Test
+  public void forEachExitTest() {
+    locationTest.setLeft(false);
+    locationTest.setRight(false);
+    locationTest.setDown(false);
+    final List<Direction> exits = new ArrayList<>();
+    locationTest.forEachExit(exits::add);
+    assertEquals(Arrays.asList(Direction.SOUTH, Direction.EAST, Direction.WEST), exits);
+    assertEquals(Arrays.asList(Direction.SOUTH, Direction.WEST, Direction.EAST),
+            locationTest.getPossibleMoves());
+  }
 
-}
\ No newline at end of file
+  @Test
+  public void directionBitsTest() {
+    for (Direction direction : Direction.values()) {
+      assertEquals(direction, Direction.byOrdinal(direction.ordinal()));
+      assertEquals(direction, Direction.lowestOf(direction.getBit()));
+      assertEquals(direction, Direction.byShortCode(direction.getShortCode().toLowerCase()));
+    }
+    assertEquals(WallBits.UP, Direction.NORTH.getBit());
+    assertEquals(WallBits.LEFT, Direction.WEST.getBit());
+    assertEquals(Direction.EAST, Direction.lowestOf(Direction.EAST_BIT | Direction.WEST_BIT));
+    assertNull(Direction.byShortCode("X"));
+  }
+}
@@ -0,0 +1,121 @@
+package test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import dungeon.CaveGraph;
+import dungeon.CompactGrid;
+import dungeon.Direction;
+import dungeon.Dungeon;
+import dungeon.DungeonGraph;
+import dungeon.Player;
+import dungeon.WallBits;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * a class to test the cave graph and the flight of arrows.
+ */
+public class CaveGraphTest {
+  private CompactGrid grid;
+  private CaveGraph caveGraph;
+
+  /**
+   * a non-wrapping 3 * 3 grid is instantiated, with caves 0, 2, 5 and 6, a tunnel chain
+   * 1, 4 turning from cave 0 to cave 5, a tunnel chain 8, 7 turning from cave 5 to cave 6 and
+   * a closed location 3.
+   */
+  @Before
+  public void setUp() {
+    final int[] exits = {
+        Direction.EAST_BIT,
+        Direction.WEST_BIT | Direction.SOUTH_BIT,
+        Direction.SOUTH_BIT,
+        0,
+        Direction.NORTH_BIT | Direction.EAST_BIT,
+        Direction.WEST_BIT | Direction.NORTH_BIT | Direction.SOUTH_BIT,
+        Direction.EAST_BIT,
+        Direction.EAST_BIT | Direction.WEST_BIT,
+        Direction.NORTH_BIT | Direction.WEST_BIT};
+    final byte[] wallBits = new byte[exits.length];
+    for (int i = 0; i < exits.length; i++) {
+      wallBits[i] = (byte) (WallBits.ALL & ~exits[i]);
+    }
+    grid = new CompactGrid(wallBits, 3, 3);
+    caveGraph = CaveGraph.of(DungeonGraph.of(grid, false));
+  }
+
+  @Test
+  public void cavesOfGraph() {
+    assertEquals(4, caveGraph.getNumberOfCaves());
+    assertEquals(5, caveGraph.getCaveId(2));
+    assertEquals(3, caveGraph.getCaveIndex(6));
+    assertEquals(-1, caveGraph.getCaveIndex(4));
+    assertEquals(-1, caveGraph.getCaveIndex(3));
+  }
+
+  @Test
+  public void tunnelChainsAreEdges() {
+    assertEquals(5, caveGraph.getTarget(0, Direction.EAST));
+    assertEquals(Direction.EAST, caveGraph.getArrival(0, Direction.EAST));
+    assertArrayEquals(new int[]{1, 4}, caveGraph.getCells(0, Direction.EAST));
+    assertEquals(0, caveGraph.getTarget(2, Direction.WEST));
+    assertArrayEquals(new int[]{4, 1}, caveGraph.getCells(2, Direction.WEST));
+    assertEquals(6, caveGraph.getTarget(2, Direction.SOUTH));
+    assertEquals(Direction.WEST, caveGraph.getArrival(2, Direction.SOUTH));
+    assertEquals(2, caveGraph.getTarget(2, Direction.NORTH));
+    assertEquals(0, caveGraph.getCells(2, Direction.NORTH).length);
+    assertEquals(-1, caveGraph.getTarget(0, Direction.NORTH));
+    assertNull(caveGraph.getArrival(0, Direction.NORTH));
+  }
+
+  @Test
+  public void arrowCurvesThroughTunnels() {
+    assertEquals(5, caveGraph.getArrowTarget(0, Direction.EAST, 1));
+    assertEquals(5, caveGraph.getArrowTarget(6, Direction.EAST, 1));
+  }
+
+  @Test
+  public void arrowGoesStraightThroughCaves() {
+    assertEquals(2, caveGraph.getArrowTarget(6, Direction.EAST, 2));
+    assertEquals(6, caveGraph.getArrowTarget(2, Direction.SOUTH, 2));
+  }
+
+  @Test
+  public void arrowIsLostAgainstWalls() {
+    assertEquals(-1, caveGraph.getArrowTarget(0, Direction.EAST, 2));
+    assertEquals(-1, caveGraph.getArrowTarget(0, Direction.SOUTH, 1));
+    assertEquals(-1, caveGraph.getArrowTarget(2, Direction.SOUTH, 3));
+  }
+
+  @Test
+  public void arrowShotFromTunnel() {
+    assertEquals(5, caveGraph.getArrowTarget(4, Direction.EAST, 1));
+    assertEquals(0, caveGraph.getArrowTarget(4, Direction.NORTH, 1));
+    assertEquals(-1, caveGraph.getArrowTarget(4, Direction.SOUTH, 1));
+    assertEquals(6, caveGraph.getArrowTarget(7, Direction.WEST, 1));
+    assertEquals(2, caveGraph.getArrowTarget(7, Direction.EAST, 2));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void invalidDistance() {
+    caveGraph.getArrowTarget(0, Direction.EAST, 0);
+  }
+
+  @Test
+  public void playerShootsAroundCorners() {
+    final Dungeon dungeon = new Dungeon(grid, 0, false, 0, 1,
+            new PredictableRandom(new int[]{4}));
+    dungeon.addStart();
+    grid.getCave(1).addMonster();
+    final Player player = new Player(1);
+    dungeon.addPlayer(player);
+    assertFalse(player.shoot(dungeon, Direction.EAST, 1));
+    assertTrue(player.shoot(dungeon, Direction.EAST, 2));
+    assertEquals(50, grid.getCave(1).getMonster().getHealth());
+    assertEquals(1, player.getNumberOfArrows());
+  }
+}
@@ -0,0 +1,161 @@
+package test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import dungeon.AbstractLocation;
+import dungeon.Cave;
+import dungeon.CompactGrid;
+import dungeon.Dungeon;
+import dungeon.GenerationMode;
+import dungeon.GridStorage;
+import dungeon.Player;
+import dungeon.Treasure;
+import dungeon.Tunnel;
+import dungeon.WallBits;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * a class to test the compact grid.
+ */
+public class CompactGridTest {
+  private CompactGrid grid;
+
+  /**
+   * a 1 * 3 grid with a cave, a tunnel and a cave is instantiated.
+   */
+  @Before
+  public void setUp() {
+    final byte[] wallBits = {
+        (byte) (WallBits.ALL & ~WallBits.RIGHT),
+        (byte) (WallBits.UP | WallBits.DOWN),
+        (byte) (WallBits.ALL & ~WallBits.LEFT)};
+    grid = new CompactGrid(wallBits, 1, 3);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void invalidConstructorTest() {
+    grid = new CompactGrid(new byte[2], 1, 3);
+  }
+
+  @Test(expected = ArrayIndexOutOfBoundsException.class)
+  public void locationOutsideGrid() {
+    grid.getLocation(1, 0);
+  }
+
+  @Test
+  public void locationsByType() {
+    assertEquals(2, grid.getNumberOfCaves());
+    assertEquals(1, grid.getNumberOfTunnels());
+    assertTrue(grid.getLocation(0, 0) instanceof Cave);
+    assertTrue(grid.getLocation(0, 1) instanceof Tunnel);
+    assertEquals(2, grid.getCave(1).getColDim());
+    assertEquals(grid.getCave(1), grid.getLocation(0, 2));
+  }
+
+  @Test
+  public void changesAreWrittenToGrid() {
+    grid.getLocation(0, 1).addArrows();
+    grid.getLocation(0, 1).incrementSmellLevel(2);
+    final Cave cave = (Cave) grid.getLocation(0, 2);
+    cave.addTreasures(Treasure.RUBIES);
+    cave.addTreasures(Treasure.RUBIES);
+    cave.addMonster();
+
+    assertEquals(1, grid.getLocation(0, 1).getNumOfArrowsPresent());
+    assertEquals(2, grid.getLocation(0, 1).getSmellLevel());
+    final Cave sameCave = grid.getCave(1);
+    assertEquals(2, sameCave.getTreasureCount(Treasure.RUBIES));
+    assertTrue(sameCave.hasOtyugh());
+    sameCave.getMonster().setHealthAfterHit();
+    sameCave.getMonster().setHealthAfterHit();
+    assertFalse(grid.getCave(1).hasOtyugh());
+    assertNull(grid.getCave(0).getMonster());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void removeMissingTreasure() {
+    grid.getCave(0).removeTreasure(Treasure.DIAMOND);
+  }
+
+  @Test
+  public void arrowsOutOfRange() {
+    final AbstractLocation tunnel = grid.getLocation(0, 1);
+    for (int i = 0; i < Short.MAX_VALUE; i++) {
+      tunnel.addArrows();
+    }
+    try {
+      tunnel.addArrows();
+      fail("the arrows overflowed");
+    } catch (IllegalArgumentException e) {
+      assertEquals(Short.MAX_VALUE, tunnel.getNumOfArrowsPresent());
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void smellLevelOutOfRange() {
+    grid.getLocation(0, 1).incrementSmellLevel(Short.MAX_VALUE + 1);
+  }
+
+  @Test
+  public void treasureCountOutOfRange() {
+    final Cave cave = grid.getCave(0);
+    for (int i = 0; i < Short.MAX_VALUE; i++) {
+      cave.addTreasures(Treasure.SAPPHIRES);
+    }
+    try {
+      cave.addTreasures(Treasure.SAPPHIRES);
+      fail("the treasure count overflowed");
+    } catch (IllegalArgumentException e) {
+      assertEquals(Short.MAX_VALUE, cave.getTreasureCount(Treasure.SAPPHIRES));
+    }
+  }
+
+  @Test
+  public void sameDungeonAsObjectStorage() {
+    final Dungeon objects = new Dungeon(12, 15, 4, true, 20, 5, new Random(3),
+            GenerationMode.SHUFFLED_PASS, GridStorage.OBJECTS);
+    final Dungeon compact = new Dungeon(12, 15, 4, true, 20, 5, new Random(3),
+            GenerationMode.SHUFFLED_PASS, GridStorage.COMPACT);
+    assertEquals(ids(objects.getCaves()), ids(compact.getCaves()));
+    assertEquals(ids(objects.getTunnels()), ids(compact.getTunnels()));
+    assertEquals(objects.getCaves().get(0).toString(), compact.getCaves().get(0).toString());
+  }
+
+  @Test
+  public void playerMovesThroughCompactDungeon() {
+    final Dungeon dungeon = new Dungeon(8, 8, 2, false, 20, 3, new Random(11),
+            GenerationMode.SHUFFLED_PASS, GridStorage.COMPACT);
+    dungeon.addStart();
+    final Player player = new Player(1);
+    dungeon.addPlayer(player);
+    final AbstractLocation start = player.getCurrLocation();
+    final String direction = start.getPossibleMoves().get(0).getShortCode();
+    dungeon.movePlayer(direction);
+    assertFalse(start.equals(dungeon.getPlayer().getCurrLocation()));
+  }
+
+  @Test
+  public void fromLocationsCopiesState() {
+    final Dungeon dungeon = new Dungeon(6, 6, 0, true, 50, 3, new Random(5));
+    dungeon.assignTreasuresAndArrows();
+    final CompactGrid copy = CompactGrid.fromLocations(dungeon.getLocations());
+    for (int i = 0; i < 6; i++) {
+      for (int j = 0; j < 6; j++) {
+        assertEquals(dungeon.getLocations()[i][j].toString(), copy.getLocation(i, j).toString());
+      }
+    }
+  }
+
+  private List<Integer> ids(List<? extends AbstractLocation> locations) {
+    return locations.stream().map(location -> location.getIdByColSize(15))
+            .collect(Collectors.toList());
+  }
+}
@@ -0,0 +1,98 @@
+package test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import dungeon.ConcurrentUnionFind;
+import dungeon.UnionFind;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * class to test the concurrent union find.
+ */
+public class ConcurrentUnionFindTest {
+  private ConcurrentUnionFind unionTest;
+
+  /**
+   * union find data is instantiated.
+   */
+  @Before
+  public void setUp() {
+    unionTest = new ConcurrentUnionFind(3);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void invalidConstructorTest() {
+    unionTest = new ConcurrentUnionFind(0);
+  }
+
+  @Test
+  public void union() {
+    assertEquals(3, unionTest.getNumSubsets());
+    assertTrue(unionTest.union(1, 2));
+    assertFalse(unionTest.union(2, 1));
+    assertEquals(2, unionTest.getNumSubsets());
+    assertTrue(unionTest.isSameSet(1, 2));
+    assertFalse(unionTest.isSameSet(0, 2));
+  }
+
+  @Test
+  public void longChainDoesNotOverflow() {
+    final int n = 1_000_000;
+    unionTest = new ConcurrentUnionFind(n);
+    for (int i = 1; i < n; i++) {
+      unionTest.union(i - 1, i);
+    }
+    assertEquals(1, unionTest.getNumSubsets());
+    assertTrue(unionTest.isSameSet(0, n - 1));
+  }
+
+  @Test
+  public void stressMatchesSequentialUnionFind() throws InterruptedException {
+    final int n = 20_000;
+    final int threads = 8;
+    final int unionsPerThread = 4_000;
+    final Random rand = new Random(17);
+    final int[][] pairs = new int[threads][2 * unionsPerThread];
+    final UnionFind expected = new UnionFind(n);
+    for (int[] threadPairs : pairs) {
+      for (int i = 0; i < threadPairs.length; i += 2) {
+        threadPairs[i] = rand.nextInt(n);
+        threadPairs[i + 1] = rand.nextInt(n);
+        expected.union(threadPairs[i], threadPairs[i + 1]);
+      }
+    }
+
+    final ConcurrentUnionFind actual = new ConcurrentUnionFind(n);
+    final List<Thread> workers = new ArrayList<>();
+    for (int[] threadPairs : pairs) {
+      workers.add(new Thread(() -> {
+        for (int i = 0; i < threadPairs.length; i += 2) {
+          actual.union(threadPairs[i], threadPairs[i + 1]);
+        }
+      }));
+    }
+    workers.forEach(Thread::start);
+    for (Thread worker : workers) {
+      worker.join();
+    }
+
+    assertEquals(expected.getNumSubsets(), actual.getNumSubsets());
+    // with the same number of subsets, a consistent mapping of set names means equal partitions
+    final int[] actualRootByExpectedRoot = new int[n];
+    Arrays.fill(actualRootByExpectedRoot, -1);
+    for (int i = 0; i < n; i++) {
+      final int expectedRoot = expected.find(i);
+      if (actualRootByExpectedRoot[expectedRoot] < 0) {
+        actualRootByExpectedRoot[expectedRoot] = actual.find(i);
+      }
+      assertEquals(actualRootByExpectedRoot[expectedRoot], actual.find(i));
+    }
+  }
+}
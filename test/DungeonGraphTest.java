@@ -0,0 +1,99 @@
+package test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import dungeon.AbstractLocation;
+import dungeon.Cave;
+import dungeon.CompactGrid;
+import dungeon.Direction;
+import dungeon.Dungeon;
+import dungeon.DungeonGraph;
+import dungeon.GenerationMode;
+import dungeon.GridStorage;
+import dungeon.Tunnel;
+import dungeon.WallBits;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * a class to test the graph of the dungeon.
+ */
+public class DungeonGraphTest {
+  private DungeonGraph graph;
+
+  /**
+   * a wrapping 1 * 3 grid with a cave, a tunnel and a cave is instantiated.
+   */
+  @Before
+  public void setUp() {
+    final byte[] wallBits = {
+        (byte) (WallBits.ALL & ~WallBits.RIGHT),
+        (byte) (WallBits.UP | WallBits.DOWN),
+        (byte) (WallBits.ALL & ~WallBits.LEFT)};
+    graph = DungeonGraph.of(new CompactGrid(wallBits, 1, 3), true);
+  }
+
+  @Test
+  public void edgesOfLocations() {
+    assertEquals(3, graph.size());
+    assertEquals(4, graph.getNumberOfEdges());
+    assertEquals(1, graph.getDegree(0));
+    assertEquals(2, graph.getDegree(1));
+    assertEquals(1, graph.getTarget(graph.getFirstEdge(0)));
+    assertEquals(Direction.EAST, graph.getDirection(graph.getFirstEdge(0)));
+    assertEquals(graph.getFirstEdge(1) + 2, graph.getEdgeEnd(1));
+  }
+
+  @Test
+  public void neighborsByDirection() {
+    assertEquals(2, graph.getNeighbor(1, Direction.EAST));
+    assertEquals(0, graph.getNeighbor(1, Direction.WEST));
+    assertEquals(-1, graph.getNeighbor(1, Direction.NORTH));
+    assertEquals(-1, graph.getNeighbor(0, Direction.WEST));
+  }
+
+  @Test
+  public void cavesAndTunnels() {
+    assertTrue(graph.isCave(0));
+    assertTrue(graph.isTunnel(1));
+    assertFalse(graph.isCave(1));
+  }
+
+  @Test
+  public void sameMovesAsLocations() {
+    for (GridStorage storage : GridStorage.values()) {
+      final Dungeon dungeon = new Dungeon(11, 13, 5, true, 10, 3, new Random(17),
+              GenerationMode.SHUFFLED_PASS, storage);
+      final DungeonGraph dungeonGraph = dungeon.getGraph();
+      // a spanning tree and the extra passages, each passage leaving from both of its sides
+      assertEquals(2 * (11 * 13 - 1 + 5), dungeonGraph.getNumberOfEdges());
+      for (AbstractLocation[] row : dungeon.getLocations()) {
+        for (AbstractLocation location : row) {
+          final int id = dungeonGraph.getId(location);
+          final List<Direction> directions = new ArrayList<>();
+          for (int edge = dungeonGraph.getFirstEdge(id); edge < dungeonGraph.getEdgeEnd(id);
+               edge++) {
+            directions.add(dungeonGraph.getDirection(edge));
+            final AbstractLocation next = dungeon.getNextLocationByDirection(location,
+                    dungeonGraph.getDirection(edge));
+            assertEquals(dungeonGraph.getId(next), dungeonGraph.getTarget(edge));
+          }
+          assertTrue(location.getPossibleMoves().containsAll(directions));
+          assertEquals(location.getPossibleMoves().size(), directions.size());
+          assertEquals(location instanceof Cave, dungeonGraph.isCave(id));
+          assertEquals(location instanceof Tunnel, dungeonGraph.isTunnel(id));
+        }
+      }
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void invalidGrid() {
+    DungeonGraph.of(null, false);
+  }
+}
@@ -0,0 +1,84 @@
+package test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import dungeon.Dungeon;
+import dungeon.DungeonConsoleController;
+import dungeon.DungeonReplayController;
+import dungeon.Player;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import org.junit.Test;
+
+/**
+ * a class to test the replay of the recorded input of games.
+ */
+public class DungeonReplayControllerTest {
+
+  @Test
+  public void sameTextAsConsoleController() {
+    for (int seed = 0; seed < 40; seed++) {
+      final String input = String.join("\n", GameSessionTest.newScript(new Random(seed), 300));
+
+      final StringBuilder expected = new StringBuilder();
+      final Dungeon controlled = newGame(seed);
+      try {
+        new DungeonConsoleController(new StringReader(input), expected)
+            .playGame(controlled, controlled.getPlayer());
+      } catch (NoSuchElementException e) {
+        // the script ran out before the game was over
+      }
+
+      final StringBuilder fromReader = new StringBuilder();
+      final Dungeon replayed = newGame(seed);
+      new DungeonReplayController(new StringReader(input), fromReader, true)
+          .playGame(replayed, replayed.getPlayer());
+      assertEquals(expected.toString(), fromReader.toString());
+
+      final StringBuilder fromBytes = new StringBuilder();
+      final Dungeon replayedBytes = newGame(seed);
+      new DungeonReplayController(ByteBuffer.wrap(input.getBytes(StandardCharsets.UTF_8)),
+          fromBytes, true).playGame(replayedBytes, replayedBytes.getPlayer());
+      assertEquals(expected.toString(), fromBytes.toString());
+    }
+  }
+
+  @Test
+  public void sameOutcomeWithoutRendering() {
+    for (int seed = 0; seed < 40; seed++) {
+      final List<String> script = GameSessionTest.newScript(new Random(seed), 300);
+      final String input = String.join("\n", script);
+      final Dungeon rendered = newGame(seed);
+      final DungeonReplayController renderedReplay =
+          new DungeonReplayController(new StringReader(input), new StringBuilder(), true);
+      renderedReplay.playGame(rendered, rendered.getPlayer());
+
+      final Dungeon silent = newGame(seed);
+      final DungeonReplayController silentReplay =
+          new DungeonReplayController(new StringReader(input), null, false);
+      silentReplay.playGame(silent, silent.getPlayer());
+
+      assertEquals(renderedReplay.getLinesPlayed(), silentReplay.getLinesPlayed());
+      assertTrue(silentReplay.getLinesPlayed() <= script.size());
+      assertEquals(rendered.isGameOver(), silent.isGameOver());
+      assertEquals(rendered.hasPlayerWon(), silent.hasPlayerWon());
+      assertEquals(rendered.getPlayer().toString(), silent.getPlayer().toString());
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void renderingNeedsOutput() {
+    new DungeonReplayController(new StringReader("M"), null, true);
+  }
+
+  private static Dungeon newGame(int seed) {
+    final Dungeon dungeon = GameSessionTest.newDungeon(seed);
+    dungeon.addPlayer(new Player(1));
+    return dungeon;
+  }
+}
@@ -0,0 +1,145 @@
+package test;
+
+import static org.junit.Assert.assertEquals;
+
+import dungeon.Dungeon;
+import dungeon.DungeonServer;
+import dungeon.GameSession;
+import dungeon.Player;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+
+/**
+ * a class to test the text game played over TCP.
+ */
+public class DungeonServerTest {
+
+  @Test
+  public void connectionsPlayTheSameAsAlone() throws IOException {
+    final AtomicInteger seeds = new AtomicInteger();
+    try (DungeonServer server = new DungeonServer(new InetSocketAddress("127.0.0.1", 0), 2,
+        () -> GameSessionTest.newDungeon(seeds.getAndIncrement()))) {
+      final List<Socket> sockets = new ArrayList<>();
+      final List<List<String>> scripts = new ArrayList<>();
+      // the connections are accepted one at a time, so their dungeons get seeds in order
+      for (int i = 0; i < 20; i++) {
+        final Socket socket = new Socket("127.0.0.1", server.getAddress().getPort());
+        readUntil(socket.getInputStream(), "(M-P-S)?\n");
+        sockets.add(socket);
+        scripts.add(GameSessionTest.newScript(new Random(i), 100));
+      }
+      for (int i = 0; i < sockets.size(); i++) {
+        final String expected = play(i, scripts.get(i));
+        final Socket socket = sockets.get(i);
+        final OutputStream out = socket.getOutputStream();
+        final List<String> lines = scripts.get(i);
+        for (int j = 0; j < lines.size(); j++) {
+          // the last line has no line separator, unless it is empty
+          final boolean isLast = j == lines.size() - 1 && !lines.get(j).isEmpty();
+          final String line = isLast ? lines.get(j) : lines.get(j) + "\r\n";
+          out.write(line.getBytes(StandardCharsets.UTF_8));
+        }
+        socket.shutdownOutput();
+        final String text = readAll(socket.getInputStream());
+        assertEquals(expected.substring(expected.indexOf("(M-P-S)?\n") + 9), text);
+        socket.close();
+      }
+    }
+  }
+
+  @Test
+  public void longLineClosesConnection() throws IOException, InterruptedException {
+    try (DungeonServer server = new DungeonServer(new InetSocketAddress("127.0.0.1", 0), 1,
+        () -> GameSessionTest.newDungeon(1));
+         Socket socket = new Socket("127.0.0.1", server.getAddress().getPort())) {
+      readUntil(socket.getInputStream(), "(M-P-S)?\n");
+      assertEquals(1, server.getConnectionCount());
+      final byte[] line = new byte[DungeonServer.MAX_LINE_LENGTH];
+      socket.getOutputStream().write(line);
+      assertEquals("", readAll(socket.getInputStream()));
+      while (server.getConnectionCount() > 0) {
+        Thread.sleep(1);
+      }
+    }
+  }
+
+  @Test
+  public void slowDungeonDoesNotHoldUpLoop() throws IOException, InterruptedException {
+    final CountDownLatch isBuilding = new CountDownLatch(1);
+    final CountDownLatch mayBuild = new CountDownLatch(1);
+    final AtomicInteger seeds = new AtomicInteger();
+    try (DungeonServer server = new DungeonServer(new InetSocketAddress("127.0.0.1", 0), 1,
+        () -> {
+          final int seed = seeds.getAndIncrement();
+          if (seed > 0) {
+            isBuilding.countDown();
+            try {
+              mayBuild.await();
+            } catch (InterruptedException e) {
+              Thread.currentThread().interrupt();
+            }
+          }
+          return GameSessionTest.newDungeon(seed);
+        });
+         Socket first = new Socket("127.0.0.1", server.getAddress().getPort());
+         Socket second = new Socket("127.0.0.1", server.getAddress().getPort())) {
+      // a loop held up by the second dungeon would never answer the first connection
+      first.setSoTimeout(10_000);
+      readUntil(first.getInputStream(), "(M-P-S)?\n");
+      isBuilding.await();
+      first.getOutputStream().write("x\n".getBytes(StandardCharsets.UTF_8));
+      readUntil(first.getInputStream(), "Invalid choice: x\n\n\nMove, Pickup, or Shoot (M-P-S)?\n");
+      assertEquals(1, server.getConnectionCount());
+      mayBuild.countDown();
+      readUntil(second.getInputStream(), "(M-P-S)?\n");
+      assertEquals(2, server.getConnectionCount());
+    }
+  }
+
+  /**
+   * to play a script on the dungeon of a seed without a server.
+   */
+  private static String play(int seed, List<String> lines) throws IOException {
+    final StringBuilder text = new StringBuilder();
+    final Dungeon dungeon = GameSessionTest.newDungeon(seed);
+    final Player player = new Player(1);
+    dungeon.addPlayer(player);
+    final GameSession session = new GameSession(dungeon, player, text);
+    session.start();
+    for (int i = 0; i < lines.size() && !session.isOver(); i++) {
+      session.accept(lines.get(i));
+    }
+    return text.toString();
+  }
+
+  private static void readUntil(InputStream in, String suffix) throws IOException {
+    final StringBuilder text = new StringBuilder();
+    while (!text.toString().endsWith(suffix)) {
+      final int b = in.read();
+      if (b < 0) {
+        throw new IOException("Connection closed before " + suffix);
+      }
+      text.append((char) b);
+    }
+  }
+
+  private static String readAll(InputStream in) throws IOException {
+    final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    final byte[] buffer = new byte[4096];
+    for (int n = in.read(buffer); n >= 0; n = in.read(buffer)) {
+      bytes.write(buffer, 0, n);
+    }
+    return new String(bytes.toByteArray(), StandardCharsets.UTF_8);
+  }
+}
@@ -0,0 +1,179 @@
+package test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import dungeon.AbstractLocation;
+import dungeon.Direction;
+import dungeon.Dungeon;
+import dungeon.DungeonSnapshot;
+import dungeon.ExplorationMap;
+import dungeon.GenerationMode;
+import dungeon.GridStorage;
+import dungeon.Player;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * a class to test the saving and loading of dungeon snapshots.
+ */
+public class DungeonSnapshotTest {
+  private Dungeon dungeon;
+
+  /**
+   * a dungeon in the middle of a game is instantiated.
+   */
+  @Before
+  public void setUp() {
+    dungeon = new Dungeon(8, 9, 3, true, 50, 4, new Random(21), GenerationMode.SHUFFLED_PASS);
+    dungeon.assignTreasuresAndArrows();
+    dungeon.addStart();
+    dungeon.addEnd();
+    dungeon.assignMonsters();
+    dungeon.addPlayer(new Player(7));
+    final AbstractLocation start = dungeon.getPlayer().getCurrLocation();
+    dungeon.movePlayer(start.getPossibleMoves().get(0).getShortCode());
+  }
+
+  @Test
+  public void objectDungeonRoundTrip() throws IOException {
+    assertSameDungeon(dungeon, roundTrip(dungeon));
+  }
+
+  @Test
+  public void compactDungeonRoundTrip() throws IOException {
+    final Dungeon compact = new Dungeon(12, 10, 2, false, 30, 3, new Random(5),
+            GenerationMode.SHUFFLED_PASS, GridStorage.COMPACT);
+    compact.assignTreasuresAndArrows();
+    compact.addStart();
+    compact.addEnd();
+    compact.assignMonsters();
+    compact.getEnd().getMonster().setHealthAfterHit();
+    final Dungeon loaded = roundTrip(compact);
+    assertSameDungeon(compact, loaded);
+    assertFalse(loaded.hasPlayer());
+    assertEquals(50, loaded.getEnd().getMonster().getHealth());
+  }
+
+  @Test
+  public void loadedDungeonCanBePlayed() throws IOException {
+    final Dungeon loaded = roundTrip(dungeon);
+    final AbstractLocation location = loaded.getPlayer().getCurrLocation();
+    loaded.movePlayer(location.getPossibleMoves().get(0).getShortCode());
+    dungeon.movePlayer(location.getPossibleMoves().get(0).getShortCode());
+    assertEquals(dungeon.getPlayer().toString(), loaded.getPlayer().toString());
+  }
+
+  @Test
+  public void explorationMapRoundTrip() throws IOException {
+    final Random rand = new Random(3);
+    for (int i = 0; i < 30; i++) {
+      final List<Direction> moves = dungeon.getPlayer().getCurrLocation().getPossibleMoves();
+      dungeon.movePlayer(moves.get(rand.nextInt(moves.size())).getShortCode());
+    }
+    final ExplorationMap explored = dungeon.getPlayer().getExplorationMap();
+    assertTrue(explored.getVisitedCount() > 1);
+    final ExplorationMap loaded = roundTrip(dungeon).getPlayer().getExplorationMap();
+    assertEquals(explored.getVisitedCount(), loaded.getVisitedCount());
+    assertArrayEquals(explored.toByteArray(), loaded.toByteArray());
+  }
+
+  @Test
+  public void readsFirstVersionWithoutExplorationMap() throws IOException {
+    final byte[] map = dungeon.getPlayer().getExplorationMap().toByteArray();
+    final byte[] bytes = write(dungeon);
+    final byte[] firstVersion = Arrays.copyOf(bytes, bytes.length - Integer.BYTES - map.length);
+    firstVersion[7] = 1;
+    final Dungeon loaded = DungeonSnapshot.read(Channels.newChannel(
+            new ByteArrayInputStream(firstVersion)), new Random(1));
+    assertEquals(dungeon.getPlayer().toString(), loaded.getPlayer().toString());
+    assertEquals(1, loaded.getPlayer().getExplorationMap().getVisitedCount());
+  }
+
+  @Test
+  public void saveAndLoadFile() throws IOException {
+    final Path file = Files.createTempFile("dungeon", ".snapshot");
+    try {
+      DungeonSnapshot.save(dungeon, file);
+      assertSameDungeon(dungeon, DungeonSnapshot.load(file, new Random(1)));
+    } finally {
+      Files.delete(file);
+    }
+  }
+
+  @Test(expected = IOException.class)
+  public void invalidSnapshot() throws IOException {
+    final byte[] bytes = write(dungeon);
+    bytes[0] = 0;
+    DungeonSnapshot.read(Channels.newChannel(new ByteArrayInputStream(bytes)), new Random(1));
+  }
+
+  @Test(expected = IOException.class)
+  public void truncatedSnapshot() throws IOException {
+    final byte[] bytes = write(dungeon);
+    DungeonSnapshot.read(Channels.newChannel(new ByteArrayInputStream(
+            Arrays.copyOf(bytes, bytes.length - 5))), new Random(1));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void countTooLargeForSnapshot() throws IOException {
+    final AbstractLocation start = dungeon.getStart();
+    for (int i = 0; i <= Short.MAX_VALUE; i++) {
+      start.addArrows();
+    }
+    write(dungeon);
+  }
+
+  private byte[] write(Dungeon dungeon) throws IOException {
+    final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    DungeonSnapshot.write(dungeon, Channels.newChannel(out));
+    return out.toByteArray();
+  }
+
+  private Dungeon roundTrip(Dungeon dungeon) throws IOException {
+    return DungeonSnapshot.read(Channels.newChannel(new ByteArrayInputStream(write(dungeon))),
+            new Random(1));
+  }
+
+  private void assertSameDungeon(Dungeon expected, Dungeon actual) {
+    assertEquals(expected.isWrapping(), actual.isWrapping());
+    assertEquals(expected.getInterconnectivity(), actual.getInterconnectivity());
+    assertEquals(expected.getDifficulty(), actual.getDifficulty());
+    assertEquals(expected.getCaves().size(), actual.getCaves().size());
+    assertEquals(expected.getTunnels().size(), actual.getTunnels().size());
+    final AbstractLocation[][] expectedLocations = expected.getLocations();
+    final AbstractLocation[][] actualLocations = actual.getLocations();
+    for (int i = 0; i < expectedLocations.length; i++) {
+      for (int j = 0; j < expectedLocations[i].length; j++) {
+        assertEquals(expectedLocations[i][j].toString(), actualLocations[i][j].toString());
+        assertEquals(expectedLocations[i][j].getSmellLevel(),
+                actualLocations[i][j].getSmellLevel());
+      }
+    }
+    assertEquals(expected.getStart().toString(), actual.getStart().toString());
+    assertEquals(expected.getEnd().toString(), actual.getEnd().toString());
+    assertEquals(expected.getMonsters().size(), actual.getMonsters().size());
+    for (int i = 0; i < expected.getMonsters().size(); i++) {
+      assertEquals(expected.getMonsters().get(i).getLocation().toString(),
+              actual.getMonsters().get(i).getLocation().toString());
+    }
+    if (expected.hasPlayer()) {
+      assertEquals(expected.getPlayer().getPlayerId(), actual.getPlayer().getPlayerId());
+      assertEquals(expected.getPlayer().toString(), actual.getPlayer().toString());
+      assertArrayEquals(expected.getPlayer().getExplorationMap().toByteArray(),
+              actual.getPlayer().getExplorationMap().toByteArray());
+    }
+    assertEquals(expected.toString(), actual.toString());
+  }
+}
@@ -4,7 +4,12 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
+import dungeon.AbstractLocation;
+import dungeon.Cave;
+import dungeon.Direction;
 import dungeon.Dungeon;
+import dungeon.GenerationMode;
+import dungeon.PlacementPolicy;
 import dungeon.Player;
 import java.util.Arrays;
 import java.util.List;
@@ -97,7 +102,7 @@ public class DungeonTest {
 
   @Test
   public void testTreasureAndArrowAssignment() {
-    final int[] newRandomSequence = {5, 2, 4, 1, 3, 2, 1, 1, 0, 1, 1, 0, 1};
+    final int[] newRandomSequence = {5, 2, 4, 1, 3, 1, 1, 1};
     Random newRandom = new PredictableRandom(newRandomSequence);
     testDungeon = new Dungeon(2, 2, 0, true, 10, 10, newRandom);
     testDungeon.assignTreasuresAndArrows();
@@ -106,7 +111,7 @@ public class DungeonTest {
     assertEquals(1, actualNoOfCavesWithTreasure);
     assertEquals(1, testDungeon.getLocations()[0][0].getNumOfArrowsPresent());
 
-    final int[] newRandomSequence1 = {5, 2, 4, 1, 3, 2, 1, 1, 1, 2, 1, 1, 2, 2, 2};
+    final int[] newRandomSequence1 = {5, 2, 4, 1, 3, 1, 3, 1, 3};
     Random newRandom1 = new PredictableRandom(newRandomSequence1);
     testDungeon = new Dungeon(2, 2, 0, true, 100, 10, newRandom1);
     testDungeon.assignTreasuresAndArrows();
@@ -147,13 +152,13 @@ public class DungeonTest {
   public void testValidEnd() {
     final int[] randomSequence1 = {5, 14, 8, 4, 10, 12, 15, 3, 9, 1, 11, 6, 13, 2, 7, 21, 17, 16,
                                       8, 20, 18, 22, 19, 24, 28, 27, 28, 30, 34, 36, 38, 42, 45,
-                                      40, 43, 44, 47, 1};
+                                      40, 43, 44, 47, 1, 1};
     random = new PredictableRandom(randomSequence1);
     testDungeon = new Dungeon(6, 4, 0, true, 10, 10, random);
     testDungeon.addStart();
     testDungeon.addEnd();
     assertEquals(2, testDungeon.getStart().getIdByColSize(4));
-    assertEquals(5, testDungeon.getEnd().getIdByColSize(4));
+    assertEquals(12, testDungeon.getEnd().getIdByColSize(4));
   }
 
   @Test
@@ -193,13 +198,13 @@ public class DungeonTest {
   public void testMonsterSetUp() {
     final int[] randomSequence1 = {5, 14, 8, 4, 10, 12, 15, 3, 9, 1, 11, 6, 13, 2, 7, 21, 17, 16,
         8, 20, 18, 22, 19, 24, 28, 27, 28, 30, 34, 36, 38, 42, 45,
-        40, 43, 44, 47, 1, 5, 7};
+        40, 43, 44, 47, 1, 1, 5, 7};
     random = new PredictableRandom(randomSequence1);
     testDungeon = new Dungeon(6, 4, 0, true, 10, 2, random);
     testDungeon.addStart();
     testDungeon.addEnd();
     assertEquals(2, testDungeon.getStart().getIdByColSize(4));
-    assertEquals(5, testDungeon.getEnd().getIdByColSize(4));
+    assertEquals(12, testDungeon.getEnd().getIdByColSize(4));
     testDungeon.assignMonsters();
     assertEquals(2, testDungeon.getMonsters().size());
   }
@@ -208,7 +213,7 @@ public class DungeonTest {
   public void testMonsterIsAtEnd() {
     final int[] randomSequence1 = {5, 14, 8, 4, 10, 12, 15, 3, 9, 1, 11, 6, 13, 2, 7, 21, 17, 16,
         8, 20, 18, 22, 19, 24, 28, 27, 28, 30, 34, 36, 38, 42, 45,
-        40, 43, 44, 47, 1, 5, 7};
+        40, 43, 44, 47, 1, 1, 5, 7};
     random = new PredictableRandom(randomSequence1);
     testDungeon = new Dungeon(6, 4, 0, true, 10, 2, random);
     testDungeon.addStart();
@@ -222,7 +227,7 @@ public class DungeonTest {
   public void testMonsterNotPresentAtStart() {
     final int[] randomSequence1 = {5, 14, 8, 4, 10, 12, 15, 3, 9, 1, 11, 6, 13, 2, 7, 21, 17, 16,
         8, 20, 18, 22, 19, 24, 28, 27, 28, 30, 34, 36, 38, 42, 45,
-        40, 43, 44, 47, 1, 5, 7};
+        40, 43, 44, 47, 1, 1, 5, 7};
     random = new PredictableRandom(randomSequence1);
     testDungeon = new Dungeon(6, 4, 0, true, 10, 2, random);
     testDungeon.addStart();
@@ -235,16 +240,186 @@ public class DungeonTest {
   public void testDifficultyMoreThanCaves() {
     final int[] randomSequence1 = {5, 14, 8, 4, 10, 12, 15, 3, 9, 1, 11, 6, 13, 2, 7, 21, 17, 16,
         8, 20, 18, 22, 19, 24, 28, 27, 28, 30, 34, 36, 38, 42, 45,
-        40, 43, 44, 47, 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14};
+        40, 43, 44, 47, 1, 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14};
     random = new PredictableRandom(randomSequence1);
     testDungeon = new Dungeon(6, 4, 0, true, 10, 14, random);
     testDungeon.addStart();
     testDungeon.addEnd();
     assertEquals(2, testDungeon.getStart().getIdByColSize(4));
-    assertEquals(5, testDungeon.getEnd().getIdByColSize(4));
+    assertEquals(12, testDungeon.getEnd().getIdByColSize(4));
     testDungeon.assignMonsters();
     assertEquals(13, testDungeon.getCaves().size());
     assertEquals(12, testDungeon.getMonsters().size());
   }
 
-}
\ No newline at end of file
+  @Test
+  public void testShuffledPassIsDeterministicForSeed() {
+    Dungeon first = new Dungeon(30, 40, 5, true, 10, 10, new Random(42),
+            GenerationMode.SHUFFLED_PASS);
+    Dungeon second = new Dungeon(30, 40, 5, true, 10, 10, new Random(42),
+            GenerationMode.SHUFFLED_PASS);
+    List<Integer> firstCaveIds = first.getCaves().stream()
+            .map(cave -> cave.getIdByColSize(40)).collect(Collectors.toList());
+    List<Integer> secondCaveIds = second.getCaves().stream()
+            .map(cave -> cave.getIdByColSize(40)).collect(Collectors.toList());
+    assertEquals(firstCaveIds, secondCaveIds);
+    assertEquals(30 * 40, first.getCaves().size() + first.getTunnels().size());
+  }
+
+  @Test
+  public void testShuffledPassCarvesSpanningTree() {
+    testDungeon = new Dungeon(20, 25, 0, false, 10, 10, new Random(7),
+            GenerationMode.SHUFFLED_PASS);
+    int openings = 0;
+    for (AbstractLocation[] row : testDungeon.getLocations()) {
+      for (AbstractLocation location : row) {
+        openings += location.getNumberOfEntrance();
+      }
+    }
+    // every passage opens two sides, a spanning tree has one less passage than locations
+    assertEquals(2 * (20 * 25 - 1), openings);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testShuffledPassInvalidInterconnectivity() {
+    testDungeon = new Dungeon(2, 2, 8, true, 10, 10, new Random(1),
+            GenerationMode.SHUFFLED_PASS);
+  }
+
+  @Test
+  public void testEndIsAtLeastMinimumDistance() {
+    for (long seed = 0; seed < 20; seed++) {
+      testDungeon = new Dungeon(10, 12, 4, seed % 2 == 0, 10, 3, new Random(seed));
+      testDungeon.addStart();
+      testDungeon.addEnd();
+      assertTrue(testDungeon.getDistanceFromStart(testDungeon.getEnd())
+              >= Dungeon.DEFAULT_MINIMUM_END_DISTANCE);
+    }
+  }
+
+  @Test
+  public void testEndWithCustomMinimumDistance() {
+    testDungeon = new Dungeon(12, 12, 0, false, 10, 3, new Random(3));
+    testDungeon.addStart();
+    testDungeon.addEnd(12);
+    assertTrue(testDungeon.getDistanceFromStart(testDungeon.getEnd()) >= 12);
+  }
+
+  @Test
+  public void testDistancesFromStart() {
+    testDungeon = new Dungeon(9, 7, 3, true, 10, 3, new Random(11));
+    testDungeon.addStart();
+    final int[] distances = testDungeon.getDistancesFromStart();
+    assertEquals(0, distances[testDungeon.getStart().getIdByColSize(7)]);
+    for (AbstractLocation[] row : testDungeon.getLocations()) {
+      for (AbstractLocation location : row) {
+        final int distance = distances[location.getIdByColSize(7)];
+        // every location of a connected dungeon is reached, one move further than a neighbor
+        assertTrue(distance >= 0);
+        boolean hasCloserNeighbor = distance == 0;
+        for (Direction direction : location.getPossibleMoves()) {
+          final AbstractLocation next = testDungeon.getNextLocationByDirection(location,
+                  direction);
+          final int nextDistance = distances[next.getIdByColSize(7)];
+          assertTrue(Math.abs(distance - nextDistance) <= 1);
+          hasCloserNeighbor |= nextDistance == distance - 1;
+        }
+        assertTrue(hasCloserNeighbor);
+      }
+    }
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testDistancesWithoutStart() {
+    testDungeon = new Dungeon(4, 4, 0, true, 10, 3, new Random(1));
+    testDungeon.getDistancesFromStart();
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidMinimumEndDistance() {
+    testDungeon = new Dungeon(4, 4, 0, true, 10, 3, new Random(1));
+    testDungeon.addStart();
+    testDungeon.addEnd(0);
+  }
+
+  @Test
+  public void testMonstersFillAlmostEveryCave() {
+    for (PlacementPolicy policy : PlacementPolicy.values()) {
+      testDungeon = new Dungeon(20, 20, 10, false, 10, 1000, new Random(3));
+      testDungeon.addStart();
+      testDungeon.addEnd();
+      testDungeon.assignMonsters(policy);
+      final List<Cave> caves = testDungeon.getCaves();
+      // every cave but the start holds a single monster
+      assertEquals(caves.size() - 1, testDungeon.getMonsters().size());
+      assertEquals(caves.size() - 1, testDungeon.getMonsters().stream()
+              .map(monster -> monster.getLocation().getIdByColSize(20)).distinct().count());
+      assertFalse(testDungeon.getStart().hasOtyugh());
+    }
+  }
+
+  @Test
+  public void testMonstersOfEveryPolicy() {
+    for (PlacementPolicy policy : PlacementPolicy.values()) {
+      testDungeon = new Dungeon(20, 20, 10, true, 10, 9, new Random(5));
+      testDungeon.addStart();
+      testDungeon.addEnd();
+      testDungeon.assignMonsters(policy);
+      assertEquals(9, testDungeon.getMonsters().size());
+      assertEquals(9, testDungeon.getMonsters().stream()
+              .map(monster -> monster.getLocation().getIdByColSize(20)).distinct().count());
+      assertTrue(testDungeon.getEnd().hasOtyugh());
+      assertFalse(testDungeon.getStart().hasOtyugh());
+    }
+  }
+
+  @Test
+  public void testDistanceWeightedMonstersAreFarther() {
+    long uniformDistance = 0;
+    long weightedDistance = 0;
+    for (int seed = 0; seed < 20; seed++) {
+      for (PlacementPolicy policy : new PlacementPolicy[]{PlacementPolicy.UNIFORM,
+          PlacementPolicy.DISTANCE_WEIGHTED}) {
+        testDungeon = new Dungeon(15, 15, 5, false, 10, 20, new Random(seed));
+        testDungeon.addStart();
+        testDungeon.addEnd();
+        testDungeon.assignMonsters(policy);
+        long distance = 0;
+        for (int i = 1; i < testDungeon.getMonsters().size(); i++) {
+          distance += testDungeon.getDistanceFromStart(
+                  testDungeon.getMonsters().get(i).getLocation());
+        }
+        if (policy == PlacementPolicy.UNIFORM) {
+          uniformDistance += distance;
+        } else {
+          weightedDistance += distance;
+        }
+      }
+    }
+    assertTrue(weightedDistance > uniformDistance);
+  }
+
+  @Test
+  public void testRegionQuotaMonstersInEveryQuadrant() {
+    testDungeon = new Dungeon(16, 16, 8, false, 10, 5, new Random(11));
+    testDungeon.addStart();
+    testDungeon.addEnd();
+    testDungeon.assignMonsters(PlacementPolicy.REGION_QUOTA);
+    final boolean[] quadrants = new boolean[4];
+    // the monster of the end cave is not placed by the policy
+    for (int i = 1; i < testDungeon.getMonsters().size(); i++) {
+      final AbstractLocation location = testDungeon.getMonsters().get(i).getLocation();
+      quadrants[location.getRowDim() / 8 * 2 + location.getColDim() / 8] = true;
+    }
+    for (boolean hasMonster : quadrants) {
+      assertTrue(hasMonster);
+    }
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testMonstersWithoutEnd() {
+    testDungeon = new Dungeon(4, 4, 0, true, 10, 3, new Random(1));
+    testDungeon.addStart();
+    testDungeon.assignMonsters();
+  }
+}
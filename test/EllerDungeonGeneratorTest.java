@@ -0,0 +1,157 @@
+package test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import dungeon.ChannelRowSink;
+import dungeon.EllerDungeonGenerator;
+import dungeon.WallBits;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.util.Random;
+import org.junit.Test;
+
+/**
+ * a class to test the Eller's algorithm generator.
+ */
+public class EllerDungeonGeneratorTest {
+
+  private byte[] generate(int rows, int cols, int interconnectivity, long seed)
+          throws IOException {
+    final byte[] bits = new byte[rows * cols];
+    new EllerDungeonGenerator(rows, cols, interconnectivity, new Random(seed))
+            .generate((row, wallBits) -> System.arraycopy(wallBits, 0, bits, row * cols, cols));
+    return bits;
+  }
+
+  private int countEntrances(byte[] bits) {
+    int entrances = 0;
+    for (byte bit : bits) {
+      entrances += WallBits.getNumberOfEntrance(bit);
+    }
+    return entrances;
+  }
+
+  private int countReachable(byte[] bits, int rows, int cols) {
+    final boolean[] isSeen = new boolean[rows * cols];
+    final int[] stack = new int[rows * cols];
+    int size = 0;
+    int count = 0;
+    stack[size++] = 0;
+    isSeen[0] = true;
+    while (size > 0) {
+      final int id = stack[--size];
+      count++;
+      final int bit = bits[id];
+      final int[] next = {
+              (bit & WallBits.UP) == 0 ? id - cols : -1,
+              (bit & WallBits.DOWN) == 0 ? id + cols : -1,
+              (bit & WallBits.LEFT) == 0 ? id - 1 : -1,
+              (bit & WallBits.RIGHT) == 0 ? id + 1 : -1};
+      for (int neighbor : next) {
+        if (neighbor >= 0 && !isSeen[neighbor]) {
+          isSeen[neighbor] = true;
+          stack[size++] = neighbor;
+        }
+      }
+    }
+    return count;
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void invalidInterconnectivity() {
+    new EllerDungeonGenerator(2, 2, 2, new Random(1));
+  }
+
+  @Test
+  public void carvesSpanningTree() throws IOException {
+    assertEquals(2 * (40 * 25 - 1), countEntrances(generate(40, 25, 0, 3L)));
+    assertEquals(2 * (30 - 1), countEntrances(generate(30, 1, 0, 3L)));
+    assertEquals(2 * (30 - 1), countEntrances(generate(1, 30, 0, 3L)));
+  }
+
+  @Test
+  public void addsInterconnectivity() throws IOException {
+    assertEquals(2 * (40 * 25 - 1 + 60), countEntrances(generate(40, 25, 60, 5L)));
+  }
+
+  @Test
+  public void wallsMatchNeighborsAndBorders() throws IOException {
+    final int rows = 35;
+    final int cols = 12;
+    final byte[] bits = generate(rows, cols, 20, 9L);
+    for (int i = 0; i < rows; i++) {
+      for (int j = 0; j < cols; j++) {
+        final int bit = bits[i * cols + j];
+        if (i == 0) {
+          assertTrue((bit & WallBits.UP) != 0);
+        } else {
+          assertEquals((bits[(i - 1) * cols + j] & WallBits.DOWN) != 0, (bit & WallBits.UP) != 0);
+        }
+        if (j == 0) {
+          assertTrue((bit & WallBits.LEFT) != 0);
+        } else {
+          assertEquals((bits[i * cols + j - 1] & WallBits.RIGHT) != 0,
+                  (bit & WallBits.LEFT) != 0);
+        }
+        if (i == rows - 1) {
+          assertTrue((bit & WallBits.DOWN) != 0);
+        }
+        if (j == cols - 1) {
+          assertTrue((bit & WallBits.RIGHT) != 0);
+        }
+      }
+    }
+  }
+
+  @Test
+  public void knocksDownEveryWallAtMaximum() throws IOException {
+    final int rows = 100;
+    final int cols = 10;
+    final int maximum = (2 * rows * cols - rows - cols) - (rows * cols - 1);
+    final byte[] bits = generate(rows, cols, maximum, 1L);
+    for (int i = 0; i < rows; i++) {
+      for (int j = 0; j < cols; j++) {
+        int borders = 0;
+        borders += i == 0 || i == rows - 1 ? 1 : 0;
+        borders += j == 0 || j == cols - 1 ? 1 : 0;
+        assertEquals(4 - borders, WallBits.getNumberOfEntrance(bits[i * cols + j]));
+      }
+    }
+  }
+
+  @Test
+  public void reachesEveryAcceptedInterconnectivity() throws IOException {
+    final int rows = 100;
+    final int cols = 10;
+    final int maximum = (2 * rows * cols - rows - cols) - (rows * cols - 1);
+    for (int interconnectivity : new int[] {89, 222, 356, 445, 668, maximum - 1, maximum}) {
+      for (long seed = 0; seed < 50; seed++) {
+        final byte[] bits = generate(rows, cols, interconnectivity, seed);
+        assertEquals(2 * (rows * cols - 1 + interconnectivity), countEntrances(bits));
+        assertEquals(rows * cols, countReachable(bits, rows, cols));
+      }
+    }
+  }
+
+  @Test
+  public void sameSeedSameDungeon() throws IOException {
+    assertArrayEquals(generate(50, 20, 10, 77L), generate(50, 20, 10, 77L));
+  }
+
+  @Test
+  public void channelSinkWritesEveryRow() throws IOException {
+    final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    new EllerDungeonGenerator(10, 7, 3, new Random(2L))
+            .generate(new ChannelRowSink(Channels.newChannel(out), 7));
+    assertArrayEquals(generate(10, 7, 3, 2L), out.toByteArray());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void channelSinkRejectsLongerRows() throws IOException {
+    new EllerDungeonGenerator(10, 8, 3, new Random(2L))
+            .generate(new ChannelRowSink(Channels.newChannel(new ByteArrayOutputStream()), 7));
+  }
+}
@@ -0,0 +1,165 @@
+package test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import dungeon.AbstractLocation;
+import dungeon.Direction;
+import dungeon.Dungeon;
+import dungeon.DungeonGraph;
+import dungeon.ExplorationMap;
+import dungeon.Player;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+import java.util.PrimitiveIterator;
+import java.util.Random;
+import org.junit.Test;
+
+/**
+ * a class to test the locations explored by a player.
+ */
+public class ExplorationMapTest {
+
+  @Test
+  public void visitAndSee() {
+    final ExplorationMap map = new ExplorationMap(10, 10);
+    map.see(5);
+    map.visit(5);
+    map.visit(5);
+    map.see(6);
+    map.see(73);
+    assertTrue(map.hasExplored(0, 5));
+    assertFalse(map.hasExplored(0, 6));
+    assertTrue(map.hasSeen(0, 6));
+    assertTrue(map.hasSeen(7, 3));
+    assertFalse(map.hasSeen(9, 9));
+    assertEquals(1, map.getVisitedCount());
+    assertEquals(3, map.getSeenCount());
+    assertEquals(2, map.getFrontierCount());
+    assertEquals(1.0, map.getExploredPercentage(), 1e-9);
+  }
+
+  @Test
+  public void frontierInOrder() {
+    final ExplorationMap map = new ExplorationMap(20, 20);
+    for (int id : new int[]{399, 3, 64, 65, 200}) {
+      map.see(id);
+    }
+    map.visit(65);
+    map.visit(0);
+    final PrimitiveIterator.OfInt frontier = map.frontierIterator();
+    final int[] ids = new int[map.getFrontierCount()];
+    for (int i = 0; i < ids.length; i++) {
+      ids[i] = frontier.nextInt();
+    }
+    assertFalse(frontier.hasNext());
+    assertArrayEquals(new int[]{3, 64, 200, 399}, ids);
+  }
+
+  @Test
+  public void bytesRoundTrip() {
+    final ExplorationMap sparse = new ExplorationMap(100, 100);
+    sparse.visit(4321);
+    sparse.see(4322);
+    final byte[] sparseBytes = sparse.toByteArray();
+    // much shorter than the two bit sets of 157 words each
+    assertTrue(sparseBytes.length < 50);
+    assertSameMap(sparse, ExplorationMap.fromByteArray(sparseBytes));
+
+    final ExplorationMap dense = new ExplorationMap(30, 30);
+    for (int id = 0; id < 900; id += 3) {
+      dense.visit(id);
+      dense.see(id + 1);
+    }
+    final byte[] denseBytes = dense.toByteArray();
+    assertEquals(8 + 2 * (1 + 8 * 15), denseBytes.length);
+    assertSameMap(dense, ExplorationMap.fromByteArray(denseBytes));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void truncatedBytes() {
+    final byte[] bytes = new ExplorationMap(10, 10).toByteArray();
+    ExplorationMap.fromByteArray(Arrays.copyOf(bytes, bytes.length - 1));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void locationOutsideMap() {
+    new ExplorationMap(10, 10).visit(100);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void tooManyLocations() {
+    new ExplorationMap(65536, 65536);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void bytesOfTooManyLocations() {
+    ExplorationMap.fromByteArray(ByteBuffer.allocate(8).putInt(100000).putInt(100000).array());
+  }
+
+  @Test
+  public void movesOfPlayerExplore() {
+    final Dungeon dungeon = new Dungeon(12, 12, 3, true, 10, 3, new Random(4));
+    dungeon.addStart();
+    final Player player = new Player(1);
+    dungeon.addPlayer(player);
+    final ExplorationMap map = player.getExplorationMap();
+    final AbstractLocation start = dungeon.getStart();
+    assertTrue(map.hasExplored(start.getRowDim(), start.getColDim()));
+    assertEquals(1, map.getVisitedCount());
+    assertEquals(1 + start.exitCount(), map.getSeenCount());
+
+    final Direction direction = start.getPossibleMoves().get(0);
+    final AbstractLocation next = dungeon.getNextLocationByDirection(start, direction);
+    assertTrue(map.hasSeen(next.getRowDim(), next.getColDim()));
+    assertFalse(map.hasExplored(next.getRowDim(), next.getColDim()));
+    dungeon.movePlayer(direction.getShortCode());
+    assertTrue(map.hasExplored(next.getRowDim(), next.getColDim()));
+    assertEquals(2, map.getVisitedCount());
+    for (Direction exit : next.getPossibleMoves()) {
+      final AbstractLocation neighbor = dungeon.getNextLocationByDirection(next, exit);
+      assertTrue(map.hasSeen(neighbor.getRowDim(), neighbor.getColDim()));
+    }
+  }
+
+  @Test
+  public void seenLocationsAreNeighborsInGraph() {
+    final Dungeon dungeon = new Dungeon(9, 7, 4, true, 10, 3, new Random(8));
+    dungeon.addStart();
+    final Player player = new Player(1);
+    dungeon.addPlayer(player);
+    final Random rand = new Random(3);
+    for (int i = 0; i < 60; i++) {
+      final List<Direction> moves = dungeon.getPlayer().getCurrLocation().getPossibleMoves();
+      dungeon.movePlayer(moves.get(rand.nextInt(moves.size())).getShortCode());
+    }
+    final ExplorationMap map = player.getExplorationMap();
+    final DungeonGraph graph = dungeon.getGraph();
+    final boolean[] isSeen = new boolean[9 * 7];
+    for (int id = 0; id < isSeen.length; id++) {
+      if (map.hasExplored(id / 7, id % 7)) {
+        isSeen[id] = true;
+        for (int edge = graph.getFirstEdge(id); edge < graph.getEdgeEnd(id); edge++) {
+          isSeen[graph.getTarget(edge)] = true;
+        }
+      }
+    }
+    for (int id = 0; id < isSeen.length; id++) {
+      assertEquals(isSeen[id], map.hasSeen(id / 7, id % 7));
+    }
+  }
+
+  private static void assertSameMap(ExplorationMap expected, ExplorationMap actual) {
+    assertEquals(expected.getVisitedCount(), actual.getVisitedCount());
+    assertEquals(expected.getSeenCount(), actual.getSeenCount());
+    for (int row = 0; row < expected.getRowSize(); row++) {
+      for (int col = 0; col < expected.getColSize(); col++) {
+        assertEquals(expected.hasExplored(row, col), actual.hasExplored(row, col));
+        assertEquals(expected.hasSeen(row, col), actual.hasSeen(row, col));
+      }
+    }
+  }
+}
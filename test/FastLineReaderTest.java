@@ -0,0 +1,103 @@
+package test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import dungeon.FastLineReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.Scanner;
+import org.junit.Test;
+
+/**
+ * a class to test the fast reader of lines.
+ */
+public class FastLineReaderTest {
+  private static final String TEXT = "M\nN\r\nS\rarrow\n\nruby\r\n\r\n5\nlast";
+
+  @Test
+  public void linesOfReader() throws IOException {
+    assertEquals(scannerLines(TEXT), readAll(new FastLineReader(new StringReader(TEXT))));
+  }
+
+  @Test
+  public void linesOfBytes() throws IOException {
+    final FastLineReader lines = new FastLineReader(ByteBuffer.wrap(
+        TEXT.getBytes(StandardCharsets.UTF_8)));
+    assertEquals(scannerLines(TEXT), readAll(lines));
+    assertEquals(9, lines.getLineCount());
+  }
+
+  @Test
+  public void lastSeparatorEndsInput() throws IOException {
+    final FastLineReader lines = new FastLineReader(new StringReader("M\n"));
+    assertEquals("M", lines.readLine());
+    assertNull(lines.readLine());
+    assertNull(new FastLineReader(ByteBuffer.allocate(0)).readLine());
+  }
+
+  @Test
+  public void oneLetterLinesAreShared() throws IOException {
+    final FastLineReader lines = new FastLineReader(new StringReader("M\nM\n"));
+    assertSame(lines.readLine(), lines.readLine());
+  }
+
+  @Test
+  public void nonAsciiBytes() throws IOException {
+    final FastLineReader lines = new FastLineReader(ByteBuffer.wrap(
+        "sapphire\u00e9\n\u00e9\n".getBytes(StandardCharsets.UTF_8)));
+    assertEquals("sapphire\u00e9", lines.readLine());
+    assertEquals("\u00e9", lines.readLine());
+    assertNull(lines.readLine());
+  }
+
+  @Test
+  public void linesAcrossBlocks() throws IOException {
+    final Random rand = new Random(7);
+    final StringBuilder text = new StringBuilder();
+    final String[] separators = {"\n", "\r", "\r\n"};
+    for (int i = 0; i < 5000; i++) {
+      final int length = rand.nextInt(10) == 0 ? 20000 : rand.nextInt(4);
+      for (int j = 0; j < length; j++) {
+        text.append((char) ('a' + rand.nextInt(26)));
+      }
+      text.append(separators[rand.nextInt(separators.length)]);
+    }
+    // a reader giving at most a few characters at a time splits "\r\n" between blocks
+    final Reader trickle = new StringReader(text.toString()) {
+      @Override
+      public int read(char[] buffer, int offset, int length) throws IOException {
+        return super.read(buffer, offset, Math.min(length, 1 + rand.nextInt(3)));
+      }
+    };
+    assertEquals(scannerLines(text.toString()), readAll(new FastLineReader(trickle)));
+  }
+
+  private static List<String> readAll(FastLineReader lines) throws IOException {
+    final List<String> all = new ArrayList<>();
+    for (String line = lines.readLine(); line != null; line = lines.readLine()) {
+      all.add(line);
+    }
+    return all;
+  }
+
+  private static List<String> scannerLines(String text) {
+    final List<String> all = new ArrayList<>();
+    final Scanner scan = new Scanner(text);
+    try {
+      while (true) {
+        all.add(scan.nextLine());
+      }
+    } catch (NoSuchElementException e) {
+      return all;
+    }
+  }
+}
@@ -0,0 +1,241 @@
+package test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import dungeon.Direction;
+import dungeon.Dungeon;
+import dungeon.DungeonSnapshot;
+import dungeon.GameJournal;
+import dungeon.GameJournalReplayer;
+import dungeon.GameJournalReplayer.RecoveredGame;
+import dungeon.GameSession;
+import dungeon.GameSetup;
+import dungeon.GenerationMode;
+import dungeon.GridStorage;
+import dungeon.Player;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * a class to test the journal of games and their replay.
+ */
+public class GameJournalTest {
+  private Path file;
+
+  @Before
+  public void setUp() throws IOException {
+    file = Files.createTempFile("games", ".journal");
+    Files.delete(file);
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    Files.deleteIfExists(file);
+  }
+
+  @Test
+  public void replaysInterleavedGames() throws IOException {
+    final int snapshotInterval = 7;
+    final List<Dungeon> dungeons = new ArrayList<>();
+    try (GameJournal journal = new GameJournal(file, 5, snapshotInterval)) {
+      final List<GameSession> sessions = new ArrayList<>();
+      final List<List<String>> scripts = new ArrayList<>();
+      for (int gameId = 0; gameId < 6; gameId++) {
+        final GameSetup setup = newSetup(gameId);
+        final Dungeon dungeon = setup.create();
+        journal.recordGenesis(gameId, setup);
+        final GameSession session = new GameSession(dungeon, GameSetup.getPlayer(dungeon),
+            new StringBuilder(), false);
+        session.setJournal(journal, gameId);
+        session.start();
+        dungeons.add(dungeon);
+        sessions.add(session);
+        scripts.add(GameSessionTest.newScript(new Random(gameId), 400));
+      }
+      for (int i = 0; i < 400; i++) {
+        for (int gameId = 0; gameId < sessions.size(); gameId++) {
+          if (!sessions.get(gameId).isOver()) {
+            sessions.get(gameId).accept(scripts.get(gameId).get(i));
+          }
+        }
+      }
+    }
+
+    final Map<Integer, RecoveredGame> games = GameJournalReplayer.replay(file);
+    assertEquals(dungeons.size(), games.size());
+    assertTrue(games.values().stream().anyMatch(RecoveredGame::isFromSnapshot));
+    for (int gameId = 0; gameId < dungeons.size(); gameId++) {
+      final RecoveredGame game = games.get(gameId);
+      assertArrayEquals(toBytes(dungeons.get(gameId)), toBytes(game.getDungeon()));
+      assertSamePlayer(GameSetup.getPlayer(dungeons.get(gameId)), game.getPlayer());
+      assertEquals(dungeons.get(gameId).isGameOver(), game.isEnded());
+      assertTrue(game.getReplayedCount() <= snapshotInterval);
+    }
+  }
+
+  @Test
+  public void replaysFromSetupWithoutSnapshots() throws IOException {
+    final GameSetup setup = newSetup(3);
+    final Dungeon dungeon = setup.create();
+    try (GameJournal journal = new GameJournal(file, 5, 0)) {
+      journal.recordGenesis(9, setup);
+      final GameSession session = new GameSession(dungeon, GameSetup.getPlayer(dungeon),
+          new StringBuilder(), false);
+      session.setJournal(journal, 9);
+      session.start();
+      for (String line : GameSessionTest.newScript(new Random(3), 200)) {
+        if (!session.isOver()) {
+          session.accept(line);
+        }
+      }
+    }
+    final RecoveredGame game = GameJournalReplayer.replay(file).get(9);
+    assertFalse(game.isFromSnapshot());
+    assertArrayEquals(toBytes(dungeon), toBytes(game.getDungeon()));
+  }
+
+  @Test
+  public void snapshotAndSetupRecoverSamePlayer() throws IOException {
+    final Path other = Files.createTempFile("games", ".journal");
+    Files.delete(other);
+    try {
+      final GameSetup setup = newSetup(4);
+      final Dungeon withSnapshots = play(setup, file, 5);
+      final Dungeon withoutSnapshots = play(setup, other, 0);
+      final RecoveredGame fromSnapshot = GameJournalReplayer.replay(file).get(1);
+      final RecoveredGame fromSetup = GameJournalReplayer.replay(other).get(1);
+      assertTrue(fromSnapshot.isFromSnapshot());
+      assertFalse(fromSetup.isFromSnapshot());
+      assertTrue(fromSnapshot.getPlayer().getExplorationMap().getVisitedCount() > 1);
+      assertSamePlayer(fromSetup.getPlayer(), fromSnapshot.getPlayer());
+      assertSamePlayer(GameSetup.getPlayer(withSnapshots), fromSnapshot.getPlayer());
+      assertSamePlayer(GameSetup.getPlayer(withoutSnapshots), fromSetup.getPlayer());
+      assertArrayEquals(toBytes(fromSetup.getDungeon()), toBytes(fromSnapshot.getDungeon()));
+    } finally {
+      Files.deleteIfExists(other);
+    }
+  }
+
+  @Test
+  public void ignoresTornTail() throws IOException {
+    final GameSetup setup = newSetup(1);
+    final long whole;
+    try (GameJournal journal = new GameJournal(file, 5, 0)) {
+      journal.recordGenesis(1, setup);
+      whole = journal.recordEnd(1);
+      journal.recordEnd(2);
+    }
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+      channel.truncate(whole + 6);
+    }
+    final Map<Integer, RecoveredGame> games = GameJournalReplayer.replay(file);
+    assertEquals(1, games.size());
+    assertTrue(games.get(1).isEnded());
+
+    try (GameJournal journal = new GameJournal(file, 5, 0)) {
+      assertEquals(whole, Files.size(file));
+      journal.recordGenesis(2, newSetup(2));
+    }
+    assertEquals(2, GameJournalReplayer.replay(file).size());
+  }
+
+  @Test
+  public void commitMakesRecordsDurable() throws IOException {
+    try (GameJournal journal = new GameJournal(file, 60_000, 0)) {
+      final long position = journal.recordGenesis(1, newSetup(1));
+      journal.awaitCommit(position);
+      assertTrue(journal.getDurablePosition() >= position);
+      assertEquals(position, Files.size(file));
+    }
+  }
+
+  @Test
+  public void recordsCommittedWithinInterval() throws IOException, InterruptedException {
+    try (GameJournal journal = new GameJournal(file, 10, 0)) {
+      journal.recordGenesis(1, newSetup(1));
+      final long position = journal.recordMove(1, Direction.NORTH);
+      // no one waits for the records, the flusher commits them on its own
+      final long deadline = System.nanoTime() + 5_000_000_000L;
+      while (journal.getDurablePosition() < position && System.nanoTime() < deadline) {
+        Thread.sleep(20);
+      }
+      assertEquals(position, journal.getDurablePosition());
+      assertEquals(position, Files.size(file));
+
+      Thread.sleep(50);
+      final long next = journal.recordEnd(1);
+      Thread.sleep(500);
+      assertEquals(next, journal.getDurablePosition());
+    }
+  }
+
+  @Test(expected = IOException.class)
+  public void notAJournal() throws IOException {
+    Files.write(file, new byte[] {1, 2, 3, 4, 5, 6, 7, 8});
+    GameJournalReplayer.replay(file);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void journalNeedsOwnPlayer() throws IOException {
+    final Dungeon dungeon = newSetup(1).create();
+    try (GameJournal journal = new GameJournal(file, 5, 0)) {
+      new GameSession(dungeon, dungeon.getPlayer(), new StringBuilder(), false)
+          .setJournal(journal, 1);
+    }
+  }
+
+  private static Dungeon play(GameSetup setup, Path journalFile, int snapshotInterval)
+      throws IOException {
+    final Dungeon dungeon = setup.create();
+    try (GameJournal journal = new GameJournal(journalFile, 5, snapshotInterval)) {
+      journal.recordGenesis(1, setup);
+      final GameSession session = new GameSession(dungeon, GameSetup.getPlayer(dungeon),
+          new StringBuilder(), false);
+      session.setJournal(journal, 1);
+      session.start();
+      for (String line : GameSessionTest.newScript(new Random(4), 300)) {
+        if (!session.isOver()) {
+          session.accept(line);
+        }
+      }
+    }
+    return dungeon;
+  }
+
+  private static void assertSamePlayer(Player expected, Player actual) {
+    assertEquals(expected.getPlayerId(), actual.getPlayerId());
+    assertEquals(expected.getNumberOfArrows(), actual.getNumberOfArrows());
+    assertEquals(expected.getTreasures(), actual.getTreasures());
+    assertEquals(expected.getCurrLocation().getRowDim(), actual.getCurrLocation().getRowDim());
+    assertEquals(expected.getCurrLocation().getColDim(), actual.getCurrLocation().getColDim());
+    assertEquals(expected.toString(), actual.toString());
+    assertArrayEquals(expected.getExplorationMap().toByteArray(),
+        actual.getExplorationMap().toByteArray());
+  }
+
+  private static GameSetup newSetup(int seed) {
+    return new GameSetup(seed, 8, 8, 6, seed % 2 == 0, 50, 3, GenerationMode.SHUFFLED_PASS,
+        GridStorage.OBJECTS, 1);
+  }
+
+  private static byte[] toBytes(Dungeon dungeon) throws IOException {
+    final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    DungeonSnapshot.write(dungeon, Channels.newChannel(out));
+    return out.toByteArray();
+  }
+}
@@ -0,0 +1,116 @@
+package test;
+
+import static org.junit.Assert.assertEquals;
+
+import dungeon.Dungeon;
+import dungeon.GameSession;
+import dungeon.GameSessionHost;
+import dungeon.Player;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import org.junit.Test;
+
+/**
+ * a class to test the host running many game sessions on a few workers.
+ */
+public class GameSessionHostTest {
+
+  @Test
+  public void sessionsPlayTheSameAsAlone() throws IOException, InterruptedException {
+    final int sessions = 200;
+    final List<List<String>> scripts = new ArrayList<>();
+    final List<StringBuilder> texts = new ArrayList<>();
+    final List<Set<String>> threads = new ArrayList<>();
+    final long[] ids = new long[sessions];
+    final GameSessionHost host = new GameSessionHost(4);
+    for (int i = 0; i < sessions; i++) {
+      scripts.add(GameSessionTest.newScript(new Random(i), 100));
+      final StringBuilder text = new StringBuilder();
+      final Set<String> names = Collections.synchronizedSet(new HashSet<>());
+      texts.add(text);
+      threads.add(names);
+      final Dungeon dungeon = GameSessionTest.newDungeon(i);
+      final Player player = new Player(1);
+      dungeon.addPlayer(player);
+      ids[i] = host.open(dungeon, player, chunk -> {
+        text.append(chunk);
+        names.add(Thread.currentThread().getName());
+      });
+    }
+
+    // every session is fed by one of a few threads, which post concurrently
+    final int feeders = 4;
+    final CountDownLatch done = new CountDownLatch(feeders);
+    for (int f = 0; f < feeders; f++) {
+      final int first = f;
+      new Thread(() -> {
+        for (int i = first; i < sessions; i += feeders) {
+          for (String line : scripts.get(i)) {
+            host.submit(ids[i], line);
+          }
+        }
+        done.countDown();
+      }).start();
+    }
+    done.await();
+    host.close();
+
+    for (int i = 0; i < sessions; i++) {
+      final StringBuilder expected = new StringBuilder();
+      final Dungeon dungeon = GameSessionTest.newDungeon(i);
+      final Player player = new Player(1);
+      dungeon.addPlayer(player);
+      final GameSession session = new GameSession(dungeon, player, expected);
+      session.start();
+      for (String line : scripts.get(i)) {
+        if (session.isOver()) {
+          break;
+        }
+        session.accept(line);
+      }
+      assertEquals(expected.toString(), texts.get(i).toString());
+      assertEquals(1, threads.get(i).size());
+    }
+    assertEquals(0, host.getSessionCount());
+  }
+
+  @Test
+  public void closedSessionIsDropped() throws InterruptedException {
+    final GameSessionHost host = new GameSessionHost(2);
+    final Dungeon dungeon = GameSessionTest.newDungeon(5);
+    final Player player = new Player(1);
+    dungeon.addPlayer(player);
+    final StringBuilder text = new StringBuilder();
+    final CountDownLatch started = new CountDownLatch(1);
+    final long id = host.open(dungeon, player, chunk -> {
+      text.append(chunk);
+      started.countDown();
+    });
+    started.await();
+    assertEquals(1, host.getSessionCount());
+    final int length = text.length();
+    host.close(id);
+    host.submit(id, "M");
+    host.close();
+    assertEquals(length, text.length());
+    assertEquals(0, host.getSessionCount());
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void submitAfterClose() {
+    final GameSessionHost host = new GameSessionHost(1);
+    host.close();
+    host.submit(0, "M");
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void noWorkers() {
+    new GameSessionHost(0);
+  }
+}
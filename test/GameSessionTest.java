@@ -0,0 +1,155 @@
+package test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import dungeon.Dungeon;
+import dungeon.DungeonConsoleController;
+import dungeon.GameSession;
+import dungeon.GenerationMode;
+import dungeon.GridStorage;
+import dungeon.Player;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import org.junit.Test;
+
+/**
+ * a class to test the game played one line of input at a time.
+ */
+public class GameSessionTest {
+  private static final Path TRANSCRIPTS = Paths.get("test", "transcripts");
+  private static final String[] WORDS = {"M", "P", "S", "m", "N", "S", "E", "W", "N", "E",
+      "arrow", "diamond", "ruby", "sapphire", "1", "2", "5", "7", "x", ""};
+
+  @Test
+  public void sameTextAsRecordedTranscripts() throws IOException {
+    // recorded from the console controller before it was built on the session
+    for (int seed = 0; seed < 8; seed++) {
+      final List<String> lines = Files.readAllLines(TRANSCRIPTS.resolve("game-" + seed + ".in"));
+      final String expected = new String(
+          Files.readAllBytes(TRANSCRIPTS.resolve("game-" + seed + ".out")), StandardCharsets.UTF_8);
+
+      final StringBuilder actual = new StringBuilder();
+      final Dungeon dungeon = newDungeon(seed);
+      final Player player = new Player(1);
+      dungeon.addPlayer(player);
+      final GameSession session = new GameSession(dungeon, player, actual);
+      session.start();
+      for (int i = 0; i < lines.size() && !session.isOver(); i++) {
+        session.accept(lines.get(i));
+      }
+      assertEquals("transcript " + seed, expected, actual.toString());
+    }
+  }
+
+  @Test
+  public void sameTextAsConsoleController() throws IOException {
+    for (int seed = 0; seed < 40; seed++) {
+      final List<String> lines = newScript(new Random(seed), 300);
+
+      final StringBuilder expected = new StringBuilder();
+      final Dungeon controlled = newDungeon(seed);
+      final Player controlledPlayer = new Player(1);
+      controlled.addPlayer(controlledPlayer);
+      try {
+        new DungeonConsoleController(new StringReader(String.join("\n", lines) + "\n"), expected)
+            .playGame(controlled, controlledPlayer);
+      } catch (NoSuchElementException e) {
+        // the script ran out before the game was over
+      }
+
+      final StringBuilder actual = new StringBuilder();
+      final Dungeon dungeon = newDungeon(seed);
+      final Player player = new Player(1);
+      dungeon.addPlayer(player);
+      final GameSession session = new GameSession(dungeon, player, actual);
+      session.start();
+      for (int i = 0; i < lines.size() && !session.isOver(); i++) {
+        session.accept(lines.get(i));
+      }
+      assertEquals(expected.toString(), actual.toString());
+      assertEquals(controlled.isGameOver(), session.isOver());
+    }
+  }
+
+  @Test
+  public void picksUpMixedCase() throws IOException {
+    // the console controller threw IllegalArgumentException on anything but lower case
+    int seed = 0;
+    Dungeon dungeon = newDungeon(seed);
+    while (!dungeon.getStart().getPossiblePickupObjects().contains("arrow")) {
+      dungeon = newDungeon(++seed);
+    }
+    final Player player = new Player(1);
+    dungeon.addPlayer(player);
+    final int arrows = player.getNumberOfArrows();
+    final StringBuilder out = new StringBuilder();
+    final GameSession session = new GameSession(dungeon, player, out);
+    session.start();
+    session.accept("P");
+    session.accept("Arrow");
+    assertTrue(player.getNumberOfArrows() > arrows);
+    assertFalse(out.toString().contains("Invalid"));
+  }
+
+  @Test
+  public void overWhenWon() throws IOException {
+    final Dungeon dungeon = new Dungeon(8, 8, 6, false, 50, 3, new Random(1),
+        GenerationMode.SHUFFLED_PASS, GridStorage.OBJECTS);
+    dungeon.addStart();
+    dungeon.addEnd();
+    final Player player = new Player(1);
+    dungeon.addPlayer(player);
+    player.setCurrLocation(dungeon.getEnd());
+    final StringBuilder out = new StringBuilder();
+    final GameSession session = new GameSession(dungeon, player, out);
+    session.start();
+    assertTrue(session.isOver());
+    assertEquals("Yay! You won!\n", out.toString());
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void acceptBeforeStart() throws IOException {
+    final Dungeon dungeon = newDungeon(1);
+    final Player player = new Player(1);
+    dungeon.addPlayer(player);
+    new GameSession(dungeon, player, new StringBuilder()).accept("M");
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void startTwice() throws IOException {
+    final Dungeon dungeon = newDungeon(1);
+    final Player player = new Player(1);
+    dungeon.addPlayer(player);
+    final GameSession session = new GameSession(dungeon, player, new StringBuilder());
+    session.start();
+    session.start();
+  }
+
+  static List<String> newScript(Random random, int length) {
+    final List<String> lines = new ArrayList<>();
+    for (int i = 0; i < length; i++) {
+      lines.add(WORDS[random.nextInt(WORDS.length)]);
+    }
+    return lines;
+  }
+
+  static Dungeon newDungeon(int seed) {
+    final Dungeon dungeon = new Dungeon(8, 8, 6, seed % 2 == 0, 50, 3, new Random(seed),
+        GenerationMode.SHUFFLED_PASS, GridStorage.OBJECTS);
+    dungeon.assignTreasuresAndArrows();
+    dungeon.addStart();
+    dungeon.addEnd();
+    dungeon.assignMonsters();
+    return dungeon;
+  }
+}
@@ -0,0 +1,144 @@
+package test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import dungeon.AbstractLocation;
+import dungeon.Cave;
+import dungeon.Dungeon;
+import dungeon.GenerationMode;
+import dungeon.GridStorage;
+import dungeon.ItemIndex;
+import dungeon.ItemType;
+import dungeon.Player;
+import dungeon.Treasure;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import org.junit.Test;
+
+/**
+ * a class to test the index of the items of the dungeon.
+ */
+public class ItemIndexTest {
+
+  @Test
+  public void nearestByGridMatchesFullScan() {
+    for (GridStorage storage : GridStorage.values()) {
+      for (boolean isWrapping : new boolean[]{false, true}) {
+        final Dungeon dungeon = newDungeon(storage, isWrapping);
+        final ItemIndex index = dungeon.getItemIndex();
+        final Random rand = new Random(2);
+        for (int query = 0; query < 30; query++) {
+          final int sourceId = rand.nextInt(40 * 37);
+          for (ItemType type : ItemType.values()) {
+            final int k = 1 + rand.nextInt(8);
+            assertArrayEquals(scanNearest(dungeon, type, sourceId, k, isWrapping),
+                    index.findNearestByGrid(sourceId, type, k));
+          }
+        }
+      }
+    }
+  }
+
+  @Test
+  public void nearestByPathInOrderOfMoves() {
+    final Dungeon dungeon = newDungeon(GridStorage.COMPACT, true);
+    dungeon.addStart();
+    final int startId = dungeon.getStart().getIdByColSize(37);
+    final int[] distances = dungeon.getDistancesFromStart();
+    final ItemIndex index = dungeon.getItemIndex();
+    for (ItemType type : ItemType.values()) {
+      final int[] nearest = index.findNearestByPath(startId, type, 10);
+      assertEquals(Math.min(10, index.getCount(type)), nearest.length);
+      final List<Integer> expected = new ArrayList<>();
+      for (int id = 0; id < distances.length; id++) {
+        if (index.contains(type, id)) {
+          expected.add(distances[id]);
+        }
+      }
+      expected.sort(Comparator.naturalOrder());
+      for (int i = 0; i < nearest.length; i++) {
+        assertEquals((int) expected.get(i), distances[nearest[i]]);
+      }
+    }
+  }
+
+  @Test
+  public void indexFollowsPickUps() {
+    for (GridStorage storage : GridStorage.values()) {
+      final Dungeon dungeon = newDungeon(storage, false);
+      dungeon.addStart();
+      final ItemIndex index = dungeon.getItemIndex();
+      final Cave start = dungeon.getStart();
+      final int startId = start.getIdByColSize(37);
+      final int arrows = index.getCount(ItemType.ARROW);
+      final boolean hadArrows = start.getNumOfArrowsPresent() > 0;
+      start.addArrows();
+      start.addTreasures(Treasure.RUBIES);
+      assertTrue(index.contains(ItemType.ARROW, startId));
+      assertTrue(index.contains(ItemType.RUBIES, startId));
+      assertEquals(hadArrows ? arrows : arrows + 1, index.getCount(ItemType.ARROW));
+      assertArrayEquals(new int[]{startId}, index.findNearestByGrid(startId, ItemType.ARROW, 1));
+
+      final Player player = new Player(1);
+      dungeon.addPlayer(player);
+      while (player.getCurrLocation().getNumOfArrowsPresent() > 0) {
+        player.pickUpArrow();
+      }
+      while (start.getTreasureCount(Treasure.RUBIES) > 0) {
+        player.pickUpTreasure(Treasure.RUBIES);
+      }
+      assertFalse(index.contains(ItemType.ARROW, startId));
+      assertFalse(index.contains(ItemType.RUBIES, startId));
+      assertEquals(hadArrows ? arrows - 1 : arrows, index.getCount(ItemType.ARROW));
+    }
+  }
+
+  @Test
+  public void noItemsFound() {
+    final Dungeon dungeon = new Dungeon(20, 20, 3, false, 10, 3, new Random(1));
+    final ItemIndex index = dungeon.getItemIndex();
+    assertEquals(0, index.getCount(ItemType.DIAMOND));
+    assertEquals(0, index.findNearestByGrid(0, ItemType.DIAMOND, 3).length);
+    assertEquals(0, index.findNearestByPath(0, ItemType.ARROW, 3).length);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void locationOutsideDungeon() {
+    new Dungeon(4, 4, 0, false, 10, 3, new Random(1)).getItemIndex()
+            .findNearestByGrid(16, ItemType.ARROW, 1);
+  }
+
+  private static Dungeon newDungeon(GridStorage storage, boolean isWrapping) {
+    final Dungeon dungeon = new Dungeon(40, 37, 20, isWrapping, 15, 3, new Random(6),
+            GenerationMode.SHUFFLED_PASS, storage);
+    dungeon.assignTreasuresAndArrows();
+    return dungeon;
+  }
+
+  private static int[] scanNearest(Dungeon dungeon, ItemType type, int sourceId, int k,
+                                   boolean isWrapping) {
+    final List<long[]> holders = new ArrayList<>();
+    for (AbstractLocation[] row : dungeon.getLocations()) {
+      for (AbstractLocation location : row) {
+        final boolean isHeld = type == ItemType.ARROW ? location.getNumOfArrowsPresent() > 0
+                : location instanceof Cave
+                && ((Cave) location).getTreasureCount(type.getTreasure()) > 0;
+        if (isHeld) {
+          final int rows = Math.abs(location.getRowDim() - sourceId / 37);
+          final int cols = Math.abs(location.getColDim() - sourceId % 37);
+          final int distance = isWrapping ? Math.min(rows, 40 - rows) + Math.min(cols, 37 - cols)
+                  : rows + cols;
+          holders.add(new long[]{distance, location.getIdByColSize(37)});
+        }
+      }
+    }
+    holders.sort(Comparator.<long[]>comparingLong(holder -> holder[0])
+            .thenComparingLong(holder -> holder[1]));
+    return holders.stream().limit(k).mapToInt(holder -> (int) holder[1]).toArray();
+  }
+}
@@ -0,0 +1,110 @@
+package test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import dungeon.AbstractLocation;
+import dungeon.AliasTable;
+import dungeon.Cave;
+import dungeon.Dungeon;
+import dungeon.LootTable;
+import dungeon.Treasure;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Random;
+import org.junit.Test;
+
+/**
+ * a class to test the weighted draws of the loot of the dungeon.
+ */
+public class LootTableTest {
+
+  @Test
+  public void aliasTableFollowsWeights() {
+    final double[] weights = {1, 0, 3, 6};
+    final AliasTable table = new AliasTable(weights);
+    final int[] counts = new int[weights.length];
+    final Random rand = new Random(7);
+    final int draws = 100000;
+    for (int i = 0; i < draws; i++) {
+      counts[table.sample(rand)]++;
+    }
+    assertEquals(0, counts[1]);
+    for (int i = 0; i < weights.length; i++) {
+      assertEquals(weights[i] / 10, (double) counts[i] / draws, 0.01);
+    }
+  }
+
+  @Test
+  public void singleOutcomeDrawsNothing() {
+    final AliasTable table = new AliasTable(new double[]{2});
+    assertEquals(0, table.sample(new PredictableRandom(new int[0])));
+    assertEquals(1, table.size());
+  }
+
+  @Test
+  public void equalWeightsDrawOnce() {
+    final AliasTable table = new AliasTable(new double[]{1, 1, 1});
+    final PredictableRandom rand = new PredictableRandom(new int[]{3, 1});
+    assertEquals(2, table.sample(rand));
+    assertEquals(0, table.sample(rand));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void negativeWeight() {
+    new AliasTable(new double[]{1, -1});
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void noWeight() {
+    new AliasTable(new double[]{0, 0});
+  }
+
+  @Test
+  public void treasuresInDistinctCaves() {
+    final Dungeon dungeon = new Dungeon(20, 25, 10, true, 100, 3, new Random(4));
+    dungeon.assignTreasuresAndArrows();
+    int arrows = 0;
+    for (Cave cave : dungeon.getCaves()) {
+      assertEquals(1, cave.getTreasures().values().stream().mapToInt(Integer::intValue).sum());
+    }
+    for (AbstractLocation[] row : dungeon.getLocations()) {
+      for (AbstractLocation location : row) {
+        assertTrue(location.getNumOfArrowsPresent() <= 1);
+        arrows += location.getNumOfArrowsPresent();
+      }
+    }
+    assertEquals(dungeon.getCaves().size(), arrows);
+  }
+
+  @Test
+  public void customLootTable() {
+    final Map<Treasure, Double> weights = new EnumMap<>(Treasure.class);
+    weights.put(Treasure.RUBIES, 2.0);
+    weights.put(Treasure.DIAMOND, 0.0);
+    final LootTable lootTable = new LootTable(weights, new double[]{0, 0, 1}, true);
+    final Dungeon dungeon = new Dungeon(12, 12, 4, false, 50, 3, new Random(8));
+    dungeon.assignTreasuresAndArrows(lootTable);
+    int cavesWithTreasure = 0;
+    int cavesWithArrows = 0;
+    for (Cave cave : dungeon.getCaves()) {
+      if (!cave.getTreasures().isEmpty()) {
+        cavesWithTreasure++;
+        assertEquals(Collections.singleton(Treasure.RUBIES), cave.getTreasures().keySet());
+      }
+      if (cave.getNumOfArrowsPresent() > 0) {
+        cavesWithArrows++;
+        assertEquals(3, cave.getNumOfArrowsPresent());
+      }
+    }
+    assertEquals(dungeon.getCaves().size() * 50 / 100 + 1, cavesWithTreasure);
+    assertEquals(cavesWithTreasure, cavesWithArrows);
+    dungeon.getTunnels().forEach(tunnel -> assertEquals(0, tunnel.getNumOfArrowsPresent()));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void nullTreasureWeights() {
+    new LootTable(null, new double[]{1}, false);
+  }
+}
@@ -0,0 +1,214 @@
+package test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import dungeon.AbstractLocation;
+import dungeon.Cave;
+import dungeon.CaveGraph;
+import dungeon.CompactGrid;
+import dungeon.Direction;
+import dungeon.Dungeon;
+import dungeon.DungeonGraph;
+import dungeon.DungeonHelper;
+import dungeon.EllerDungeonGenerator;
+import dungeon.GenerationMode;
+import dungeon.MappedGrid;
+import dungeon.Monster;
+import dungeon.Player;
+import dungeon.SmellField;
+import dungeon.Treasure;
+import dungeon.Tunnel;
+import dungeon.WallBits;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * a class to test the memory-mapped grid.
+ */
+public class MappedGridTest {
+  private Path file;
+
+  /**
+   * a temporary file is created for the grid.
+   */
+  @Before
+  public void setUp() throws IOException {
+    file = Files.createTempFile("dungeon", ".map");
+  }
+
+  /**
+   * the temporary file is deleted.
+   */
+  @After
+  public void tearDown() throws IOException {
+    Files.deleteIfExists(file);
+  }
+
+  @Test
+  public void stateSurvivesReopening() throws IOException {
+    final byte[] wallBits = {
+        (byte) (WallBits.ALL & ~WallBits.RIGHT),
+        (byte) (WallBits.UP | WallBits.DOWN),
+        (byte) (WallBits.ALL & ~WallBits.LEFT)};
+    try (MappedGrid grid = MappedGrid.create(file, wallBits, 1, 3, false, 0, 20, 2)) {
+      assertEquals(2, grid.getNumberOfCaves());
+      assertEquals(1, grid.getNumberOfTunnels());
+      grid.getLocation(0, 1).addArrows();
+      grid.getCave(1).addTreasures(Treasure.DIAMOND);
+      grid.getCave(1).addMonster();
+      grid.setStartId(0);
+    }
+    try (MappedGrid grid = MappedGrid.open(file)) {
+      assertFalse(grid.isWrapping());
+      assertEquals(20, grid.getTreasurePercent());
+      assertEquals(2, grid.getDifficulty());
+      assertEquals(0, grid.getStartId());
+      assertEquals(-1, grid.getEndId());
+      assertTrue(grid.getLocation(0, 1) instanceof Tunnel);
+      assertEquals(1, grid.getLocation(0, 1).getNumOfArrowsPresent());
+      final Cave cave = (Cave) grid.getLocation(0, 2);
+      assertEquals(1, cave.getTreasureCount(Treasure.DIAMOND));
+      assertTrue(cave.hasOtyugh());
+      assertArrayEquals(new int[]{1}, grid.getMonsterCaveIndices());
+    }
+  }
+
+  @Test(expected = IOException.class)
+  public void openInvalidFile() throws IOException {
+    Files.write(file, new byte[64]);
+    MappedGrid.open(file);
+  }
+
+  @Test
+  public void openTruncatedFile() throws IOException {
+    final byte[] wallBits = new DungeonHelper().buildWallBits(6, 7, false, 2, new Random(3),
+            GenerationMode.SHUFFLED_PASS);
+    MappedGrid.create(file, wallBits, 6, 7, false, 2, 20, 2).close();
+    MappedGrid.open(file).close();
+    final long size = Files.size(file);
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+      channel.truncate(size - 1);
+    }
+    try {
+      MappedGrid.open(file).close();
+      fail("a truncated file was opened");
+    } catch (IOException e) {
+      // the file is left as it was
+      assertEquals(size - 1, Files.size(file));
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void createTooManyLocations() throws IOException {
+    MappedGrid.create(file, 1 << 16, 1 << 15, false, 0, 20, 2, sink -> {
+    });
+  }
+
+  @Test
+  public void sameLocationsAsGeneratedWallBits() throws IOException {
+    final byte[] wallBits = new DungeonHelper().buildWallBits(10, 12, true, 3, new Random(7),
+            GenerationMode.SHUFFLED_PASS);
+    try (MappedGrid grid = MappedGrid.create(file, wallBits, 10, 12, true, 3, 20, 4)) {
+      for (int i = 0; i < wallBits.length; i++) {
+        assertEquals(wallBits[i], (byte) grid.getWallBits(i));
+      }
+    }
+  }
+
+  @Test
+  public void createFromStreamingGenerator() throws IOException {
+    final EllerDungeonGenerator generator = new EllerDungeonGenerator(20, 9, 2, new Random(4));
+    try (MappedGrid grid = MappedGrid.create(file, 20, 9, false, 2, 20, 4,
+            generator::generate)) {
+      assertEquals(20 * 9, grid.getNumberOfCaves() + grid.getNumberOfTunnels());
+      assertEquals(grid.getNumberOfCaves(), grid.getCaves().size());
+    }
+  }
+
+  @Test
+  public void dungeonRestoredFromFile() throws IOException {
+    final byte[] wallBits = new DungeonHelper().buildWallBits(8, 8, false, 2, new Random(11),
+            GenerationMode.SHUFFLED_PASS);
+    final String start;
+    final String end;
+    try (MappedGrid grid = MappedGrid.create(file, wallBits, 8, 8, false, 2, 20, 3)) {
+      final Dungeon dungeon = Dungeon.fromMappedGrid(grid, new Random(2));
+      dungeon.addStart();
+      dungeon.addEnd();
+      dungeon.assignMonsters();
+      start = dungeon.getStart().toString();
+      end = dungeon.getEnd().toString();
+    }
+    try (MappedGrid grid = MappedGrid.open(file)) {
+      final Dungeon dungeon = Dungeon.fromMappedGrid(grid, new Random(2));
+      assertEquals(start, dungeon.getStart().toString());
+      assertEquals(end, dungeon.getEnd().toString());
+      assertEquals(3, dungeon.getMonsters().size());
+      assertTrue(dungeon.getEnd().hasOtyugh());
+    }
+  }
+  @Test
+  public void smellAndShotsWithoutGraphs() throws Exception {
+    final byte[] wallBits = new DungeonHelper().buildWallBits(10, 12, true, 3, new Random(5),
+            GenerationMode.SHUFFLED_PASS);
+    try (MappedGrid grid = MappedGrid.create(file, wallBits, 10, 12, true, 3, 20, 6)) {
+      final Dungeon dungeon = Dungeon.fromMappedGrid(grid, new Random(5));
+      dungeon.addStart();
+      dungeon.addEnd();
+      dungeon.assignMonsters();
+    }
+    try (MappedGrid grid = MappedGrid.open(file)) {
+      final Dungeon dungeon = Dungeon.fromMappedGrid(grid, new Random(5));
+      final CompactGrid compact = new CompactGrid(wallBits, 10, 12);
+      final SmellField smellField = new SmellField(compact, true);
+      for (Monster monster : dungeon.getMonsters()) {
+        final AbstractLocation location = monster.getLocation();
+        dungeon.setLocationSmellLevel(location, true);
+        smellField.addMonster(compact.getLocation(location.getRowDim(), location.getColDim()));
+      }
+      for (int row = 0; row < 10; row++) {
+        for (int col = 0; col < 12; col++) {
+          assertEquals(compact.getLocation(row, col).getSmellLevel(),
+                  grid.getLocation(row, col).getSmellLevel());
+        }
+      }
+
+      final CaveGraph caveGraph = CaveGraph.of(DungeonGraph.of(compact, true));
+      for (int id = 0; id < 120; id++) {
+        final AbstractLocation location = grid.getLocation(id / 12, id % 12);
+        for (Direction direction : Direction.values()) {
+          for (int distance = 1; distance <= 4; distance++) {
+            assertEquals(caveGraph.getArrowTarget(id, direction, distance),
+                    dungeon.getArrowTarget(location, direction, distance));
+          }
+        }
+      }
+      final Player player = new Player(1);
+      dungeon.addPlayer(player);
+      for (Direction direction : Direction.values()) {
+        player.shoot(dungeon, direction, 1);
+      }
+      assertNull(getField(dungeon, "graph"));
+      assertNull(getField(dungeon, "caveGraph"));
+    }
+  }
+
+  private static Object getField(Dungeon dungeon, String name) throws Exception {
+    final Field field = Dungeon.class.getDeclaredField(name);
+    field.setAccessible(true);
+    return field.get(dungeon);
+  }
+}
@@ -0,0 +1,77 @@
+package test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import dungeon.Orientation;
+import dungeon.PackedWalls;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * a class to test the packed walls.
+ */
+public class PackedWallsTest {
+  private PackedWalls wrappingWalls;
+  private PackedWalls nonWrappingWalls;
+
+  /**
+   * the packed walls are instantiated.
+   */
+  @Before
+  public void setUp() {
+    wrappingWalls = new PackedWalls(3, 4, true);
+    nonWrappingWalls = new PackedWalls(3, 4, false);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void invalidConstructorTest() {
+    wrappingWalls = new PackedWalls(0, 4, true);
+  }
+
+  @Test
+  public void size() {
+    assertEquals(24, wrappingWalls.size());
+    assertEquals(17, nonWrappingWalls.size());
+  }
+
+  @Test
+  public void packAndUnpack() {
+    final int wall = wrappingWalls.pack(2, 3, Orientation.HORIZONTAL);
+    assertEquals(2, wrappingWalls.getRow(wall));
+    assertEquals(3, wrappingWalls.getCol(wall));
+    assertEquals(Orientation.HORIZONTAL, wrappingWalls.getOrientation(wall));
+    assertEquals(11, wrappingWalls.getLocationId(wall));
+  }
+
+  @Test
+  public void neighborWrapsAround() {
+    assertEquals(8, wrappingWalls.getNeighborId(wrappingWalls.pack(2, 3, Orientation.HORIZONTAL)));
+    assertEquals(3, wrappingWalls.getNeighborId(wrappingWalls.pack(2, 3, Orientation.VERTICAL)));
+    assertEquals(6, wrappingWalls.getNeighborId(wrappingWalls.pack(1, 1, Orientation.HORIZONTAL)));
+    assertEquals(9, wrappingWalls.getNeighborId(wrappingWalls.pack(1, 1, Orientation.VERTICAL)));
+  }
+
+  @Test
+  public void nonWrappingHasNoBorderWalls() {
+    for (int i = 0; i < nonWrappingWalls.size(); i++) {
+      final int wall = nonWrappingWalls.getWall(i);
+      if (nonWrappingWalls.getOrientation(wall) == Orientation.VERTICAL) {
+        assertTrue(nonWrappingWalls.getRow(wall) < 2);
+      } else {
+        assertTrue(nonWrappingWalls.getCol(wall) < 3);
+      }
+    }
+  }
+
+  @Test
+  public void markBroken() {
+    final int wall = wrappingWalls.getWall(5);
+    assertFalse(wrappingWalls.isBroken(wall));
+    wrappingWalls.markBroken(wall);
+    wrappingWalls.markBroken(wall);
+    assertTrue(wrappingWalls.isBroken(wall));
+    assertEquals(23, wrappingWalls.getNumLeftOver());
+  }
+}
@@ -0,0 +1,72 @@
+package test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import dungeon.ParallelDungeonHelper;
+import dungeon.WallBits;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.Test;
+
+/**
+ * a class to test the parallel dungeon helper.
+ */
+public class ParallelDungeonHelperTest {
+
+  private int countEntrances(byte[] bits) {
+    int entrances = 0;
+    for (byte bit : bits) {
+      entrances += WallBits.getNumberOfEntrance(bit);
+    }
+    return entrances;
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void invalidTileSize() {
+    new ParallelDungeonHelper(ForkJoinPool.commonPool(), 0);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void invalidInterconnectivity() {
+    new ParallelDungeonHelper().buildWallBits(2, 2, true, 8, 1L);
+  }
+
+  @Test
+  public void sameSeedForAnyThreadCount() {
+    final byte[] single = new ParallelDungeonHelper(new ForkJoinPool(1), 8)
+            .buildWallBits(50, 37, true, 20, 99L);
+    final byte[] many = new ParallelDungeonHelper(new ForkJoinPool(4), 8)
+            .buildWallBits(50, 37, true, 20, 99L);
+    assertArrayEquals(single, many);
+  }
+
+  @Test
+  public void carvesSpanningTree() {
+    final byte[] bits = new ParallelDungeonHelper(new ForkJoinPool(3), 7)
+            .buildWallBits(40, 33, false, 0, 5L);
+    assertEquals(2 * (40 * 33 - 1), countEntrances(bits));
+  }
+
+  @Test
+  public void addsInterconnectivity() {
+    final byte[] bits = new ParallelDungeonHelper(new ForkJoinPool(2), 16)
+            .buildWallBits(30, 30, true, 25, 11L);
+    assertEquals(2 * (30 * 30 - 1 + 25), countEntrances(bits));
+  }
+
+  @Test
+  public void openingsMatchNeighbors() {
+    final int rows = 21;
+    final int cols = 17;
+    final byte[] bits = new ParallelDungeonHelper(new ForkJoinPool(2), 5)
+            .buildWallBits(rows, cols, true, 10, 3L);
+    for (int i = 0; i < rows; i++) {
+      for (int j = 0; j < cols; j++) {
+        final int below = bits[((i + 1) % rows) * cols + j];
+        final int right = bits[i * cols + (j + 1) % cols];
+        assertEquals((bits[i * cols + j] & WallBits.DOWN) != 0, (below & WallBits.UP) != 0);
+        assertEquals((bits[i * cols + j] & WallBits.RIGHT) != 0, (right & WallBits.LEFT) != 0);
+      }
+    }
+  }
+}
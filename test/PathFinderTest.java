@@ -0,0 +1,112 @@
+package test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import dungeon.CompactGrid;
+import dungeon.Dungeon;
+import dungeon.DungeonGraph;
+import dungeon.GenerationMode;
+import dungeon.GridStorage;
+import dungeon.PathFinder;
+import dungeon.WallBits;
+import java.util.Random;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * a class to test the shortest paths of the dungeon.
+ */
+public class PathFinderTest {
+  private PathFinder pathFinder;
+
+  /**
+   * a non-wrapping 2 * 2 grid is instantiated, its four caves joined in a ring.
+   */
+  @Before
+  public void setUp() {
+    final byte[] wallBits = {
+        (byte) (WallBits.UP | WallBits.LEFT),
+        (byte) (WallBits.UP | WallBits.RIGHT),
+        (byte) (WallBits.DOWN | WallBits.LEFT),
+        (byte) (WallBits.DOWN | WallBits.RIGHT)};
+    pathFinder = new Dungeon(new CompactGrid(wallBits, 2, 2), 0, false, 0, 1,
+            new Random(1)).getPathFinder();
+  }
+
+  @Test
+  public void pathAroundBlockedLocations() {
+    assertEquals(3, pathFinder.findPath(0, 3).length);
+    assertArrayEquals(new int[]{0, 2, 3}, pathFinder.findPath(0, 3, id -> id == 1));
+    assertArrayEquals(new int[]{0, 1, 3}, pathFinder.findPathBidirectional(0, 3, id -> id == 2));
+    assertEquals(0, pathFinder.findPath(0, 3, id -> id == 1 || id == 2).length);
+    assertEquals(0, pathFinder.findPathBidirectional(0, 3, id -> id == 1 || id == 2).length);
+    assertEquals(-1, pathFinder.getDistance(0, 3, id -> id == 3));
+    assertEquals(2, pathFinder.getDistance(0, 3, id -> id == 0));
+  }
+
+  @Test
+  public void pathToItself() {
+    assertArrayEquals(new int[]{2}, pathFinder.findPath(2, 2));
+    assertArrayEquals(new int[]{2}, pathFinder.findPathBidirectional(2, 2));
+    assertEquals(0, pathFinder.getDistance(2, 2, id -> true));
+  }
+
+  @Test
+  public void pathToNearest() {
+    assertArrayEquals(new int[]{0, 2}, pathFinder.findPathToNearest(0, id -> id > 0,
+        id -> false));
+    assertArrayEquals(new int[]{0, 1}, pathFinder.findPathToNearest(0, id -> id > 0,
+        id -> id == 2));
+    assertArrayEquals(new int[]{3}, pathFinder.findPathToNearest(3, id -> id > 0,
+        id -> false));
+    assertEquals(0, pathFinder.findPathToNearest(0, id -> id == 3, id -> id != 0).length);
+  }
+
+  @Test
+  public void shortestPathsOfGeneratedDungeon() {
+    for (boolean isWrapping : new boolean[]{false, true}) {
+      final Dungeon dungeon = new Dungeon(14, 17, 8, isWrapping, 10, 3, new Random(23),
+              GenerationMode.SHUFFLED_PASS, GridStorage.COMPACT);
+      dungeon.addStart();
+      final DungeonGraph graph = dungeon.getGraph();
+      final PathFinder finder = dungeon.getPathFinder();
+      final int startId = graph.getId(dungeon.getStart());
+      final int[] distances = dungeon.getDistancesFromStart();
+      for (int id = 0; id < graph.size(); id++) {
+        final int[] path = finder.findPath(startId, id);
+        final int[] bidirectionalPath = finder.findPathBidirectional(id, startId);
+        assertEquals(distances[id] + 1, path.length);
+        assertEquals(distances[id] + 1, bidirectionalPath.length);
+        assertEquals(distances[id], finder.getDistance(startId, id, other -> false));
+        assertValidPath(graph, startId, id, path);
+        assertValidPath(graph, id, startId, bidirectionalPath);
+      }
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void locationOutsideDungeon() {
+    pathFinder.findPath(0, 4);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void nullBlockedLocations() {
+    pathFinder.findPathBidirectional(0, 3, null);
+  }
+
+  private static void assertValidPath(DungeonGraph graph, int sourceId, int targetId,
+                                      int[] path) {
+    assertEquals(sourceId, path[0]);
+    assertEquals(targetId, path[path.length - 1]);
+    for (int i = 1; i < path.length; i++) {
+      boolean isMove = false;
+      for (int edge = graph.getFirstEdge(path[i - 1]); edge < graph.getEdgeEnd(path[i - 1]);
+           edge++) {
+        isMove |= graph.getTarget(edge) == path[i];
+      }
+      assertTrue(isMove);
+    }
+  }
+}
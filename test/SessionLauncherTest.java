@@ -0,0 +1,110 @@
+package test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import dungeon.Dungeon;
+import dungeon.GameSession;
+import dungeon.Player;
+import dungeon.SessionLauncher;
+import dungeon.SessionPipe;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import org.junit.Test;
+
+/**
+ * a class to test the games played by the console controller on threads of their own.
+ */
+public class SessionLauncherTest {
+
+  @Test
+  public void gamesPlayTheSameAsAlone()
+      throws IOException, InterruptedException, ExecutionException, TimeoutException {
+    try (SessionLauncher launcher = new SessionLauncher(true)) {
+      assertEquals(SessionLauncher.isVirtualThreadSupported(), launcher.isVirtual());
+      final List<StringBuilder> texts = new ArrayList<>();
+      final List<SessionPipe> pipes = new ArrayList<>();
+      final List<CompletableFuture<Boolean>> outcomes = new ArrayList<>();
+      for (int i = 0; i < 50; i++) {
+        final StringBuilder text = new StringBuilder();
+        final SessionPipe pipe = new SessionPipe(text::append, 0);
+        final Dungeon dungeon = GameSessionTest.newDungeon(i);
+        final Player player = new Player(1);
+        dungeon.addPlayer(player);
+        texts.add(text);
+        pipes.add(pipe);
+        outcomes.add(launcher.launch(dungeon, player, pipe));
+      }
+      for (int i = 0; i < pipes.size(); i++) {
+        for (String line : GameSessionTest.newScript(new Random(i), 100)) {
+          pipes.get(i).submit(line);
+        }
+        pipes.get(i).close();
+      }
+      for (int i = 0; i < pipes.size(); i++) {
+        final StringBuilder expected = new StringBuilder();
+        final Dungeon dungeon = GameSessionTest.newDungeon(i);
+        final Player player = new Player(1);
+        dungeon.addPlayer(player);
+        final GameSession session = new GameSession(dungeon, player, expected);
+        session.start();
+        for (String line : GameSessionTest.newScript(new Random(i), 100)) {
+          if (session.isOver()) {
+            break;
+          }
+          session.accept(line);
+        }
+        assertEquals(session.isOver(), outcomes.get(i).get(10, TimeUnit.SECONDS));
+        assertEquals(expected.toString(), texts.get(i).toString());
+      }
+      assertEquals(0, launcher.getSessionCount());
+    }
+  }
+
+  @Test
+  public void idleGameTimesOut()
+      throws InterruptedException, ExecutionException, TimeoutException {
+    try (SessionLauncher launcher = new SessionLauncher(true)) {
+      final StringBuilder text = new StringBuilder();
+      final Dungeon dungeon = GameSessionTest.newDungeon(3);
+      final Player player = new Player(1);
+      dungeon.addPlayer(player);
+      final CompletableFuture<Boolean> outcome =
+          launcher.launch(dungeon, player, new SessionPipe(text::append, 20));
+      assertFalse(outcome.get(10, TimeUnit.SECONDS));
+      assertTrue(text.toString().endsWith("(M-P-S)?\n"));
+    }
+  }
+
+  @Test
+  public void closeEndsWaitingGames()
+      throws InterruptedException, ExecutionException, TimeoutException {
+    final SessionLauncher launcher = new SessionLauncher(false);
+    assertFalse(launcher.isVirtual());
+    final List<CompletableFuture<Boolean>> outcomes = new ArrayList<>();
+    for (int i = 0; i < 10; i++) {
+      final Dungeon dungeon = GameSessionTest.newDungeon(i);
+      final Player player = new Player(1);
+      dungeon.addPlayer(player);
+      outcomes.add(launcher.launch(dungeon, player, new SessionPipe(text -> { }, 0)));
+    }
+    assertTrue(launcher.close(10000));
+    for (CompletableFuture<Boolean> outcome : outcomes) {
+      assertFalse(outcome.get(10, TimeUnit.SECONDS));
+    }
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void submitAfterClose() {
+    final SessionPipe pipe = new SessionPipe(text -> { }, 0);
+    pipe.close();
+    pipe.submit("M");
+  }
+}
@@ -0,0 +1,247 @@
+package test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import dungeon.AbstractLocation;
+import dungeon.Cave;
+import dungeon.Direction;
+import dungeon.Dungeon;
+import dungeon.GenerationMode;
+import dungeon.GridStorage;
+import dungeon.ItemIndex;
+import dungeon.Monster;
+import dungeon.PathFinder;
+import dungeon.Player;
+import dungeon.SharedDungeon;
+import dungeon.Treasure;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.Test;
+
+/**
+ * a class to test the dungeon shared by players acting concurrently.
+ */
+public class SharedDungeonTest {
+
+  @Test
+  public void playersByIds() {
+    final SharedDungeon shared = new SharedDungeon(newDungeon(GridStorage.OBJECTS));
+    shared.addPlayer(new Player(1));
+    shared.addPlayer(new Player(2));
+    assertEquals(2, shared.getPlayers().size());
+    assertEquals(shared.getDungeon().getStart(), shared.getPlayer(2).getCurrLocation());
+    shared.removePlayer(1);
+    assertEquals(1, shared.getPlayers().size());
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void sameIdTwice() {
+    final SharedDungeon shared = new SharedDungeon(newDungeon(GridStorage.OBJECTS));
+    shared.addPlayer(new Player(1));
+    shared.addPlayer(new Player(1));
+  }
+
+  @Test
+  public void sameIdTwiceKeepsThePlayerWhereItIs() {
+    final SharedDungeon shared = new SharedDungeon(newDungeon(GridStorage.OBJECTS));
+    final Player player = new Player(1);
+    shared.addPlayer(player);
+    shared.movePlayer(1, player.getCurrLocation().getPossibleMoves().get(0));
+    final AbstractLocation location = player.getCurrLocation();
+    try {
+      shared.addPlayer(player);
+      fail("the player was added twice");
+    } catch (IllegalStateException e) {
+      assertSame(location, player.getCurrLocation());
+    }
+  }
+
+  @Test
+  public void playersAreRegisteredOnTheStart() throws InterruptedException {
+    final SharedDungeon shared = new SharedDungeon(newDungeon(GridStorage.OBJECTS));
+    final AtomicReference<Throwable> failure = new AtomicReference<>();
+    final Thread adder = new Thread(() -> {
+      for (int playerId = 0; playerId < 2000; playerId++) {
+        shared.addPlayer(new Player(playerId));
+      }
+    });
+    final Thread reader = new Thread(() -> {
+      try {
+        while (shared.getPlayers().size() < 2000) {
+          for (Player player : shared.getPlayers()) {
+            assertNotNull(player.getCurrLocation());
+          }
+        }
+      } catch (Throwable e) {
+        failure.compareAndSet(null, e);
+      }
+    });
+    reader.start();
+    adder.start();
+    adder.join();
+    reader.join();
+    if (failure.get() != null) {
+      throw new AssertionError(failure.get());
+    }
+  }
+
+  @Test
+  public void lazyPartsBuiltOnceAcrossThreads() throws InterruptedException {
+    for (GridStorage storage : GridStorage.values()) {
+      final Dungeon dungeon = newDungeon(storage);
+      new SharedDungeon(dungeon);
+      final int numberOfThreads = 8;
+      final CountDownLatch ready = new CountDownLatch(numberOfThreads);
+      final ItemIndex[] indices = new ItemIndex[numberOfThreads];
+      final PathFinder[] pathFinders = new PathFinder[numberOfThreads];
+      final List<Thread> threads = new ArrayList<>();
+      for (int t = 0; t < numberOfThreads; t++) {
+        final int thread = t;
+        threads.add(new Thread(() -> {
+          ready.countDown();
+          try {
+            ready.await();
+          } catch (InterruptedException e) {
+            return;
+          }
+          indices[thread] = dungeon.getItemIndex();
+          pathFinders[thread] = dungeon.getPathFinder();
+        }));
+      }
+      threads.forEach(Thread::start);
+      for (Thread thread : threads) {
+        thread.join();
+      }
+      for (int t = 0; t < numberOfThreads; t++) {
+        assertSame(dungeon.getItemIndex(), indices[t]);
+        assertSame(dungeon.getPathFinder(), pathFinders[t]);
+      }
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void unknownPlayer() {
+    new SharedDungeon(newDungeon(GridStorage.OBJECTS)).movePlayer(3, Direction.NORTH);
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void dungeonWithoutStart() {
+    new SharedDungeon(new Dungeon(10, 10, 2, false, 10, 3, new Random(1)));
+  }
+
+  @Test
+  public void concurrentPlayersKeepItemsAndMonstersConsistent() throws InterruptedException {
+    for (GridStorage storage : GridStorage.values()) {
+      final Dungeon dungeon = newDungeon(storage);
+      final SharedDungeon shared = new SharedDungeon(dungeon);
+      final int arrowsBefore = countArrows(dungeon);
+      final int treasuresBefore = countTreasures(dungeon);
+      final int numberOfThreads = 8;
+      final AtomicInteger arrowsShot = new AtomicInteger();
+      final AtomicReference<Throwable> failure = new AtomicReference<>();
+      final CountDownLatch ready = new CountDownLatch(numberOfThreads);
+      final List<Thread> threads = new ArrayList<>();
+      for (int t = 0; t < numberOfThreads; t++) {
+        final int playerId = t;
+        shared.addPlayer(new Player(playerId));
+        threads.add(new Thread(() -> {
+          final Random rand = new Random(playerId);
+          ready.countDown();
+          try {
+            ready.await();
+            for (int i = 0; i < 3000; i++) {
+              final Player player = shared.getPlayer(playerId);
+              final List<Direction> moves = player.getCurrLocation().getPossibleMoves();
+              final Direction direction = moves.get(rand.nextInt(moves.size()));
+              if (rand.nextInt(10) == 0 && player.getNumberOfArrows() > 0) {
+                shared.shoot(playerId, direction, 1 + rand.nextInt(3));
+                arrowsShot.incrementAndGet();
+              } else {
+                shared.movePlayer(playerId, direction);
+              }
+              pickUpEverything(shared, playerId);
+            }
+          } catch (Throwable e) {
+            failure.compareAndSet(null, e);
+          }
+        }));
+      }
+      threads.forEach(Thread::start);
+      for (Thread thread : threads) {
+        thread.join();
+      }
+      if (failure.get() != null) {
+        throw new AssertionError(failure.get());
+      }
+      int arrowsHeld = 0;
+      int treasuresHeld = 0;
+      for (Player player : shared.getPlayers()) {
+        arrowsHeld += player.getNumberOfArrows();
+        treasuresHeld += player.getTreasures().size();
+      }
+      assertEquals(arrowsBefore + 3 * numberOfThreads,
+              countArrows(dungeon) + arrowsHeld + arrowsShot.get());
+      assertEquals(treasuresBefore, countTreasures(dungeon) + treasuresHeld);
+      for (Monster monster : dungeon.getMonsters()) {
+        final int health = monster.getHealth();
+        assertTrue(health == 0 || health == 50 || health == 100);
+      }
+    }
+  }
+
+  private static void pickUpEverything(SharedDungeon shared, int playerId) {
+    final AbstractLocation location = shared.getPlayer(playerId).getCurrLocation();
+    try {
+      while (location.getNumOfArrowsPresent() > 0) {
+        shared.pickupObject(playerId, "arrow");
+      }
+      if (location instanceof Cave) {
+        for (Treasure treasure : Treasure.values()) {
+          while (((Cave) location).getTreasureCount(treasure) > 0) {
+            shared.pickupObject(playerId, treasure.getSingularName());
+          }
+        }
+      }
+    } catch (IllegalStateException e) {
+      // another player took the object first
+    }
+  }
+
+  private static Dungeon newDungeon(GridStorage storage) {
+    final Dungeon dungeon = new Dungeon(24, 24, 30, true, 60, 12, new Random(3),
+            GenerationMode.SHUFFLED_PASS, storage);
+    dungeon.assignTreasuresAndArrows();
+    dungeon.addStart();
+    dungeon.addEnd();
+    dungeon.assignMonsters();
+    return dungeon;
+  }
+
+  private static int countArrows(Dungeon dungeon) {
+    int arrows = 0;
+    for (AbstractLocation[] row : dungeon.getLocations()) {
+      for (AbstractLocation location : row) {
+        arrows += location.getNumOfArrowsPresent();
+      }
+    }
+    return arrows;
+  }
+
+  private static int countTreasures(Dungeon dungeon) {
+    int treasures = 0;
+    for (Cave cave : dungeon.getCaves()) {
+      for (Treasure treasure : Treasure.values()) {
+        treasures += cave.getTreasureCount(treasure);
+      }
+    }
+    return treasures;
+  }
+}
@@ -0,0 +1,139 @@
+package test;
+
+import static org.junit.Assert.assertEquals;
+
+import dungeon.AbstractLocation;
+import dungeon.CompactGrid;
+import dungeon.Direction;
+import dungeon.Dungeon;
+import dungeon.DungeonGrid;
+import dungeon.GenerationMode;
+import dungeon.SmellField;
+import dungeon.WallBits;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+import java.util.Random;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * a class to test the smell field of the monsters.
+ */
+public class SmellFieldTest {
+  private DungeonGrid grid;
+  private SmellField smellField;
+
+  /**
+   * a non-wrapping 1 * 5 corridor is instantiated.
+   */
+  @Before
+  public void setUp() {
+    final byte[] wallBits = new byte[5];
+    for (int i = 0; i < wallBits.length; i++) {
+      wallBits[i] = (byte) (WallBits.UP | WallBits.DOWN);
+    }
+    wallBits[0] |= WallBits.LEFT;
+    wallBits[4] |= WallBits.RIGHT;
+    grid = new CompactGrid(wallBits, 1, 5);
+    smellField = new SmellField(grid, false);
+  }
+
+  @Test
+  public void smellDecreasesWithDistance() {
+    smellField.addMonster(grid.getLocation(0, 0));
+    assertSmells(3, 2, 1, 0, 0);
+  }
+
+  @Test
+  public void smellOfMonstersAddsUp() {
+    smellField.addMonster(grid.getLocation(0, 0));
+    smellField.addMonster(grid.getLocation(0, 2));
+    assertSmells(4, 4, 4, 2, 1);
+  }
+
+  @Test
+  public void removingMonsterRestoresSmell() {
+    smellField.addMonster(grid.getLocation(0, 1));
+    smellField.addMonster(grid.getLocation(0, 4));
+    smellField.removeMonster(grid.getLocation(0, 1));
+    assertSmells(0, 0, 1, 2, 3);
+  }
+
+  @Test
+  public void smellWrapsAroundEdges() {
+    final byte[] wallBits = new byte[5];
+    for (int i = 0; i < wallBits.length; i++) {
+      wallBits[i] = (byte) (WallBits.UP | WallBits.DOWN);
+    }
+    grid = new CompactGrid(wallBits, 1, 5);
+    smellField = new SmellField(grid, true);
+    smellField.addMonster(grid.getLocation(0, 0));
+    assertSmells(3, 2, 1, 1, 2);
+  }
+
+  @Test
+  public void smellFollowsPathsThroughDungeon() {
+    final Dungeon dungeon = new Dungeon(15, 18, 6, true, 10, 3, new Random(9),
+            GenerationMode.SHUFFLED_PASS);
+    final List<AbstractLocation> monsters = new ArrayList<>();
+    final Random rand = new Random(4);
+    for (int i = 0; i < 60; i++) {
+      final AbstractLocation location = dungeon.getLocations()[rand.nextInt(15)]
+              [rand.nextInt(18)];
+      monsters.add(location);
+      dungeon.setLocationSmellLevel(location, true);
+    }
+    for (int i = 0; i < 20; i++) {
+      dungeon.setLocationSmellLevel(monsters.remove(rand.nextInt(monsters.size())), false);
+    }
+    final int[] expected = new int[15 * 18];
+    for (AbstractLocation monster : monsters) {
+      final int[] distances = distancesFrom(dungeon, monster);
+      for (int id = 0; id < expected.length; id++) {
+        if (distances[id] >= 0 && distances[id] <= SmellField.RADIUS) {
+          expected[id] += SmellField.STRENGTH - distances[id];
+        }
+      }
+    }
+    for (AbstractLocation[] row : dungeon.getLocations()) {
+      for (AbstractLocation location : row) {
+        assertEquals(expected[location.getIdByColSize(18)], location.getSmellLevel());
+      }
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void invalidGrid() {
+    new SmellField(null, false);
+  }
+
+  private void assertSmells(int... smells) {
+    for (int i = 0; i < smells.length; i++) {
+      assertEquals(smells[i], grid.getLocation(0, i).getSmellLevel());
+    }
+  }
+
+  private int[] distancesFrom(Dungeon dungeon, AbstractLocation source) {
+    final int colSize = dungeon.getLocations()[0].length;
+    final int[] distances = new int[dungeon.getLocations().length * colSize];
+    Arrays.fill(distances, -1);
+    final Queue<AbstractLocation> queue = new ArrayDeque<>();
+    queue.add(source);
+    distances[source.getIdByColSize(colSize)] = 0;
+    while (!queue.isEmpty()) {
+      final AbstractLocation location = queue.remove();
+      for (Direction direction : location.getPossibleMoves()) {
+        final AbstractLocation next = dungeon.getNextLocationByDirection(location, direction);
+        if (distances[next.getIdByColSize(colSize)] < 0) {
+          distances[next.getIdByColSize(colSize)] = distances[location.getIdByColSize(colSize)]
+                  + 1;
+          queue.add(next);
+        }
+      }
+    }
+    return distances;
+  }
+}
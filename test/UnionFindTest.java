@@ -1,6 +1,8 @@
 package test;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 
 import dungeon.UnionFind;
 import org.junit.Before;
@@ -51,4 +53,13 @@ public class UnionFindTest {
     assertEquals(2, unionTest.getNumSubsets());
 
   }
-}
\ No newline at end of file
+
+  @Test
+  public void unionOfSameSetKeepsSubsets() {
+    assertTrue(unionTest.union(0, 1));
+    assertFalse(unionTest.union(1, 0));
+    assertEquals(2, unionTest.getNumSubsets());
+    assertTrue(unionTest.union(2, 0));
+    assertEquals(1, unionTest.getNumSubsets());
+  }
+}